@@ -2,6 +2,16 @@ attribute vec3 a_position;
 attribute vec3 a_normal;
 attribute vec2 a_texCoord0;
 
+#ifdef instanced
+    // columns of the model matrix of the instance
+    attribute vec4 a_modelMatrix0;
+    attribute vec4 a_modelMatrix1;
+    attribute vec4 a_modelMatrix2;
+    attribute vec4 a_modelMatrix3;
+
+    uniform mat4 u_viewProjectionMatrix;
+#endif
+
 uniform mat4 u_modelMatrix, u_modelViewMatrix, u_modelViewProjectionMatrix;
 uniform mat3 u_normalMatrix;
 uniform vec3 u_cameraPosition;
@@ -14,12 +24,25 @@ varying vec3 v_worldSpacePosition;
 void main() {
     vec4 position = vec4(a_position, 1.0);
 
+#ifdef instanced
+    mat4 modelMatrix = mat4(a_modelMatrix0, a_modelMatrix1, a_modelMatrix2, a_modelMatrix3);
+    vec4 worldSpacePosition = modelMatrix * position;
+
+    // instances are only scaled uniformly, so the rotation part is enough
+    v_normal = mat3(a_modelMatrix0.xyz, a_modelMatrix1.xyz, a_modelMatrix2.xyz) * a_normal;
+
+    gl_Position = u_viewProjectionMatrix * worldSpacePosition;
+#else
+    vec4 worldSpacePosition = u_modelMatrix * position;
+
     v_normal = u_normalMatrix * a_normal;
-    v_texCoord0 = a_texCoord0;
 
     gl_Position = u_modelViewProjectionMatrix * position;
+#endif
+
+    v_texCoord0 = a_texCoord0;
 
-    v_worldSpacePosition = (u_modelMatrix * position).xyz;
+    v_worldSpacePosition = worldSpacePosition.xyz;
 
-    v_viewDirection = normalize(u_cameraPosition - (u_modelMatrix * position).xyz);
+    v_viewDirection = normalize(u_cameraPosition - worldSpacePosition.xyz);
 }
\ No newline at end of file
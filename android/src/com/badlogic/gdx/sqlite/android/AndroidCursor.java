@@ -7,6 +7,8 @@ import android.database.sqlite.SQLiteException;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.sql.DatabaseCursor;
 import com.badlogic.gdx.sql.DatabaseFactory;
+import com.badlogic.gdx.sql.RowMapper;
+import com.badlogic.gdx.sql.RowMappers;
 import com.badlogic.gdx.sql.SQLiteGdxRuntimeException;
 
 /** @author M Rafay Aleem */
@@ -115,6 +117,11 @@ public class AndroidCursor implements DatabaseCursor {
 		}
 	}
 
+	@Override
+	public <T> int forEach (RowMapper<T> mapper, T target) {
+		return RowMappers.forEach(this, mapper, target);
+	}
+
 	public void setNativeCursor (Cursor cursorRef) {
 		cursor = cursorRef;
 	}
@@ -10,6 +10,7 @@ import com.badlogic.gdx.backends.android.AndroidApplication;
 import com.badlogic.gdx.sql.Database;
 import com.badlogic.gdx.sql.DatabaseCursor;
 import com.badlogic.gdx.sql.DatabaseManager;
+import com.badlogic.gdx.sql.DatabaseStatement;
 
 /** @author M Rafay Aleem */
 public class AndroidDatabaseManager implements DatabaseManager {
@@ -46,6 +47,11 @@ public class AndroidDatabaseManager implements DatabaseManager {
 		public void openOrCreateDatabase() {
 			if (database == null || !database.isOpen()) {
 				database = helper.getWritableDatabase();
+				// with a write-ahead log a commit appends to the log instead of
+				// rewriting the journal and the database, and it only has to be
+				// synced at checkpoints
+				database.enableWriteAheadLogging();
+				database.execSQL("PRAGMA synchronous=NORMAL");
 			}			
 		}
 
@@ -76,6 +82,30 @@ public class AndroidDatabaseManager implements DatabaseManager {
 			return aCursor;
 		}
 
+		@Override
+		public DatabaseStatement prepare(String sql) {
+			return new AndroidStatement(database, sql);
+		}
+
+		@Override
+		public void beginTransaction() {
+			database.beginTransaction();
+		}
+
+		@Override
+		public void commitTransaction() {
+			database.setTransactionSuccessful();
+			database.endTransaction();
+		}
+
+		@Override
+		public void rollbackTransaction() {
+			// a failed commit has already ended the transaction
+			if (database.inTransaction()) {
+				database.endTransaction();
+			}
+		}
+
 	}
 
 	public AndroidDatabaseManager() {
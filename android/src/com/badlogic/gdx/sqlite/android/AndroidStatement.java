@@ -0,0 +1,126 @@
+package com.badlogic.gdx.sqlite.android;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.sql.DatabaseFactory;
+import com.badlogic.gdx.sql.DatabaseStatement;
+import com.badlogic.gdx.sql.RowMapper;
+import com.badlogic.gdx.sql.SQLiteGdxRuntimeException;
+
+/**
+ * Statement of an Android database. Statements that do not return data are
+ * executed by a compiled {@link SQLiteStatement}. Queries are run by
+ * {@link SQLiteDatabase#rawQuery(String, String[])}, which binds all
+ * parameters as strings, so NULL cannot be bound to a query.
+ */
+public class AndroidStatement implements DatabaseStatement {
+
+	private final SQLiteDatabase database;
+	private final String sql;
+	private final SQLiteStatement statement;
+
+	/** The parameters as strings for queries, null for NULL. */
+	private final List<String> args = new ArrayList<String>();
+
+	public AndroidStatement (SQLiteDatabase database, String sql) {
+		this.database = database;
+		this.sql = sql;
+		try {
+			statement = database.compileStatement(sql);
+		} catch (SQLException e) {
+			throw new SQLiteGdxRuntimeException(e);
+		}
+	}
+
+	private void setArg (int index, String value) {
+		while (args.size() < index) {
+			args.add(null);
+		}
+		args.set(index - 1, value);
+	}
+
+	@Override
+	public void bindInt (int index, int value) {
+		bindLong(index, value);
+	}
+
+	@Override
+	public void bindLong (int index, long value) {
+		statement.bindLong(index, value);
+		setArg(index, Long.toString(value));
+	}
+
+	@Override
+	public void bindDouble (int index, double value) {
+		statement.bindDouble(index, value);
+		setArg(index, Double.toString(value));
+	}
+
+	@Override
+	public void bindString (int index, String value) {
+		if (value == null) {
+			bindNull(index);
+			return;
+		}
+		statement.bindString(index, value);
+		setArg(index, value);
+	}
+
+	@Override
+	public void bindNull (int index) {
+		statement.bindNull(index);
+		setArg(index, null);
+	}
+
+	@Override
+	public void clearBindings () {
+		statement.clearBindings();
+		args.clear();
+	}
+
+	@Override
+	public void execute () {
+		try {
+			statement.execute();
+		} catch (SQLException e) {
+			Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in executing the statement", e);
+			throw new SQLiteGdxRuntimeException(e);
+		}
+	}
+
+	@Override
+	public DatabaseCursor query () {
+		if (args.contains(null)) {
+			throw new SQLiteGdxRuntimeException("NULL cannot be bound to a query: " + sql);
+		}
+		AndroidCursor cursor = new AndroidCursor();
+		try {
+			Cursor tmp = database.rawQuery(sql, args.toArray(new String[args.size()]));
+			cursor.setNativeCursor(tmp);
+			return cursor;
+		} catch (SQLException e) {
+			Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in executing the query", e);
+			throw new SQLiteGdxRuntimeException(e);
+		}
+	}
+
+	@Override
+	public <T> int query (RowMapper<T> mapper, T target) {
+		// the cursor reads the rows in windows while they are mapped
+		return query().forEach(mapper, target);
+	}
+
+	@Override
+	public void close () {
+		statement.close();
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.badlogic.gdx.sqlite.android;
 
 import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.sql.RowMapper;
 
 public class EmptyCursor implements DatabaseCursor {
 
@@ -53,4 +54,9 @@ public class EmptyCursor implements DatabaseCursor {
 	public void close() {
 	}
 
+	@Override
+	public <T> int forEach(RowMapper<T> mapper, T target) {
+		return 0;
+	}
+
 }
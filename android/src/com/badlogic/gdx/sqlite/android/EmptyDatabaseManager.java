@@ -5,6 +5,8 @@ import java.util.List;
 import com.badlogic.gdx.sql.Database;
 import com.badlogic.gdx.sql.DatabaseCursor;
 import com.badlogic.gdx.sql.DatabaseManager;
+import com.badlogic.gdx.sql.DatabaseStatement;
+import com.badlogic.gdx.sql.RowMapper;
 
 public class EmptyDatabaseManager implements DatabaseManager {
 	
@@ -35,6 +37,69 @@ public class EmptyDatabaseManager implements DatabaseManager {
 		public DatabaseCursor rawQuery(DatabaseCursor cursor, String sql) {
 			return null;
 		}
+
+		@Override
+		public DatabaseStatement prepare(String sql) {
+			return new EmptyStatement();
+		}
+
+		@Override
+		public void beginTransaction() {
+		}
+
+		@Override
+		public void commitTransaction() {
+		}
+
+		@Override
+		public void rollbackTransaction() {
+		}
+		
+	}
+	
+	private class EmptyStatement implements DatabaseStatement {
+
+		@Override
+		public void bindInt(int index, int value) {
+		}
+
+		@Override
+		public void bindLong(int index, long value) {
+		}
+
+		@Override
+		public void bindDouble(int index, double value) {
+		}
+
+		@Override
+		public void bindString(int index, String value) {
+		}
+
+		@Override
+		public void bindNull(int index) {
+		}
+
+		@Override
+		public void clearBindings() {
+		}
+
+		@Override
+		public void execute() {
+		}
+
+		@Override
+		public DatabaseCursor query() {
+			return new EmptyCursor();
+		}
+
+		@Override
+		public <T> int query(RowMapper<T> mapper, T target) {
+			return 0;
+		}
+
+		@Override
+		public void close() {
+		}
 		
 	}
 
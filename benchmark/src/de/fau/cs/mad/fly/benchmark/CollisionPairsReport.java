@@ -0,0 +1,156 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import java.util.Random;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.physics.bullet.Bullet;
+import com.badlogic.gdx.physics.bullet.collision.CollisionConstants;
+import com.badlogic.gdx.physics.bullet.collision.btCollisionObject;
+import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
+
+import de.fau.cs.mad.fly.features.ICollisionListener;
+import de.fau.cs.mad.fly.game.CollisionDetector;
+import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.game.GameObject;
+
+/**
+ * Reports the broadphase pairs and the narrowphase pairs per step of the
+ * collision detector for a course of gates, collectibles and asteroids.
+ * <p>
+ * The course is simulated twice. The first time gate goals and collectibles
+ * are rigid bodies without contact response and every contact is reported,
+ * like before triggers were used. The second time they are triggers and only
+ * the contacts of the player are reported. The player flies through all gates
+ * and collectibles. The asteroids drift around the gates and hit each other
+ * and the gate posts, but never the player.
+ */
+public class CollisionPairsReport {
+    
+    private static final int GATES = 50;
+    private static final float GATE_DISTANCE = 10f;
+    private static final int ASTEROIDS = 100;
+    private static final int STEPS = 60 * 10;
+    
+    /** Counts the contacts of the player with gate goals and collectibles. */
+    private static class PassedListener implements ICollisionListener {
+        int gates = 0;
+        int collectibles = 0;
+        
+        @Override
+        public void onCollision(GameObject g1, GameObject g2) {
+            if (g1.getCollisionCategory() != CollisionDetector.PLAYER_CATEGORY) {
+                return;
+            }
+            if (g2.getCollisionCategory() == CollisionDetector.GATE_GOAL_CATEGORY) {
+                gates++;
+            } else if (g2.getCollisionCategory() == CollisionDetector.COLLECTIBLE_CATEGORY) {
+                collectibles++;
+            }
+        }
+    }
+    
+    public static void main(String[] args) {
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.renderInterval = 1f;
+        new HeadlessApplication(new ApplicationAdapter() {
+        }, config);
+        Bullet.init();
+        
+        report("rigid bodies, all contacts", false);
+        report("triggers, player contacts", true);
+        System.exit(0);
+    }
+    
+    private static void report(String mode, boolean triggers) {
+        CollisionDetector.createCollisionDetector();
+        CollisionDetector collisionDetector = CollisionDetector.getInstance();
+        PassedListener listener = new PassedListener();
+        collisionDetector.getCollisionContactListener().addListener(listener);
+        
+        GameModel model = new GameModel(new Model(), null);
+        btCollisionShape goalShape = collisionDetector.getShapeManager().createBoxShape("goal", new Vector3(0.8f, 0.1f, 0.8f));
+        btCollisionShape collectibleShape = collisionDetector.getShapeManager().createBoxShape("collectible", new Vector3(0.3f, 0.3f, 0.3f));
+        btCollisionShape postShape = collisionDetector.getShapeManager().createBoxShape("post", new Vector3(0.2f, 0.2f, 1.5f));
+        btCollisionShape boxShape = collisionDetector.getShapeManager().createBoxShape("box", new Vector3(0.5f, 0.5f, 0.5f));
+        
+        GameObject player = createGameObject(model, CollisionDetector.PLAYER_CATEGORY, 0f, 0f, -5f);
+        player.createRigidBody("player", boxShape, 1f, CollisionDetector.PLAYER_FLAG, CollisionDetector.ALL_FLAG);
+        player.getRigidBody().setActivationState(CollisionConstants.DISABLE_DEACTIVATION);
+        collisionDetector.addCollisionObject(player);
+        player.getRigidBody().setLinearVelocity(new Vector3(0f, 0f, GATES * GATE_DISTANCE / (STEPS / 60f)));
+        
+        Random random = new Random(42);
+        for (int i = 0; i < GATES; i++) {
+            float z = i * GATE_DISTANCE;
+            addDummy(collisionDetector, model, CollisionDetector.GATE_GOAL_CATEGORY, "goal", goalShape, 0f, 0f, 0f, z, triggers);
+            addDummy(collisionDetector, model, CollisionDetector.COLLECTIBLE_CATEGORY, "collectible", collectibleShape, 1f, 0f, 0f, z + GATE_DISTANCE / 2f, triggers);
+            for (int post = 0; post < 4; post++) {
+                float x = post % 2 == 0 ? -2f : 2f;
+                float y = post < 2 ? -2f : 2f;
+                GameObject gatePost = createGameObject(model, CollisionDetector.GATE_DISPLAY_CATEGORY, x, y, z);
+                gatePost.createRigidBody("post", postShape, 0f, CollisionDetector.OBJECT_FLAG, CollisionDetector.ALL_FLAG);
+                addWithAllContacts(collisionDetector, gatePost, triggers);
+            }
+        }
+        for (int i = 0; i < ASTEROIDS; i++) {
+            float z = random.nextFloat() * GATES * GATE_DISTANCE;
+            GameObject asteroid = createGameObject(model, CollisionDetector.OBSTACLE_CATEGORY, 2.6f + random.nextFloat() * 3.4f, random.nextFloat() * 4f - 2f, z);
+            asteroid.createRigidBody("asteroid", boxShape, 1f, CollisionDetector.OBJECT_FLAG, CollisionDetector.OBJECT_FLAG);
+            asteroid.getRigidBody().setActivationState(CollisionConstants.DISABLE_DEACTIVATION);
+            addWithAllContacts(collisionDetector, asteroid, triggers);
+            asteroid.getRigidBody().setLinearVelocity(new Vector3((random.nextFloat() - 0.5f) * 0.2f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f));
+        }
+        
+        long broadphasePairs = 0;
+        long narrowphasePairs = 0;
+        long start = System.nanoTime();
+        for (int step = 0; step < STEPS; step++) {
+            collisionDetector.perform(1f / 60f);
+            broadphasePairs += collisionDetector.getBroadphasePairs();
+            narrowphasePairs += collisionDetector.getNarrowphasePairs();
+        }
+        long time = System.nanoTime() - start;
+        
+        System.out.println(mode + ": " + collisionDetector.getCollisionObjects() + " collision objects, " + collisionDetector.getResourceManager().getLiveRigidBodies() + " rigid bodies, " + collisionDetector.getResourceManager().getLiveGhostObjects() + " ghost objects");
+        System.out.println(mode + ": " + (broadphasePairs / (float) STEPS) + " broadphase pairs, " + (narrowphasePairs / (float) STEPS) + " narrowphase pairs, " + (time / STEPS / 1000) + " us per step");
+        System.out.println(mode + ": " + collisionDetector.getCollisionContactListener().getContacts() + " reported contacts, " + listener.gates + " gates and " + listener.collectibles + " collectibles passed");
+        collisionDetector.dispose();
+    }
+    
+    private static GameObject createGameObject(GameModel model, int category, float x, float y, float z) {
+        GameObject gameObject = new GameObject(model, "object");
+        gameObject.setCollisionType(category);
+        gameObject.transform.setToTranslation(x, y, z);
+        return gameObject;
+    }
+    
+    /**
+     * Adds a gate goal or a collectible either as trigger or as rigid body
+     * without contact response.
+     */
+    private static void addDummy(CollisionDetector collisionDetector, GameModel model, int category, String id, btCollisionShape shape, float mass, float x, float y, float z, boolean trigger) {
+        GameObject dummy = createGameObject(model, category, x, y, z);
+        if (trigger) {
+            dummy.createTrigger(shape, CollisionDetector.DUMMY_FLAG, CollisionDetector.PLAYER_FLAG);
+        } else {
+            dummy.createRigidBody(id, shape, mass, CollisionDetector.DUMMY_FLAG, CollisionDetector.PLAYER_FLAG);
+            dummy.getRigidBody().setCollisionFlags(dummy.getRigidBody().getCollisionFlags() | btCollisionObject.CollisionFlags.CF_NO_CONTACT_RESPONSE);
+        }
+        addWithAllContacts(collisionDetector, dummy, trigger);
+    }
+    
+    /**
+     * Adds the game object to the collision world. Without triggers, every
+     * contact of the game object is reported.
+     */
+    private static void addWithAllContacts(CollisionDetector collisionDetector, GameObject gameObject, boolean triggers) {
+        if (!triggers) {
+            gameObject.getCollisionObject().setContactCallbackFilter(CollisionDetector.ALL_CATEGORIES);
+        }
+        collisionDetector.addCollisionObject(gameObject);
+    }
+}
@@ -0,0 +1,127 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.graphics.g3d.Model;
+
+import de.fau.cs.mad.fly.features.ICollisionListener;
+import de.fau.cs.mad.fly.game.CollisionDetector;
+import de.fau.cs.mad.fly.game.CollisionRouter;
+import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.game.GameObject;
+
+/**
+ * Measures how many contacts per second are passed to the collision
+ * listeners.
+ * <p>
+ * One operation is one contact of the player with a gate goal, a gate
+ * display, a collectible or an obstacle. Every listener is interested in one
+ * category. The typed routing uses the {@link CollisionRouter}, the broadcast
+ * routing passes every contact to every listener, which checks the category
+ * itself, like the collision detector did before. No native libraries are
+ * needed, the contacts are routed without Bullet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class CollisionRoutingBenchmark {
+    
+    /** Number of contacts routed by one invocation. */
+    private static final int CONTACTS = 1024;
+    
+    private static final int[] CATEGORIES = { CollisionDetector.GATE_GOAL_CATEGORY, CollisionDetector.GATE_DISPLAY_CATEGORY, CollisionDetector.COLLECTIBLE_CATEGORY, CollisionDetector.OBSTACLE_CATEGORY };
+    
+    @Param({ "0", "10", "100" })
+    public int listeners;
+    
+    @Param({ "typed", "broadcast" })
+    public String routing;
+    
+    private final CollisionRouter router = new CollisionRouter();
+    private final List<ICollisionListener> broadcastListeners = new ArrayList<ICollisionListener>();
+    
+    private GameObject player;
+    private final GameObject[] others = new GameObject[CONTACTS];
+    
+    /** Sums up the work of the listeners, so it is not optimized away. */
+    private long handled = 0;
+    
+    /**
+     * Listener for the collisions with objects of one category.
+     */
+    private class CategoryListener implements ICollisionListener {
+        private final int category;
+        
+        CategoryListener(int category) {
+            this.category = category;
+        }
+        
+        @Override
+        public void onCollision(GameObject g1, GameObject g2) {
+            if (g2.getCollisionCategory() != category) {
+                return;
+            }
+            handled++;
+        }
+    }
+    
+    @Setup
+    public void createContacts() {
+        player = createGameObject(CollisionDetector.PLAYER_CATEGORY);
+        GameObject[] targets = new GameObject[CATEGORIES.length];
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            targets[i] = createGameObject(CATEGORIES[i]);
+        }
+        for (int i = 0; i < CONTACTS; i++) {
+            others[i] = targets[i % targets.length];
+        }
+        
+        for (int i = 0; i < listeners; i++) {
+            int category = CATEGORIES[i % CATEGORIES.length];
+            CategoryListener listener = new CategoryListener(category);
+            router.addListener(listener, category);
+            broadcastListeners.add(listener);
+        }
+    }
+    
+    private static GameObject createGameObject(int category) {
+        GameObject gameObject = new GameObject(new GameModel(new Model(), null), "contact");
+        gameObject.setCollisionType(category);
+        return gameObject;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(CONTACTS)
+    public long route() {
+        if ("typed".equals(routing)) {
+            for (int i = 0; i < CONTACTS; i++) {
+                router.route(others[i], player);
+            }
+        } else {
+            for (int i = 0; i < CONTACTS; i++) {
+                for (ICollisionListener listener : broadcastListeners) {
+                    listener.onCollision(player, others[i]);
+                }
+            }
+        }
+        return handled;
+    }
+}
@@ -0,0 +1,102 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
+
+import de.fau.cs.mad.fly.game.FixedStepSimulation;
+import de.fau.cs.mad.fly.game.GameController;
+import de.fau.cs.mad.fly.graphics.InstanceBatch;
+import de.fau.cs.mad.fly.graphics.shaders.FlyBaseShader;
+import de.fau.cs.mad.fly.graphics.shaders.FlyShaderProvider;
+import de.fau.cs.mad.fly.res.Level;
+
+/**
+ * Counts the draw calls of rendering a level with and without the
+ * {@link InstanceBatch}. The uniform uploads of the shaders are reported as
+ * well, see {@link FlyBaseShader#getUniformUploads()}. Rendering must not
+ * compile shaders that were not built by
+ * {@link FlyShaderProvider#warmUp(Level)} while loading the level.
+ * <p>
+ * Every level is rendered in three modes: one by one, with merged static
+ * meshes like on OpenGL ES 2.0 and instanced like on OpenGL ES 3.0. The draw
+ * calls are recorded by the {@link NoopGL20} proxy. The program exits with
+ * status 1, if drawing game objects together needs more draw calls than
+ * drawing them one by one in any level. The level files are passed as
+ * arguments relative to the assets folder, which has to be the working
+ * directory.
+ */
+public class DrawCallCheck {
+    
+    /** Levels that are checked if no level is passed as argument. */
+    private static final String[] DEFAULT_LEVELS = { "levels/Beginner Levels/level1.json", "levels/Endless/randomEndlessRailLevel.json" };
+    
+    private static final int FRAMES = 10;
+    
+    public static void main(String[] args) {
+        String[] levels = args.length == 0 ? DEFAULT_LEVELS : args;
+        HeadlessFly fly = HeadlessFly.start();
+        GL20 gl = Gdx.gl20;
+        
+        boolean failed = false;
+        for (String level : levels) {
+            GameController gameController = fly.loadLevel(level);
+            FlyShaderProvider shaderProvider = gameController.getShaderProvider();
+            int variants = shaderProvider.getVariantCount();
+            
+            int single = render(gameController, gl, false, false);
+            int singleUploads = FlyBaseShader.getUniformUploads();
+            int merged = render(gameController, gl, true, false);
+            int mergedUploads = FlyBaseShader.getUniformUploads();
+            int compiled = shaderProvider.getVariantCount() - variants;
+            int instanced = render(gameController, gl, true, true);
+            int instancedUploads = FlyBaseShader.getUniformUploads();
+            
+            System.out.println(level + ": " + single + " single, " + merged + " merged, " + instanced + " instanced draw calls per frame");
+            System.out.println(level + ": " + singleUploads + " single, " + mergedUploads + " merged, " + instancedUploads + " instanced uniform uploads per frame");
+            if (merged > single || instanced > single) {
+                failed = true;
+            }
+            if (compiled > 0) {
+                System.out.println(level + ": " + compiled + " shaders compiled while rendering");
+                failed = true;
+            }
+        }
+        Gdx.gl30 = null;
+        fly.unloadLevel();
+        
+        if (failed) {
+            System.out.println("Drawing game objects together increased the draw calls or shaders were not warmed up.");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+    
+    /**
+     * Renders the level of the game controller some frames in the given mode.
+     * 
+     * @return draw calls of the last frame, the uniform uploads of the last
+     *         frame are kept by {@link FlyBaseShader}
+     */
+    private static int render(GameController gameController, GL20 gl, boolean batched, boolean instanced) {
+        Level level = gameController.getLevel();
+        level.getInstanceBatch().setEnabled(batched);
+        Gdx.gl30 = instanced ? (GL30) gl : null;
+        ModelBatch batch = gameController.getBatch();
+        PerspectiveCamera camera = gameController.getCameraController().updateCamera();
+        float delta = FixedStepSimulation.DEFAULT_TIME_STEP;
+        
+        int drawCalls = 0;
+        for (int i = 0; i < FRAMES; i++) {
+            NoopGL20.resetDrawCalls(gl);
+            FlyBaseShader.resetUniformUploads();
+            batch.begin(camera);
+            level.render(delta, batch, camera);
+            batch.end();
+            drawCalls = NoopGL20.getDrawCalls(gl);
+        }
+        return drawCalls;
+    }
+}
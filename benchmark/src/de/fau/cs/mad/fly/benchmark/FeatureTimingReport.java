@@ -0,0 +1,75 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import com.badlogic.gdx.utils.Array;
+
+import de.fau.cs.mad.fly.game.FeatureScheduler;
+import de.fau.cs.mad.fly.game.FeatureScheduler.Phase;
+import de.fau.cs.mad.fly.game.FeatureScheduler.Timing;
+import de.fau.cs.mad.fly.game.FeatureWorkers;
+import de.fau.cs.mad.fly.game.FixedStepSimulation;
+import de.fau.cs.mad.fly.game.GameController;
+import de.fau.cs.mad.fly.profile.PlayerProfileManager;
+import de.fau.cs.mad.fly.settings.SettingManager;
+
+/**
+ * Reports the time of every optional feature of a level, measured by the
+ * {@link FeatureScheduler}.
+ * <p>
+ * Every level is loaded and simulated headless for some frames, once with all
+ * features updated on the game thread and once with the independent features
+ * updated in parallel by {@link FeatureWorkers}, if the device has more than
+ * one core. The load and init phases are reported in total, the update phase
+ * per frame over the last {@link FeatureScheduler#FRAMES} frames. The level
+ * files are passed as arguments relative to the assets folder, which has to
+ * be the working directory.
+ */
+public class FeatureTimingReport {
+    
+    /** Levels that are reported if no level is passed as argument. */
+    private static final String[] DEFAULT_LEVELS = { "levels/Beginner Levels/level1.json" };
+    
+    private static final int FRAMES = 600;
+    
+    public static void main(String[] args) {
+        String[] levels = args.length == 0 ? DEFAULT_LEVELS : args;
+        HeadlessFly fly = HeadlessFly.start();
+        SettingManager settings = PlayerProfileManager.getInstance().getCurrentPlayerProfile().getSettingManager();
+        boolean parallel = FeatureWorkers.defaultThreads() > 0;
+        if (!parallel) {
+            System.out.println("single core, the features are not updated in parallel");
+        }
+        
+        for (String level : levels) {
+            settings.set(SettingManager.PARALLEL_FEATURES, false);
+            report(level, "serial", fly.loadLevel(level));
+            if (parallel) {
+                settings.set(SettingManager.PARALLEL_FEATURES, true);
+                report(level, "parallel", fly.loadLevel(level));
+            }
+        }
+        settings.set(SettingManager.PARALLEL_FEATURES, false);
+        fly.unloadLevel();
+        System.exit(0);
+    }
+    
+    private static void report(String level, String mode, GameController gameController) {
+        new FixedStepSimulation(gameController).run(FRAMES);
+        FeatureScheduler scheduler = gameController.getFeatureScheduler();
+        
+        Timing update = scheduler.getTiming(Phase.UPDATE);
+        System.out.println(level + " (" + mode + "): load " + (scheduler.getTiming(Phase.LOAD).getTotalNanos() / 1000) + " us, init " + (scheduler.getTiming(Phase.INIT).getTotalNanos() / 1000) + " us, update " + (update.getAverageNanos() / 1000f) + " us/frame (max " + (update.getMaxNanos() / 1000f) + " us) in " + scheduler.getUpdateBatches() + " batches");
+        for (Phase phase : new Phase[] { Phase.LOAD, Phase.INIT }) {
+            for (Timing timing : scheduler.getTimings(phase)) {
+                System.out.println("  " + timing.getName() + ": " + (timing.getTotalNanos() / 1000) + " us");
+            }
+        }
+        Array<Timing> timings = scheduler.getSlowestTimings(new Array<Timing>(), Integer.MAX_VALUE);
+        for (Timing timing : timings) {
+            System.out.println("  " + timing.getName() + ": " + (timing.getAverageNanos() / 1000f) + " us/frame (max " + (timing.getMaxNanos() / 1000f) + " us)");
+        }
+        if (scheduler.getWorkers() != null) {
+            FeatureWorkers workers = scheduler.getWorkers();
+            System.out.println("  " + workers.getThreads() + " workers, " + workers.getBatches() + " parallel batches, " + (workers.getWaitNanos() / 1000) + " us waited");
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import com.badlogic.gdx.Application.ApplicationType;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+
+import de.fau.cs.mad.fly.Fly;
+import de.fau.cs.mad.fly.Loader;
+import de.fau.cs.mad.fly.game.FixedStepSimulation;
+import de.fau.cs.mad.fly.game.GameController;
+import de.fau.cs.mad.fly.game.ParticleController;
+import de.fau.cs.mad.fly.profile.LevelGroupManager;
+import de.fau.cs.mad.fly.profile.PlayerProfileManager;
+import de.fau.cs.mad.fly.res.Assets;
+import de.fau.cs.mad.fly.res.Level;
+
+/**
+ * {@link Fly} running in a headless application without OpenGL context.
+ * <p>
+ * Loads levels exactly like {@link Loader} does and builds the
+ * {@link GameController} for them, so that the simulation can be driven by a
+ * {@link FixedStepSimulation}. Has to be started with the assets folder as
+ * working directory.
+ */
+public class HeadlessFly extends Fly {
+    
+    private static HeadlessFly instance;
+    
+    /**
+     * Starts the headless application once per JVM.
+     * 
+     * @return the running headless game
+     */
+    public static synchronized HeadlessFly start() {
+        if (instance == null) {
+            instance = new HeadlessFly();
+            HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+            // the main loop only has to keep the application alive
+            config.renderInterval = 1f;
+            new HeadlessApplication(instance, config) {
+                @Override
+                public ApplicationType getType() {
+                    // use the desktop database and desktop controls
+                    return ApplicationType.Desktop;
+                }
+            };
+            GL20 gl = NoopGL20.create();
+            Gdx.gl = gl;
+            Gdx.gl20 = gl;
+            
+            Assets.init();
+            LevelGroupManager.createLevelManager();
+            PlayerProfileManager.getInstance().getCurrentPlayerProfile();
+            ParticleController.createParticleController();
+        }
+        return instance;
+    }
+    
+    @Override
+    public void create() {
+        // everything is set up in start() on the calling thread
+    }
+    
+    @Override
+    public void render() {
+        // nothing to render without OpenGL context
+    }
+    
+    /**
+     * Loads the level synchronously, builds and initializes the game
+     * controller for it.
+     * 
+     * @param levelFile
+     *            path of the level json, relative to the assets folder.
+     * @return running game controller
+     */
+    public GameController loadLevel(String levelFile) {
+        unloadLevel();
+        
+        AssetDescriptor<Level> descriptor = new AssetDescriptor<Level>(levelFile, Level.class);
+        Assets.load(descriptor);
+        Level level = Assets.manager.get(descriptor);
+        Assets.modelCache.acquire(level.getDependencies());
+        level.getGateCircuit().reset();
+        level.head.file = levelFile;
+        if (!level.head.isEndless() && !level.head.isEndlessRails()) {
+            level.saveInitialState();
+        }
+        Loader.getInstance().setCurrentLevel(level);
+        
+        initGameController();
+        GameController gameController = getGameController();
+        gameController.getShaderProvider().warmUp(level);
+        gameController.initGame();
+        return gameController;
+    }
+    
+    /**
+     * Restarts the current level in place like
+     * {@link Loader#restartLevel(de.fau.cs.mad.fly.profile.LevelProfile)}
+     * does, or loads it again if its initial state was not saved.
+     * 
+     * @return running game controller
+     */
+    public GameController restartLevel() {
+        Level current = Loader.getInstance().getCurrentLevel();
+        if (!current.hasInitialState()) {
+            return loadLevel(current.head.file);
+        }
+        restartGameController();
+        GameController gameController = getGameController();
+        gameController.initGame();
+        return gameController;
+    }
+    
+    /**
+     * Disposes the game controller and unloads the current level, if there is
+     * one.
+     */
+    public void unloadLevel() {
+        Level current = Loader.getInstance().getCurrentLevel();
+        if (current != null) {
+            getGameController().disposeGame();
+            Assets.modelCache.release(current.getDependencies());
+            Assets.unload(current.head.file);
+            Loader.getInstance().setCurrentLevel(null);
+        }
+    }
+}
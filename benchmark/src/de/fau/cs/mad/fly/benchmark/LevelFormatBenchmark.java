@@ -0,0 +1,123 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+
+import de.fau.cs.mad.fly.res.BinaryLevelFormat;
+import de.fau.cs.mad.fly.res.LevelCompiler;
+import de.fau.cs.mad.fly.res.LevelDescriptor;
+import de.fau.cs.mad.fly.res.LevelParser;
+
+/**
+ * Compares reading a level from its json file with reading the compiled
+ * level of the {@link BinaryLevelFormat}.
+ * <p>
+ * One operation reads one level into a {@link LevelDescriptor} in one of the
+ * formats: json parsed into a tree, json parsed streaming or the compiled
+ * level from a memory-mapped file. Run with the gc profiler to get the
+ * allocated bytes per load (gc.alloc.rate.norm). The main method prints the
+ * peak heap usage of a single load in every format. The level files are
+ * passed relative to the assets folder, which has to be the working
+ * directory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LevelFormatBenchmark {
+    
+    /** Level file relative to the assets folder. */
+    @Param({ "levels/Beginner Levels/level1.json" })
+    public String level;
+    
+    @Param({ "json", "streaming", "binary" })
+    public String format;
+    
+    private final JsonReader reader = new JsonReader();
+    private final LevelParser parser = new LevelParser();
+    
+    private FileHandle jsonFile;
+    private FileHandle compiledFile;
+    
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void compileLevel() throws IOException {
+        jsonFile = new FileHandle(new File(level));
+        File compiled = File.createTempFile("level", BinaryLevelFormat.EXTENSION);
+        new LevelCompiler().compile(jsonFile.file(), compiled);
+        compiledFile = new FileHandle(compiled);
+    }
+    
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void deleteCompiledLevel() {
+        compiledFile.delete();
+    }
+    
+    @Benchmark
+    public LevelDescriptor load() {
+        if ("json".equals(format)) {
+            return parser.parse(reader.parse(jsonFile));
+        } else if ("streaming".equals(format)) {
+            return parser.parseStreaming(jsonFile);
+        }
+        return BinaryLevelFormat.read(compiledFile);
+    }
+    
+    /**
+     * Prints the peak heap usage of loading every level passed as argument in
+     * every format.
+     */
+    public static void main(String[] args) throws IOException {
+        String[] formats = { "json", "streaming", "binary" };
+        for (String level : args) {
+            StringBuilder line = new StringBuilder(level).append(':');
+            for (String format : formats) {
+                LevelFormatBenchmark benchmark = new LevelFormatBenchmark();
+                benchmark.level = level;
+                benchmark.format = format;
+                benchmark.compileLevel();
+                // warm up, so class loading is not measured
+                for (int i = 0; i < 100; i++) {
+                    benchmark.load();
+                }
+                line.append(' ').append(format).append(' ').append(peakHeap(benchmark) / 1024).append(" KiB");
+                benchmark.deleteCompiledLevel();
+            }
+            System.out.println(line);
+        }
+    }
+    
+    /**
+     * Measures the heap allocated by one load. A load is shorter than the
+     * interval between two garbage collections, so this is the peak heap
+     * usage the load adds.
+     * 
+     * @return allocated bytes of the load
+     */
+    private static long peakHeap(LevelFormatBenchmark benchmark) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        benchmark.load();
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+}
@@ -0,0 +1,111 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.fau.cs.mad.fly.game.FixedStepSimulation;
+import de.fau.cs.mad.fly.game.GameController;
+import de.fau.cs.mad.fly.game.PhysicsThread;
+import de.fau.cs.mad.fly.profile.PlayerProfileManager;
+import de.fau.cs.mad.fly.settings.SettingManager;
+
+/**
+ * Measures the cost of one simulated frame of a level without rendering.
+ * <p>
+ * One operation is one frame of {@link GameController#updateGame(float)} with
+ * a fixed time step of 1/60 s. Run with the gc profiler to get the allocated
+ * bytes per frame (gc.alloc.rate.norm). The level files are passed as
+ * parameter by the jmh task of this project.
+ * <p>
+ * A level ends after a few hundred frames, e.g. when the player crashes or
+ * the time is up, and frames of a finished game do not simulate anything. So
+ * the level is restarted in place within the frame that ended it, and every
+ * measured frame simulates a running game. The restart is measured as part
+ * of that frame.
+ * <p>
+ * The average time is the time the game thread spends per frame. With
+ * {@link #physicsThread} the world is stepped by a {@link PhysicsThread} in
+ * parallel to {@link #renderMicros} of busy work, which stands in for the
+ * rendering, e.g. {@code -p renderMicros=4000}. With {@link #parallelFeatures}
+ * the independent features are updated by
+ * {@link de.fau.cs.mad.fly.game.FeatureWorkers}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LevelFrameBenchmark {
+    
+    /** Level file relative to the assets folder. */
+    @Param({ "levels/Beginner Levels/level1.json" })
+    public String level;
+    
+    /** Steps the physics on its own thread. */
+    @Param({ "false", "true" })
+    public boolean physicsThread;
+    
+    /** Updates the independent features in parallel. */
+    @Param({ "false" })
+    public boolean parallelFeatures;
+    
+    /** Busy work on the game thread after every frame in microseconds. */
+    @Param({ "0" })
+    public long renderMicros;
+    
+    private HeadlessFly fly;
+    private FixedStepSimulation simulation;
+    
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void loadLevel() {
+        fly = HeadlessFly.start();
+        restart();
+    }
+    
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void unloadLevel() {
+        fly.unloadLevel();
+    }
+    
+    @Benchmark
+    public boolean frame() {
+        boolean running = simulation.step();
+        if (!running) {
+            simulation = new FixedStepSimulation(fly.restartLevel());
+        }
+        if (renderMicros > 0) {
+            render();
+        }
+        return running;
+    }
+    
+    /**
+     * Keeps the game thread busy like the rendering of a frame would.
+     */
+    private void render() {
+        final long end = System.nanoTime() + renderMicros * 1000L;
+        while (System.nanoTime() < end) {
+            // busy wait
+        }
+    }
+    
+    private void restart() {
+        SettingManager settings = PlayerProfileManager.getInstance().getCurrentPlayerProfile().getSettingManager();
+        settings.set(SettingManager.PHYSICS_THREAD, physicsThread);
+        settings.set(SettingManager.PARALLEL_FEATURES, parallelFeatures);
+        simulation = new FixedStepSimulation(fly.loadLevel(level));
+    }
+}
@@ -0,0 +1,215 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.badlogic.gdx.physics.bullet.collision.btCollisionObject;
+
+import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
+import de.fau.cs.mad.fly.game.CollisionDetector;
+import de.fau.cs.mad.fly.game.FixedStepSimulation;
+import de.fau.cs.mad.fly.game.GameController;
+import de.fau.cs.mad.fly.game.GameObject;
+import de.fau.cs.mad.fly.res.GateCircuit;
+import de.fau.cs.mad.fly.res.GateGoal;
+import de.fau.cs.mad.fly.res.Level;
+import de.fau.cs.mad.fly.res.LevelSnapshot;
+
+/**
+ * Checks that restarting a level in place restores its initial state and
+ * measures how long it takes compared to loading the level again.
+ * <p>
+ * Every level is loaded and played for some frames, then one of the active
+ * gates is passed and a collectible is collected, before it is restarted with
+ * {@link HeadlessFly#restartLevel()}. Afterwards the transforms, the
+ * visibility and the collision objects of all game objects, the collectibles,
+ * the active gates, the score and the time have to be the same as after
+ * loading the level, see {@link LevelSnapshot}. The program exits with status
+ * 1, if any level was not restored or the median restart took longer than
+ * {@link #MAX_RESTART_FRAMES} frames. Levels without a saved initial state,
+ * like the endless levels, are loaded again on a restart and are skipped. The
+ * level files are passed as arguments relative to the assets folder, which
+ * has to be the working directory.
+ */
+public class LevelRestartCheck {
+    
+    /** Levels that are checked if no level is passed as argument. */
+    private static final String[] DEFAULT_LEVELS = { "levels/Beginner Levels/level1.json" };
+    
+    private static final int PLAYED_FRAMES = 300;
+    private static final int RESTARTS = 5;
+    private static final int MAX_RESTART_FRAMES = 3;
+    
+    private static final float EPSILON = 1e-4f;
+    
+    /**
+     * The state of a running game that has to be restored by a restart.
+     */
+    private static class RestoredState {
+        final List<GameObject> objects = new ArrayList<GameObject>();
+        final List<float[]> transforms = new ArrayList<float[]>();
+        final List<float[]> worldTransforms = new ArrayList<float[]>();
+        final List<Boolean> visible = new ArrayList<Boolean>();
+        final int[] currentGates;
+        final int collisionObjects;
+        final int score;
+        final int time;
+        
+        RestoredState(GameController gameController) {
+            Level level = gameController.getLevel();
+            GateCircuit gateCircuit = level.getGateCircuit();
+            for (GameObject o : level.components) {
+                add(o);
+            }
+            for (GateGoal g : gateCircuit.allGateGoals()) {
+                add(g);
+                if (g.getDisplay() != null) {
+                    add(g.getDisplay());
+                }
+            }
+            for (Collectible c : level.getCollectibleManager().getCollectibles()) {
+                add(c);
+            }
+            currentGates = gateCircuit.currentGates().clone();
+            collisionObjects = CollisionDetector.getInstance().getCollisionObjects();
+            score = gameController.getScoreController().getTotalScore();
+            time = gameController.getTimeController().getIntegerTime();
+        }
+        
+        private void add(GameObject o) {
+            objects.add(o);
+            transforms.add(o.transform.val.clone());
+            btCollisionObject collisionObject = o.getCollisionObject();
+            worldTransforms.add(collisionObject == null ? null : collisionObject.getWorldTransform().val.clone());
+            visible.add(o.isVisible());
+        }
+        
+        /**
+         * Compares the state with the state after a restart.
+         * 
+         * @return description of the first difference or null if there is
+         *         none
+         */
+        String compare(RestoredState restarted) {
+            if (!objects.equals(restarted.objects)) {
+                return "game objects " + objects.size() + " != " + restarted.objects.size();
+            }
+            for (int i = 0; i < objects.size(); i++) {
+                String id = objects.get(i).getId();
+                if (!equals(transforms.get(i), restarted.transforms.get(i))) {
+                    return "transform of " + id;
+                }
+                if (!equals(worldTransforms.get(i), restarted.worldTransforms.get(i))) {
+                    return "collision object of " + id;
+                }
+                if (!visible.get(i).equals(restarted.visible.get(i))) {
+                    return "visibility of " + id;
+                }
+            }
+            if (!Arrays.equals(currentGates, restarted.currentGates)) {
+                return "active gates " + Arrays.toString(currentGates) + " != " + Arrays.toString(restarted.currentGates);
+            }
+            if (collisionObjects != restarted.collisionObjects) {
+                return "collision objects " + collisionObjects + " != " + restarted.collisionObjects;
+            }
+            if (score != restarted.score) {
+                return "score " + score + " != " + restarted.score;
+            }
+            if (time != restarted.time) {
+                return "time " + time + " != " + restarted.time;
+            }
+            return null;
+        }
+        
+        private static boolean equals(float[] a, float[] b) {
+            if (a == null || b == null) {
+                return a == b;
+            }
+            for (int i = 0; i < a.length; i++) {
+                if (Math.abs(a[i] - b[i]) > EPSILON) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    public static void main(String[] args) {
+        String[] levels = args.length == 0 ? DEFAULT_LEVELS : args;
+        HeadlessFly fly = HeadlessFly.start();
+        long frameNanos = (long) (FixedStepSimulation.DEFAULT_TIME_STEP * 1e9);
+        
+        boolean failed = false;
+        for (String level : levels) {
+            // the first load also loads the models, the second one is a retry
+            fly.loadLevel(level);
+            long start = System.nanoTime();
+            GameController gameController = fly.loadLevel(level);
+            long reloadNanos = System.nanoTime() - start;
+            
+            if (!gameController.getLevel().hasInitialState()) {
+                System.out.println(level + ": skipped, the level is loaded again on a restart");
+                continue;
+            }
+            RestoredState initial = new RestoredState(gameController);
+            
+            long[] restartNanos = new long[RESTARTS];
+            String difference = null;
+            for (int i = 0; i < RESTARTS && difference == null; i++) {
+                play(gameController);
+                start = System.nanoTime();
+                gameController = fly.restartLevel();
+                restartNanos[i] = System.nanoTime() - start;
+                difference = initial.compare(new RestoredState(gameController));
+            }
+            if (difference != null) {
+                System.out.println(level + ": not restored, " + difference);
+                failed = true;
+                continue;
+            }
+            
+            Arrays.sort(restartNanos);
+            long median = restartNanos[RESTARTS / 2];
+            System.out.println(level + ": restart " + (median / 1000) + " us (" + String.format("%.2f", median / (double) frameNanos) + " frames), reload " + (reloadNanos / 1000) + " us");
+            if (median > MAX_RESTART_FRAMES * frameNanos) {
+                failed = true;
+            }
+        }
+        fly.unloadLevel();
+        
+        if (failed) {
+            System.out.println("A level was not restarted in place correctly or in time.");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+    
+    /**
+     * Plays the game for some frames, passes one of the active gates that is
+     * not the last one and collects the first collectible.
+     */
+    private static void play(GameController gameController) {
+        new FixedStepSimulation(gameController).run(PLAYED_FRAMES);
+        if (gameController.getGameState() != GameController.GameState.RUNNING) {
+            return;
+        }
+        
+        GateCircuit gateCircuit = gameController.getLevel().getGateCircuit();
+        for (int id : gateCircuit.currentGates()) {
+            GateGoal gate = gateCircuit.getGateGoalById(id);
+            if (gate != null && gate.successors.length > 0) {
+                gateCircuit.gatePassed(gate);
+                break;
+            }
+        }
+        
+        List<Collectible> collectibles = gameController.getLevel().getCollectibleManager().getCollectibles();
+        GameObject plane = (GameObject) gameController.getPlayer().getPlane();
+        if (!collectibles.isEmpty() && collectibles.get(0).getCollisionObject() != null) {
+            CollisionDetector.getInstance().getCollisionContactListener().onContactStarted(plane.getCollisionObject(), true, collectibles.get(0).getCollisionObject(), true);
+        }
+        // the queued contacts of a physics thread are routed by the next frame
+        gameController.updateGame(FixedStepSimulation.DEFAULT_TIME_STEP);
+    }
+}
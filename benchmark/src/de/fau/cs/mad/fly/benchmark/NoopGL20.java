@@ -0,0 +1,217 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+
+/**
+ * {@link GL20} that does nothing, used to load levels without an OpenGL
+ * context.
+ * <p>
+ * Every call returns the default value of its return type. Only created
+ * handles are valid, implementation limits are reported as
+ * {@link #MAX_LIMIT} and the status queries of shaders and programs report
+ * success, so that shader programs are considered compiled and linked. The
+ * uniforms declared in the sources of the last linked program are reported as
+ * active uniforms, so that shaders upload their uniforms like on a device.
+ * <p>
+ * The proxy also implements {@link GL30} and records the number of draw
+ * calls, see {@link #getDrawCalls(GL20)}.
+ */
+public class NoopGL20 implements InvocationHandler {
+    
+    /**
+     * Creates a new {@link GL20} that does nothing.
+     * 
+     * @return GL20 proxy, which can be cast to {@link GL30}
+     */
+    public static GL20 create() {
+        return (GL20) Proxy.newProxyInstance(GL30.class.getClassLoader(), new Class<?>[] { GL30.class }, new NoopGL20());
+    }
+    
+    /**
+     * Getter for the number of draw calls of the proxy since the last
+     * {@link #resetDrawCalls(GL20)}. Instanced draw calls count as one draw
+     * call.
+     * 
+     * @param gl
+     *            proxy created by {@link #create()}
+     * @return number of draw calls
+     */
+    public static int getDrawCalls(GL20 gl) {
+        return ((NoopGL20) Proxy.getInvocationHandler(gl)).drawCalls;
+    }
+    
+    /**
+     * Resets the number of draw calls of the proxy.
+     * 
+     * @param gl
+     *            proxy created by {@link #create()}
+     */
+    public static void resetDrawCalls(GL20 gl) {
+        ((NoopGL20) Proxy.getInvocationHandler(gl)).drawCalls = 0;
+    }
+    
+    private int drawCalls = 0;
+    
+    private static final Pattern DEFINE = Pattern.compile("#define\\s+(\\w+)\\s+(\\d+)");
+    private static final Pattern STRUCT = Pattern.compile("struct\\s+(\\w+)\\s*\\{([^}]*)\\}");
+    private static final Pattern MEMBER = Pattern.compile("\\w+\\s+(\\w+)\\s*;");
+    private static final Pattern UNIFORM = Pattern.compile("uniform\\s+(?:(?:lowp|mediump|highp)\\s+)?(\\w+)\\s+([^;]+);");
+    private static final Pattern ARRAY = Pattern.compile("(\\w+)\\s*\\[\\s*(\\w+)\\s*\\]");
+    
+    /** Sources of the shaders since the last linked program. */
+    private final List<String> sources = new ArrayList<String>();
+    
+    /** Active uniforms of the last linked program. */
+    private final List<String> uniforms = new ArrayList<String>();
+    
+    /** Value reported for all implementation limits like texture units. */
+    private static final int MAX_LIMIT = 16;
+    
+    private NoopGL20() {
+    }
+    
+    private static boolean isLimit(int pname) {
+        return pname == GL20.GL_MAX_TEXTURE_IMAGE_UNITS || pname == GL20.GL_MAX_COMBINED_TEXTURE_IMAGE_UNITS || pname == GL20.GL_MAX_TEXTURE_SIZE || pname == GL20.GL_MAX_VERTEX_ATTRIBS;
+    }
+    
+    /**
+     * Collects the uniforms declared in the sources of the linked program.
+     * Arrays of structs are expanded to their members.
+     */
+    private void link() {
+        Map<String, Integer> defines = new HashMap<String, Integer>();
+        Map<String, List<String>> structs = new HashMap<String, List<String>>();
+        Set<String> names = new LinkedHashSet<String>();
+        for (String source : sources) {
+            source = source.replaceAll("//[^\\n]*", "");
+            Matcher matcher = DEFINE.matcher(source);
+            while (matcher.find()) {
+                defines.put(matcher.group(1), Integer.valueOf(matcher.group(2)));
+            }
+            matcher = STRUCT.matcher(source);
+            while (matcher.find()) {
+                List<String> members = new ArrayList<String>();
+                Matcher member = MEMBER.matcher(matcher.group(2));
+                while (member.find()) {
+                    members.add(member.group(1));
+                }
+                structs.put(matcher.group(1), members);
+            }
+            matcher = UNIFORM.matcher(source);
+            while (matcher.find()) {
+                List<String> members = structs.get(matcher.group(1));
+                for (String declaration : matcher.group(2).split(",")) {
+                    declaration = declaration.trim();
+                    Matcher array = ARRAY.matcher(declaration);
+                    if (!array.matches()) {
+                        addUniform(names, declaration, members);
+                        continue;
+                    }
+                    String size = array.group(2);
+                    int length;
+                    if (defines.containsKey(size)) {
+                        length = defines.get(size).intValue();
+                    } else if (size.matches("\\d+")) {
+                        length = Integer.parseInt(size);
+                    } else {
+                        // declared in a disabled block of the preprocessor
+                        continue;
+                    }
+                    for (int i = 0; i < length; i++) {
+                        addUniform(names, array.group(1) + "[" + i + "]", members);
+                    }
+                }
+            }
+        }
+        sources.clear();
+        uniforms.clear();
+        uniforms.addAll(names);
+    }
+    
+    private static void addUniform(Set<String> names, String name, List<String> members) {
+        if (members == null) {
+            names.add(name);
+            return;
+        }
+        for (String member : members) {
+            names.add(name + "." + member);
+        }
+    }
+    
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.startsWith("glDrawArrays") || name.startsWith("glDrawElements") || "glDrawRangeElements".equals(name)) {
+            drawCalls++;
+            return null;
+        }
+        if ("glShaderSource".equals(name)) {
+            sources.add((String) args[1]);
+            return null;
+        }
+        if ("glLinkProgram".equals(name)) {
+            link();
+            return null;
+        }
+        if ("glGetActiveUniform".equals(name)) {
+            IntBuffer size = (IntBuffer) args[2];
+            size.put(size.position(), 1);
+            return uniforms.get(((Integer) args[1]).intValue());
+        }
+        if ("glGetShaderiv".equals(name) || "glGetProgramiv".equals(name)) {
+            int pname = ((Integer) args[1]).intValue();
+            IntBuffer params = (IntBuffer) args[2];
+            if (pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS) {
+                params.put(params.position(), 1);
+            } else if (pname == GL20.GL_ACTIVE_UNIFORMS) {
+                params.put(params.position(), uniforms.size());
+            } else {
+                params.put(params.position(), 0);
+            }
+            return null;
+        }
+        if ("glGetIntegerv".equals(name)) {
+            int pname = ((Integer) args[0]).intValue();
+            IntBuffer params = (IntBuffer) args[1];
+            params.put(params.position(), isLimit(pname) ? MAX_LIMIT : 0);
+            return null;
+        }
+        if (name.startsWith("glGen") && args != null && args.length == 2 && args[1] instanceof IntBuffer) {
+            // handles of created objects must not be 0
+            IntBuffer handles = (IntBuffer) args[1];
+            int count = ((Integer) args[0]).intValue();
+            for (int i = 0; i < count; i++) {
+                handles.put(handles.position() + i, 1);
+            }
+            return null;
+        }
+        if ("glGetShaderInfoLog".equals(name) || "glGetProgramInfoLog".equals(name) || "glGetString".equals(name)) {
+            return "";
+        }
+        
+        Class<?> type = method.getReturnType();
+        if (type == Integer.TYPE) {
+            // handles of created objects must not be 0
+            return Integer.valueOf(name.startsWith("glCreate") || name.startsWith("glGen") ? 1 : 0);
+        } else if (type == Boolean.TYPE) {
+            return Boolean.FALSE;
+        } else if (type == Float.TYPE) {
+            return Float.valueOf(0f);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import com.badlogic.gdx.graphics.PerspectiveCamera;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
+
+import de.fau.cs.mad.fly.game.CameraController;
+import de.fau.cs.mad.fly.game.FixedStepSimulation;
+import de.fau.cs.mad.fly.game.FlightController;
+import de.fau.cs.mad.fly.game.GameController;
+import de.fau.cs.mad.fly.player.IPlane;
+
+/**
+ * Checks that the per frame path of the player does not allocate memory.
+ * <p>
+ * One frame consists of {@link FlightController#update(float)},
+ * {@link CameraController#updateCamera()} and rendering the plane into the
+ * model batch, like the {@link GameController} does it. After a warm up the
+ * allocated bytes of the current thread are measured. Beginning and flushing
+ * the model batch is excluded, because the calls of the {@link NoopGL20}
+ * proxy box their arguments. The program exits with status 1, if any level
+ * allocated memory in the measured frames. The level files are passed as
+ * arguments relative to the assets folder, which has to be the working
+ * directory.
+ */
+public class PlayerPathAllocationCheck {
+    
+    /** Levels that are checked if no level is passed as argument. */
+    private static final String[] DEFAULT_LEVELS = { "levels/Beginner Levels/level1.json", "levels/Endless/randomEndlessRailLevel.json" };
+    
+    private static final int WARMUP_FRAMES = 2000;
+    private static final int MEASURED_FRAMES = 1000;
+    
+    public static void main(String[] args) {
+        String[] levels = args.length == 0 ? DEFAULT_LEVELS : args;
+        HeadlessFly fly = HeadlessFly.start();
+        
+        boolean failed = false;
+        for (String level : levels) {
+            GameController gameController = fly.loadLevel(level);
+            
+            simulate(gameController, WARMUP_FRAMES);
+            long allocated = simulate(gameController, MEASURED_FRAMES);
+            
+            System.out.println(level + ": " + allocated + " bytes in " + MEASURED_FRAMES + " frames");
+            if (allocated > 0) {
+                failed = true;
+            }
+        }
+        fly.unloadLevel();
+        
+        if (failed) {
+            System.out.println("The player path allocated memory.");
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+    
+    /**
+     * Simulates the player path of the given number of frames.
+     * 
+     * @return bytes allocated by the player path in these frames
+     */
+    private static long simulate(GameController gameController, int frames) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        float delta = FixedStepSimulation.DEFAULT_TIME_STEP;
+        FlightController flightController = gameController.getFlightController();
+        CameraController cameraController = gameController.getCameraController();
+        IPlane plane = gameController.getPlayer().getPlane();
+        ModelBatch batch = gameController.getBatch();
+        
+        long allocated = 0;
+        for (int i = 0; i < frames; i++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            flightController.update(delta);
+            PerspectiveCamera camera = cameraController.updateCamera();
+            allocated += threads.getThreadAllocatedBytes(thread) - before;
+            
+            batch.begin(camera);
+            before = threads.getThreadAllocatedBytes(thread);
+            plane.render(delta);
+            allocated += threads.getThreadAllocatedBytes(thread) - before;
+            batch.end();
+        }
+        return allocated;
+    }
+}
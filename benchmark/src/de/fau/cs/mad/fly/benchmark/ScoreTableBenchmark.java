@@ -0,0 +1,176 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import java.io.File;
+import java.util.Random;
+
+import com.badlogic.gdx.sql.Database;
+import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.sql.DatabaseFactory;
+import com.badlogic.gdx.sql.DatabaseStatement;
+
+import de.fau.cs.mad.fly.db.FlyDBManager;
+import de.fau.cs.mad.fly.db.MigrationRunner;
+
+/**
+ * Measures lookups and upserts of scores in a table of {@link #SCORES} scores
+ * before and after the migrations of {@link FlyDBManager}.
+ * <p>
+ * The tables are created like in the first version of the database and filled
+ * with the scores of {@link #PLAYERS} players. A lookup reads the score of a
+ * random level like the profile cache does, an upsert replaces it. Before the
+ * migrations a score is replaced by a delete and an insert, afterwards by one
+ * insert that replaces the row with the same primary key. The upserts of a
+ * run are written in one transaction, so that the time of the index is
+ * measured and not the time of the sync. The database is a file of its own in
+ * the working directory, which is deleted afterwards.
+ */
+public class ScoreTableBenchmark {
+
+    private static final String DATABASE_NAME = "score-table-benchmark.db";
+
+    private static final int PLAYERS = 100;
+
+    private static final int LEVEL_GROUPS = 10;
+
+    private static final int LEVELS = 100;
+
+    private static final int SCORES = PLAYERS * LEVEL_GROUPS * LEVELS;
+
+    private static final int OPERATIONS_PER_RUN = 100;
+
+    private static final float SECONDS_PER_MODE = 3f;
+
+    private static final String SELECT_SCORE = "select score, compare_score, is_uploaded, server_score_id from score where player_id=? and level_group_id=? and level_id=?";
+
+    private static final String DELETE_SCORE = "delete from score where player_id=? and level_group_id=? and level_id=?";
+
+    private static final String INSERT_SCORE = "insert into score(player_id, level_group_id, level_id, score, compare_score, is_uploaded, server_score_id) values (?, ?, ?, ?, ?, 0, -1)";
+
+    private static final String UPSERT_SCORE = "insert or replace into score(player_id, level_group_id, level_id, score, compare_score, is_uploaded, server_score_id) values (?, ?, ?, ?, ?, 0, -1)";
+
+    private static Database database;
+
+    private static final Random random = new Random(0);
+
+    public static void main(String[] args) {
+        HeadlessFly.start();
+        deleteFiles();
+        database = DatabaseFactory.getNewDatabase(DATABASE_NAME, 1, FlyDBManager.getCreateSQLs(), null);
+        database.setupDatabase();
+        database.openOrCreateDatabase();
+
+        try {
+            long start = System.nanoTime();
+            fill();
+            System.out.println(SCORES + " scores inserted in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+            measure("without keys", false);
+
+            start = System.nanoTime();
+            int version = new MigrationRunner(database, FlyDBManager.getMigrations()).migrate();
+            System.out.println("migrated to version " + version + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+            DatabaseCursor cursor = database.rawQuery("select count(*) from score");
+            cursor.next();
+            System.out.println(cursor.getInt(0) + " scores after the migration");
+            cursor.close();
+
+            measure("with keys", true);
+        } finally {
+            database.closeDatabase();
+            deleteFiles();
+        }
+        System.exit(0);
+    }
+
+    private static void deleteFiles() {
+        new File(DATABASE_NAME).delete();
+        new File(DATABASE_NAME + "-wal").delete();
+        new File(DATABASE_NAME + "-shm").delete();
+    }
+
+    private static void fill() {
+        DatabaseStatement insert = database.prepare(INSERT_SCORE);
+        database.beginTransaction();
+        for (int player = 0; player < PLAYERS; player++) {
+            for (int group = 0; group < LEVEL_GROUPS; group++) {
+                for (int level = 0; level < LEVELS; level++) {
+                    bindScore(insert, player, group, level);
+                    insert.execute();
+                }
+            }
+        }
+        database.commitTransaction();
+        insert.close();
+    }
+
+    private static void measure(String name, boolean keys) {
+        DatabaseStatement select = database.prepare(SELECT_SCORE);
+        DatabaseStatement delete = database.prepare(DELETE_SCORE);
+        DatabaseStatement insert = database.prepare(keys ? UPSERT_SCORE : INSERT_SCORE);
+
+        for (int mode = 0; mode < 2; mode++) {
+            // warm up
+            run(mode, select, delete, insert, keys);
+            long operations = 0;
+            long start = System.nanoTime();
+            long end = start + (long) (SECONDS_PER_MODE * 1e9);
+            long now;
+            do {
+                operations += run(mode, select, delete, insert, keys);
+                now = System.nanoTime();
+            } while (now < end);
+            float microsPerOperation = (now - start) / 1000f / operations;
+            System.out.println(name + ", " + (mode == 0 ? "lookup" : "upsert") + ": " + microsPerOperation + " us");
+        }
+
+        select.close();
+        delete.close();
+        insert.close();
+    }
+
+    /**
+     * Looks up or upserts {@link #OPERATIONS_PER_RUN} random scores.
+     *
+     * @return number of operations
+     */
+    private static int run(int mode, DatabaseStatement select, DatabaseStatement delete, DatabaseStatement insert, boolean keys) {
+        if (mode == 1) {
+            database.beginTransaction();
+        }
+        for (int i = 0; i < OPERATIONS_PER_RUN; i++) {
+            int player = random.nextInt(PLAYERS);
+            int group = random.nextInt(LEVEL_GROUPS);
+            int level = random.nextInt(LEVELS);
+            if (mode == 0) {
+                select.bindLong(1, player);
+                select.bindLong(2, group);
+                select.bindLong(3, level);
+                DatabaseCursor cursor = select.query();
+                cursor.next();
+                cursor.close();
+            } else {
+                if (!keys) {
+                    delete.bindLong(1, player);
+                    delete.bindLong(2, group);
+                    delete.bindLong(3, level);
+                    delete.execute();
+                }
+                bindScore(insert, player, group, level);
+                insert.execute();
+            }
+        }
+        if (mode == 1) {
+            database.commitTransaction();
+        }
+        return OPERATIONS_PER_RUN;
+    }
+
+    private static void bindScore(DatabaseStatement insert, int player, int group, int level) {
+        int score = random.nextInt(10000);
+        insert.bindLong(1, player);
+        insert.bindLong(2, group);
+        insert.bindLong(3, level);
+        insert.bindLong(4, score);
+        insert.bindString(5, String.valueOf(score));
+    }
+}
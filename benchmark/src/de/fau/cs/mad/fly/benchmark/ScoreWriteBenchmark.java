@@ -0,0 +1,130 @@
+package de.fau.cs.mad.fly.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.sql.Database;
+import com.badlogic.gdx.sql.DatabaseFactory;
+import com.badlogic.gdx.sql.DatabaseStatement;
+
+import de.fau.cs.mad.fly.profile.ScoreManager;
+
+/**
+ * Measures how many scores per second are written to the desktop database.
+ * <p>
+ * Every score is written like {@link ScoreManager#saveBestScore} does, by
+ * deleting the old score of the level and inserting the new one. The scores
+ * are written in three ways: with concatenated SQL and one implicit
+ * transaction per statement like before, with compiled statements and one
+ * transaction per score like now, and with compiled statements and all scores
+ * of a run in one transaction. Every way is repeated for
+ * {@link #SECONDS_PER_MODE} seconds. The database is a file of its own in the
+ * working directory, which is deleted afterwards.
+ */
+public class ScoreWriteBenchmark {
+    
+    private static final String DATABASE_NAME = "score-write-benchmark.db";
+    
+    private static final int SCORES_PER_RUN = 100;
+    
+    private static final int LEVELS = 20;
+    
+    private static final float SECONDS_PER_MODE = 3f;
+    
+    private static final String DELETE_SCORE = "delete from score where player_id=? and level_id=? and level_group_id=?";
+    
+    private static final String INSERT_SCORE = "insert into score(player_id, level_group_id, level_id, score, compare_score, is_uploaded, server_score_id) values (?, ?, ?, ?, ?, ?, ?)";
+    
+    private static Database database;
+    
+    private static DatabaseStatement delete;
+    
+    private static DatabaseStatement insert;
+    
+    public static void main(String[] args) {
+        HeadlessFly.start();
+        new File(DATABASE_NAME).delete();
+        List<String> createSQLs = new ArrayList<String>();
+        createSQLs.add("create table if not exists score(player_id integer not null, level_group_id integer not null, level_id integer not null, score integer not null, compare_score text, reached_date date, is_uploaded integer not null default 0, server_score_id integer)");
+        database = DatabaseFactory.getNewDatabase(DATABASE_NAME, 1, createSQLs, null);
+        database.setupDatabase();
+        database.openOrCreateDatabase();
+        delete = database.prepare(DELETE_SCORE);
+        insert = database.prepare(INSERT_SCORE);
+        
+        try {
+            for (int mode = 0; mode < 3; mode++) {
+                // warm up
+                run(mode);
+                long scores = 0;
+                long start = System.nanoTime();
+                long end = start + (long) (SECONDS_PER_MODE * 1e9);
+                long now;
+                do {
+                    scores += run(mode);
+                    now = System.nanoTime();
+                } while (now < end);
+                System.out.println(name(mode) + ": " + (int) (scores * 1e9 / (now - start)) + " scores/s");
+            }
+        } finally {
+            delete.close();
+            insert.close();
+            database.closeDatabase();
+            new File(DATABASE_NAME).delete();
+        }
+        System.exit(0);
+    }
+    
+    private static String name(int mode) {
+        switch (mode) {
+        case 0:
+            return "concatenated SQL, transaction per statement";
+        case 1:
+            return "compiled statements, transaction per score";
+        default:
+            return "compiled statements, " + SCORES_PER_RUN + " scores per transaction";
+        }
+    }
+    
+    /**
+     * Writes {@link #SCORES_PER_RUN} scores.
+     * 
+     * @return number of written scores
+     */
+    private static int run(int mode) {
+        if (mode == 2) {
+            database.beginTransaction();
+        }
+        for (int i = 0; i < SCORES_PER_RUN; i++) {
+            int level = i % LEVELS;
+            if (mode == 0) {
+                database.execSQL("delete from score where player_id=1 and level_id=" + level + " and level_group_id=1");
+                database.execSQL("insert into score(player_id, level_group_id, level_id, score, compare_score, is_uploaded, server_score_id) values (1, 1, " + level + ", " + i + ", '" + i + "', 0, 0)");
+            } else {
+                if (mode == 1) {
+                    database.beginTransaction();
+                }
+                delete.bindLong(1, 1);
+                delete.bindLong(2, level);
+                delete.bindLong(3, 1);
+                delete.execute();
+                insert.bindLong(1, 1);
+                insert.bindLong(2, 1);
+                insert.bindLong(3, level);
+                insert.bindLong(4, i);
+                insert.bindString(5, String.valueOf(i));
+                insert.bindLong(6, 0);
+                insert.bindLong(7, 0);
+                insert.execute();
+                if (mode == 1) {
+                    database.commitTransaction();
+                }
+            }
+        }
+        if (mode == 2) {
+            database.commitTransaction();
+        }
+        return SCORES_PER_RUN;
+    }
+}
@@ -11,9 +11,12 @@ package com.badlogic.gdx.sql;
  * <li>{@link Database#openOrCreateDatabase()}</li>
  * <li>{@link Database#execSQL(String)} OR</li>
  * <li>{@link Database#rawQuery(String)} OR</li>
- * <li>{@link Database#rawQuery(DatabaseCursor, String)}</li>
+ * <li>{@link Database#rawQuery(DatabaseCursor, String)} OR</li>
+ * <li>{@link Database#prepare(String)}</li>
  * <li>{@link Database#closeDatabase()}</li>
  * </ul>
+ * Several statements can be executed in one transaction, which is written to
+ * the disk once, see {@link Database#beginTransaction()}.
  * 
  * @author M Rafay Aleem
  */
@@ -83,4 +86,44 @@ public interface Database {
     public DatabaseCursor rawQuery(DatabaseCursor cursor, String sql);// throws
                                                                       // SQLiteGdxException;
     
+    /**
+     * Compiles the provided SQL to a statement with parameters, which can be
+     * executed many times. The statement has to be closed with
+     * {@link DatabaseStatement#close()} before the database is closed.
+     * 
+     * @param sql
+     *            a single SQL statement with ? as placeholder for the
+     *            parameters. The SQL string must not be ; terminated
+     * @return {@link DatabaseStatement}
+     * @throws SQLiteGdxRuntimeException
+     */
+    public DatabaseStatement prepare(String sql);
+    
+    /**
+     * Begins a transaction. The statements executed afterwards are applied
+     * together by {@link #commitTransaction()} or not at all by
+     * {@link #rollbackTransaction()}. Transactions cannot be nested.
+     * 
+     * @throws SQLiteGdxRuntimeException
+     */
+    public void beginTransaction();
+    
+    /**
+     * Applies the statements executed since {@link #beginTransaction()} and
+     * ends the transaction. The transaction is ended even if the commit fails,
+     * its statements are discarded then.
+     * 
+     * @throws SQLiteGdxRuntimeException
+     */
+    public void commitTransaction();
+    
+    /**
+     * Discards the statements executed since {@link #beginTransaction()} and
+     * ends the transaction. Does nothing if no transaction is running, e.g.
+     * after a failed commit.
+     * 
+     * @throws SQLiteGdxRuntimeException
+     */
+    public void rollbackTransaction();
+    
 }
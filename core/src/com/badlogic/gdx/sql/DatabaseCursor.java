@@ -79,10 +79,15 @@ public interface DatabaseCursor {
     public boolean next();
     
     /**
-     * Returns the numbers of rows in the cursor.
+     * Returns the numbers of rows in the cursor. A cursor that reads its rows
+     * while they are mapped, see
+     * {@link DatabaseStatement#query(RowMapper, Object)}, does not know the
+     * number and may throw an exception.
      * 
      * @return number of rows
      * @throws SQLiteGdxException
+     * @throws UnsupportedOperationException
+     *             if the cursor reads its rows while they are mapped.
      */
     public int getCount();
     
@@ -92,4 +97,16 @@ public interface DatabaseCursor {
      */
     public void close();
     
+    /**
+     * Calls the mapper for every remaining row, until it returns false, and
+     * closes the cursor afterwards, even if the mapper throws an exception.
+     * 
+     * @param mapper
+     *            maps a row into the target.
+     * @param target
+     *            the target of the caller.
+     * @return number of mapped rows
+     */
+    public <T> int forEach(RowMapper<T> mapper, T target);
+    
 }
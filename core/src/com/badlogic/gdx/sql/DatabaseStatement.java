@@ -0,0 +1,104 @@
+package com.badlogic.gdx.sql;
+
+/**
+ * This public interface contains the methods to execute a compiled SQL
+ * statement with parameters. A statement is compiled once by
+ * {@link Database#prepare(String)} and can be executed many times with
+ * different parameters, which are bound to the ? placeholders of the SQL. The
+ * values are never parsed as SQL. This is not thread-safe.
+ */
+public interface DatabaseStatement {
+    
+    /**
+     * Binds an int value to a parameter.
+     * 
+     * @param index
+     *            the one-based index of the parameter.
+     * @param value
+     *            the value.
+     */
+    public void bindInt(int index, int value);
+    
+    /**
+     * Binds a long value to a parameter.
+     * 
+     * @param index
+     *            the one-based index of the parameter.
+     * @param value
+     *            the value.
+     */
+    public void bindLong(int index, long value);
+    
+    /**
+     * Binds a double value to a parameter.
+     * 
+     * @param index
+     *            the one-based index of the parameter.
+     * @param value
+     *            the value.
+     */
+    public void bindDouble(int index, double value);
+    
+    /**
+     * Binds a string to a parameter.
+     * 
+     * @param index
+     *            the one-based index of the parameter.
+     * @param value
+     *            the value, null binds NULL.
+     */
+    public void bindString(int index, String value);
+    
+    /**
+     * Binds NULL to a parameter.
+     * 
+     * @param index
+     *            the one-based index of the parameter.
+     */
+    public void bindNull(int index);
+    
+    /**
+     * Clears all bound parameters.
+     */
+    public void clearBindings();
+    
+    /**
+     * Executes the statement, if it is NOT a SELECT or any other SQL statement
+     * that returns data. The bound parameters are kept.
+     * 
+     * @throws SQLiteGdxRuntimeException
+     */
+    public void execute();
+    
+    /**
+     * Executes the statement, if it is a SELECT, and returns a
+     * {@link DatabaseCursor} over the result set. The bound parameters are
+     * kept.
+     * 
+     * @return {@link DatabaseCursor}
+     * @throws SQLiteGdxRuntimeException
+     */
+    public DatabaseCursor query();
+    
+    /**
+     * Executes the statement, if it is a SELECT, and maps the rows of the
+     * result set into the target, like
+     * {@link DatabaseCursor#forEach(RowMapper, Object)}. The rows are read
+     * while they are mapped and are not copied before, if the backend
+     * supports it, so the mapper can not count the rows with
+     * {@link DatabaseCursor#getCount()}. The bound parameters are kept.
+     * 
+     * @param mapper
+     *            maps a row into the target.
+     * @param target
+     *            the target of the caller.
+     * @return number of mapped rows
+     * @throws SQLiteGdxRuntimeException
+     */
+    public <T> int query(RowMapper<T> mapper, T target);
+    
+    /**
+     * Closes the statement and releases its resources.
+     */
+    public void close();
+}
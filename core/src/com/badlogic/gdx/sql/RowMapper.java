@@ -0,0 +1,27 @@
+package com.badlogic.gdx.sql;
+
+/**
+ * Maps the rows of a {@link DatabaseCursor} into a target, which is supplied
+ * by the caller and can be reused, e.g. an object, an array or a primitive
+ * collection. A mapper does not need to allocate memory per row and can be
+ * kept in a constant. See {@link DatabaseCursor#forEach(RowMapper, Object)}.
+ * 
+ * @param <T>
+ *            type of the target
+ */
+public interface RowMapper<T> {
+    
+    /**
+     * Maps the current row of the cursor into the target. The cursor must not
+     * be moved or closed, and may not support {@link DatabaseCursor#getCount()}
+     * if it reads its rows while they are mapped. The number of rows is
+     * returned by {@link DatabaseCursor#forEach(RowMapper, Object)}.
+     * 
+     * @param row
+     *            the cursor at the current row.
+     * @param target
+     *            the target of the caller.
+     * @return true to continue with the next row, false to stop.
+     */
+    public boolean map(DatabaseCursor row, T target);
+}
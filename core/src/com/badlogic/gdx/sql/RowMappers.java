@@ -0,0 +1,39 @@
+package com.badlogic.gdx.sql;
+
+/**
+ * Helper for the backends to map the rows of a {@link DatabaseCursor} with a
+ * {@link RowMapper}.
+ */
+public final class RowMappers {
+    
+    private RowMappers() {
+    }
+    
+    /**
+     * Calls the mapper for every remaining row of the cursor, until it returns
+     * false, and closes the cursor afterwards, even if the mapper throws an
+     * exception. Implements {@link DatabaseCursor#forEach(RowMapper, Object)}.
+     * 
+     * @param cursor
+     *            the cursor of the rows.
+     * @param mapper
+     *            maps a row into the target.
+     * @param target
+     *            the target of the caller.
+     * @return number of mapped rows
+     */
+    public static <T> int forEach(DatabaseCursor cursor, RowMapper<T> mapper, T target) {
+        int rows = 0;
+        try {
+            while (cursor.next()) {
+                rows++;
+                if (!mapper.map(cursor, target)) {
+                    break;
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return rows;
+    }
+}
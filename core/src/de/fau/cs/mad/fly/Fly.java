@@ -124,6 +124,13 @@ public class Fly extends Game implements Loadable<Fly> {
         }
     }
     
+    @Override
+    public void pause() {
+        super.pause();
+        // the pending writes must not get lost if the application is killed
+        FlyDBManager.getInstance().flush();
+    }
+    
     @Override
     public void resume() {
         super.resume();
@@ -194,6 +201,24 @@ public class Fly extends Game implements Loadable<Fly> {
         gameController.loadGame();
     }
     
+    /**
+     * Restarts the current level in place. The GameController is built again
+     * for the level in its initial state, while the assets and the collision
+     * objects of the level are reused, see {@link GameController#restartGame()}.
+     */
+    public void restartGameController() {
+        gameController.restartGame();
+        GameControllerBuilder builder = new GameControllerBuilder();
+        builder.init(this, true);
+        
+        gameController = builder.build();
+        Gdx.app.log("Fly.restartGameController", "Controller rebuilt.");
+        gameController.loadGame();
+        // the game screen stays shown, so it is not resized
+        gameController.getStage().getViewport().update(Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), true);
+        onMode3d2dChanged(Mode3d2dChangedEvent.MODE_3D);
+    }
+    
     protected ArrayList<EventListener> mode3d2dChangedListeners = new ArrayList<EventListener>();
     
     protected int current3d2dMode = Mode3d2dChangedEvent.MODE_2D;
@@ -6,9 +6,13 @@ import java.util.Collection;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetDescriptor;
 
+import de.fau.cs.mad.fly.profile.LevelGroup;
 import de.fau.cs.mad.fly.profile.LevelProfile;
+import de.fau.cs.mad.fly.profile.PlayerProfile;
+import de.fau.cs.mad.fly.profile.PlayerProfileManager;
 import de.fau.cs.mad.fly.res.Assets;
 import de.fau.cs.mad.fly.res.Level;
+import de.fau.cs.mad.fly.res.LevelLoader;
 import de.fau.cs.mad.fly.ui.screens.LevelLoadingScreen;
 
 /**
@@ -18,6 +22,12 @@ import de.fau.cs.mad.fly.ui.screens.LevelLoadingScreen;
  */
 public class Loader implements Loadable<Level> {
     
+    /**
+     * Progress after all assets are loaded, the rest is left for the
+     * initialization of the game controller.
+     */
+    private static final float LOADING_PROGRESS = 90f;
+    
     private Collection<ProgressListener<Level>> listeners = new ArrayList<ProgressListener<Level>>();
     private float progress = 0;
     private AssetDescriptor<Level> target;
@@ -26,6 +36,9 @@ public class Loader implements Loadable<Level> {
     private LevelProfile levelProfile;
     private boolean initProcessStarted = false;
     
+    /** True, if the target was prefetched and is already queued. */
+    private boolean targetQueued = false;
+    
     /**
      * The 3D info of the current level the player is playing or just finished.
      */
@@ -74,7 +87,10 @@ public class Loader implements Loadable<Level> {
     
     public void initiate() {
         progress = 0;
-        Assets.manager.load(target);
+        if (!targetQueued) {
+            Assets.manager.load(target);
+        }
+        targetQueued = false;
         for (ProgressListener<Level> l : listeners) {
             l.progressStarted();
         }
@@ -82,8 +98,13 @@ public class Loader implements Loadable<Level> {
     
     public void update() {
         if (progress < 100f) {
+            // a cancelled prefetch is finished together with the target
+            Assets.prefetcher.releaseCancelled();
             if (!Assets.manager.update()) {
-                float currentProgress = ((float) Assets.manager.getLoadedAssets() / (float) (Assets.manager.getLoadedAssets() + Assets.manager.getQueuedAssets())) * 80f;
+                // the level counts as one asset that is partly built
+                int loaded = Assets.manager.getLoadedAssets();
+                float levelProgress = ((LevelLoader) Assets.manager.getLoader(Level.class)).getProgress();
+                float currentProgress = ((loaded + levelProgress) / (float) (loaded + Assets.manager.getQueuedAssets())) * LOADING_PROGRESS;
                 if (currentProgress > progress) {
                     progress = currentProgress;
                     for (ProgressListener<Level> l : listeners)
@@ -93,11 +114,21 @@ public class Loader implements Loadable<Level> {
                 if (!initProcessStarted) {
                     initProcessStarted = true;
                     Level level = Assets.manager.get(target);
+                    Assets.modelCache.acquire(level.getDependencies());
+                    Gdx.app.log("Loader", Assets.modelCache.toString());
                     level.getGateCircuit().reset();
                     level.head.file = levelProfile.file;
+                    // the endless levels change while they are played
+                    if (!level.head.isEndless() && !level.head.isEndlessRails()) {
+                        level.saveInitialState();
+                    }
                     setCurrentLevel(level);
                     Fly fly = (Fly) Gdx.app.getApplicationListener();
                     fly.initGameController();
+                    // compile the shaders before the level starts
+                    fly.getGameController().getShaderProvider().warmUp(level);
+                    Assets.prefetcher.releaseCancelled();
+                    Assets.prefetcher.start(getNextLevelFile());
                     progress = 100f;
                 }
                 for (ProgressListener<Level> l : listeners) {
@@ -111,6 +142,28 @@ public class Loader implements Loadable<Level> {
         }
     }
     
+    /**
+     * Getter for the level the player is likely to play after the current
+     * one.
+     * 
+     * @return file name of the next level or null if there is none
+     */
+    private String getNextLevelFile() {
+        PlayerProfile profile = PlayerProfileManager.getInstance().getCurrentPlayerProfile();
+        if (profile == null || profile.getCurrentLevelProfile() == null || !levelProfile.file.equals(profile.getCurrentLevelProfile().file)) {
+            return null;
+        }
+        LevelProfile next = profile.getNextLevel();
+        if (next == null) {
+            LevelGroup nextGroup = profile.getnextLevelGroup();
+            if (nextGroup == null) {
+                return null;
+            }
+            next = nextGroup.getFirstLevel();
+        }
+        return next == null ? null : next.file;
+    }
+    
     public static Loader create(String target) {
         
         Gdx.app.log("Loader.create", target);
@@ -127,14 +180,22 @@ public class Loader implements Loadable<Level> {
      */
     public void loadLevel(final LevelProfile levelProfile) {
         this.levelProfile = levelProfile;
+        // the prefetched level is kept if the player chose it
+        boolean prefetched = Assets.prefetcher.claim(levelProfile.file);
+        if (!prefetched) {
+            Assets.prefetcher.cancel();
+        }
         if (getCurrentLevel() != null) {
             String levelPath = getCurrentLevel().head.file;
             Gdx.app.log("Gamescreen.hide", "dispose level: " + levelPath);
+            // the models shared with the next level stay loaded
+            Assets.modelCache.release(getCurrentLevel().getDependencies());
             Assets.unload(levelPath);
             setCurrentLevel(null);
         }
         
         Loader loader = Loader.create(levelProfile.file);
+        loader.targetQueued = prefetched;
         final Fly fly = (Fly) Gdx.app.getApplicationListener();
         loadingScreen = new LevelLoadingScreen(loader, fly.getMainMenuScreen());
         loader.initiate();
@@ -148,6 +209,28 @@ public class Loader implements Loadable<Level> {
         });
     }
     
+    /**
+     * Restarts the given level. If it is the current level and its initial
+     * state was saved, it is restarted in place without loading it again and
+     * the game starts immediately. Otherwise the level is loaded like by
+     * {@link #loadLevel(LevelProfile)}.
+     * 
+     * @param levelProfile
+     *            The level to play again.
+     */
+    public void restartLevel(final LevelProfile levelProfile) {
+        Level level = getCurrentLevel();
+        if (level == null || !level.hasInitialState() || !levelProfile.file.equals(level.head.file)) {
+            loadLevel(levelProfile);
+            return;
+        }
+        long start = System.nanoTime();
+        Fly fly = (Fly) Gdx.app.getApplicationListener();
+        fly.restartGameController();
+        fly.getGameController().initGame();
+        Gdx.app.log("Loader", "restarted " + levelProfile.file + " in place in " + ((System.nanoTime() - start) / 1000000) + " ms");
+    }
+    
     public void dispose() {
         instance = null;
         if (loadingScreen != null) {
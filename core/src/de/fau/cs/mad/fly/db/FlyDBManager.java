@@ -1,28 +1,64 @@
 package de.fau.cs.mad.fly.db;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.sql.Database;
 import com.badlogic.gdx.sql.DatabaseCursor;
 import com.badlogic.gdx.sql.DatabaseFactory;
+import com.badlogic.gdx.sql.DatabaseStatement;
+import com.badlogic.gdx.sql.RowMapper;
 
 /**
  * Manages the database of fly
  * 
  * @ Qufang Fan
  */
-public class FlyDBManager {
+public class FlyDBManager implements WriteBehindQueue.Target {
     
     private static final String DATABASE_NAME = "faumadfly01.db";
+    /**
+     * Version of the tables created by {@link #getCreateSQLs()}. Newer versions
+     * are created by the {@link #getMigrations()}.
+     */
     private static final int DATABASE_VERSION = 1;
-    private static final int LASTEST_DATABASE_VERSION = 2;
     
     final Database dbHandler;
     
+    /** The compiled statements of {@link #execute} and {@link #query} by their SQL. */
+    private final Map<String, DatabaseStatement> statements = new HashMap<String, DatabaseStatement>();
+    
+    /** Number of nested {@link #runInTransaction(Runnable)} calls that are running. */
+    private int transactionDepth = 0;
+    
+    /** Writes of {@link #executeLater} and {@link #runLater}. */
+    private final WriteBehindQueue writeQueue = new WriteBehindQueue(this);
+    
     private FlyDBManager() {
         Gdx.app.log("FlyDBManager", "setupDatabase begin " + System.currentTimeMillis());
+        dbHandler = DatabaseFactory.getNewDatabase(DATABASE_NAME, DATABASE_VERSION, getCreateSQLs(), null);
+        
+        synchronized (dbHandler) {
+            dbHandler.setupDatabase();
+            Gdx.app.log("FlyDBManager", "setupDatabase end   " + System.currentTimeMillis());
+            
+            dbHandler.openOrCreateDatabase();
+            Gdx.app.log("FlyDBManager", "database opened " + System.currentTimeMillis());
+            
+            int dbVersion = new MigrationRunner(dbHandler, getMigrations()).migrate();
+            Gdx.app.log("FlyDBManager", "database version " + dbVersion + " " + System.currentTimeMillis());
+        }
+        
+    }
+    
+    /**
+     * Getter for the SQL that creates the tables of version
+     * {@link #DATABASE_VERSION}, if they do not exist.
+     */
+    public static List<String> getCreateSQLs() {
         String createTablePlayer = "create table if not exists player(player_id integer primary key autoincrement, fly_id text, name text not null, total_score integer not null default 0, total_geld integer not null default 0, current_levelgroup_id integer not null default 1, current_level_id integer not null default 1," + "passed_levelgroup_id integer not null default 1, passed_level_id integer not null default 1)";
         String createTableScore = "create table if not exists score(player_id integer not null, level_group_id integer not null, level_id integer not null, score integer not null, compare_score text, reached_date date, is_uploaded integer not null default 0, server_score_id integer)";
         // String createTableScoreDetail =
@@ -40,53 +76,18 @@ public class FlyDBManager {
         createSQLs.add(createTablePlaneUpdates);
         createSQLs.add(createTableVersion);
         createSQLs.add(insertDBVersion);
-
-        dbHandler = DatabaseFactory.getNewDatabase(DATABASE_NAME, DATABASE_VERSION, createSQLs, null);
-        
-        synchronized (dbHandler) {
-            dbHandler.setupDatabase();
-            Gdx.app.log("FlyDBManager", "setupDatabase end   " + System.currentTimeMillis());
-            
-            dbHandler.openOrCreateDatabase();
-            Gdx.app.log("FlyDBManager", "database opened " + System.currentTimeMillis());
-            
-            int dbVersion = getDBVersion();
-//            if(dbVersion <2 ) {            	
-//            	//add version 2 sql
-//            }
-//            
-//            if(dbVersion <3 ) {
-//            	//add version 3 sql
-//            }
-//            ...
-            	
-            if (dbVersion < LASTEST_DATABASE_VERSION) {
-                // change LASTEST_DATABASE_VERSION amd add db update sql here
-                // when new version needs
-            	dbHandler.execSQL("ALTER TABLE player ADD COLUMN secret_key text");
-            	dbHandler.execSQL("ALTER TABLE player ADD COLUMN is_newname_uploaded integer not null default 1");
-                updateDBversion(LASTEST_DATABASE_VERSION);
-            }
-        }
-        
+        return createSQLs;
     }
     
-    private static FlyDBManager Instance = new FlyDBManager();
-    
-    private int getDBVersion() {
-        DatabaseCursor cursor = dbHandler.rawQuery("select _version from fly_db_version");
-        if (cursor != null && cursor.getCount() > 0) {
-            cursor.next();
-            int ret = cursor.getInt(0);
-            cursor.close();
-            return ret;
-        }
-        return 0;
+    /**
+     * Getter for the migrations of the tables to the latest version. Add a
+     * new {@link Migration} here when the tables change.
+     */
+    public static Migration[] getMigrations() {
+        return new Migration[] { new PlayerKeysMigration(), new ScoreKeysMigration() };
     }
     
-    private void updateDBversion(int version) {
-        dbHandler.execSQL("update fly_db_version set _version=" + version);
-    }
+    private static FlyDBManager Instance = new FlyDBManager();
     
     public static FlyDBManager getInstance() {
         if (Instance == null)
@@ -102,6 +103,7 @@ public class FlyDBManager {
         // Gdx.app.log("FlyDBManager.execSQL", "execSQL begin " +
         // System.currentTimeMillis());
         Gdx.app.log("FlyDBManager.execSQL", sql);
+        awaitPendingWrites(sql);
         synchronized (dbHandler) {
             dbHandler.execSQL(sql);
         }
@@ -109,6 +111,283 @@ public class FlyDBManager {
         // System.currentTimeMillis());
     }
     
+    /**
+     * Executes one SQL statement without return value. The statement is
+     * compiled once and reused, the arguments are bound to its ? placeholders
+     * in their order, see {@link #bind(DatabaseStatement, Object...)}.
+     * 
+     * @param sql
+     *            SQL with ? placeholders instead of the values.
+     * @param args
+     *            Values of the placeholders.
+     */
+    public void execute(String sql, Object... args) {
+        awaitPendingWrites(sql);
+        synchronized (dbHandler) {
+            DatabaseStatement statement = getStatement(sql);
+            bind(statement, args);
+            statement.execute();
+        }
+    }
+    
+    /**
+     * Executes one select SQL. The statement is compiled once and reused, the
+     * arguments are bound to its ? placeholders in their order, see
+     * {@link #bind(DatabaseStatement, Object...)}.
+     * 
+     * @param sql
+     *            SQL with ? placeholders instead of the values.
+     * @param args
+     *            Values of the placeholders.
+     * @return cursor over the result, has to be closed.
+     */
+    public DatabaseCursor query(String sql, Object... args) {
+        awaitPendingWrites(sql);
+        synchronized (dbHandler) {
+            DatabaseStatement statement = getStatement(sql);
+            bind(statement, args);
+            return statement.query();
+        }
+    }
+    
+    /**
+     * Executes one select SQL like {@link #query(String, Object...)} and maps
+     * every row of the result into the target, until the mapper returns false.
+     * The rows are mapped while they are read, the cursor is always closed.
+     * The mapper must not access the database itself.
+     * 
+     * @param sql
+     *            SQL with ? placeholders instead of the values.
+     * @param mapper
+     *            Maps a row into the target.
+     * @param target
+     *            Target of the rows, e.g. a reused list or map.
+     * @param args
+     *            Values of the placeholders.
+     * @return number of mapped rows
+     */
+    public <T> int queryRows(String sql, RowMapper<T> mapper, T target, Object... args) {
+        awaitPendingWrites(sql);
+        synchronized (dbHandler) {
+            DatabaseStatement statement = getStatement(sql);
+            bind(statement, args);
+            return statement.query(mapper, target);
+        }
+    }
+    
+    /**
+     * Runs the statements executed by the work in one transaction, which is
+     * written to the disk at once. If the work throws an exception, the
+     * transaction is rolled back and none of its statements is applied. A
+     * transaction started inside the work joins the running one. Other threads
+     * can not access the database until the transaction is finished.
+     * <p>
+     * The transaction waits for all pending writes, as its tables are unknown,
+     * see {@link #runInTransaction(Runnable, String...)}.
+     * 
+     * @param work
+     *            Executes the statements of the transaction.
+     */
+    @Override
+    public void runInTransaction(Runnable work) {
+        runInTransaction(work, new String[0]);
+    }
+    
+    /**
+     * Runs the statements executed by the work in one transaction like
+     * {@link #runInTransaction(Runnable)}. The transaction waits only for
+     * pending writes to the given tables. The statements inside the
+     * transaction can not wait, so the work must not use other tables.
+     * 
+     * @param work
+     *            Executes the statements of the transaction.
+     * @param tables
+     *            Names of the tables used by the work. If there are none, the
+     *            transaction waits for all pending writes.
+     */
+    public void runInTransaction(Runnable work, String... tables) {
+        if (tables.length == 0) {
+            awaitPendingWrites(null);
+        }
+        for (String table : tables) {
+            awaitPendingWrites(table);
+        }
+        synchronized (dbHandler) {
+            if (transactionDepth > 0) {
+                transactionDepth++;
+                try {
+                    work.run();
+                } finally {
+                    transactionDepth--;
+                }
+                return;
+            }
+            
+            dbHandler.beginTransaction();
+            transactionDepth = 1;
+            boolean successful = false;
+            try {
+                work.run();
+                successful = true;
+            } finally {
+                transactionDepth = 0;
+                if (successful) {
+                    commitOrRollback();
+                } else {
+                    dbHandler.rollbackTransaction();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Commits the running transaction. If the commit fails, the transaction is
+     * rolled back, so that the following statements do not run in it.
+     */
+    private void commitOrRollback() {
+        try {
+            dbHandler.commitTransaction();
+        } catch (RuntimeException e) {
+            try {
+                dbHandler.rollbackTransaction();
+            } catch (RuntimeException rollbackFailure) {
+                Gdx.app.error("FlyDBManager.runInTransaction", "rollback after failed commit", rollbackFailure);
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Executes one SQL statement without return value later on the writer
+     * thread, see {@link WriteBehindQueue}. The arguments are bound like in
+     * {@link #execute(String, Object...)}.
+     * 
+     * @param key
+     *            A pending write with an equal key is replaced by this one,
+     *            e.g. the player id and the column of an update. Null if no
+     *            write is replaced.
+     * @param sql
+     *            SQL with ? placeholders instead of the values.
+     * @param args
+     *            Values of the placeholders, must not be changed afterwards.
+     */
+    public void executeLater(Object key, final String sql, final Object... args) {
+        String table = getWrittenTable(sql);
+        writeQueue.add(key, new Runnable() {
+            @Override
+            public void run() {
+                execute(sql, args);
+            }
+        }, table == null ? new String[0] : new String[] { table });
+    }
+    
+    /**
+     * Runs the work later on the writer thread, in the same transaction as
+     * the other pending writes, see {@link WriteBehindQueue}.
+     * 
+     * @param key
+     *            A pending write with an equal key is replaced by this one.
+     *            Null if no write is replaced.
+     * @param work
+     *            Executes the statements of the write.
+     * @param tables
+     *            Names of the tables changed by the work. If there are none,
+     *            every statement waits until the work is committed.
+     */
+    public void runLater(Object key, Runnable work, String... tables) {
+        writeQueue.add(key, work, tables);
+    }
+    
+    /**
+     * Waits until all pending writes are committed. Has to be called before
+     * the application is paused. Statements wait only for the pending writes
+     * to their tables.
+     */
+    public void flush() {
+        writeQueue.flush();
+    }
+    
+    /**
+     * Getter for the queue of the pending writes, e.g. for its metrics.
+     */
+    public WriteBehindQueue getWriteQueue() {
+        return writeQueue;
+    }
+    
+    /**
+     * Waits until the pending writes are committed, if one of them changes a
+     * table named in the statement, so that they are seen by the statement
+     * and the writes to a table stay in their order. Inside a transaction of
+     * this thread the writer thread can not write, so the statement is
+     * executed at once.
+     * 
+     * @param sql
+     *            The statement or a name of a table, null to wait for all
+     *            pending writes.
+     */
+    private void awaitPendingWrites(String sql) {
+        if (Thread.holdsLock(dbHandler)) {
+            return;
+        }
+        if (sql == null ? writeQueue.getPendingWrites() > 0 : writeQueue.isWriting(sql)) {
+            writeQueue.flush();
+        }
+    }
+    
+    /**
+     * Getter for the table changed by an insert, replace, update or delete
+     * statement.
+     * 
+     * @return name of the table, null if it is not found.
+     */
+    private static String getWrittenTable(String sql) {
+        String[] words = sql.trim().split("[\\s(]+");
+        for (int i = 0; i < words.length - 1; i++) {
+            String word = words[i].toLowerCase();
+            if (word.equals("into") || word.equals("from")) {
+                return words[i + 1];
+            }
+            if (word.equals("update")) {
+                int table = words[i + 1].equalsIgnoreCase("or") ? i + 3 : i + 1;
+                return table < words.length ? words[table] : null;
+            }
+        }
+        return null;
+    }
+    
+    private DatabaseStatement getStatement(String sql) {
+        DatabaseStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = dbHandler.prepare(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+    
+    /**
+     * Binds the arguments to the placeholders of the statement. Integer
+     * numbers are bound as long, floating point numbers as double, booleans as
+     * 1 or 0, null as NULL and everything else as string.
+     */
+    private static void bind(DatabaseStatement statement, Object... args) {
+        statement.clearBindings();
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            int index = i + 1;
+            if (arg == null) {
+                statement.bindNull(index);
+            } else if (arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte) {
+                statement.bindLong(index, ((Number) arg).longValue());
+            } else if (arg instanceof Float || arg instanceof Double) {
+                statement.bindDouble(index, ((Number) arg).doubleValue());
+            } else if (arg instanceof Boolean) {
+                statement.bindLong(index, ((Boolean) arg) ? 1 : 0);
+            } else {
+                statement.bindString(index, arg.toString());
+            }
+        }
+    }
+    
     public void openDatabase() {
         // Gdx.app.log("FlyDBManager.openDatabase", "open db begin " +
         // System.currentTimeMillis());
@@ -128,6 +407,7 @@ public class FlyDBManager {
         // System.currentTimeMillis());
         DatabaseCursor cursor = null;
         // Gdx.app.log("FlyDBManager.selectData", selectSQL);
+        awaitPendingWrites(selectSQL);
         synchronized (dbHandler) {
             cursor = dbHandler.rawQuery(selectSQL);
         }
@@ -139,6 +419,10 @@ public class FlyDBManager {
     protected void closeDatabase() {
         try {
 			synchronized (dbHandler) {
+				for (DatabaseStatement statement : statements.values()) {
+					statement.close();
+				}
+				statements.clear();
 				dbHandler.closeDatabase();
 			}
         } catch (Exception e) {
@@ -149,6 +433,8 @@ public class FlyDBManager {
     }
     
     public void dispose() {
+        writeQueue.stop();
+        Gdx.app.log("FlyDBManager", writeQueue.getAddedWrites() + " writes, " + writeQueue.getCoalescedWrites() + " coalesced, " + writeQueue.getFailedWrites() + " failed, max " + writeQueue.getMaxPendingWrites() + " pending, " + writeQueue.getFlushes() + " flushes, " + (writeQueue.getAverageFlushNanos() / 1000) + " us average, " + (writeQueue.getMaxFlushNanos() / 1000) + " us max");
         closeDatabase();
         Instance = null;
         Gdx.app.log("FlyDBManager", "db is closed and disposed");
@@ -0,0 +1,25 @@
+package de.fau.cs.mad.fly.db;
+
+import com.badlogic.gdx.sql.Database;
+
+/**
+ * Changes the schema of the database from the previous version to
+ * {@link #getVersion()}. Migrations are applied in the order of their
+ * versions by the {@link MigrationRunner}.
+ */
+public interface Migration {
+    
+    /**
+     * Getter for the version of the schema after the migration.
+     */
+    public int getVersion();
+    
+    /**
+     * Changes the schema. Runs in a transaction, which is rolled back if the
+     * migration throws an exception.
+     * 
+     * @param database
+     *            The opened database.
+     */
+    public void apply(Database database);
+}
@@ -0,0 +1,109 @@
+package de.fau.cs.mad.fly.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.badlogic.gdx.sql.Database;
+import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.sql.SQLiteGdxRuntimeException;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Brings the schema of the database up to date with a list of
+ * {@link Migration}s.
+ * <p>
+ * The version of the schema is stored in the table fly_db_version. Every
+ * migration with a higher version is applied in the order of the versions, in
+ * a transaction together with the update of the stored version. If a
+ * migration fails, its transaction is rolled back and the following
+ * migrations are not applied, so the database always has the schema of one
+ * version.
+ */
+public class MigrationRunner {
+    
+    private final Database database;
+    
+    private final List<Migration> migrations;
+    
+    /**
+     * Creates a new runner.
+     * 
+     * @param database
+     *            The opened database with the table fly_db_version.
+     * @param migrations
+     *            The migrations in any order.
+     * @throws GdxRuntimeException
+     *             if two migrations have the same version.
+     */
+    public MigrationRunner(Database database, Migration... migrations) {
+        this.database = database;
+        this.migrations = new ArrayList<Migration>(migrations.length);
+        Collections.addAll(this.migrations, migrations);
+        Collections.sort(this.migrations, new Comparator<Migration>() {
+            @Override
+            public int compare(Migration m1, Migration m2) {
+                return m1.getVersion() < m2.getVersion() ? -1 : (m1.getVersion() == m2.getVersion() ? 0 : 1);
+            }
+        });
+        for (int i = 1; i < this.migrations.size(); i++) {
+            if (this.migrations.get(i - 1).getVersion() == this.migrations.get(i).getVersion()) {
+                throw new GdxRuntimeException("MigrationRunner: two migrations to version " + this.migrations.get(i).getVersion() + ".");
+            }
+        }
+    }
+    
+    /**
+     * Getter for the stored version of the schema.
+     * 
+     * @return the version, 0 if none is stored
+     */
+    public int getVersion() {
+        DatabaseCursor cursor = database.rawQuery("select max(_version) from fly_db_version");
+        int version = 0;
+        if (cursor != null) {
+            if (cursor.next()) {
+                version = cursor.getInt(0);
+            }
+            cursor.close();
+        }
+        return version;
+    }
+    
+    /**
+     * Getter for the version of the schema after all migrations.
+     */
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+    
+    /**
+     * Applies all migrations with a higher version than the stored one.
+     * 
+     * @return the version of the schema afterwards
+     * @throws SQLiteGdxRuntimeException
+     *             if a migration failed, the database keeps the version
+     *             before it.
+     */
+    public int migrate() {
+        int version = getVersion();
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= version) {
+                continue;
+            }
+            database.beginTransaction();
+            try {
+                migration.apply(database);
+                database.execSQL("delete from fly_db_version");
+                database.execSQL("insert into fly_db_version values(" + migration.getVersion() + ")");
+            } catch (RuntimeException e) {
+                database.rollbackTransaction();
+                throw new SQLiteGdxRuntimeException("Migration to version " + migration.getVersion() + " failed", e);
+            }
+            database.commitTransaction();
+            version = migration.getVersion();
+        }
+        return version;
+    }
+}
@@ -0,0 +1,21 @@
+package de.fau.cs.mad.fly.db;
+
+import com.badlogic.gdx.sql.Database;
+
+/**
+ * Version 2: adds the secret key of the player on the server and whether a
+ * new name of the player is uploaded.
+ */
+public class PlayerKeysMigration implements Migration {
+    
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+    
+    @Override
+    public void apply(Database database) {
+        database.execSQL("ALTER TABLE player ADD COLUMN secret_key text");
+        database.execSQL("ALTER TABLE player ADD COLUMN is_newname_uploaded integer not null default 1");
+    }
+}
@@ -0,0 +1,32 @@
+package de.fau.cs.mad.fly.db;
+
+import com.badlogic.gdx.sql.Database;
+
+/**
+ * Version 3: adds a primary key of the player, the level group and the level
+ * to the scores and indexes the upgrades of the planes by player and plane.
+ * <p>
+ * Every query filters by these columns, without the keys every query has to
+ * read the whole table. SQLite can not add a primary key to a table, so the
+ * table of the scores is copied. If there are several scores of a level, only
+ * the best one is kept.
+ */
+public class ScoreKeysMigration implements Migration {
+    
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+    
+    @Override
+    public void apply(Database database) {
+        database.execSQL("create table score_v3(player_id integer not null, level_group_id integer not null, level_id integer not null, score integer not null, compare_score text, reached_date date, is_uploaded integer not null default 0, server_score_id integer, primary key (player_id, level_group_id, level_id))");
+        // the rows are inserted in the order of the scores, so the best one
+        // replaces the others
+        database.execSQL("insert or replace into score_v3 select player_id, level_group_id, level_id, score, compare_score, reached_date, is_uploaded, server_score_id from score order by score");
+        database.execSQL("drop table score");
+        database.execSQL("alter table score_v3 rename to score");
+        database.execSQL("create index if not exists fly_plane_equiped_player on fly_plane_equiped(player_id, plane_id)");
+        database.execSQL("create index if not exists fly_plane_upgrade_player on fly_plane_upgrade(player_id, plane_id)");
+    }
+}
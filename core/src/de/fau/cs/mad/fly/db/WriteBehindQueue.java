@@ -0,0 +1,417 @@
+package de.fau.cs.mad.fly.db;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.Gdx;
+
+/**
+ * Writes to the database later on a writer thread of its own, so that the
+ * game thread never waits for the disk.
+ * <p>
+ * Writes are run in the order they are added. The writer thread takes all
+ * pending writes at once and runs them in one transaction. A write with a key
+ * replaces the pending write with the same key, e.g. an older value of the
+ * same column of the same player, and is moved to the end of the queue, so
+ * that only the last value is written. {@link #flush()} waits until all writes
+ * that were added before are committed, it has to be called before the
+ * application is paused or closed. A statement has to wait for it only if
+ * {@link #isWriting(String)} tells that a pending write changes one of its
+ * tables.
+ */
+public class WriteBehindQueue implements Runnable {
+    
+    /**
+     * Runs the writes of the queue in a transaction.
+     */
+    public interface Target {
+        /**
+         * Runs the work in one transaction, which is rolled back if the work
+         * throws an exception.
+         */
+        public void runInTransaction(Runnable work);
+    }
+    
+    private final Target target;
+    
+    private final Object lock = new Object();
+    
+    /** A write and the tables it changes. */
+    private static class Write {
+        final Runnable work;
+        
+        /** Lower case names of the tables, empty if they are unknown. */
+        final String[] tables;
+        
+        Write(Runnable work, String[] tables) {
+            this.work = work;
+            this.tables = tables;
+        }
+    }
+    
+    /**
+     * The pending writes in their order. Writes without a key are their own
+     * key.
+     */
+    private final Map<Object, Write> pending = new LinkedHashMap<Object, Write>();
+    
+    /** The writes taken by the writer thread. */
+    private final List<Write> batch = new ArrayList<Write>();
+    
+    /** Number of pending and taken writes per table. */
+    private final Map<String, Integer> tableWrites = new HashMap<String, Integer>();
+    
+    /** Number of pending and taken writes with unknown tables. */
+    private int unknownWrites = 0;
+    
+    /** Runs all taken writes. */
+    private final Runnable writeBatch = new Runnable() {
+        @Override
+        public void run() {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).work.run();
+            }
+        }
+    };
+    
+    private Thread thread;
+    
+    /** True after {@link #stop()}. */
+    private boolean stopped = false;
+    
+    /** Number of added writes. */
+    private long added = 0;
+    
+    /** Number of added writes that are committed or replaced by a later write. */
+    private long completed = 0;
+    
+    /** Number of writes replaced by a later write with the same key. */
+    private long coalesced = 0;
+    
+    /** Number of writes that failed. */
+    private long failed = 0;
+    
+    private int maxPendingWrites = 0;
+    
+    private long flushes = 0;
+    
+    private long lastFlushNanos = 0;
+    
+    private long maxFlushNanos = 0;
+    
+    private long totalFlushNanos = 0;
+    
+    /**
+     * Creates a new queue. The writer thread is started with the first write.
+     * 
+     * @param target
+     *            Runs the writes in transactions.
+     */
+    public WriteBehindQueue(Target target) {
+        this.target = target;
+    }
+    
+    /**
+     * Adds a write to the end of the queue.
+     * 
+     * @param key
+     *            The pending write with an equal key is replaced, null if no
+     *            write is replaced.
+     * @param write
+     *            Executes the statements of the write.
+     * @param tables
+     *            Names of the tables changed by the write. If there are none,
+     *            every statement waits for the write.
+     */
+    public void add(Object key, Runnable write, String... tables) {
+        synchronized (lock) {
+            if (stopped) {
+                throw new IllegalStateException("The queue is stopped.");
+            }
+            if (thread == null) {
+                thread = new Thread(this, "Database writer");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            if (key == null) {
+                key = write;
+            } else {
+                Write replaced = pending.remove(key);
+                if (replaced != null) {
+                    count(replaced, -1);
+                    coalesced++;
+                    completed++;
+                }
+            }
+            String[] names = new String[tables.length];
+            for (int i = 0; i < tables.length; i++) {
+                names[i] = tables[i].toLowerCase();
+            }
+            Write pendingWrite = new Write(write, names);
+            count(pendingWrite, 1);
+            pending.put(key, pendingWrite);
+            added++;
+            maxPendingWrites = Math.max(maxPendingWrites, pending.size());
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * Tells if a write that is not committed yet changes a table named in the
+     * statement, or a table that is unknown. Only then the statement has to
+     * wait for {@link #flush()} to see the data of the write.
+     * 
+     * @param statement
+     *            SQL statement or a name of a table.
+     */
+    public boolean isWriting(String statement) {
+        synchronized (lock) {
+            if (unknownWrites > 0) {
+                return true;
+            }
+            for (String table : tableWrites.keySet()) {
+                if (names(statement, table)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Tells if the table name is a word of the statement, case is ignored.
+     */
+    private static boolean names(String statement, String table) {
+        int length = table.length();
+        for (int i = 0; i + length <= statement.length(); i++) {
+            if (statement.regionMatches(true, i, table, 0, length) && (i == 0 || !isNamePart(statement.charAt(i - 1))) && (i + length == statement.length() || !isNamePart(statement.charAt(i + length)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean isNamePart(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+    
+    /**
+     * Adds the write to the counters of its tables, or removes it from them.
+     */
+    private void count(Write write, int delta) {
+        if (write.tables.length == 0) {
+            unknownWrites += delta;
+            return;
+        }
+        for (String table : write.tables) {
+            Integer writes = tableWrites.get(table);
+            int count = (writes == null ? 0 : writes) + delta;
+            if (count == 0) {
+                tableWrites.remove(table);
+            } else {
+                tableWrites.put(table, count);
+            }
+        }
+    }
+    
+    /**
+     * Waits until all writes that were added before are committed. Returns at
+     * once, if it is called by the writer thread itself.
+     */
+    public void flush() {
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        boolean interrupted = false;
+        synchronized (lock) {
+            long target = added;
+            while (completed < target) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // the writes have to be committed before the data is read
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Writes all pending writes and stops the writer thread. Further writes
+     * are not accepted.
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+            thread = this.thread;
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    @Override
+    public void run() {
+        while (true) {
+            synchronized (lock) {
+                while (pending.isEmpty() && !stopped) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        // the pending writes must not get lost
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch.addAll(pending.values());
+                pending.clear();
+            }
+            
+            long start = System.nanoTime();
+            int failures = write();
+            long nanos = System.nanoTime() - start;
+            
+            synchronized (lock) {
+                completed += batch.size();
+                for (int i = 0; i < batch.size(); i++) {
+                    count(batch.get(i), -1);
+                }
+                failed += failures;
+                flushes++;
+                lastFlushNanos = nanos;
+                maxFlushNanos = Math.max(maxFlushNanos, nanos);
+                totalFlushNanos += nanos;
+                batch.clear();
+                lock.notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Runs the taken writes in one transaction. If it fails, every write is run
+     * in a transaction of its own, so that only the failed writes are lost.
+     * 
+     * @return the number of failed writes
+     */
+    private int write() {
+        try {
+            target.runInTransaction(writeBatch);
+            return 0;
+        } catch (Throwable t) {
+            int failures = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    target.runInTransaction(batch.get(i).work);
+                } catch (Throwable e) {
+                    failures++;
+                    if (Gdx.app != null) {
+                        Gdx.app.error("WriteBehindQueue", "write failed", e);
+                    }
+                }
+            }
+            return failures;
+        }
+    }
+    
+    /**
+     * Getter for the number of writes that are not committed yet.
+     */
+    public int getPendingWrites() {
+        synchronized (lock) {
+            return pending.size() + batch.size();
+        }
+    }
+    
+    /**
+     * Getter for the maximum number of writes that waited in the queue at
+     * once.
+     */
+    public int getMaxPendingWrites() {
+        synchronized (lock) {
+            return maxPendingWrites;
+        }
+    }
+    
+    /**
+     * Getter for the number of added writes.
+     */
+    public long getAddedWrites() {
+        synchronized (lock) {
+            return added;
+        }
+    }
+    
+    /**
+     * Getter for the number of writes that were replaced by a later write with
+     * the same key before they were written.
+     */
+    public long getCoalescedWrites() {
+        synchronized (lock) {
+            return coalesced;
+        }
+    }
+    
+    /**
+     * Getter for the number of writes that failed and are lost.
+     */
+    public long getFailedWrites() {
+        synchronized (lock) {
+            return failed;
+        }
+    }
+    
+    /**
+     * Getter for the number of transactions of the writer thread.
+     */
+    public long getFlushes() {
+        synchronized (lock) {
+            return flushes;
+        }
+    }
+    
+    /**
+     * Getter for the time of the last transaction of the writer thread.
+     * 
+     * @return nanoseconds
+     */
+    public long getLastFlushNanos() {
+        synchronized (lock) {
+            return lastFlushNanos;
+        }
+    }
+    
+    /**
+     * Getter for the time of the longest transaction of the writer thread.
+     * 
+     * @return nanoseconds
+     */
+    public long getMaxFlushNanos() {
+        synchronized (lock) {
+            return maxFlushNanos;
+        }
+    }
+    
+    /**
+     * Getter for the average time of the transactions of the writer thread.
+     * 
+     * @return nanoseconds
+     */
+    public long getAverageFlushNanos() {
+        synchronized (lock) {
+            return flushes == 0 ? 0 : totalFlushNanos / flushes;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package de.fau.cs.mad.fly.features;
+
+/**
+ * Implement this interface when you only want to receive the collision events
+ * with objects of some categories.
+ * <p>
+ * The second game object of {@link #onCollision} belongs to one of the
+ * categories. If the player collided, the player is the first game object.
+ */
+public interface ICollisionCategoryListener extends ICollisionListener {
+    
+    /**
+     * Getter for the categories of the collision objects the listener is
+     * interested in.
+     * 
+     * @return categories, e.g.
+     *         {@link de.fau.cs.mad.fly.game.CollisionDetector#COLLECTIBLE_CATEGORY}
+     */
+    public int getCollisionCategories();
+}
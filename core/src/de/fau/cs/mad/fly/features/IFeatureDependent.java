@@ -0,0 +1,18 @@
+package de.fau.cs.mad.fly.features;
+
+/**
+ * Implement this interface when your feature has to run after other features.
+ * <p>
+ * In every phase, e.g. in {@link IFeatureInit#init} or in
+ * {@link IFeatureUpdate#update}, the feature runs after all features of the
+ * given classes, see {@link de.fau.cs.mad.fly.game.FeatureScheduler}.
+ */
+public interface IFeatureDependent {
+    
+    /**
+     * Getter for the classes of the features this feature depends on.
+     * 
+     * @return classes of the features that have to run first, may be empty
+     */
+    public Class<?>[] getDependencies();
+}
@@ -0,0 +1,23 @@
+package de.fau.cs.mad.fly.features;
+
+/**
+ * Implement this interface when the update of your feature may run in
+ * parallel to the update of other features.
+ * <p>
+ * Features whose shared state does not overlap may be updated at the same
+ * time on different threads, see
+ * {@link de.fau.cs.mad.fly.game.FeatureScheduler}. Features only implementing
+ * {@link IFeatureUpdate} are never updated in parallel.
+ */
+public interface IFeatureParallelUpdate extends IFeatureUpdate {
+    
+    /**
+     * Getter for the state the update of the feature reads or writes and that
+     * is shared with other parts of the game.
+     * 
+     * @return flags of the shared state, e.g.
+     *         {@link de.fau.cs.mad.fly.game.FeatureScheduler#PLAYER_STATE}, 0
+     *         if the feature only touches its own state
+     */
+    public int getSharedState();
+}
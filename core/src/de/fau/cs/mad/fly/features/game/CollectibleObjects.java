@@ -1,11 +1,9 @@
 package de.fau.cs.mad.fly.features.game;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.ObjectSet;
 
-import de.fau.cs.mad.fly.features.ICollisionListener;
+import de.fau.cs.mad.fly.features.ICollisionCategoryListener;
 import de.fau.cs.mad.fly.features.IFeatureDispose;
 import de.fau.cs.mad.fly.features.IFeatureLoad;
 import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
@@ -19,7 +17,7 @@ import de.fau.cs.mad.fly.res.CollectibleManager;
  * 
  * @author Tobi
  */
-public abstract class CollectibleObjects implements IFeatureLoad, IFeatureDispose, ICollisionListener {
+public abstract class CollectibleObjects implements IFeatureLoad, IFeatureDispose, ICollisionCategoryListener {
     
     /**
      * The collectible manager.
@@ -32,9 +30,9 @@ public abstract class CollectibleObjects implements IFeatureLoad, IFeatureDispos
     private String type;
     
     /**
-     * List of the currently active collectible objects.
+     * Set of the currently active collectible objects.
      */
-    private List<Collectible> collectibleObjects;
+    private ObjectSet<Collectible> collectibleObjects;
     
     /**
      * Creates a new collectible objects game feature.
@@ -50,12 +48,16 @@ public abstract class CollectibleObjects implements IFeatureLoad, IFeatureDispos
     public void load(GameController game) {
         collectibleManager = game.getLevel().getCollectibleManager();
         
-        collectibleObjects = new ArrayList<Collectible>();
+        collectibleObjects = new ObjectSet<Collectible>();
         CollisionDetector collisionDetector = CollisionDetector.getInstance();
         
         for (Collectible c : collectibleManager.getCollectibles()) {
             if (c.getType().equals(type)) {
-                c.createShapeAndRigidBody(collisionDetector, type);
+                // a restarted level keeps the triggers of the collectibles
+                // that were not collected
+                if (c.getCollisionObject() == null) {
+                    c.createShapeAndRigidBody(collisionDetector, type);
+                }
                 collectibleObjects.add(c);
             }
         }
@@ -76,20 +78,24 @@ public abstract class CollectibleObjects implements IFeatureLoad, IFeatureDispos
      */
     protected abstract void handleCollecting(Collectible c);
     
+    @Override
+    public int getCollisionCategories() {
+        return CollisionDetector.COLLECTIBLE_CATEGORY;
+    }
+    
     @Override
     public void onCollision(GameObject g1, GameObject g2) {
-        if (!(g2 instanceof Collectible)) {
+        if (g2.getCollisionCategory() != CollisionDetector.COLLECTIBLE_CATEGORY) {
             return;
         }
         
         Collectible c = (Collectible) g2;
         
-        if (!collectibleObjects.contains(c)) {
+        if (!collectibleObjects.remove(c)) {
             return;
         }
         
         c.hide();
-        collectibleObjects.remove(c);
         
         handleCollecting(c);
         
@@ -100,4 +106,15 @@ public abstract class CollectibleObjects implements IFeatureLoad, IFeatureDispos
     public void addObject(Collectible c) {
         collectibleObjects.add(c);
     }
+    
+    /**
+     * Removes a collectible object that was not collected, e.g. because it
+     * was removed from the level.
+     * 
+     * @param c
+     *            The collectible object to remove.
+     */
+    public void removeObject(Collectible c) {
+        collectibleObjects.remove(c);
+    }
 }
\ No newline at end of file
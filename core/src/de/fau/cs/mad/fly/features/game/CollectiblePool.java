@@ -0,0 +1,20 @@
+package de.fau.cs.mad.fly.features.game;
+
+import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
+import de.fau.cs.mad.fly.game.CollisionDetector;
+
+/**
+ * Pool for collectibles of one type.
+ * <p>
+ * Collected collectibles are hidden, they are shown again on reuse.
+ * 
+ * @param <T>
+ *            The type of the pooled collectibles.
+ */
+public abstract class CollectiblePool<T extends Collectible> extends GameObjectPool<T> {
+    
+    @Override
+    protected void createRigidBody(T collectible) {
+        collectible.createShapeAndRigidBody(CollisionDetector.getInstance(), collectible.getType());
+    }
+}
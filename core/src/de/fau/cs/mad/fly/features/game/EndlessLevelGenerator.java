@@ -9,6 +9,8 @@ import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
 
 import de.fau.cs.mad.fly.features.upgrades.ChangeTimeUpgradeHandler;
 import de.fau.cs.mad.fly.features.upgrades.TemporarySpeedUpgradeHandler;
@@ -16,9 +18,9 @@ import de.fau.cs.mad.fly.features.upgrades.types.ChangeTimeUpgrade;
 import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
 import de.fau.cs.mad.fly.features.upgrades.types.SpeedUpgradeEffect;
 import de.fau.cs.mad.fly.features.upgrades.types.TemporarySpeedUpgrade;
-import de.fau.cs.mad.fly.game.CollisionDetector;
 import de.fau.cs.mad.fly.game.GameControllerBuilder;
 import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.game.GameObject;
 import de.fau.cs.mad.fly.res.Assets;
 import de.fau.cs.mad.fly.res.GateDisplay;
 import de.fau.cs.mad.fly.res.GateGoal;
@@ -46,7 +48,11 @@ public class EndlessLevelGenerator {
     
     private GateGoal lastGate;
     private GateGoal lastGatePassed;
-    private GateGoal lastRemoved;
+    
+    /**
+     * Ids of the gates that are removed when the next gate is passed.
+     */
+    private int[] removableGates;
     
     private float maxAngle = 45;
     private float minAngle = 0.1f;
@@ -58,6 +64,28 @@ public class EndlessLevelGenerator {
     
     protected int defaultGateScore = 50;
     
+    /** Time change of the generated time upgrades. */
+    protected int timeUpgradeChange = 10;
+    
+    /** Pool of the generated gates. */
+    protected final GatePool gatePool;
+    
+    /** Pool of the generated time upgrades. */
+    protected final CollectiblePool<ChangeTimeUpgrade> timeUpgradePool;
+    
+    /** Pool of the generated speed upgrades. */
+    protected final CollectiblePool<TemporarySpeedUpgrade> speedUpgradePool;
+    
+    /**
+     * Maps the id of the first gate of a group of generated gates to the
+     * upgrade that was generated in front of the group. The upgrade is removed
+     * together with the gates.
+     */
+    private final IntMap<Collectible> upgrades = new IntMap<Collectible>();
+    
+    /** Result of the spatial queries of the spawn collision check. */
+    private final Array<GameObject> nearObjects = new Array<GameObject>();
+    
     /**
      * 
      * @param level
@@ -88,10 +116,24 @@ public class EndlessLevelGenerator {
         this.gateGoals = new ArrayList<GateGoal>();
         this.predecessors = new ArrayList<GateGoal>();
         
+        this.gatePool = new GatePool(level.getDependency("torus"), level.getDependency("hole"));
+        this.timeUpgradePool = new CollectiblePool<ChangeTimeUpgrade>() {
+            @Override
+            protected ChangeTimeUpgrade newObject() {
+                return new ChangeTimeUpgrade(manager.get("models/timeUpgrade/timeUpgrade", GameModel.class), timeUpgradeChange);
+            }
+        };
+        this.speedUpgradePool = new CollectiblePool<TemporarySpeedUpgrade>() {
+            @Override
+            protected TemporarySpeedUpgrade newObject() {
+                SpeedUpgradeEffect effect = new SpeedUpgradeEffect(SpeedUpgradeEffect.NO_SPEEDUP, 0, 0, 0);
+                return new TemporarySpeedUpgrade(manager.get("models/speedUpgrade/speedUpgrade", GameModel.class), effect);
+            }
+        };
+        
         lastGatePassed = new GateGoal(-2, level.getDependency("hole"), defaultGateScore, new GateDisplay(level.getDependency("torus")));
         lastGatePassed.successors = new int[0];
-        lastRemoved = new GateGoal(-3, level.getDependency("hole"), defaultGateScore, new GateDisplay(level.getDependency("torus")));
-        lastRemoved.successors = new int[0];
+        removableGates = new int[0];
         
         this.gateGoals = level.getGateCircuit().allGateGoals();
         int size = gateGoals.size();
@@ -150,18 +192,29 @@ public class EndlessLevelGenerator {
             
             lastGateId = passed.getGateId();
             
+            // the successors have to be read before the gates are freed
+            int[] nextRemovableGates = lastGatePassed.successors;
+            
             // removing passed gate and all possible parallel gates
-            size = lastRemoved.successors.length;
+            size = removableGates.length;
             for (int i = 0; i < size; i++) {
-                int id = lastRemoved.successors[i];
+                int id = removableGates[i];
                 GateGoal successor = level.getGateCircuit().getGateGoalById(id);
+                if (successor == null) {
+                    continue;
+                }
                 
                 level.getGateCircuit().removeGate(successor);
                 
                 gateGoals.remove(successor);
-                successor.dispose();
+                gatePool.free(successor);
+                
+                Collectible upgrade = upgrades.remove(id);
+                if (upgrade != null) {
+                    releaseCollectible(upgrade);
+                }
             }
-            lastRemoved = lastGatePassed;
+            removableGates = nextRemovableGates;
             lastGatePassed = passed;
             
         }
@@ -176,8 +229,6 @@ public class EndlessLevelGenerator {
      * @return - The randomly generated Gates
      */
     private List<GateGoal> generateRandomGates(List<GateGoal> predecessors) {
-        CollisionDetector collisionDetector = CollisionDetector.getInstance();
-        
         List<GateGoal> newGates = new ArrayList<GateGoal>();
         float rand = 1.f;
         float min = 0.8f;
@@ -203,9 +254,8 @@ public class EndlessLevelGenerator {
                 shortestDistance = distance;
             }
             
-            GateDisplay newDisplay = new GateDisplay(level.getDependency("torus"));
-            GateGoal newGoal = new GateGoal(currGate, level.getDependency("hole"), defaultGateScore, newDisplay);
-            newDisplay.setGoal(newGoal);
+            GateGoal newGoal = gatePool.obtain(currGate, defaultGateScore);
+            GateDisplay newDisplay = newGoal.getDisplay();
             
             Vector3 newDirection;
             
@@ -235,15 +285,13 @@ public class EndlessLevelGenerator {
             // Gate is discarded if the RandomAlgorithm can't find a position
             // that is far enough from the other Gates
             if (!use) {
+                gatePool.free(newGoal);
                 rand = MathUtils.random();
                 continue;
             }
             
-            newGoal.transform = newDisplay.transform.cpy();
-            newGoal.successors = new int[0];
-            
-            newGoal.createShapeAndRigidBody(collisionDetector);
-            newDisplay.createShapeAndRigidBody(collisionDetector);
+            newGoal.transform.set(newDisplay.transform);
+            gatePool.activate(newGoal);
             
             newLastDirection.add(newDirection.cpy());
             
@@ -258,7 +306,10 @@ public class EndlessLevelGenerator {
         
         // TODO: find nice a value for the minimum distance to add an Upgrade
         if (shortestDistance > 10.f) {
-            addRandomUpgrade(matrix, shortestDistance);
+            Collectible upgrade = addRandomUpgrade(matrix, shortestDistance);
+            if (upgrade != null && newGates.size() > 0) {
+                upgrades.put(newGates.get(0).getGateId(), upgrade);
+            }
         }
         
         int size = newGates.size();
@@ -291,15 +342,16 @@ public class EndlessLevelGenerator {
      * @param distance
      *            - The distance from the latest generated Gate to its
      *            predecessors
+     * @return The added Upgrade or null
      */
-    private void addRandomUpgrade(Matrix4 matrix, float distance) {
+    private Collectible addRandomUpgrade(Matrix4 matrix, float distance) {
         int random = MathUtils.random(1);
         
         Collectible c = null;
         
         switch (random) {
         case 0:
-            c = new ChangeTimeUpgrade(manager.get("models/timeUpgrade/timeUpgrade", GameModel.class), 10);
+            c = timeUpgradePool.obtain();
             changeTimeHandler.addObject(c);
             break;
         case 1:
@@ -307,8 +359,7 @@ public class EndlessLevelGenerator {
             int speedupTimeInMilliSeconds = 200;
             int maxSpeedTimeInMilliSeconds = MathUtils.random(500, 10000);
             int slowdownTimeInMilliSeconds = 200;
-            SpeedUpgradeEffect effect = new SpeedUpgradeEffect(maxSpeedupFactor, speedupTimeInMilliSeconds, maxSpeedTimeInMilliSeconds, slowdownTimeInMilliSeconds);
-            c = new TemporarySpeedUpgrade(manager.get("models/speedUpgrade/speedUpgrade", GameModel.class), effect);
+            c = obtainSpeedUpgrade(maxSpeedupFactor, speedupTimeInMilliSeconds, maxSpeedTimeInMilliSeconds, slowdownTimeInMilliSeconds);
             temporarySpeedHandler.addObject(c);
             break;
         default:
@@ -317,14 +368,88 @@ public class EndlessLevelGenerator {
         
         if (c != null) {
             c.transform.set(matrix).translate(lastDirection.cpy().scl(distance / 2.f));
-            
-            CollisionDetector collisionDetector = CollisionDetector.getInstance();
-            c.createShapeAndRigidBody(collisionDetector, c.getType());
-            
-            level.getCollectibleManager().addCollectible(c);
+            activateCollectible(c);
+        }
+        return c;
+    }
+    
+    /**
+     * Obtains a speed upgrade from the pool and sets its effect.
+     * 
+     * @return speed upgrade with the given effect
+     */
+    protected TemporarySpeedUpgrade obtainSpeedUpgrade(float maxSpeedupFactor, int speedupTimeInMilliSeconds, int maxSpeedTimeInMilliSeconds, int slowdownTimeInMilliSeconds) {
+        TemporarySpeedUpgrade upgrade = speedUpgradePool.obtain();
+        if (upgrade.getEffect().isRunning()) {
+            // the effect of the collected upgrade is still used by the handler
+            upgrade.setEffect(new SpeedUpgradeEffect(maxSpeedupFactor, speedupTimeInMilliSeconds, maxSpeedTimeInMilliSeconds, slowdownTimeInMilliSeconds));
+        } else {
+            upgrade.getEffect().set(maxSpeedupFactor, speedupTimeInMilliSeconds, maxSpeedTimeInMilliSeconds, slowdownTimeInMilliSeconds);
+        }
+        return upgrade;
+    }
+    
+    /**
+     * Adds an obtained upgrade at its current transform to the collision world
+     * and to the level.
+     * 
+     * @param c
+     *            The obtained upgrade.
+     */
+    protected void activateCollectible(Collectible c) {
+        if (c instanceof ChangeTimeUpgrade) {
+            timeUpgradePool.activate((ChangeTimeUpgrade) c);
+        } else if (c instanceof TemporarySpeedUpgrade) {
+            speedUpgradePool.activate((TemporarySpeedUpgrade) c);
+        }
+        level.getCollectibleManager().addCollectible(c);
+    }
+    
+    /**
+     * Removes an upgrade from the level and its handler and frees it, no
+     * matter if it was collected or not.
+     * 
+     * @param c
+     *            The upgrade to remove.
+     */
+    protected void releaseCollectible(Collectible c) {
+        level.getCollectibleManager().detachCollectible(c);
+        if (c instanceof ChangeTimeUpgrade) {
+            changeTimeHandler.removeObject(c);
+            timeUpgradePool.free((ChangeTimeUpgrade) c);
+        } else if (c instanceof TemporarySpeedUpgrade) {
+            temporarySpeedHandler.removeObject(c);
+            speedUpgradePool.free((TemporarySpeedUpgrade) c);
         }
     }
     
+    /**
+     * Getter for the pool of the generated gates.
+     * 
+     * @return {@link #gatePool}
+     */
+    public GatePool getGatePool() {
+        return gatePool;
+    }
+    
+    /**
+     * Getter for the pool of the generated time upgrades.
+     * 
+     * @return {@link #timeUpgradePool}
+     */
+    public GameObjectPool<ChangeTimeUpgrade> getTimeUpgradePool() {
+        return timeUpgradePool;
+    }
+    
+    /**
+     * Getter for the pool of the generated speed upgrades.
+     * 
+     * @return {@link #speedUpgradePool}
+     */
+    public GameObjectPool<TemporarySpeedUpgrade> getSpeedUpgradePool() {
+        return speedUpgradePool;
+    }
+    
     /**
      * Calculates a random angle.
      * 
@@ -341,12 +466,13 @@ public class EndlessLevelGenerator {
     }
     
     /**
-     * Checks for spawn collisions.
+     * Checks for spawn collisions with the new gates and the gates that are
+     * already in the level.
      * 
      * @param position
      *            The position of the new gate goals.
      * @param gates
-     *            List of all the currently existing gates goals.
+     *            List of the new gate goals that are not yet in the level.
      * @param distance
      *            The minimum distance between the new goal and the existing
      *            goals.
@@ -360,6 +486,15 @@ public class EndlessLevelGenerator {
                 return true;
             }
         }
+        
+        level.getSpatialIndex().querySphere(position, distance, nearObjects);
+        size = nearObjects.size;
+        for (int i = 0; i < size; i++) {
+            GameObject o = nearObjects.get(i);
+            if (o instanceof GateDisplay && position.dst(o.getPosition()) < distance) {
+                return true;
+            }
+        }
         return false;
     }
     
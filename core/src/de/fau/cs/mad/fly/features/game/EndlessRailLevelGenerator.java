@@ -2,25 +2,21 @@ package de.fau.cs.mad.fly.features.game;
 
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetDescriptor;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
+import com.badlogic.gdx.utils.IntMap;
 
 import de.fau.cs.mad.fly.features.upgrades.ChangePointsUpgradeHandler;
 import de.fau.cs.mad.fly.features.upgrades.types.ChangePointsUpgrade;
-import de.fau.cs.mad.fly.features.upgrades.types.ChangeTimeUpgrade;
 import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
-import de.fau.cs.mad.fly.features.upgrades.types.SpeedUpgradeEffect;
-import de.fau.cs.mad.fly.features.upgrades.types.TemporarySpeedUpgrade;
 import de.fau.cs.mad.fly.game.CollisionDetector;
 import de.fau.cs.mad.fly.game.GameControllerBuilder;
 import de.fau.cs.mad.fly.game.GameModel;
 import de.fau.cs.mad.fly.game.GameObject;
-import de.fau.cs.mad.fly.res.GateDisplay;
 import de.fau.cs.mad.fly.res.GateGoal;
 import de.fau.cs.mad.fly.res.Level;
 
@@ -37,7 +33,11 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
 	private GateGoal lastGate;
 	private GateGoal firstGate;
 	
-	private int asteroidCount = 0;
+	/**
+	 * The removed gate that is the virtual gate of the gate circuit. It is
+	 * freed when the next gate is removed.
+	 */
+	private GateGoal virtualGate;
 	
     protected ChangePointsUpgradeHandler changePointsHandler;
     
@@ -53,9 +53,18 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
     
     private int currentRailEndPoint = 0;
     private int currentRailStartPoint = 0;
-    private Map<Integer,GameObject> objects;
-    private Map<Integer,Collectible> collectibles;
-    private Map<Integer,GateGoal> gates;
+    private IntMap<GameObject> objects;
+    private IntMap<Collectible> collectibles;
+    private IntMap<GateGoal> gates;
+    
+    /** Pool of the generated asteroids. */
+    private final GameObjectPool<GameObject> asteroidPool;
+    
+    /** Pool of the generated points upgrades. */
+    private final CollectiblePool<ChangePointsUpgrade> pointsUpgradePool;
+    
+    /** Position of the newest rail segment with the offset of a generated object. */
+    private final Vector3 spawnPosition = new Vector3();
 
 	public EndlessRailLevelGenerator(Level level, GameControllerBuilder builder) {
 		super(level, builder);
@@ -63,9 +72,31 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
 		manager.load(new AssetDescriptor<GameModel>("models/asteroid/asteroid", GameModel.class));
 		manager.load(new AssetDescriptor<GameModel>("models/pointsUpgrade/pointsUpgrade", GameModel.class));
 		
-		objects = new HashMap<Integer,GameObject>();
-		collectibles = new HashMap<Integer,Collectible>();
-		gates = new HashMap<Integer,GateGoal>();
+		objects = new IntMap<GameObject>();
+		collectibles = new IntMap<Collectible>();
+		gates = new IntMap<GateGoal>();
+		
+		timeUpgradeChange = 5;
+		asteroidPool = new GameObjectPool<GameObject>() {
+			@Override
+			protected GameObject newObject() {
+				return new GameObject(manager.get("models/asteroid/asteroid", GameModel.class), "asteroid");
+			}
+			
+			@Override
+			protected void createRigidBody(GameObject o) {
+				CollisionDetector collisionDetector = CollisionDetector.getInstance();
+				btCollisionShape displayShape = collisionDetector.getShapeManager().createConvexShape(o.getModelId(), o);
+				o.createRigidBody(o.getModelId(), displayShape, 0.0f, CollisionDetector.OBJECT_FLAG, CollisionDetector.ALL_FLAG);
+				collisionDetector.addRigidBody(o);
+			}
+		};
+		pointsUpgradePool = new CollectiblePool<ChangePointsUpgrade>() {
+			@Override
+			protected ChangePointsUpgrade newObject() {
+				return new ChangePointsUpgrade(manager.get("models/pointsUpgrade/pointsUpgrade", GameModel.class), 50);
+			}
+		};
 		
 		this.changePointsHandler = new ChangePointsUpgradeHandler();
 		builder.addFeatureToLists(changePointsHandler);
@@ -101,24 +132,28 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
 	 * @param railPosition    indicates the position of the railsSegment which has to be removed
 	 */
 	public void removeComponents(Vector3 railPosition) {
-		GameObject o = objects.get(currentRailStartPoint);
+		GameObject o = objects.remove(currentRailStartPoint);
 		if(o !=  null) {
-			level.removeComponent(o);
-			objects.remove(currentRailStartPoint);
+			level.detachComponent(o);
+			asteroidPool.free(o);
 		}
 		
-		Collectible c = collectibles.get(currentRailStartPoint);
+		Collectible c = collectibles.remove(currentRailStartPoint);
 		if(c !=  null) {
-			level.getCollectibleManager().removeCollectible(c);
-			collectibles.remove(currentRailStartPoint);
+			releaseCollectible(c);
 		}
 		
-		GateGoal g = gates.get(currentRailStartPoint);
+		GateGoal g = gates.remove(currentRailStartPoint);
 		if(g !=  null) {
 			level.getGateCircuit().removeGate(g);
 			//gate is not passed but the player flew past it
 			level.getGateCircuit().setVirtualGate(g);
-			gates.remove(currentRailStartPoint);
+			
+			// the previous virtual gate is not referenced by the gate circuit anymore
+			if(virtualGate != null) {
+				gatePool.free(virtualGate);
+			}
+			virtualGate = g;
 		}
 		
 		currentRailStartPoint++;
@@ -127,12 +162,6 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
 	
 	private GateGoal addRandomGate() {
 		
-        CollisionDetector collisionDetector = CollisionDetector.getInstance();
-        
-        GateDisplay newDisplay = new GateDisplay(level.getDependency("torus"));
-		GateGoal newGoal = new GateGoal(currGate, level.getDependency("hole"), defaultGateScore, newDisplay);
-		newDisplay.setGoal(newGoal);
-		 
 		Vector3 railOffset = addGateRailOffset();
     	
     	if(stepsSinceLastAsteroid <= 3) {
@@ -140,13 +169,13 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
     			return null;
     		}
     	}
+    	
+		GateGoal newGoal = gatePool.obtain(currGate, defaultGateScore);
         
-		Vector3 gatePositon = centerRail.get(centerRail.size()-1).cpy().add(railOffset);
-		newDisplay.transform.setToTranslation(gatePositon);
-		newGoal.transform = newDisplay.transform.cpy();
-		 
-		newGoal.createShapeAndRigidBody(collisionDetector);
-		newDisplay.createShapeAndRigidBody(collisionDetector);
+		Vector3 gatePositon = spawnPosition.set(centerRail.get(centerRail.size()-1)).add(railOffset);
+		newGoal.getDisplay().transform.setToTranslation(gatePositon);
+		newGoal.transform.setToTranslation(gatePositon);
+		gatePool.activate(newGoal);
 		
 		
         level.getGateCircuit().addGate(newGoal);
@@ -195,7 +224,7 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
         	if(stepsSinceLastTimeUpgrade <= 20 || stepsSinceLastSpeedUpgrade <= 20) {
         		return;
         	}
-            c = new ChangeTimeUpgrade(manager.get("models/timeUpgrade/timeUpgrade", GameModel.class), 5);
+            c = timeUpgradePool.obtain();
             changeTimeHandler.addObject(c);
             break;
         case 1:
@@ -206,14 +235,13 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
             int speedupTimeInMilliSeconds = 200;
             int maxSpeedTimeInMilliSeconds = MathUtils.random(500, 10000);
             int slowdownTimeInMilliSeconds = 200;
-            SpeedUpgradeEffect effect = new SpeedUpgradeEffect(maxSpeedupFactor, speedupTimeInMilliSeconds, maxSpeedTimeInMilliSeconds, slowdownTimeInMilliSeconds);
-            c = new TemporarySpeedUpgrade(manager.get("models/speedUpgrade/speedUpgrade", GameModel.class), effect);
+            c = obtainSpeedUpgrade(maxSpeedupFactor, speedupTimeInMilliSeconds, maxSpeedTimeInMilliSeconds, slowdownTimeInMilliSeconds);
             temporarySpeedHandler.addObject(c);
             break;
         case 2:
         case 3:
         case 4:
-        	c = new ChangePointsUpgrade(manager.get("models/pointsUpgrade/pointsUpgrade", GameModel.class), 50);
+        	c = pointsUpgradePool.obtain();
         	changePointsHandler.addObject(c);
         	random = 2;
             break;
@@ -232,17 +260,14 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
         	
         	if(stepsSinceLastAsteroid <= 3) {
         		if(railOffset.equals(lastAsteroidPos)) {
+        			releaseCollectible(c);
         			return;
         		}
         	}
         	
-        	Vector3 upgradePositon = centerRail.get(centerRail.size()-1).cpy().add(railOffset);
+        	Vector3 upgradePositon = spawnPosition.set(centerRail.get(centerRail.size()-1)).add(railOffset);
     		c.transform.setToTranslation(upgradePositon);
-            
-            CollisionDetector collisionDetector = CollisionDetector.getInstance();
-            c.createShapeAndRigidBody(collisionDetector, c.getType());
-            
-            level.getCollectibleManager().addCollectible(c);
+            activateCollectible(c);
             collectibles.put(currentRailEndPoint, c);
 
             switch (random) {
@@ -260,12 +285,7 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
     }
     
     private void addRandomAsteroid() {
-    	GameObject o;
-    	
-        String ref = "asteroid";
-    	
-    	o = new GameObject(manager.get("models/asteroid/asteroid", GameModel.class), ref);
-        o.setId("" + asteroidCount);
+    	GameObject o = asteroidPool.obtain();
 
         Vector3 railOffset = addRailOffset();
         if(stepsSinceLastUpgrade <= 5 || stepsSinceLastGate <= 5) {
@@ -274,20 +294,14 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
         	}
         }
         
-    	Vector3 asteroidPositon = centerRail.get(centerRail.size()-1).cpy().add(railOffset);
+    	Vector3 asteroidPositon = spawnPosition.set(centerRail.get(centerRail.size()-1)).add(railOffset);
     	o.transform.setToTranslation(asteroidPositon);
-    	
-    	CollisionDetector collisionDetector = CollisionDetector.getInstance();
-        btCollisionShape displayShape;
-        displayShape = collisionDetector.getShapeManager().createConvexShape(o.getModelId(), o);
-        o.createRigidBody(o.getModelId(), displayShape, 0.0f, CollisionDetector.OBJECT_FLAG, CollisionDetector.ALL_FLAG);
-        collisionDetector.addRigidBody(o);
+    	asteroidPool.activate(o);
     	
     	level.addComponent(o);
     	objects.put(currentRailEndPoint, o);
     	
     	lastAsteroidPos = railOffset;
-    	asteroidCount++;
     	stepsSinceLastAsteroid = 0;
     }
 	
@@ -316,6 +330,45 @@ public class EndlessRailLevelGenerator extends EndlessLevelGenerator {
 		level.getGateCircuit().setVirtualGate(firstGate);
 	}
 	
+	@Override
+	protected void activateCollectible(Collectible c) {
+		if (c instanceof ChangePointsUpgrade) {
+			pointsUpgradePool.activate((ChangePointsUpgrade) c);
+			level.getCollectibleManager().addCollectible(c);
+		} else {
+			super.activateCollectible(c);
+		}
+	}
+	
+	@Override
+	protected void releaseCollectible(Collectible c) {
+		if (c instanceof ChangePointsUpgrade) {
+			level.getCollectibleManager().detachCollectible(c);
+			changePointsHandler.removeObject(c);
+			pointsUpgradePool.free((ChangePointsUpgrade) c);
+		} else {
+			super.releaseCollectible(c);
+		}
+	}
+	
+	/**
+	 * Getter for the pool of the generated asteroids.
+	 * 
+	 * @return {@link #asteroidPool}
+	 */
+	public GameObjectPool<GameObject> getAsteroidPool() {
+		return asteroidPool;
+	}
+	
+	/**
+	 * Getter for the pool of the generated points upgrades.
+	 * 
+	 * @return {@link #pointsUpgradePool}
+	 */
+	public GameObjectPool<ChangePointsUpgrade> getPointsUpgradePool() {
+		return pointsUpgradePool;
+	}
+	
 	/**
 	 * Setter of the railOffset
 	 * @param railOffset
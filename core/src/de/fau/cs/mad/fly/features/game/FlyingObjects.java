@@ -4,34 +4,32 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.PerspectiveCamera;
-import com.badlogic.gdx.graphics.g3d.Environment;
-import com.badlogic.gdx.graphics.g3d.ModelBatch;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
 
 import de.fau.cs.mad.fly.features.IFeatureDispose;
-import de.fau.cs.mad.fly.features.IFeatureInit;
 import de.fau.cs.mad.fly.features.IFeatureLoad;
-import de.fau.cs.mad.fly.features.IFeatureRender;
-import de.fau.cs.mad.fly.features.IFeatureUpdate;
+import de.fau.cs.mad.fly.features.IFeatureParallelUpdate;
 import de.fau.cs.mad.fly.game.CollisionDetector;
+import de.fau.cs.mad.fly.game.FeatureScheduler;
 import de.fau.cs.mad.fly.game.GameController;
 import de.fau.cs.mad.fly.game.GameModel;
 import de.fau.cs.mad.fly.game.GameObject;
+import de.fau.cs.mad.fly.game.SpatialIndex;
 import de.fau.cs.mad.fly.helper.RandomHelper;
 
 /**
  * Used to display flying objects inside a given size around the player with a
  * given model and a given count of flying objects.
+ * <p>
+ * The flying objects are added to the spatial index of the level, which
+ * renders them.
  * 
  * @author Tobias Zangl
  */
-public class FlyingObjects implements IFeatureLoad, IFeatureInit, IFeatureUpdate, IFeatureRender, IFeatureDispose {
+public class FlyingObjects implements IFeatureLoad, IFeatureParallelUpdate, IFeatureDispose {
     private GameController gameController;
-    private ModelBatch batch;
-    private Environment environment;
-    private PerspectiveCamera camera;
+    private SpatialIndex spatialIndex;
     
     private Vector3 spawnSize;
     
@@ -61,8 +59,7 @@ public class FlyingObjects implements IFeatureLoad, IFeatureInit, IFeatureUpdate
     @Override
     public void load(GameController game) {
         this.gameController = game;
-        batch = gameController.getBatch();
-        environment = gameController.getLevel().getEnvironment();
+        spatialIndex = gameController.getLevel().getSpatialIndex();
         
         objects = new ArrayList<GameObject>(count);
         
@@ -99,14 +96,17 @@ public class FlyingObjects implements IFeatureLoad, IFeatureInit, IFeatureUpdate
         Vector3 position;
         do {
             position = RandomHelper.getRandomVectorInSize(spawnSize);
-        } while (checkForSpawnCollision(position, objects, 20.0f));
+        } while (checkForSpawnCollision(position, 20.0f));
         
         flyingObject.transform.setToTranslation(position);
         
         btCollisionShape shape = CollisionDetector.getInstance().getShapeManager().createConvexShape(modelRef, flyingObject);
         flyingObject.createRigidBody(modelRef, shape, 1.0f, CollisionDetector.OBJECT_FLAG, CollisionDetector.ALL_FLAG);
         flyingObject.setRestitution(1.0f);
+        // keeps the transform up to date for rendering and the spatial index
+        flyingObject.addMotionState();
         CollisionDetector.getInstance().addRigidBody(flyingObject);
+        spatialIndex.add(flyingObject);
         
         flyingObject.setMovement(RandomHelper.getRandomVector(-2.0f, 2.0f));
         flyingObject.setRotation(RandomHelper.getRandomVector(-0.5f, 0.5f));
@@ -116,37 +116,19 @@ public class FlyingObjects implements IFeatureLoad, IFeatureInit, IFeatureUpdate
     
     /**
      * Checks if the calculated position is colliding with an already created
-     * flying object or any other component of the level.
+     * flying object or any other game object in the spatial index of the
+     * level.
      * 
      * @param position
      *            The currently calculated position.
-     * @param objects
-     *            The list of the already created flying objects
      * @param distance2
-     *            The minimum distance between a created flying object and the
-     *            other objects.
+     *            The squared minimum distance between a created flying object
+     *            and the other objects.
      * @return true if the position is too close to anything else, false
      *         otherwise.
      */
-    private boolean checkForSpawnCollision(Vector3 position, List<GameObject> objects, float distance2) {
-        int size = objects.size();
-        for (int i = 0; i < size; i++) {
-            if (position.dst2(objects.get(i).getPosition()) < distance2) {
-                // Gdx.app.log("FlyingObjects.checkForSpawnCollision",
-                // "SpawnCollision with other flying object.");
-                return true;
-            }
-        }
-        
-        for (GameObject component : gameController.getLevel().components) {
-            if (position.dst2(component.getPosition()) < distance2) {
-                // dx.app.log("FlyingObjects.checkForSpawnCollision",
-                // "SpawnCollision with level component.");
-                return true;
-            }
-        }
-        
-        return false;
+    private boolean checkForSpawnCollision(Vector3 position, float distance2) {
+        return spatialIndex.nearest2(position, distance2) != null;
     }
     
     /**
@@ -168,8 +150,9 @@ public class FlyingObjects implements IFeatureLoad, IFeatureInit, IFeatureUpdate
     }
     
     @Override
-    public void init(GameController game) {
-        camera = gameController.getCamera();
+    public int getSharedState() {
+        // the camera is only read, it is not moved by the features
+        return FeatureScheduler.WORLD_STATE;
     }
     
     @Override
@@ -181,14 +164,6 @@ public class FlyingObjects implements IFeatureLoad, IFeatureInit, IFeatureUpdate
         }
     }
     
-    @Override
-    public void render(float delta) {
-        for (int i = 0; i < count; i++) {
-            objects.get(i).updateRigidBody();
-            objects.get(i).render(batch, environment, camera);
-        }
-    }
-    
     @Override
     public void dispose() {
         for (int i = 0; i < count; i++) {
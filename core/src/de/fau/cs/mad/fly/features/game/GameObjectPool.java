@@ -0,0 +1,147 @@
+package de.fau.cs.mad.fly.features.game;
+
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody;
+import com.badlogic.gdx.utils.Pool;
+
+import de.fau.cs.mad.fly.game.CollisionDetector;
+import de.fau.cs.mad.fly.game.GameObject;
+
+/**
+ * Pool for game objects that are added to and removed from the level while
+ * playing, e.g. by the endless level generators.
+ * <p>
+ * A freed game object is removed from the collision world and its transform,
+ * mover and visibility are reset. Its rigid body or trigger is kept and added
+ * to the collision world again by {@link #activate(GameObject)}, so a reused
+ * game object needs neither a new model instance nor a new collision object.
+ * <p>
+ * The pool counts how many objects were served from the free objects
+ * ({@link #getHits()}) and how many had to be created
+ * ({@link #getMisses()}).
+ * 
+ * @param <T>
+ *            The type of the pooled game objects.
+ */
+public abstract class GameObjectPool<T extends GameObject> extends Pool<T> {
+    
+    /** Number of obtained objects that were reused. */
+    private int hits = 0;
+    
+    /** Number of obtained objects that had to be created. */
+    private int misses = 0;
+    
+    @Override
+    public T obtain() {
+        if (getFree() > 0) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return super.obtain();
+    }
+    
+    /**
+     * Adds an obtained game object at its current transform to the collision
+     * world. The rigid body or trigger is created the first time the game
+     * object is activated.
+     * 
+     * @param object
+     *            The obtained game object.
+     */
+    public void activate(T object) {
+        if (object.getCollisionObject() == null) {
+            createRigidBody(object);
+        } else {
+            addToCollisionWorld(object);
+        }
+        object.invalidateBounds();
+    }
+    
+    /**
+     * Creates the rigid body or trigger of a game object and adds it to the
+     * collision world.
+     * 
+     * @param object
+     *            The game object without collision object.
+     */
+    protected abstract void createRigidBody(T object);
+    
+    @Override
+    public void free(T object) {
+        reset(object);
+        super.free(object);
+    }
+    
+    /**
+     * Resets a freed game object. The game object has to be removed from the
+     * level before.
+     * 
+     * @param object
+     *            The freed game object.
+     */
+    protected void reset(T object) {
+        removeFromCollisionWorld(object);
+        object.setMover(null);
+        object.transform.idt();
+        object.show();
+    }
+    
+    /**
+     * Adds the rigid body or trigger of a game object to the collision world
+     * again. It is moved to the transform of the game object, a rigid body is
+     * stopped as well.
+     * 
+     * @param object
+     *            The game object with rigid body or trigger.
+     */
+    protected static void addToCollisionWorld(GameObject object) {
+        object.getCollisionObject().setWorldTransform(object.transform);
+        btRigidBody rigidBody = object.getRigidBody();
+        if (rigidBody != null) {
+            rigidBody.setLinearVelocity(Vector3.Zero);
+            rigidBody.setAngularVelocity(Vector3.Zero);
+            rigidBody.clearForces();
+        }
+        CollisionDetector.getInstance().addCollisionObject(object);
+    }
+    
+    /**
+     * Removes the rigid body or trigger of a game object from the collision
+     * world if it has one.
+     * 
+     * @param object
+     *            The game object.
+     */
+    protected static void removeFromCollisionWorld(GameObject object) {
+        if (object.getCollisionObject() != null) {
+            CollisionDetector.getInstance().removeCollisionObject(object);
+        }
+    }
+    
+    /**
+     * Getter for the number of obtained objects that were reused.
+     * 
+     * @return {@link #hits}
+     */
+    public int getHits() {
+        return hits;
+    }
+    
+    /**
+     * Getter for the number of obtained objects that had to be created.
+     * 
+     * @return {@link #misses}
+     */
+    public int getMisses() {
+        return misses;
+    }
+    
+    /**
+     * Resets the hit and miss counters.
+     */
+    public void resetMetrics() {
+        hits = 0;
+        misses = 0;
+    }
+}
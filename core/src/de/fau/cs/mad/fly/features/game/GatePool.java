@@ -0,0 +1,95 @@
+package de.fau.cs.mad.fly.features.game;
+
+import de.fau.cs.mad.fly.game.CollisionDetector;
+import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.res.GateDisplay;
+import de.fau.cs.mad.fly.res.GateGoal;
+
+/**
+ * Pool for gates. A pooled gate is a {@link GateGoal} together with its
+ * {@link GateDisplay}.
+ * <p>
+ * On reuse the gate gets a new id and score, has no successors and is not
+ * marked.
+ */
+public class GatePool extends GameObjectPool<GateGoal> {
+    
+    /** Gates without successors share this array. */
+    private static final int[] NO_SUCCESSORS = new int[0];
+    
+    private final GameModel displayModel;
+    private final GameModel goalModel;
+    
+    /**
+     * Creates a new gate pool.
+     * 
+     * @param displayModel
+     *            The model of the gate displays.
+     * @param goalModel
+     *            The model of the gate goals.
+     */
+    public GatePool(GameModel displayModel, GameModel goalModel) {
+        this.displayModel = displayModel;
+        this.goalModel = goalModel;
+    }
+    
+    @Override
+    protected GateGoal newObject() {
+        GateDisplay display = new GateDisplay(displayModel);
+        GateGoal goal = new GateGoal(-1, goalModel, 0, display);
+        goal.successors = NO_SUCCESSORS;
+        display.setGoal(goal);
+        return goal;
+    }
+    
+    /**
+     * Obtains a gate from the pool.
+     * 
+     * @param gateId
+     *            The id of the gate.
+     * @param score
+     *            The score of the gate.
+     * @return gate goal with display
+     */
+    public GateGoal obtain(int gateId, int score) {
+        GateGoal goal = obtain();
+        goal.setGateId(gateId);
+        goal.setScore(score);
+        return goal;
+    }
+    
+    /**
+     * Adds the goal and the display of an obtained gate at their current
+     * transforms to the collision world.
+     */
+    @Override
+    public void activate(GateGoal goal) {
+        super.activate(goal);
+        GateDisplay display = goal.getDisplay();
+        if (display.getRigidBody() == null) {
+            display.createShapeAndRigidBody(CollisionDetector.getInstance());
+        } else {
+            addToCollisionWorld(display);
+            display.transform.getTranslation(display.gatePosition);
+        }
+        display.invalidateBounds();
+    }
+    
+    @Override
+    protected void createRigidBody(GateGoal goal) {
+        goal.createShapeAndRigidBody(CollisionDetector.getInstance());
+    }
+    
+    @Override
+    protected void reset(GateGoal goal) {
+        super.reset(goal);
+        goal.successors = NO_SUCCESSORS;
+        goal.passedTimes = 0;
+        goal.unmark();
+        
+        GateDisplay display = goal.getDisplay();
+        removeFromCollisionWorld(display);
+        display.transform.idt();
+        display.show();
+    }
+}
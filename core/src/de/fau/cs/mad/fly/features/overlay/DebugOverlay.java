@@ -6,6 +6,10 @@ import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Array;
+
+import de.fau.cs.mad.fly.game.FeatureScheduler;
+import de.fau.cs.mad.fly.game.FeatureScheduler.Timing;
 
 /**
  * Optional Feature to display the used time.
@@ -16,6 +20,7 @@ public class DebugOverlay {
     private final Stage stage;
     private Label valueLabels[] = new Label[3];
     private int count;
+    private final Array<Timing> slowest = new Array<Timing>();
     
     public DebugOverlay(final Skin skin, final Stage stage, int count) {
         this.stage = stage;
@@ -67,4 +72,22 @@ public class DebugOverlay {
         
         valueLabels[index].setText(value);
     }
+    
+    /**
+     * Shows the slowest optional features with their average time per frame.
+     * 
+     * @param scheduler
+     *            the scheduler that measured the features
+     */
+    public void showSlowestFeatures(final FeatureScheduler scheduler) {
+        scheduler.getSlowestTimings(slowest, count);
+        for (int i = 0; i < count; i++) {
+            if (i < slowest.size) {
+                Timing timing = slowest.get(i);
+                setValue(i, timing.getName() + " " + timing.getAverageNanos() / 1000 + " us");
+            } else {
+                setValue(i, "-");
+            }
+        }
+    }
 }
\ No newline at end of file
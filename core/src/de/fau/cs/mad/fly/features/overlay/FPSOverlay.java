@@ -3,19 +3,31 @@ package de.fau.cs.mad.fly.features.overlay;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Label;
 import com.badlogic.gdx.scenes.scene2d.ui.Label.LabelStyle;
+import com.badlogic.gdx.utils.Array;
 
 import de.fau.cs.mad.fly.I18n;
 import de.fau.cs.mad.fly.features.IFeatureDraw;
+import de.fau.cs.mad.fly.features.IFeatureInit;
+import de.fau.cs.mad.fly.game.FeatureScheduler;
+import de.fau.cs.mad.fly.game.FeatureScheduler.Phase;
+import de.fau.cs.mad.fly.game.FeatureScheduler.Timing;
+import de.fau.cs.mad.fly.game.GameController;
 import de.fau.cs.mad.fly.ui.SkinManager;
 import de.fau.cs.mad.fly.ui.UI;
 
 /**
  * Optional Feature to display the frames per second.
+ * <p>
+ * Displays also the average time of all optional features per frame and the
+ * slowest of them, measured by the {@link FeatureScheduler}.
  * 
  * @author Tobias Zangl
  */
-public class FPSOverlay implements IFeatureDraw {
+public class FPSOverlay implements IFeatureInit, IFeatureDraw {
     private Label fpsCounter;
+    private FeatureScheduler scheduler;
+    private final Array<Timing> slowest = new Array<Timing>();
+    private final StringBuilder text = new StringBuilder();
     
     public FPSOverlay(final Stage stage) {
         LabelStyle labelStyle = SkinManager.getInstance().getSkin().get("red", LabelStyle.class);
@@ -24,8 +36,23 @@ public class FPSOverlay implements IFeatureDraw {
         stage.addActor(fpsCounter);
     }
     
+    @Override
+    public void init(GameController game) {
+        scheduler = game.getFeatureScheduler();
+    }
+    
     @Override
     public void draw(float delta) {
-        fpsCounter.setText(I18n.t("fps") + " " + String.valueOf((int) (1.0 / delta)));
+        text.setLength(0);
+        text.append(I18n.t("fps")).append(' ').append((int) (1.0 / delta));
+        if (scheduler != null) {
+            long features = scheduler.getTiming(Phase.UPDATE).getAverageNanos() + scheduler.getTiming(Phase.RENDER).getAverageNanos() + scheduler.getTiming(Phase.DRAW).getAverageNanos();
+            text.append("\nfeatures ").append(features / 1000).append(" us");
+            if (scheduler.getSlowestTimings(slowest, 1).size > 0) {
+                Timing timing = slowest.first();
+                text.append("\n").append(timing.getName()).append(' ').append(timing.getAverageNanos() / 1000).append(" us");
+            }
+        }
+        fpsCounter.setText(text);
     }
 }
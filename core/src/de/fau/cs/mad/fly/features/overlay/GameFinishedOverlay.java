@@ -43,6 +43,9 @@ public class GameFinishedOverlay implements IFeatureInit, IFeatureFinish {
     private Table messageTable;
     private TextButton backToMainMenuButton;
     
+    /** True, if the next level or the restart was already requested. */
+    private boolean levelRequested = false;
+    
     public GameFinishedOverlay(final Stage stage) {
         this.stage = stage;
     }
@@ -52,9 +55,23 @@ public class GameFinishedOverlay implements IFeatureInit, IFeatureFinish {
         this.gameController = gameController;
     }
 
+    /**
+     * Loads the current level of the player, which is the next level if the
+     * level was finished. The same level is restarted in place. As this
+     * replaces the stage, it is done after the input event was handled.
+     */
     private final void loadNextLevel() {
-        LevelProfile levelHead = PlayerProfileManager.getInstance().getCurrentPlayerProfile().getCurrentLevelProfile();
-        Loader.getInstance().loadLevel(levelHead);
+        if (levelRequested) {
+            return;
+        }
+        levelRequested = true;
+        final LevelProfile levelHead = PlayerProfileManager.getInstance().getCurrentPlayerProfile().getCurrentLevelProfile();
+        Gdx.app.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                Loader.getInstance().restartLevel(levelHead);
+            }
+        });
     }
     
     /**
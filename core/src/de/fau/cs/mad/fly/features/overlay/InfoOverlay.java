@@ -8,7 +8,8 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.utils.Align;
 import com.badlogic.gdx.scenes.scene2d.utils.NinePatchDrawable;
 
-import de.fau.cs.mad.fly.features.IFeatureUpdate;
+import de.fau.cs.mad.fly.features.IFeatureParallelUpdate;
+import de.fau.cs.mad.fly.game.FeatureScheduler;
 import de.fau.cs.mad.fly.ui.SkinManager;
 import de.fau.cs.mad.fly.ui.UI;
 
@@ -17,7 +18,7 @@ import de.fau.cs.mad.fly.ui.UI;
  * @author Tobi
  * 
  */
-public class InfoOverlay implements IFeatureUpdate {
+public class InfoOverlay implements IFeatureParallelUpdate {
     /**
      * Singleton info overlay instance.
      */
@@ -63,6 +64,12 @@ public class InfoOverlay implements IFeatureUpdate {
         setVisible(false);
     }
     
+    @Override
+    public int getSharedState() {
+        // hides the table of the overlay
+        return FeatureScheduler.STAGE_STATE;
+    }
+    
     @Override
     public void update(float delta) {
         if (!innerTable.isVisible()) {
@@ -2,12 +2,13 @@ package de.fau.cs.mad.fly.features.upgrades;
 
 import de.fau.cs.mad.fly.I18n;
 import de.fau.cs.mad.fly.features.IFeatureInit;
-import de.fau.cs.mad.fly.features.IFeatureUpdate;
+import de.fau.cs.mad.fly.features.IFeatureParallelUpdate;
 import de.fau.cs.mad.fly.features.game.CollectibleObjects;
 import de.fau.cs.mad.fly.features.overlay.InfoOverlay;
 import de.fau.cs.mad.fly.features.upgrades.types.ChangeSteeringUpgrade;
 import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
 import de.fau.cs.mad.fly.sound.AudioManager;
+import de.fau.cs.mad.fly.game.FeatureScheduler;
 import de.fau.cs.mad.fly.game.FlightController;
 import de.fau.cs.mad.fly.game.GameController;
 
@@ -17,7 +18,7 @@ import de.fau.cs.mad.fly.game.GameController;
  * @author Tobi
  * 
  */
-public class ChangeSteeringUpgradeHandler extends CollectibleObjects implements IFeatureInit, IFeatureUpdate {
+public class ChangeSteeringUpgradeHandler extends CollectibleObjects implements IFeatureInit, IFeatureParallelUpdate {
     /**
      * The flight controller.
      */
@@ -66,6 +67,12 @@ public class ChangeSteeringUpgradeHandler extends CollectibleObjects implements
         InfoOverlay.getInstance().setOverlay(I18n.t("changeSteeringUpgradeCollected"), 3);
     }
     
+    @Override
+    public int getSharedState() {
+        // resets the steering of the flight controller
+        return FeatureScheduler.PLAYER_STATE;
+    }
+    
     @Override
     public void update(float delta) {
         if (!isCollected) {
@@ -53,12 +53,14 @@ public class ResizeGatesUpgradeHandler extends CollectibleObjects implements IFe
         for (GateGoal g : gateCircuit.allGateGoals()) {
             if (g.getDisplay() != null) {
                 g.getDisplay().transform.scl(scale);
+                g.getDisplay().invalidateBounds();
                 g.getDisplay().transform.getScale(scaling);
                 g.getDisplay().getRigidBody().getCollisionShape().setLocalScaling(scaling);
             }
             g.transform.scl(scale);
+            g.invalidateBounds();
             g.transform.getScale(scaling);
-            g.getRigidBody().getCollisionShape().setLocalScaling(scaling);
+            g.getCollisionObject().getCollisionShape().setLocalScaling(scaling);
         }
     }
 }
\ No newline at end of file
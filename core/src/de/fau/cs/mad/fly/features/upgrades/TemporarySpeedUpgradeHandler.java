@@ -6,12 +6,13 @@ import java.util.List;
 import de.fau.cs.mad.fly.I18n;
 import de.fau.cs.mad.fly.features.IFeatureFinish;
 import de.fau.cs.mad.fly.features.IFeatureInit;
-import de.fau.cs.mad.fly.features.IFeatureUpdate;
+import de.fau.cs.mad.fly.features.IFeatureParallelUpdate;
 import de.fau.cs.mad.fly.features.game.CollectibleObjects;
 import de.fau.cs.mad.fly.features.overlay.InfoOverlay;
 import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
 import de.fau.cs.mad.fly.features.upgrades.types.SpeedUpgradeEffect;
 import de.fau.cs.mad.fly.features.upgrades.types.TemporarySpeedUpgrade;
+import de.fau.cs.mad.fly.game.FeatureScheduler;
 import de.fau.cs.mad.fly.game.GameController;
 import de.fau.cs.mad.fly.player.IPlane;
 import de.fau.cs.mad.fly.sound.AudioManager;
@@ -24,7 +25,7 @@ import de.fau.cs.mad.fly.sound.AudioManager;
  * @author Lukas Hahmann <lukas.hahmann@gmail.com>
  * 
  */
-public class TemporarySpeedUpgradeHandler extends CollectibleObjects implements IFeatureInit, IFeatureUpdate, IFeatureFinish {
+public class TemporarySpeedUpgradeHandler extends CollectibleObjects implements IFeatureInit, IFeatureParallelUpdate, IFeatureFinish {
     
     /**
      * The plane which speed should be changed after a speed upgrade was
@@ -74,6 +75,12 @@ public class TemporarySpeedUpgradeHandler extends CollectibleObjects implements
         
     }
     
+    @Override
+    public int getSharedState() {
+        // changes the speed of the plane
+        return FeatureScheduler.PLAYER_STATE;
+    }
+    
     @Override
     public void update(float delta) {
         int size = upgrades.size();
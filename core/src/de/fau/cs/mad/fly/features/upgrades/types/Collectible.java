@@ -1,7 +1,6 @@
 package de.fau.cs.mad.fly.features.upgrades.types;
 
 import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
-import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody;
 
 import de.fau.cs.mad.fly.game.CollisionDetector;
 import de.fau.cs.mad.fly.game.GameModel;
@@ -24,10 +23,12 @@ public class Collectible extends GameObject {
     public Collectible(GameModel model) {
         // TODO: use a proper string for the creation of the GameObject
         super(model, "");
+        setCollisionType(CollisionDetector.COLLECTIBLE_CATEGORY);
     }
     
     /**
-     * Creates the rigid body for the collectible.
+     * Creates the trigger for the collectible and adds it to the collision
+     * world. The trigger only reports the contacts with the player.
      * 
      * @param collisionDetector
      *            The collision detector.
@@ -36,9 +37,8 @@ public class Collectible extends GameObject {
      */
     public void createShapeAndRigidBody(CollisionDetector collisionDetector, String type) {
         btCollisionShape shape = CollisionDetector.getInstance().getShapeManager().createConvexShape(type, this);
-        createRigidBody(type, shape, 1.0f, CollisionDetector.DUMMY_FLAG, CollisionDetector.PLAYER_FLAG);
-        getRigidBody().setCollisionFlags(getRigidBody().getCollisionFlags() | btRigidBody.CollisionFlags.CF_NO_CONTACT_RESPONSE);
-        CollisionDetector.getInstance().addRigidBody(this);
+        createTrigger(shape, CollisionDetector.DUMMY_FLAG, CollisionDetector.PLAYER_FLAG);
+        CollisionDetector.getInstance().addCollisionObject(this);
         setDummy(true);
     }
     
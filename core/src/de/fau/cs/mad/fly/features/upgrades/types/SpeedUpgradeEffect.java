@@ -29,6 +29,19 @@ public class SpeedUpgradeEffect {
      * @param slowdownTimeInMilliSeconds
      */
     public SpeedUpgradeEffect(float maxSpeedupFactor, int speedupTimeInMilliSeconds, int maxSpeedTimeInMilliSeconds, int slowdownTimeInMilliSeconds) {
+        set(maxSpeedupFactor, speedupTimeInMilliSeconds, maxSpeedTimeInMilliSeconds, slowdownTimeInMilliSeconds);
+    }
+    
+    /**
+     * Sets the parameters of this effect and restarts it, e.g. when a pooled
+     * upgrade is reused. Must not be called while the effect is running.
+     * 
+     * @param maxSpeedupFactor
+     * @param speedupTimeInMilliSeconds
+     * @param maxSpeedTimeInMilliSeconds
+     * @param slowdownTimeInMilliSeconds
+     */
+    public void set(float maxSpeedupFactor, int speedupTimeInMilliSeconds, int maxSpeedTimeInMilliSeconds, int slowdownTimeInMilliSeconds) {
         if (maxSpeedupFactor > 0f) {
             this.maxSpeedupFactor = maxSpeedupFactor;
         } else {
@@ -92,6 +105,16 @@ public class SpeedUpgradeEffect {
         return currentTimeInMilliSeconds < totalTimeInMilliSeconds;
     }
     
+    /**
+     * Checks whether this effect has been started by collecting its upgrade
+     * and is still active.
+     * 
+     * @return true, if the effect is running
+     */
+    public boolean isRunning() {
+        return currentTimeInMilliSeconds > 0 && isActive();
+    }
+    
     /**
      * Getter for the {@link #currentSpeedFactor}, dependent on the passed time
      * since collecting it.
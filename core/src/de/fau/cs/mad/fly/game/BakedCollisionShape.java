@@ -0,0 +1,449 @@
+package de.fau.cs.mad.fly.game;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.physics.bullet.collision.btBvhTriangleMeshShape;
+import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
+import com.badlogic.gdx.physics.bullet.collision.btCompoundShape;
+import com.badlogic.gdx.physics.bullet.collision.btConvexHullShape;
+import com.badlogic.gdx.physics.bullet.collision.btIndexedMesh;
+import com.badlogic.gdx.physics.bullet.collision.btOptimizedBvh;
+import com.badlogic.gdx.physics.bullet.collision.btTriangleIndexVertexArray;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Collision shape data of a model that is baked ahead of time by the
+ * {@link de.fau.cs.mad.fly.res.CollisionShapeBaker}.
+ * <p>
+ * Building the simplified convex hull of a model and the bounding volume
+ * hierarchies of its triangle mesh are the expensive parts of creating the
+ * collision shapes of a level. The baked file next to the model stores the
+ * points of the hull and the serialized hierarchies, so the
+ * {@link CollisionShapeManager} only has to copy them. Baked data that does not
+ * match the loaded model is ignored and the shape is generated as before.
+ * <p>
+ * The hierarchies are stored in the in-place layout of Bullet, which depends on
+ * the native platform. The serialized size of a reference hierarchy is stored
+ * with them and compared before they are used, see {@link #getBvhLayout()}.
+ * Numbers are stored big-endian, the hierarchies in native byte order:
+ * 
+ * <pre>
+ * int magic, int version
+ * int vertexCount, int vertexSize of the first mesh of the model
+ * int hullPointCount, hullPointCount * 3 floats
+ * int bvhLayout, int bvhCount, bvhCount * (16 floats transform,
+ *     int partCount, partCount * utf id, int triangleCount, int size, size bytes)
+ * </pre>
+ */
+public class BakedCollisionShape {
+    
+    /** Extension of baked collision shape files. */
+    public static final String EXTENSION = ".shape";
+    
+    /** "FLSH" */
+    private static final int MAGIC = 0x464C5348;
+    
+    /** Has to be increased whenever the layout of the format changes. */
+    public static final int VERSION = 1;
+    
+    /** Alignment of the in-place hierarchies in native memory. */
+    private static final int BVH_ALIGNMENT = 16;
+    
+    /** Serialized size of the reference hierarchy, -1 until it is measured. */
+    private static int bvhLayout = -1;
+    
+    /**
+     * Mesh parts of a model with the same transform, they share one triangle
+     * mesh shape.
+     */
+    public static class MeshGroup {
+        /** Transform of the parts relative to the model. */
+        public final Matrix4 transform = new Matrix4();
+        
+        /** The parts in the order of the nodes. */
+        public final Array<MeshPart> parts = new Array<MeshPart>();
+    }
+    
+    /**
+     * The serialized bounding volume hierarchy of a {@link MeshGroup}.
+     */
+    public static class BakedBvh {
+        /** Values of the transform of the group. */
+        public final float[] transform;
+        
+        /** Ids of the mesh parts of the group. */
+        public final String[] partIds;
+        
+        /** Number of triangles of the mesh parts. */
+        public final int triangles;
+        
+        /** The hierarchy in the in-place layout of Bullet. */
+        public final byte[] data;
+        
+        public BakedBvh(float[] transform, String[] partIds, int triangles, byte[] data) {
+            this.transform = transform;
+            this.partIds = partIds;
+            this.triangles = triangles;
+            this.data = data;
+        }
+    }
+    
+    /** Number of vertices of the first mesh of the model. */
+    private final int vertexCount;
+    
+    /** Size of a vertex of the first mesh of the model in bytes. */
+    private final int vertexSize;
+    
+    /** Points of the simplified convex hull, 3 floats each. */
+    private final float[] hullPoints;
+    
+    /** {@link #getBvhLayout()} of the platform the hierarchies were baked on. */
+    private final int bakedBvhLayout;
+    
+    /** One hierarchy for each mesh group. */
+    private final Array<BakedBvh> bvhs;
+    
+    public BakedCollisionShape(int vertexCount, int vertexSize, float[] hullPoints, int bakedBvhLayout, Array<BakedBvh> bvhs) {
+        this.vertexCount = vertexCount;
+        this.vertexSize = vertexSize;
+        this.hullPoints = hullPoints;
+        this.bakedBvhLayout = bakedBvhLayout;
+        this.bvhs = bvhs;
+    }
+    
+    /**
+     * Getter for the baked file of a model file.
+     * 
+     * @param modelFile
+     *            The model file.
+     * @return baked file next to the model file, may not exist
+     */
+    public static FileHandle bakedFile(FileHandle modelFile) {
+        return modelFile.sibling(modelFile.nameWithoutExtension() + EXTENSION);
+    }
+    
+    /**
+     * Reads a baked collision shape file.
+     * 
+     * @param file
+     *            The baked file.
+     * @return the baked collision shape
+     */
+    public static BakedCollisionShape read(FileHandle file) {
+        return read(ByteBuffer.wrap(file.readBytes()));
+    }
+    
+    /**
+     * Reads a baked collision shape.
+     * 
+     * @param buffer
+     *            The buffer positioned at the start of the baked shape.
+     * @return the baked collision shape
+     */
+    public static BakedCollisionShape read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException("Not a baked collision shape.");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Baked collision shape has version " + version + ", expected " + VERSION + ".");
+        }
+        int vertexCount = buffer.getInt();
+        int vertexSize = buffer.getInt();
+        float[] hullPoints = new float[buffer.getInt() * 3];
+        buffer.asFloatBuffer().get(hullPoints);
+        buffer.position(buffer.position() + hullPoints.length * 4);
+        
+        int bakedBvhLayout = buffer.getInt();
+        int bvhCount = buffer.getInt();
+        Array<BakedBvh> bvhs = new Array<BakedBvh>(bvhCount);
+        for (int i = 0; i < bvhCount; i++) {
+            float[] transform = new float[16];
+            buffer.asFloatBuffer().get(transform);
+            buffer.position(buffer.position() + transform.length * 4);
+            String[] partIds = new String[buffer.getInt()];
+            for (int j = 0; j < partIds.length; j++) {
+                partIds[j] = readString(buffer);
+            }
+            int triangles = buffer.getInt();
+            byte[] data = new byte[buffer.getInt()];
+            buffer.get(data);
+            bvhs.add(new BakedBvh(transform, partIds, triangles, data));
+        }
+        return new BakedCollisionShape(vertexCount, vertexSize, hullPoints, bakedBvhLayout, bvhs);
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        try {
+            return new String(bytes, "UTF-8");
+        } catch (IOException e) {
+            throw new GdxRuntimeException(e);
+        }
+    }
+    
+    /**
+     * Writes the baked collision shape.
+     * 
+     * @param stream
+     *            The stream to write to, it is not closed.
+     * @throws IOException
+     */
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(vertexCount);
+        out.writeInt(vertexSize);
+        out.writeInt(hullPoints.length / 3);
+        writeFloats(out, hullPoints);
+        out.writeInt(bakedBvhLayout);
+        out.writeInt(bvhs.size);
+        for (BakedBvh bvh : bvhs) {
+            writeFloats(out, bvh.transform);
+            out.writeInt(bvh.partIds.length);
+            for (String id : bvh.partIds) {
+                out.writeUTF(id);
+            }
+            out.writeInt(bvh.triangles);
+            out.writeInt(bvh.data.length);
+            out.write(bvh.data);
+        }
+        out.flush();
+    }
+    
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+    
+    /**
+     * Creates the convex hull shape of a model from the baked points.
+     * 
+     * @param mesh
+     *            The first mesh of the model.
+     * @return the new shape or null if no hull is baked for the mesh
+     */
+    public btConvexHullShape createConvexShape(Mesh mesh) {
+        if (hullPoints.length == 0 || mesh.getNumVertices() != vertexCount || mesh.getVertexSize() != vertexSize) {
+            return null;
+        }
+        FloatBuffer points = BufferUtils.newFloatBuffer(hullPoints.length);
+        points.put(hullPoints);
+        points.flip();
+        return new btConvexHullShape(points, hullPoints.length / 3, 3 * 4);
+    }
+    
+    /**
+     * Creates the static triangle mesh shape of a model with the baked
+     * hierarchies, the same shape as
+     * {@link com.badlogic.gdx.physics.bullet.Bullet#obtainStaticNodeShape(Array)}
+     * . The hierarchies are copied into native buffers, which have to be
+     * disposed with {@link BufferUtils#disposeUnsafeByteBuffer(ByteBuffer)}
+     * after the shape.
+     * 
+     * @param nodes
+     *            The nodes of the model.
+     * @param buffers
+     *            The native buffers of the shape are added to it.
+     * @return the new shape or null if the baked hierarchies do not match the
+     *         model
+     */
+    public btCollisionShape createMeshShape(Array<Node> nodes, Array<ByteBuffer> buffers) {
+        Array<MeshGroup> groups = collectMeshGroups(nodes);
+        if (groups.size == 0 || groups.size != bvhs.size || bakedBvhLayout != getBvhLayout()) {
+            return null;
+        }
+        for (int i = 0; i < groups.size; i++) {
+            if (!matches(bvhs.get(i), groups.get(i))) {
+                return null;
+            }
+        }
+        
+        if (groups.size == 1 && isIdentity(groups.first().transform)) {
+            return createBvhShape(groups.first(), bvhs.first(), buffers);
+        }
+        btCompoundShape compound = new btCompoundShape();
+        for (int i = 0; i < groups.size; i++) {
+            btBvhTriangleMeshShape shape = createBvhShape(groups.get(i), bvhs.get(i), buffers);
+            compound.addChildShape(groups.get(i).transform, shape);
+            shape.release();
+        }
+        return compound;
+    }
+    
+    private static boolean matches(BakedBvh bvh, MeshGroup group) {
+        if (!Arrays.equals(bvh.transform, group.transform.val) || bvh.partIds.length != group.parts.size || bvh.triangles != countTriangles(group.parts)) {
+            return false;
+        }
+        for (int i = 0; i < group.parts.size; i++) {
+            if (!bvh.partIds[i].equals(group.parts.get(i).id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isIdentity(Matrix4 transform) {
+        return Arrays.equals(transform.val, new Matrix4().val);
+    }
+    
+    private static btBvhTriangleMeshShape createBvhShape(MeshGroup group, BakedBvh bakedBvh, Array<ByteBuffer> buffers) {
+        ByteBuffer buffer = BufferUtils.newUnsafeByteBuffer(bakedBvh.data.length + BVH_ALIGNMENT);
+        buffers.add(buffer);
+        long address = BufferUtils.getUnsafeBufferAddress(buffer);
+        int padding = (int) ((BVH_ALIGNMENT - address % BVH_ALIGNMENT) % BVH_ALIGNMENT);
+        buffer.position(padding);
+        buffer.put(bakedBvh.data);
+        btOptimizedBvh bvh = btOptimizedBvh.deSerializeInPlace(address + padding, bakedBvh.data.length, false);
+        if (bvh == null) {
+            throw new GdxRuntimeException("BakedCollisionShape: invalid hierarchy of " + group.parts.first().id + ".");
+        }
+        btBvhTriangleMeshShape shape = new btBvhTriangleMeshShape(group.parts, true, false);
+        shape.setOptimizedBvh(bvh);
+        return shape;
+    }
+    
+    /**
+     * Groups the mesh parts of the nodes by their transform, like Bullet does
+     * for the static node shapes. The global transforms of the nodes have to
+     * be calculated.
+     * 
+     * @param nodes
+     *            The nodes of a model.
+     * @return the groups of triangle mesh parts in the order of the nodes
+     */
+    public static Array<MeshGroup> collectMeshGroups(Iterable<Node> nodes) {
+        Array<MeshGroup> groups = new Array<MeshGroup>();
+        collectMeshGroups(nodes, groups);
+        return groups;
+    }
+    
+    private static void collectMeshGroups(Iterable<Node> nodes, Array<MeshGroup> groups) {
+        for (Node node : nodes) {
+            if (node.parts != null && node.parts.size > 0) {
+                MeshGroup group = null;
+                for (MeshGroup g : groups) {
+                    if (Arrays.equals(g.transform.val, node.globalTransform.val)) {
+                        group = g;
+                        break;
+                    }
+                }
+                if (group == null) {
+                    group = new MeshGroup();
+                    group.transform.set(node.globalTransform);
+                    groups.add(group);
+                }
+                for (NodePart part : node.parts) {
+                    if (part.meshPart.primitiveType == GL20.GL_TRIANGLES) {
+                        group.parts.add(part.meshPart);
+                    }
+                }
+            }
+            collectMeshGroups(node.children, groups);
+        }
+    }
+    
+    /**
+     * Counts the triangles of mesh parts.
+     * 
+     * @param parts
+     *            Triangle mesh parts.
+     * @return number of triangles
+     */
+    public static int countTriangles(Array<MeshPart> parts) {
+        int triangles = 0;
+        for (MeshPart part : parts) {
+            triangles += part.numVertices / 3;
+        }
+        return triangles;
+    }
+    
+    /**
+     * Serializes a hierarchy into the in-place layout of Bullet.
+     * 
+     * @param bvh
+     *            The hierarchy.
+     * @return the serialized hierarchy
+     */
+    public static byte[] serialize(btOptimizedBvh bvh) {
+        int size = (int) bvh.calculateSerializeBufferSize();
+        ByteBuffer buffer = BufferUtils.newUnsafeByteBuffer(size + BVH_ALIGNMENT);
+        try {
+            long address = BufferUtils.getUnsafeBufferAddress(buffer);
+            int padding = (int) ((BVH_ALIGNMENT - address % BVH_ALIGNMENT) % BVH_ALIGNMENT);
+            if (!bvh.serializeInPlace(address + padding, size, false)) {
+                throw new GdxRuntimeException("BakedCollisionShape: the hierarchy could not be serialized.");
+            }
+            byte[] data = new byte[size];
+            buffer.position(padding);
+            buffer.get(data);
+            return data;
+        } finally {
+            BufferUtils.disposeUnsafeByteBuffer(buffer);
+        }
+    }
+    
+    /**
+     * Getter for the serialized size of a hierarchy of a single triangle on
+     * this platform. Baked hierarchies can only be used on platforms with the
+     * same size, as it depends on the pointer size and the alignment of the
+     * native code.
+     * 
+     * @return serialized size in bytes
+     */
+    public static int getBvhLayout() {
+        if (bvhLayout < 0) {
+            FloatBuffer vertices = BufferUtils.newFloatBuffer(9);
+            vertices.put(new float[] { 0f, 0f, 0f, 1f, 0f, 0f, 0f, 1f, 0f });
+            vertices.flip();
+            ShortBuffer indices = BufferUtils.newShortBuffer(3);
+            indices.put(new short[] { 0, 1, 2 });
+            indices.flip();
+            btIndexedMesh mesh = new btIndexedMesh(vertices, 3 * 4, 3, 0, indices, 0, 3);
+            btTriangleIndexVertexArray meshInterface = new btTriangleIndexVertexArray();
+            meshInterface.addIndexedMesh(mesh);
+            btBvhTriangleMeshShape shape = new btBvhTriangleMeshShape(meshInterface, true, true);
+            bvhLayout = (int) shape.getOptimizedBvh().calculateSerializeBufferSize();
+            shape.dispose();
+            meshInterface.dispose();
+            mesh.dispose();
+        }
+        return bvhLayout;
+    }
+    
+    /**
+     * Getter for the number of baked hull points.
+     * 
+     * @return number of points, 0 if no hull is baked
+     */
+    public int getHullPointCount() {
+        return hullPoints.length / 3;
+    }
+    
+    /**
+     * Getter for the baked hierarchies.
+     * 
+     * @return one hierarchy for each mesh group of the model
+     */
+    public Array<BakedBvh> getBvhs() {
+        return bvhs;
+    }
+}
@@ -0,0 +1,456 @@
+package de.fau.cs.mad.fly.game;
+
+import com.badlogic.gdx.physics.bullet.BulletBase;
+import com.badlogic.gdx.physics.bullet.collision.btCollisionObject;
+import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
+import com.badlogic.gdx.physics.bullet.collision.btGhostObject;
+import com.badlogic.gdx.physics.bullet.dynamics.btDynamicsWorld;
+import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody;
+import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody.btRigidBodyConstructionInfo;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Manager for the lifecycle of the native Bullet objects.
+ * <p>
+ * Owns all rigid bodies, ghost objects, collision shapes and rigid body
+ * construction infos of the collision detector and counts their references. A
+ * rigid body references its shape and its construction info, a ghost object
+ * and a construction info reference their shape, a rigid body may reference its
+ * motion state as well. An object is freed as soon as
+ * its last reference is released, collision objects are removed from the
+ * dynamics world before. Shapes and construction infos that were never
+ * referenced are kept until the manager is disposed.
+ * <p>
+ * Collision objects released while the dynamics world is stepped, e.g. by a
+ * collision listener, are freed after the step, as Bullet may still use them.
+ * <p>
+ * The number of live objects and their estimated native size can be used to
+ * monitor long sessions, e.g. in the endless levels.
+ */
+public class BulletResourceManager implements Disposable {
+    
+    /**
+     * Approximate native sizes of the Bullet objects in bytes.
+     */
+    public static final int RIGID_BODY_BYTES = 640;
+    public static final int GHOST_OBJECT_BYTES = 320;
+    public static final int CONSTRUCTION_INFO_BYTES = 144;
+    public static final int SHAPE_BYTES = 112;
+    public static final int CONVEX_HULL_POINT_BYTES = 16;
+    public static final int MESH_TRIANGLE_BYTES = 32;
+    public static final int MOTION_STATE_BYTES = 16;
+    
+    /**
+     * Gets informed when a managed object is freed, e.g. to remove it from a
+     * cache.
+     */
+    public interface ResourceOwner {
+        /**
+         * Called when the object is freed, right before it is disposed.
+         * 
+         * @param resource
+         *            The freed object.
+         */
+        void freed(BulletBase resource);
+    }
+    
+    /**
+     * Bookkeeping of one managed object.
+     */
+    private static class Resource {
+        BulletBase object;
+        ResourceOwner owner;
+        int bytes;
+        int references;
+        Resource[] dependencies;
+    }
+    
+    private static final Resource[] NO_DEPENDENCIES = new Resource[0];
+    
+    /**
+     * The dynamics world the collision objects are removed from.
+     */
+    private final btDynamicsWorld dynamicsWorld;
+    
+    /**
+     * Maps the managed objects to their bookkeeping.
+     */
+    private final ObjectMap<BulletBase, Resource> resources = new ObjectMap<BulletBase, Resource>();
+    
+    /**
+     * True while the dynamics world is stepped.
+     */
+    private boolean stepping = false;
+    
+    /**
+     * Collision objects released while the dynamics world is stepped.
+     */
+    private final Array<Resource> deferredCollisionObjects = new Array<Resource>();
+    
+    private int liveRigidBodies = 0;
+    private int liveGhostObjects = 0;
+    private int liveShapes = 0;
+    private int liveConstructionInfos = 0;
+    private long nativeBytes = 0;
+    
+    /**
+     * Creates a new resource manager.
+     * 
+     * @param dynamicsWorld
+     *            The dynamics world the collision objects are removed from
+     *            before they are freed. Can be null if there is none.
+     */
+    public BulletResourceManager(btDynamicsWorld dynamicsWorld) {
+        this.dynamicsWorld = dynamicsWorld;
+    }
+    
+    /**
+     * Takes the ownership of a native object.
+     * 
+     * @param object
+     *            The native object.
+     * @param estimatedBytes
+     *            The estimated native size of the object.
+     * @param owner
+     *            Gets informed when the object is freed. Can be null.
+     * @param dependencies
+     *            Managed objects that are referenced by the object until it is
+     *            freed.
+     */
+    public void manage(BulletBase object, int estimatedBytes, ResourceOwner owner, BulletBase... dependencies) {
+        if (resources.containsKey(object)) {
+            throw new IllegalArgumentException("BulletResourceManager.manage: " + object + " is already managed.");
+        }
+        Resource resource = new Resource();
+        resource.object = object;
+        resource.owner = owner;
+        resource.bytes = estimatedBytes;
+        resource.dependencies = dependencies.length == 0 ? NO_DEPENDENCIES : new Resource[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            Resource dependency = resources.get(dependencies[i]);
+            if (dependency == null) {
+                throw new IllegalArgumentException("BulletResourceManager.manage: dependency " + dependencies[i] + " is not managed.");
+            }
+            dependency.references++;
+            resource.dependencies[i] = dependency;
+        }
+        resources.put(object, resource);
+        nativeBytes += estimatedBytes;
+        count(object, 1);
+    }
+    
+    /**
+     * Adds a reference to a managed object.
+     * 
+     * @param object
+     *            The managed object.
+     */
+    public void retain(BulletBase object) {
+        Resource resource = resources.get(object);
+        if (resource == null) {
+            throw new IllegalArgumentException("BulletResourceManager.retain: " + object + " is not managed.");
+        }
+        resource.references++;
+    }
+    
+    /**
+     * Lets a managed object reference another managed object until it is
+     * freed, like the dependencies passed to
+     * {@link #manage(BulletBase, int, ResourceOwner, BulletBase...)}, e.g. a
+     * motion state that is set after the rigid body was created.
+     * 
+     * @param object
+     *            The managed object.
+     * @param dependency
+     *            The managed object that is referenced.
+     */
+    public void addDependency(BulletBase object, BulletBase dependency) {
+        Resource resource = resources.get(object);
+        if (resource == null) {
+            throw new IllegalArgumentException("BulletResourceManager.addDependency: " + object + " is not managed.");
+        }
+        Resource referenced = resources.get(dependency);
+        if (referenced == null) {
+            throw new IllegalArgumentException("BulletResourceManager.addDependency: dependency " + dependency + " is not managed.");
+        }
+        Resource[] dependencies = new Resource[resource.dependencies.length + 1];
+        System.arraycopy(resource.dependencies, 0, dependencies, 0, resource.dependencies.length);
+        dependencies[resource.dependencies.length] = referenced;
+        resource.dependencies = dependencies;
+        referenced.references++;
+    }
+    
+    /**
+     * Releases a reference to a managed object and frees it if it was the last
+     * one. Objects that are not managed, e.g. because they are already freed,
+     * are ignored.
+     * 
+     * @param object
+     *            The managed object.
+     * @return true, if the object was freed.
+     */
+    public boolean release(BulletBase object) {
+        Resource resource = resources.get(object);
+        if (resource == null) {
+            return false;
+        }
+        return release(resource);
+    }
+    
+    private boolean release(Resource resource) {
+        resource.references--;
+        if (resource.references > 0) {
+            return false;
+        }
+        free(resource);
+        return true;
+    }
+    
+    /**
+     * Frees a managed object and releases its dependencies.
+     */
+    private void free(Resource resource) {
+        BulletBase object = resource.object;
+        if (stepping && object instanceof btCollisionObject) {
+            if (!deferredCollisionObjects.contains(resource, true)) {
+                deferredCollisionObjects.add(resource);
+            }
+            return;
+        }
+        // the hash code of the object changes when it is disposed
+        resources.remove(object);
+        if (dynamicsWorld != null) {
+            if (object instanceof btRigidBody) {
+                dynamicsWorld.removeRigidBody((btRigidBody) object);
+            } else if (object instanceof btCollisionObject) {
+                dynamicsWorld.removeCollisionObject((btCollisionObject) object);
+            }
+        }
+        if (resource.owner != null) {
+            resource.owner.freed(object);
+        }
+        object.dispose();
+        nativeBytes -= resource.bytes;
+        count(object, -1);
+        for (Resource dependency : resource.dependencies) {
+            release(dependency);
+        }
+    }
+    
+    private void count(BulletBase object, int change) {
+        if (object instanceof btRigidBody) {
+            liveRigidBodies += change;
+        } else if (object instanceof btGhostObject) {
+            liveGhostObjects += change;
+        } else if (object instanceof btCollisionShape) {
+            liveShapes += change;
+        } else if (object instanceof btRigidBodyConstructionInfo) {
+            liveConstructionInfos += change;
+        }
+    }
+    
+    /**
+     * Creates a new rigid body that references its shape and construction
+     * info. Both have to be managed.
+     * 
+     * @param info
+     *            The rigid body construction info.
+     * @param shape
+     *            The collision shape.
+     * @return the managed rigid body
+     */
+    public btRigidBody createRigidBody(btRigidBodyConstructionInfo info, btCollisionShape shape) {
+        btRigidBody rigidBody = new btRigidBody(info);
+        rigidBody.setCollisionShape(shape);
+        manage(rigidBody, RIGID_BODY_BYTES, null, info, shape);
+        return rigidBody;
+    }
+    
+    /**
+     * Creates a new ghost object that references its shape. The shape has to
+     * be managed.
+     * 
+     * @param shape
+     *            The collision shape.
+     * @return the managed ghost object
+     */
+    public btGhostObject createGhostObject(btCollisionShape shape) {
+        btGhostObject ghostObject = new btGhostObject();
+        ghostObject.setCollisionShape(shape);
+        manage(ghostObject, GHOST_OBJECT_BYTES, null, shape);
+        return ghostObject;
+    }
+    
+    /**
+     * Removes a rigid body or ghost object from the dynamics world and frees
+     * it. The references to its shape and construction info are released.
+     * 
+     * @param collisionObject
+     *            The collision object to free.
+     * @return true, if the collision object was managed and is freed now or
+     *         after the current step.
+     */
+    public boolean releaseCollisionObject(btCollisionObject collisionObject) {
+        Resource resource = resources.get(collisionObject);
+        if (resource == null) {
+            return false;
+        }
+        free(resource);
+        return true;
+    }
+    
+    /**
+     * Has to be called before the dynamics world is stepped.
+     */
+    public void beginStep() {
+        stepping = true;
+    }
+    
+    /**
+     * Has to be called after the dynamics world is stepped. Frees the
+     * collision objects released during the step.
+     */
+    public void endStep() {
+        stepping = false;
+        for (int i = 0; i < deferredCollisionObjects.size; i++) {
+            free(deferredCollisionObjects.get(i));
+        }
+        deferredCollisionObjects.clear();
+    }
+    
+    /**
+     * Gives up the ownership of a managed object without freeing it, e.g. to
+     * keep a shape for the next game. Its dependencies are not released. The
+     * objects referencing it must not be freed by the manager anymore, so it
+     * may only be called right before the manager is disposed.
+     * 
+     * @param object
+     *            The managed object.
+     * @return true, if the object was managed.
+     */
+    public boolean detach(BulletBase object) {
+        Resource resource = resources.remove(object);
+        if (resource == null) {
+            return false;
+        }
+        nativeBytes -= resource.bytes;
+        count(object, -1);
+        return true;
+    }
+    
+    /**
+     * Checks if a native object is managed and not yet freed.
+     * 
+     * @param object
+     *            The native object.
+     * @return true, if the object is managed.
+     */
+    public boolean isManaged(BulletBase object) {
+        return resources.containsKey(object);
+    }
+    
+    /**
+     * Getter for the number of references to a managed object.
+     * 
+     * @param object
+     *            The managed object.
+     * @return number of references or 0 if the object is not managed
+     */
+    public int getReferences(BulletBase object) {
+        Resource resource = resources.get(object);
+        return resource == null ? 0 : resource.references;
+    }
+    
+    /**
+     * Getter for the estimated native size of a managed object.
+     * 
+     * @param object
+     *            The managed object.
+     * @return estimated size in bytes or 0 if the object is not managed
+     */
+    public int getEstimatedBytes(BulletBase object) {
+        Resource resource = resources.get(object);
+        return resource == null ? 0 : resource.bytes;
+    }
+    
+    /**
+     * Getter for the number of live rigid bodies.
+     */
+    public int getLiveRigidBodies() {
+        return liveRigidBodies;
+    }
+    
+    /**
+     * Getter for the number of live ghost objects.
+     */
+    public int getLiveGhostObjects() {
+        return liveGhostObjects;
+    }
+    
+    /**
+     * Getter for the number of live collision shapes.
+     */
+    public int getLiveShapes() {
+        return liveShapes;
+    }
+    
+    /**
+     * Getter for the number of live rigid body construction infos.
+     */
+    public int getLiveConstructionInfos() {
+        return liveConstructionInfos;
+    }
+    
+    /**
+     * Getter for the number of all live native objects.
+     */
+    public int getLiveObjects() {
+        return resources.size;
+    }
+    
+    /**
+     * Getter for the estimated native memory of all live objects.
+     * 
+     * @return estimated size in bytes
+     */
+    public long getEstimatedNativeBytes() {
+        return nativeBytes;
+    }
+    
+    @Override
+    public String toString() {
+        return "BulletResourceManager: " + liveRigidBodies + " rigid bodies, " + liveGhostObjects + " ghost objects, " + liveShapes + " shapes, " + liveConstructionInfos + " construction infos, ~" + (nativeBytes / 1024) + " KiB";
+    }
+    
+    /**
+     * Frees all managed objects, no matter if they are still referenced.
+     * Collision objects are freed first, then construction infos, shapes and
+     * the other objects like motion states, so no object is freed before the
+     * objects referencing it.
+     */
+    @Override
+    public void dispose() {
+        stepping = false;
+        deferredCollisionObjects.clear();
+        freeAll(btCollisionObject.class);
+        freeAll(btRigidBodyConstructionInfo.class);
+        freeAll(btCollisionShape.class);
+        freeAll(BulletBase.class);
+    }
+    
+    /**
+     * Frees all managed objects of a type without releasing their
+     * dependencies.
+     */
+    private void freeAll(Class<? extends BulletBase> type) {
+        Array<Resource> all = resources.values().toArray();
+        for (Resource resource : all) {
+            if (type.isInstance(resource.object)) {
+                resource.dependencies = NO_DEPENDENCIES;
+                free(resource);
+            }
+        }
+    }
+}
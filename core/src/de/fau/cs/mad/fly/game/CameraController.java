@@ -55,7 +55,7 @@ public class CameraController {
         camera.direction.set(values[8], values[9], values[10]).nor();
         camera.up.set(values[4], values[5], values[6]).nor();
         
-        camera.position.set(player.getPlane().getPosition().cpy().sub(camera.direction.cpy().scl(cameraDistance)));
+        camera.position.set(player.getPlane().getPosition()).mulAdd(camera.direction, -cameraDistance);
         camera.position.add(camera.up.x * cameraOffset, camera.up.y * cameraOffset, camera.up.z * cameraOffset);
         
         camera.update();
@@ -9,12 +9,12 @@ import com.badlogic.gdx.physics.bullet.dynamics.btDiscreteDynamicsWorld;
 import com.badlogic.gdx.physics.bullet.dynamics.btDynamicsWorld;
 import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody;
 import com.badlogic.gdx.physics.bullet.dynamics.btSequentialImpulseConstraintSolver;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
 
+import de.fau.cs.mad.fly.features.ICollisionCategoryListener;
 import de.fau.cs.mad.fly.features.ICollisionListener;
-import de.fau.cs.mad.fly.player.Spaceship;
-
-import java.util.ArrayList;
+import de.fau.cs.mad.fly.res.GateCircuit;
 
 /**
  * The manager for the whole collision detection and handling stuff.
@@ -34,6 +34,12 @@ public class CollisionDetector implements Disposable {
      */
     RigidBodyInfoManager rigidBodyInfoManager;
     
+    /**
+     * The owner of all native rigid bodies, shapes and rigid body construction
+     * infos.
+     */
+    BulletResourceManager resourceManager;
+    
     /**
      * Singleton collision detector instance.
      */
@@ -61,26 +67,60 @@ public class CollisionDetector implements Disposable {
     /**
      * The main listener for the collision detection.
      * <p>
-     * It transmits the collision events to the added collision listeners.
+     * It transmits the collision events to the added collision listeners with
+     * the help of a {@link CollisionRouter}. Bullet only reports the contacts
+     * whose contact callback flags match, see
+     * {@link CollisionDetector#setCollisionCategory(btCollisionObject, int)}.
+     * <p>
+     * While the world is stepped by a {@link PhysicsThread}, the contacts are
+     * queued and routed on the game thread by {@link #routeQueuedContacts()}.
      * 
      * @author Tobi
      */
-    class CollisionContactListener extends ContactListener {
-        private ArrayList<ICollisionListener> listeners;
+    public class CollisionContactListener extends ContactListener {
+        private final CollisionRouter router = new CollisionRouter();
         
-        public CollisionContactListener() {
-            listeners = new ArrayList<ICollisionListener>();
-        }
+        /**
+         * Number of the reported contacts.
+         */
+        private int contacts = 0;
         
         /**
-         * Adds a new collision listener.
+         * True if the contacts are queued instead of routed immediately.
+         */
+        private boolean queueContacts = false;
+        
+        /**
+         * The game objects of the queued contacts, two per contact.
+         */
+        private final Array<GameObject> queuedContacts = new Array<GameObject>();
+        
+        /**
+         * Adds a new collision listener. A listener implementing
+         * {@link ICollisionCategoryListener} only gets the collisions with
+         * objects of its categories, any other listener gets all collisions.
          * 
          * @param listener
          *            Collision listener which has to implement the
          *            ICollisionListener interface.
          */
         public void addListener(ICollisionListener listener) {
-            listeners.add(listener);
+            router.addListener(listener);
+        }
+        
+        /**
+         * Adds a new collision listener for the collisions with objects of
+         * some categories.
+         * 
+         * @param listener
+         *            Collision listener which has to implement the
+         *            ICollisionListener interface.
+         * @param categories
+         *            The categories, e.g.
+         *            {@link CollisionDetector#COLLECTIBLE_CATEGORY}.
+         */
+        public void addListener(ICollisionListener listener, int categories) {
+            router.addListener(listener, categories);
         }
         
         /**
@@ -92,23 +132,47 @@ public class CollisionDetector implements Disposable {
          *            ICollisionListener interface.
          */
         public void removeListener(ICollisionListener listener) {
-            listeners.remove(listener);
+            router.removeListener(listener);
         }
         
-        @Override
-        public void onContactStarted(btCollisionObject o1, btCollisionObject o2) {
-            GameObject g1 = (GameObject) o1.userData;
-            GameObject g2 = (GameObject) o2.userData;
-            
-            if (g2 instanceof Spaceship) {
-                GameObject spaceship = g2;
-                g2 = g1;
-                g1 = spaceship;
+        /**
+         * Removes all listeners, e.g. before the game is restarted with the
+         * same collision detector.
+         */
+        public void clearListeners() {
+            router.clear();
+        }
+        
+        /**
+         * Getter for the number of the contacts reported since the collision
+         * detector was created.
+         * 
+         * @return number of contacts
+         */
+        public int getContacts() {
+            return contacts;
+        }
+        
+        /**
+         * Routes the queued contacts in the order they were reported and
+         * clears the queue.
+         */
+        public void routeQueuedContacts() {
+            // a listener may end the game and stop the physics thread
+            for (int i = 0; i < queuedContacts.size; i += 2) {
+                router.route(queuedContacts.get(i), queuedContacts.get(i + 1));
             }
-            
-            Gdx.app.log("CollisionDetector.onContactStarted", "g1 = " + g1.getId() + " (userData = " + g1.getUserData().getClass() + "), g2 = " + g2.getId() + " (userData = " + g2.getUserData().getClass() + ")");
-            for (ICollisionListener listener : listeners) {
-                listener.onCollision(g1, g2);
+            queuedContacts.clear();
+        }
+        
+        @Override
+        public void onContactStarted(btCollisionObject o1, boolean match1, btCollisionObject o2, boolean match2) {
+            contacts++;
+            if (queueContacts) {
+                queuedContacts.add((GameObject) o1.userData);
+                queuedContacts.add((GameObject) o2.userData);
+            } else {
+                router.route((GameObject) o1.userData, (GameObject) o2.userData);
             }
         }
     }
@@ -121,6 +185,39 @@ public class CollisionDetector implements Disposable {
     public final static short PLAYER_FLAG = 1 << 9;
     public final static short ALL_FLAG = -1;
     
+    /**
+     * The categories of the collision objects. A game object stores its
+     * category in the user value of its collision object, the collision
+     * listeners only get the contacts with objects of the categories they are
+     * registered for. The categories are the contact callback flags as well.
+     */
+    public final static int PLAYER_CATEGORY = 1 << 0;
+    public final static int GATE_GOAL_CATEGORY = 1 << 1;
+    public final static int GATE_DISPLAY_CATEGORY = 1 << 2;
+    public final static int COLLECTIBLE_CATEGORY = 1 << 3;
+    public final static int OBSTACLE_CATEGORY = 1 << 4;
+    public final static int ALL_CATEGORIES = (1 << 5) - 1;
+    
+    /**
+     * The contact callback filter of the player. Only contacts of the player
+     * with other objects are reported.
+     */
+    public final static int PLAYER_CONTACT_FILTER = ALL_CATEGORIES & ~PLAYER_CATEGORY;
+    
+    /**
+     * The fixed time step of the physics world. The gates are passed by an
+     * analytic test per frame, see {@link GateCircuit#checkGatePassed}, so the
+     * physics world does not have to run at the frame rate. Between two steps
+     * the transforms of the rigid bodies are interpolated.
+     */
+    public final static float PHYSICS_TIME_STEP = 1f / 30f;
+    
+    /**
+     * The maximum number of physics steps per frame. Slower frames lose
+     * simulation time instead of stepping even more often.
+     */
+    public final static int MAX_PHYSICS_STEPS = 4;
+    
     btCollisionConfiguration collisionConfig;
     btDispatcher dispatcher;
     CollisionContactListener contactListener;
@@ -131,10 +228,29 @@ public class CollisionDetector implements Disposable {
     
     DebugDrawer debugDrawer;
     
+    /**
+     * Steps the dynamics world on its own thread, null if the world is stepped
+     * on the game thread.
+     */
+    private PhysicsThread physicsThread;
+    
+    /**
+     * True if a step was submitted to the {@link #physicsThread} and not yet
+     * synchronized.
+     */
+    private boolean stepPending = false;
+    
+    /**
+     * Number of the overlapping pairs of the broadphase after the last step.
+     */
+    private int broadphasePairs = 0;
+    
+    /**
+     * Number of the pairs tested by the narrowphase in the last step.
+     */
+    private int narrowphasePairs = 0;
+    
     protected CollisionDetector() {
-        shapeManager = new CollisionShapeManager();
-        rigidBodyInfoManager = new RigidBodyInfoManager();
-        
         collisionConfig = new btDefaultCollisionConfiguration();
         dispatcher = new btCollisionDispatcher(collisionConfig);
         broadphase = new btDbvtBroadphase();
@@ -143,6 +259,10 @@ public class CollisionDetector implements Disposable {
         dynamicsWorld = new btDiscreteDynamicsWorld(dispatcher, broadphase, constraintSolver, collisionConfig);
         dynamicsWorld.setGravity(new Vector3(0.0f, 0.0f, 0.0f));
         
+        resourceManager = new BulletResourceManager(dynamicsWorld);
+        shapeManager = new CollisionShapeManager(resourceManager);
+        rigidBodyInfoManager = new RigidBodyInfoManager(resourceManager);
+        
         contactListener = new CollisionContactListener();
     }
     
@@ -165,7 +285,18 @@ public class CollisionDetector implements Disposable {
     }
     
     /**
-     * Creates a new rigid body.
+     * Getter for the manager of the native resources.
+     * 
+     * @return BulletResourceManager
+     */
+    public BulletResourceManager getResourceManager() {
+        return resourceManager;
+    }
+    
+    /**
+     * Creates a new rigid body. It is owned by the resource manager of the
+     * collision detector and has to be freed with
+     * {@link #releaseCollisionObject(btCollisionObject)}.
      * 
      * @param instance
      *            The game object for which the rigid body has to be created.
@@ -180,20 +311,87 @@ public class CollisionDetector implements Disposable {
      * @return btRigidBody
      */
     public static btRigidBody createRigidBody(final GameObject instance, final btCollisionShape shape, final GameObject userData, btRigidBody.btRigidBodyConstructionInfo rigidBodyInfo) {
-        btRigidBody rigidBody = new btRigidBody(rigidBodyInfo);
-        rigidBody.setCollisionShape(shape);
+        btRigidBody rigidBody = getInstance().resourceManager.createRigidBody(rigidBodyInfo, shape);
         rigidBody.setCollisionFlags(rigidBody.getCollisionFlags() | btRigidBody.CollisionFlags.CF_CUSTOM_MATERIAL_CALLBACK);
         
         rigidBody.setWorldTransform(instance.transform);
         rigidBody.userData = userData;
-        
-        // TODO: use contact callback filtering
-        // rigidBody.setContactCallbackFlag(GROUND_FLAG);
-        // rigidBody.setContactCallbackFilter(0);
+        setCollisionCategory(rigidBody, userData.getCollisionCategory());
         
         return rigidBody;
     }
     
+    /**
+     * Creates a new trigger. A trigger is a ghost object that reports the
+     * contacts with the player, but is not part of the simulation. It is owned
+     * by the resource manager of the collision detector and has to be freed
+     * with {@link #releaseCollisionObject(btCollisionObject)}.
+     * 
+     * @param instance
+     *            The game object for which the trigger has to be created.
+     * @param shape
+     *            The collision shape. Should be created with the help of the
+     *            collision shape manager.
+     * @return btGhostObject
+     */
+    public static btGhostObject createTrigger(final GameObject instance, final btCollisionShape shape) {
+        btGhostObject trigger = getInstance().resourceManager.createGhostObject(shape);
+        trigger.setCollisionFlags(trigger.getCollisionFlags() | btCollisionObject.CollisionFlags.CF_NO_CONTACT_RESPONSE | btCollisionObject.CollisionFlags.CF_STATIC_OBJECT);
+        
+        trigger.setWorldTransform(instance.transform);
+        trigger.userData = instance;
+        setCollisionCategory(trigger, instance.getCollisionCategory());
+        
+        return trigger;
+    }
+    
+    /**
+     * Stores the collision category in the user value of a collision object
+     * and sets its contact callback flag and filter. The category is the flag,
+     * only the player has a filter, so only contacts of the player are
+     * reported.
+     * 
+     * @param collisionObject
+     *            The collision object.
+     * @param category
+     *            The category, e.g. {@link #GATE_GOAL_CATEGORY}.
+     */
+    public static void setCollisionCategory(btCollisionObject collisionObject, int category) {
+        collisionObject.setUserValue(category);
+        collisionObject.setContactCallbackFlag(category);
+        collisionObject.setContactCallbackFilter(category == PLAYER_CATEGORY ? PLAYER_CONTACT_FILTER : 0);
+    }
+    
+    /**
+     * Adds the rigid body or the trigger of a given game object to the
+     * dynamics world.
+     * 
+     * @param gameObject
+     *            The game object with the rigid body or trigger to add.
+     */
+    public void addCollisionObject(final GameObject gameObject) {
+        if (gameObject.getRigidBody() != null) {
+            addRigidBody(gameObject);
+        } else {
+            dynamicsWorld.addCollisionObject(gameObject.getCollisionObject(), gameObject.getFilterGroup(), gameObject.getFilterMask());
+        }
+    }
+    
+    /**
+     * Removes the rigid body or the trigger of a given game object from the
+     * dynamics world.
+     * 
+     * @param gameObject
+     *            The game object with the rigid body or trigger to remove.
+     */
+    public void removeCollisionObject(final GameObject gameObject) {
+        if (gameObject.getRigidBody() != null) {
+            removeRigidBody(gameObject);
+        } else if (gameObject.getCollisionObject() != null) {
+            dynamicsWorld.removeCollisionObject(gameObject.getCollisionObject());
+        }
+    }
+    
     /**
      * Adds a rigid body to the dynamics world from a given game object.
      * <p>
@@ -213,7 +411,19 @@ public class CollisionDetector implements Disposable {
      *            The game object with the rigid body to remove.
      */
     public void removeRigidBody(final GameObject gameObject) {
-        dynamicsWorld.removeRigidBody(gameObject.getRigidBody());
+        if (gameObject.getRigidBody() != null) {
+            dynamicsWorld.removeRigidBody(gameObject.getRigidBody());
+        }
+    }
+    
+    /**
+     * Removes a rigid body or trigger from the dynamics world and frees it.
+     * 
+     * @param collisionObject
+     *            The rigid body or trigger to free.
+     */
+    public void releaseCollisionObject(btCollisionObject collisionObject) {
+        resourceManager.releaseCollisionObject(collisionObject);
     }
     
     /**
@@ -225,19 +435,138 @@ public class CollisionDetector implements Disposable {
         return contactListener;
     }
     
+    /**
+     * Starts stepping the dynamics world on a {@link PhysicsThread}. Has to be
+     * called before the first rigid body with a motion state is created.
+     * <p>
+     * From then on {@link #perform(float)} only starts the step and returns.
+     * The game thread must not touch the dynamics world until
+     * {@link #synchronize()} was called.
+     */
+    public void startPhysicsThread() {
+        if (physicsThread != null) {
+            return;
+        }
+        physicsThread = new PhysicsThread(dynamicsWorld, PHYSICS_TIME_STEP, MAX_PHYSICS_STEPS);
+        physicsThread.start();
+        contactListener.queueContacts = true;
+        Gdx.app.log("CollisionDetector", "Physics thread started.");
+    }
+    
+    /**
+     * Waits for the running step and stops the {@link PhysicsThread}. The
+     * contacts of the last step are dropped. Does nothing if the world is
+     * stepped on the game thread.
+     */
+    public void stopPhysicsThread() {
+        if (physicsThread == null) {
+            return;
+        }
+        physicsThread.stop();
+        physicsThread = null;
+        if (stepPending) {
+            stepPending = false;
+            resourceManager.endStep();
+        }
+        contactListener.queueContacts = false;
+        contactListener.queuedContacts.clear();
+    }
+    
+    /**
+     * Getter for the physics thread.
+     * 
+     * @return the physics thread or null if the world is stepped on the game
+     *         thread
+     */
+    public PhysicsThread getPhysicsThread() {
+        return physicsThread;
+    }
+    
     /**
      * Performs the collision detection and handling.
+     * <p>
+     * If a {@link PhysicsThread} is started, the step is only started and
+     * {@link #synchronize()} has to be called before the dynamics world is
+     * touched again.
      * 
      * @param delta
      *            Time after the last call.
      */
     public void perform(float delta) {
-        // TODO: check if the values are okay
-        dynamicsWorld.stepSimulation(delta, 5, 1f / 60f);
+        resourceManager.beginStep();
+        if (physicsThread != null) {
+            physicsThread.submit(delta);
+            stepPending = true;
+            return;
+        }
+        dynamicsWorld.stepSimulation(delta, MAX_PHYSICS_STEPS, PHYSICS_TIME_STEP);
+        resourceManager.endStep();
+        countPairs();
+    }
+    
+    /**
+     * Waits for the step started by {@link #perform(float)} on the
+     * {@link PhysicsThread}, publishes the simulated transforms and routes the
+     * contacts of the step to the collision listeners. Does nothing if there
+     * is no running step.
+     */
+    public void synchronize() {
+        if (!stepPending) {
+            return;
+        }
+        stepPending = false;
+        physicsThread.await();
+        resourceManager.endStep();
+        countPairs();
+        physicsThread.publish();
+        contactListener.routeQueuedContacts();
+    }
+    
+    private void countPairs() {
+        broadphasePairs = broadphase.getOverlappingPairCache().getNumOverlappingPairs();
+        narrowphasePairs = dispatcher.getNumManifolds();
+    }
+    
+    /**
+     * Getter for the number of the overlapping pairs of the broadphase after
+     * the last step.
+     * 
+     * @return number of pairs
+     */
+    public int getBroadphasePairs() {
+        return broadphasePairs;
+    }
+    
+    /**
+     * Getter for the number of the pairs tested by the narrowphase in the last
+     * step. Every tested pair has a contact manifold.
+     * 
+     * @return number of pairs
+     */
+    public int getNarrowphasePairs() {
+        return narrowphasePairs;
+    }
+    
+    /**
+     * Getter for the number of the collision objects in the dynamics world.
+     * 
+     * @return number of collision objects
+     */
+    public int getCollisionObjects() {
+        return dynamicsWorld.getNumCollisionObjects();
     }
     
     @Override
     public void dispose() {
+        stopPhysicsThread();
+        Gdx.app.log("CollisionDetector", resourceManager.toString());
+        // the shapes of the cached game models are kept for the next game
+        shapeManager.releaseToCache();
+        // the collision objects are removed from the world before it is disposed
+        resourceManager.dispose();
+        rigidBodyInfoManager.dispose();
+        shapeManager.dispose();
+        
         dynamicsWorld.dispose();
         broadphase.dispose();
         dispatcher.dispose();
@@ -245,8 +574,6 @@ public class CollisionDetector implements Disposable {
         contactListener.dispose();
         constraintSolver.dispose();
         
-        rigidBodyInfoManager.dispose();
-        shapeManager.dispose();
         Gdx.app.log("CollisionDetector", "Collision disposed.");
         
         instance = null;
@@ -0,0 +1,135 @@
+package de.fau.cs.mad.fly.game;
+
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+
+import de.fau.cs.mad.fly.features.ICollisionCategoryListener;
+import de.fau.cs.mad.fly.features.ICollisionListener;
+
+/**
+ * Routes the collisions to the collision listeners.
+ * <p>
+ * Every collision is classified once by the collision category of the game
+ * objects, e.g. {@link CollisionDetector#COLLECTIBLE_CATEGORY}. It is only
+ * passed to the listeners that are registered for the category of the second
+ * game object. If the player is part of the collision, it is always the first
+ * game object.
+ * <p>
+ * Routing a collision does not allocate memory.
+ */
+public class CollisionRouter {
+    
+    /**
+     * Number of the collision categories.
+     */
+    public static final int CATEGORY_COUNT = Integer.bitCount(CollisionDetector.ALL_CATEGORIES);
+    
+    /**
+     * The listeners of each category, indexed by the bit of the category.
+     */
+    private final Array<ICollisionListener>[] listeners;
+    
+    /**
+     * Creates a new collision router without listeners.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public CollisionRouter() {
+        listeners = new Array[CATEGORY_COUNT];
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            listeners[i] = new Array<ICollisionListener>();
+        }
+    }
+    
+    /**
+     * Adds a new collision listener. A listener implementing
+     * {@link ICollisionCategoryListener} is registered for its categories, any
+     * other listener for all categories.
+     * 
+     * @param listener
+     *            The collision listener.
+     */
+    public void addListener(ICollisionListener listener) {
+        if (listener instanceof ICollisionCategoryListener) {
+            addListener(listener, ((ICollisionCategoryListener) listener).getCollisionCategories());
+        } else {
+            addListener(listener, CollisionDetector.ALL_CATEGORIES);
+        }
+    }
+    
+    /**
+     * Adds a new collision listener for some categories.
+     * 
+     * @param listener
+     *            The collision listener.
+     * @param categories
+     *            The categories, e.g.
+     *            {@link CollisionDetector#GATE_GOAL_CATEGORY}.
+     */
+    public void addListener(ICollisionListener listener, int categories) {
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            if ((categories & (1 << i)) != 0) {
+                listeners[i].add(listener);
+            }
+        }
+    }
+    
+    /**
+     * Removes a collision listener from all its categories.
+     * 
+     * @param listener
+     *            The collision listener.
+     */
+    public void removeListener(ICollisionListener listener) {
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            listeners[i].removeValue(listener, true);
+        }
+    }
+    
+    /**
+     * Removes all collision listeners.
+     */
+    public void clear() {
+        for (int i = 0; i < CATEGORY_COUNT; i++) {
+            listeners[i].clear();
+        }
+    }
+    
+    /**
+     * Getter for the number of listeners of a category.
+     * 
+     * @param category
+     *            The category, e.g. {@link CollisionDetector#PLAYER_CATEGORY}.
+     * @return number of listeners
+     */
+    public int getListenerCount(int category) {
+        return listeners[Integer.numberOfTrailingZeros(category)].size;
+    }
+    
+    /**
+     * Passes a collision to the listeners of the category of the second game
+     * object. The game objects are swapped before if the second one is the
+     * player.
+     * 
+     * @param g1
+     *            The first game object of the collision.
+     * @param g2
+     *            The second game object of the collision.
+     */
+    public void route(GameObject g1, GameObject g2) {
+        if (g2.getCollisionCategory() == CollisionDetector.PLAYER_CATEGORY) {
+            GameObject player = g2;
+            g2 = g1;
+            g1 = player;
+        }
+        
+        if (Gdx.app != null && Gdx.app.getLogLevel() >= Application.LOG_DEBUG) {
+            Gdx.app.debug("CollisionRouter.route", "g1 = " + g1.getId() + ", g2 = " + g2.getId() + " (category = " + g2.getCollisionCategory() + ")");
+        }
+        
+        Array<ICollisionListener> categoryListeners = listeners[Integer.numberOfTrailingZeros(g2.getCollisionCategory())];
+        for (int i = 0; i < categoryListeners.size; i++) {
+            categoryListeners.get(i).onCollision(g1, g2);
+        }
+    }
+}
@@ -1,33 +1,93 @@
 package de.fau.cs.mad.fly.game;
 
 import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.bullet.Bullet;
+import com.badlogic.gdx.physics.bullet.BulletBase;
 import com.badlogic.gdx.physics.bullet.collision.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
 import com.badlogic.gdx.utils.Disposable;
 
+import de.fau.cs.mad.fly.res.ModelCache;
+import de.fau.cs.mad.fly.res.ModelCache.CachedShape;
+
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
  * Manager for the btCollisionShapes.
  * <p>
- * Creates, stores and disposes all used collision shapes.
+ * Creates and stores all used collision shapes. The shapes are owned by the
+ * {@link BulletResourceManager}, which frees a shape as soon as the last rigid
+ * body using it is freed. The shape is then removed from this manager.
  * <p>
  * Available shape types: boxShape: if a simple box around the object is enough.
  * sphereShape: if a simple sphere fits the object better a box. convexShape: if
  * the object has a convex but not simple form. meshShape: if the object has
  * holes and they have to be identified by the collision detector.
+ * <p>
+ * Convex and mesh shapes are created from the {@link BakedCollisionShape} of
+ * the game model if there is one that matches the model, otherwise they are
+ * generated from the model.
+ * <p>
+ * If a {@link ModelCache} is set, the convex and mesh shapes are taken from
+ * the cache if the game model was used by the last games, and handed over to
+ * it when the collision detector is disposed, see {@link #releaseToCache()}.
  * 
  * @author Tobias Zangl
  */
-public class CollisionShapeManager implements Disposable {
+public class CollisionShapeManager implements Disposable, BulletResourceManager.ResourceOwner {
     
     /**
      * Maps to save the different shape types.
      */
     Map<String, btCollisionShape> meshShapeMap, convexShapeMap, boxShapeMap, sphereShapeMap;
     
+    /**
+     * The owner of the created shapes.
+     */
+    private final BulletResourceManager resourceManager;
+    
+    /**
+     * The native buffers of the baked hierarchies of the mesh shapes. A buffer
+     * is disposed when its shape is freed.
+     */
+    private final Map<btCollisionShape, Array<ByteBuffer>> bvhBuffers = new HashMap<btCollisionShape, Array<ByteBuffer>>();
+    
+    /**
+     * Number of shapes created from baked data and generated from the models.
+     */
+    private int bakedShapes = 0;
+    private int generatedShapes = 0;
+    
+    /**
+     * Prefixes of the keys of the convex and mesh shapes in the
+     * {@link ModelCache}.
+     */
+    private static final String CONVEX_KEY = "convex:";
+    private static final String MESH_KEY = "mesh:";
+    
+    /**
+     * The cache the convex and mesh shapes are taken from and handed over to,
+     * null if there is none.
+     */
+    private ModelCache cache;
+    
+    /**
+     * The game models the convex and mesh shapes were created for.
+     */
+    private final Map<btCollisionShape, GameModel> shapeModels = new HashMap<btCollisionShape, GameModel>();
+    
+    /**
+     * Scaling of the shapes taken from the cache, they may be scaled by the
+     * last game.
+     */
+    private static final Vector3 UNIT_SCALING = new Vector3(1f, 1f, 1f);
+    
     /**
      * CollisionShapeManager
      * <p>
@@ -35,13 +95,25 @@ public class CollisionShapeManager implements Disposable {
      * btConeShape, btMultiSphereShape btConvexHullShape, btBvhTriangleMeshShape
      * btCompoundShape
      */
-    public CollisionShapeManager() {
+    public CollisionShapeManager(BulletResourceManager resourceManager) {
+        this.resourceManager = resourceManager;
         meshShapeMap = new HashMap<String, btCollisionShape>();
         convexShapeMap = new HashMap<String, btCollisionShape>();
         boxShapeMap = new HashMap<String, btCollisionShape>();
         sphereShapeMap = new HashMap<String, btCollisionShape>();
     }
     
+    /**
+     * Sets the cache the convex and mesh shapes are taken from and handed over
+     * to.
+     * 
+     * @param cache
+     *            The cache or null.
+     */
+    public void setCache(ModelCache cache) {
+        this.cache = cache;
+    }
+    
     /**
      * Getter for a mesh shape with given shapeId.
      * 
@@ -101,13 +173,38 @@ public class CollisionShapeManager implements Disposable {
         if (shape != null) {
             return shape;
         }
+        shape = takeCachedShape(MESH_KEY, meshShapeMap, shapeId, instance);
+        if (shape != null) {
+            return shape;
+        }
         
-        btCollisionShape meshShape = Bullet.obtainStaticNodeShape(instance.model.nodes);
+        btCollisionShape meshShape = null;
+        BakedCollisionShape baked = instance.getGameModel().bakedShape;
+        if (baked != null) {
+            Array<ByteBuffer> buffers = new Array<ByteBuffer>();
+            meshShape = baked.createMeshShape(instance.model.nodes, buffers);
+            if (meshShape != null) {
+                bvhBuffers.put(meshShape, buffers);
+                bakedShapes++;
+            } else {
+                disposeBuffers(buffers);
+            }
+        }
+        if (meshShape == null) {
+            meshShape = Bullet.obtainStaticNodeShape(instance.model.nodes);
+            generatedShapes++;
+        }
+        int triangles = 0;
+        for (MeshPart part : instance.model.meshParts) {
+            triangles += part.numVertices / 3;
+        }
+        resourceManager.manage(meshShape, BulletResourceManager.SHAPE_BYTES + triangles * BulletResourceManager.MESH_TRIANGLE_BYTES, this);
         
         // Gdx.app.log("CollisionShapeManager", "Created static mesh shape: " +
         // shapeId);
         
         meshShapeMap.put(shapeId, meshShape);
+        shapeModels.put(meshShape, instance.getGameModel());
         return meshShape;
     }
     
@@ -126,25 +223,91 @@ public class CollisionShapeManager implements Disposable {
         if (shape != null) {
             return shape;
         }
+        shape = takeCachedShape(CONVEX_KEY, convexShapeMap, shapeId, instance);
+        if (shape != null) {
+            return shape;
+        }
         
         final Mesh mesh = instance.model.meshes.get(0);
-        final btConvexHullShape hullShape = new btConvexHullShape(mesh.getVerticesBuffer(), mesh.getNumVertices(), mesh.getVertexSize());
-        
-        // now optimize the shape
-        final btShapeHull hull = new btShapeHull(hullShape);
-        hull.buildHull(hullShape.getMargin());
-        final btConvexHullShape convexShape = new btConvexHullShape(hull);
-        
-        hullShape.dispose();
-        hull.dispose();
+        final BakedCollisionShape baked = instance.getGameModel().bakedShape;
+        btConvexHullShape convexShape = baked == null ? null : baked.createConvexShape(mesh);
+        if (convexShape != null) {
+            bakedShapes++;
+        } else {
+            final btConvexHullShape hullShape = new btConvexHullShape(mesh.getVerticesBuffer(), mesh.getNumVertices(), mesh.getVertexSize());
+            
+            // now optimize the shape
+            final btShapeHull hull = new btShapeHull(hullShape);
+            hull.buildHull(hullShape.getMargin());
+            convexShape = new btConvexHullShape(hull);
+            
+            hullShape.dispose();
+            hull.dispose();
+            generatedShapes++;
+        }
+        resourceManager.manage(convexShape, BulletResourceManager.SHAPE_BYTES + convexShape.getNumPoints() * BulletResourceManager.CONVEX_HULL_POINT_BYTES, this);
         
         // Gdx.app.log("CollisionShapeManager", "Created convex shape: " +
         // shapeId);
         
         convexShapeMap.put(shapeId, convexShape);
+        shapeModels.put(convexShape, instance.getGameModel());
         return convexShape;
     }
     
+    /**
+     * Takes a shape of the game model of the instance from the cache.
+     * 
+     * @return the shape or null if it is not cached
+     */
+    private btCollisionShape takeCachedShape(String keyPrefix, Map<String, btCollisionShape> shapeMap, String shapeId, GameObject instance) {
+        if (cache == null) {
+            return null;
+        }
+        CachedShape cached = cache.takeShape(instance.getGameModel(), keyPrefix + shapeId);
+        if (cached == null) {
+            return null;
+        }
+        btCollisionShape shape = cached.shape;
+        shape.setLocalScaling(UNIT_SCALING);
+        resourceManager.manage(shape, cached.bytes, this);
+        if (cached.buffers != null) {
+            bvhBuffers.put(shape, cached.buffers);
+        }
+        shapeMap.put(shapeId, shape);
+        shapeModels.put(shape, instance.getGameModel());
+        return shape;
+    }
+    
+    /**
+     * Hands the convex and mesh shapes over to the cache, if one is set. The
+     * shapes of game models that are not cached are kept. Has to be called
+     * right before the {@link BulletResourceManager} is disposed.
+     */
+    public void releaseToCache() {
+        if (cache == null) {
+            return;
+        }
+        releaseToCache(CONVEX_KEY, convexShapeMap);
+        releaseToCache(MESH_KEY, meshShapeMap);
+    }
+    
+    private void releaseToCache(String keyPrefix, Map<String, btCollisionShape> shapeMap) {
+        Iterator<Map.Entry<String, btCollisionShape>> entries = shapeMap.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, btCollisionShape> entry = entries.next();
+            btCollisionShape shape = entry.getValue();
+            GameModel model = shapeModels.get(shape);
+            CachedShape cached = new CachedShape(shape, bvhBuffers.get(shape), resourceManager.getEstimatedBytes(shape));
+            if (model != null && cache.putShape(model, keyPrefix + entry.getKey(), cached)) {
+                resourceManager.detach(shape);
+                bvhBuffers.remove(shape);
+                shapeModels.remove(shape);
+                entries.remove();
+            }
+        }
+    }
+    
     /**
      * Creates a new btBoxShape with given box sizes if the shape is not already
      * created.
@@ -162,6 +325,7 @@ public class CollisionShapeManager implements Disposable {
         }
         
         btBoxShape boxShape = new btBoxShape(box);
+        resourceManager.manage(boxShape, BulletResourceManager.SHAPE_BYTES, this);
         
         // Gdx.app.log("CollisionShapeManager", "Created box shape: " +
         // shapeId);
@@ -187,6 +351,7 @@ public class CollisionShapeManager implements Disposable {
         }
         
         btSphereShape sphereShape = new btSphereShape(radius);
+        resourceManager.manage(sphereShape, BulletResourceManager.SHAPE_BYTES, this);
         
         // Gdx.app.log("CollisionShapeManager", "Created sphere shape: " +
         // shapeId);
@@ -195,6 +360,59 @@ public class CollisionShapeManager implements Disposable {
         return sphereShape;
     }
     
+    /**
+     * Removes a shape freed by the {@link BulletResourceManager}, so it is
+     * created again when it is needed the next time.
+     * <p>
+     * The native buffers of a shape with baked hierarchies are disposed as
+     * well. They are not used anymore, as the shape is disposed right after.
+     */
+    @Override
+    public void freed(BulletBase resource) {
+        remove(meshShapeMap, resource);
+        remove(convexShapeMap, resource);
+        remove(boxShapeMap, resource);
+        remove(sphereShapeMap, resource);
+        shapeModels.remove(resource);
+        Array<ByteBuffer> buffers = bvhBuffers.remove(resource);
+        if (buffers != null) {
+            disposeBuffers(buffers);
+        }
+    }
+    
+    private static void disposeBuffers(Array<ByteBuffer> buffers) {
+        for (ByteBuffer buffer : buffers) {
+            BufferUtils.disposeUnsafeByteBuffer(buffer);
+        }
+    }
+    
+    /**
+     * Getter for the number of convex and mesh shapes created from baked data.
+     */
+    public int getBakedShapes() {
+        return bakedShapes;
+    }
+    
+    /**
+     * Getter for the number of convex and mesh shapes generated from the
+     * models.
+     */
+    public int getGeneratedShapes() {
+        return generatedShapes;
+    }
+    
+    private static void remove(Map<String, btCollisionShape> shapeMap, BulletBase shape) {
+        Iterator<btCollisionShape> shapes = shapeMap.values().iterator();
+        while (shapes.hasNext()) {
+            if (shapes.next() == shape) {
+                shapes.remove();
+            }
+        }
+    }
+    
+    /**
+     * Forgets all shapes. They are freed by the {@link BulletResourceManager}.
+     */
     @Override
     public void dispose() {
         meshShapeMap.clear();
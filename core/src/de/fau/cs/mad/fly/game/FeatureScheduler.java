@@ -0,0 +1,641 @@
+package de.fau.cs.mad.fly.game;
+
+import java.util.Comparator;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import de.fau.cs.mad.fly.features.IFeatureDependent;
+import de.fau.cs.mad.fly.features.IFeatureDispose;
+import de.fau.cs.mad.fly.features.IFeatureDraw;
+import de.fau.cs.mad.fly.features.IFeatureFinish;
+import de.fau.cs.mad.fly.features.IFeatureInit;
+import de.fau.cs.mad.fly.features.IFeatureLoad;
+import de.fau.cs.mad.fly.features.IFeatureParallelUpdate;
+import de.fau.cs.mad.fly.features.IFeatureRender;
+import de.fau.cs.mad.fly.features.IFeatureUpdate;
+
+/**
+ * Runs the optional features of a game in their phases and measures how long
+ * each of them takes.
+ * <p>
+ * A feature declares its phases by the interfaces it implements, e.g.
+ * {@link IFeatureUpdate}, see {@link #add(Object)}. In every phase the
+ * features run in the order they were added, except that a feature
+ * implementing {@link IFeatureDependent} runs after the features it depends
+ * on.
+ * <p>
+ * The time of every feature in every phase is recorded in nanoseconds. The
+ * phases running every frame keep the times of the last {@link #FRAMES}
+ * frames in a ring buffer, a new frame is started by {@link #nextFrame()}.
+ * Recording the times does not allocate memory.
+ * <p>
+ * If workers are started with {@link #startWorkers(int)}, consecutive
+ * features implementing {@link IFeatureParallelUpdate} whose shared state does
+ * not overlap are updated in parallel by {@link FeatureWorkers}.
+ */
+public class FeatureScheduler {
+    
+    /** Number of frames the times are kept for. */
+    public static final int FRAMES = 120;
+    
+    /** The collision world and the collision objects in it. */
+    public static final int WORLD_STATE = 1;
+    
+    /** The plane of the player and the flight controller. */
+    public static final int PLAYER_STATE = 2;
+    
+    /** The stage and its actors. */
+    public static final int STAGE_STATE = 4;
+    
+    /** The level with its gates and collectibles. */
+    public static final int LEVEL_STATE = 8;
+    
+    /** Any state, used for features that may not run in parallel. */
+    public static final int ALL_STATES = ~0;
+    
+    /**
+     * The phases of a game the features run in.
+     */
+    public enum Phase {
+        LOAD(false), INIT(false), UPDATE(true), RENDER(true), DRAW(true), FINISH(false), DISPOSE(false);
+        
+        /** True, if the phase runs every frame. */
+        public final boolean perFrame;
+        
+        private final String name;
+        
+        Phase(boolean perFrame) {
+            this.perFrame = perFrame;
+            this.name = name().toLowerCase();
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+    
+    /**
+     * The times of a feature in one phase or of a whole phase.
+     */
+    public class Timing {
+        private final Object feature;
+        private final Phase phase;
+        private final String name;
+        
+        /** Nanoseconds per frame, only used in phases running every frame. */
+        private final long[] samples;
+        
+        private long totalNanos = 0;
+        private int calls = 0;
+        
+        private Timing(Object feature, Phase phase, String name) {
+            this.feature = feature;
+            this.phase = phase;
+            this.name = name;
+            samples = phase.perFrame ? new long[FRAMES] : null;
+        }
+        
+        private void record(long nanos) {
+            if (samples != null) {
+                samples[frame] += nanos;
+            }
+            totalNanos += nanos;
+            calls++;
+        }
+        
+        private void clearFrame() {
+            if (samples != null) {
+                samples[frame] = 0;
+            }
+        }
+        
+        /**
+         * Getter for the feature.
+         * 
+         * @return the feature or null if this is the timing of a whole phase
+         */
+        public Object getFeature() {
+            return feature;
+        }
+        
+        public Phase getPhase() {
+            return phase;
+        }
+        
+        /**
+         * Getter for the name, the simple class name of the feature and the
+         * phase, e.g. "FlyingObjects.update".
+         */
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * Getter for the time in the last completed frame.
+         * 
+         * @return nanoseconds, 0 if the phase does not run every frame
+         */
+        public long getLastNanos() {
+            if (samples == null || completedFrames == 0) {
+                return 0;
+            }
+            return samples[(frame + FRAMES - 1) % FRAMES];
+        }
+        
+        /**
+         * Getter for the average time over the completed frames in the ring
+         * buffer.
+         * 
+         * @return nanoseconds per frame, 0 if the phase does not run every
+         *         frame
+         */
+        public long getAverageNanos() {
+            if (samples == null || completedFrames == 0) {
+                return 0;
+            }
+            long sum = 0;
+            for (int i = 1; i <= completedFrames; i++) {
+                sum += samples[(frame + FRAMES - i) % FRAMES];
+            }
+            return sum / completedFrames;
+        }
+        
+        /**
+         * Getter for the maximum time of the completed frames in the ring
+         * buffer.
+         * 
+         * @return nanoseconds, 0 if the phase does not run every frame
+         */
+        public long getMaxNanos() {
+            if (samples == null) {
+                return 0;
+            }
+            long max = 0;
+            for (int i = 1; i <= completedFrames; i++) {
+                max = Math.max(max, samples[(frame + FRAMES - i) % FRAMES]);
+            }
+            return max;
+        }
+        
+        /**
+         * Getter for the time of all calls since the features were prepared.
+         * 
+         * @return nanoseconds
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+        
+        /**
+         * Getter for the number of calls since the features were prepared.
+         */
+        public int getCalls() {
+            return calls;
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+    
+    /**
+     * The features of one phase together with their timings.
+     */
+    private class FeatureList<T> {
+        final Phase phase;
+        final Class<T> type;
+        final Array<T> features = new Array<T>();
+        final Array<Timing> timings = new Array<Timing>();
+        final Timing total;
+        
+        FeatureList(Phase phase, Class<T> type) {
+            this.phase = phase;
+            this.type = type;
+            total = new Timing(null, phase, phase.toString());
+        }
+        
+        void prepare(Array<Object> sorted) {
+            features.clear();
+            timings.clear();
+            for (int i = 0; i < sorted.size; i++) {
+                Object feature = sorted.get(i);
+                if (type.isInstance(feature)) {
+                    features.add(type.cast(feature));
+                    timings.add(new Timing(feature, phase, nameOf(feature) + "." + phase));
+                }
+            }
+            total.totalNanos = 0;
+            total.calls = 0;
+        }
+    }
+    
+    /** Sorts timings by their average time, the slowest first. */
+    private static final Comparator<Timing> SLOWEST_FIRST = new Comparator<Timing>() {
+        @Override
+        public int compare(Timing t1, Timing t2) {
+            long a1 = t1.getAverageNanos();
+            long a2 = t2.getAverageNanos();
+            return a1 < a2 ? 1 : (a1 > a2 ? -1 : 0);
+        }
+    };
+    
+    /** All features in the order they were added. */
+    private final Array<Object> features = new Array<Object>();
+    
+    /** True, if features were added after the phases were prepared. */
+    private boolean dirty = false;
+    
+    private final FeatureList<IFeatureLoad> load = new FeatureList<IFeatureLoad>(Phase.LOAD, IFeatureLoad.class);
+    private final FeatureList<IFeatureInit> init = new FeatureList<IFeatureInit>(Phase.INIT, IFeatureInit.class);
+    private final FeatureList<IFeatureUpdate> update = new FeatureList<IFeatureUpdate>(Phase.UPDATE, IFeatureUpdate.class);
+    private final FeatureList<IFeatureRender> render = new FeatureList<IFeatureRender>(Phase.RENDER, IFeatureRender.class);
+    private final FeatureList<IFeatureDraw> draw = new FeatureList<IFeatureDraw>(Phase.DRAW, IFeatureDraw.class);
+    private final FeatureList<IFeatureFinish> finish = new FeatureList<IFeatureFinish>(Phase.FINISH, IFeatureFinish.class);
+    private final FeatureList<IFeatureDispose> dispose = new FeatureList<IFeatureDispose>(Phase.DISPOSE, IFeatureDispose.class);
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private final FeatureList<Object>[] phases = new FeatureList[] { load, init, update, render, draw, finish, dispose };
+    
+    /**
+     * For each update feature that starts a batch the index after the last
+     * feature of the batch. The features of a batch may be updated in
+     * parallel.
+     */
+    private int[] batchEnds = new int[0];
+    
+    /** The index of the current frame in the ring buffers. */
+    private int frame = 0;
+    
+    /** Number of completed frames in the ring buffers. */
+    private int completedFrames = 0;
+    
+    /** True after the first frame was started. */
+    private boolean frameStarted = false;
+    
+    private FeatureWorkers workers;
+    
+    /**
+     * Adds a feature to all phases it implements the interface of. The order
+     * of the phases is updated before the next phase runs.
+     * 
+     * @param feature
+     *            The feature.
+     */
+    public void add(Object feature) {
+        features.add(feature);
+        dirty = true;
+    }
+    
+    /**
+     * Removes all features and their timings and stops the workers.
+     */
+    public void clear() {
+        stopWorkers();
+        features.clear();
+        dirty = true;
+        prepare();
+    }
+    
+    /**
+     * Starts workers that update features in parallel.
+     * 
+     * @param threads
+     *            Number of worker threads, the calling thread works as well.
+     *            Nothing is started if it is less than 1.
+     */
+    public void startWorkers(int threads) {
+        stopWorkers();
+        if (threads > 0) {
+            workers = new FeatureWorkers(this, threads);
+            workers.start();
+        }
+    }
+    
+    /**
+     * Stops the workers, if there are any. All features are updated on the
+     * calling thread afterwards.
+     */
+    public void stopWorkers() {
+        if (workers != null) {
+            workers.stop();
+            workers = null;
+        }
+    }
+    
+    /**
+     * Getter for the workers.
+     * 
+     * @return the workers or null if they are not started
+     */
+    public FeatureWorkers getWorkers() {
+        return workers;
+    }
+    
+    public void load(GameController game) {
+        prepare();
+        final Array<IFeatureLoad> features = load.features;
+        final long phaseStart = System.nanoTime();
+        for (int i = 0; i < features.size; i++) {
+            final long start = System.nanoTime();
+            features.get(i).load(game);
+            load.timings.get(i).record(System.nanoTime() - start);
+        }
+        load.total.record(System.nanoTime() - phaseStart);
+    }
+    
+    public void init(GameController game) {
+        prepare();
+        final Array<IFeatureInit> features = init.features;
+        final long phaseStart = System.nanoTime();
+        for (int i = 0; i < features.size; i++) {
+            final long start = System.nanoTime();
+            features.get(i).init(game);
+            init.timings.get(i).record(System.nanoTime() - start);
+        }
+        init.total.record(System.nanoTime() - phaseStart);
+    }
+    
+    /**
+     * Updates the features. The features of a batch are updated in parallel,
+     * if the workers are started.
+     * 
+     * @param delta
+     *            Time after the last call.
+     */
+    public void update(float delta) {
+        prepare();
+        final int len = update.features.size;
+        final long phaseStart = System.nanoTime();
+        int i = 0;
+        while (i < len) {
+            final int end = batchEnds[i];
+            if (workers != null && end - i > 1) {
+                workers.update(i, end, delta);
+            } else {
+                for (int j = i; j < end; j++) {
+                    update(j, delta);
+                }
+            }
+            i = end;
+        }
+        update.total.record(System.nanoTime() - phaseStart);
+    }
+    
+    /**
+     * Updates one feature and records its time. Called by the workers for
+     * the features of a batch.
+     * 
+     * @param index
+     *            The index of the feature in the update phase.
+     * @param delta
+     *            Time after the last call.
+     */
+    void update(int index, float delta) {
+        final long start = System.nanoTime();
+        update.features.get(index).update(delta);
+        update.timings.get(index).record(System.nanoTime() - start);
+    }
+    
+    public void render(float delta) {
+        prepare();
+        final Array<IFeatureRender> features = render.features;
+        final long phaseStart = System.nanoTime();
+        for (int i = 0; i < features.size; i++) {
+            final long start = System.nanoTime();
+            features.get(i).render(delta);
+            render.timings.get(i).record(System.nanoTime() - start);
+        }
+        render.total.record(System.nanoTime() - phaseStart);
+    }
+    
+    public void draw(float delta) {
+        prepare();
+        final Array<IFeatureDraw> features = draw.features;
+        final long phaseStart = System.nanoTime();
+        for (int i = 0; i < features.size; i++) {
+            final long start = System.nanoTime();
+            features.get(i).draw(delta);
+            draw.timings.get(i).record(System.nanoTime() - start);
+        }
+        draw.total.record(System.nanoTime() - phaseStart);
+    }
+    
+    public void finish() {
+        prepare();
+        final Array<IFeatureFinish> features = finish.features;
+        final long phaseStart = System.nanoTime();
+        for (int i = 0; i < features.size; i++) {
+            final long start = System.nanoTime();
+            features.get(i).finish();
+            finish.timings.get(i).record(System.nanoTime() - start);
+        }
+        finish.total.record(System.nanoTime() - phaseStart);
+    }
+    
+    public void dispose() {
+        prepare();
+        final Array<IFeatureDispose> features = dispose.features;
+        final long phaseStart = System.nanoTime();
+        for (int i = 0; i < features.size; i++) {
+            final long start = System.nanoTime();
+            features.get(i).dispose();
+            dispose.timings.get(i).record(System.nanoTime() - start);
+        }
+        dispose.total.record(System.nanoTime() - phaseStart);
+    }
+    
+    /**
+     * Starts a new frame in the ring buffers. The oldest frame is overwritten.
+     */
+    public void nextFrame() {
+        if (frameStarted) {
+            frame = (frame + 1) % FRAMES;
+            if (completedFrames < FRAMES - 1) {
+                completedFrames++;
+            }
+        }
+        frameStarted = true;
+        for (FeatureList<Object> phase : phases) {
+            if (phase.phase.perFrame) {
+                phase.total.clearFrame();
+                for (int i = 0; i < phase.timings.size; i++) {
+                    phase.timings.get(i).clearFrame();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Sorts the features by their dependencies and puts them into the phases
+     * if features were added. The timings start again afterwards.
+     * 
+     * @throws GdxRuntimeException
+     *             if the dependencies are cyclic.
+     */
+    private void prepare() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        
+        Array<Object> sorted = sort(features);
+        for (FeatureList<Object> phase : phases) {
+            phase.prepare(sorted);
+        }
+        frame = 0;
+        completedFrames = 0;
+        frameStarted = false;
+        
+        final int len = update.features.size;
+        batchEnds = new int[len];
+        int i = 0;
+        while (i < len) {
+            int state = sharedStateOf(update.features.get(i));
+            int end = i + 1;
+            if (state != ALL_STATES) {
+                while (end < len) {
+                    IFeatureUpdate next = update.features.get(end);
+                    int nextState = sharedStateOf(next);
+                    if (nextState == ALL_STATES || (state & nextState) != 0 || dependsOn(next, update.features, i, end)) {
+                        break;
+                    }
+                    state |= nextState;
+                    end++;
+                }
+            }
+            batchEnds[i] = end;
+            i = end;
+        }
+    }
+    
+    /**
+     * Sorts features so that every feature comes after the features it
+     * depends on. Features without dependencies between them keep their
+     * order.
+     * 
+     * @param features
+     *            The features in the order they were added.
+     * @return the sorted features
+     * @throws GdxRuntimeException
+     *             if the dependencies are cyclic.
+     */
+    private static Array<Object> sort(Array<Object> features) {
+        Array<Object> remaining = new Array<Object>(features);
+        Array<Object> sorted = new Array<Object>(features.size);
+        while (remaining.size > 0) {
+            int i = 0;
+            while (i < remaining.size && dependsOn(remaining.get(i), remaining, 0, remaining.size)) {
+                i++;
+            }
+            if (i == remaining.size) {
+                throw new GdxRuntimeException("FeatureScheduler: cyclic dependencies between " + remaining);
+            }
+            sorted.add(remaining.removeIndex(i));
+        }
+        return sorted;
+    }
+    
+    /**
+     * Checks if a feature depends on another one of a range of features.
+     */
+    private static boolean dependsOn(Object feature, Array<?> features, int from, int to) {
+        if (!(feature instanceof IFeatureDependent)) {
+            return false;
+        }
+        for (Class<?> dependency : ((IFeatureDependent) feature).getDependencies()) {
+            for (int i = from; i < to; i++) {
+                Object other = features.get(i);
+                if (other != feature && dependency.isInstance(other)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static int sharedStateOf(IFeatureUpdate feature) {
+        if (feature instanceof IFeatureParallelUpdate) {
+            return ((IFeatureParallelUpdate) feature).getSharedState();
+        }
+        return ALL_STATES;
+    }
+    
+    private static String nameOf(Object feature) {
+        String name = feature.getClass().getName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+    
+    /**
+     * Getter for the features of a phase in the order they run.
+     * 
+     * @param phase
+     *            The phase.
+     * @return the features, must not be changed
+     */
+    public Array<?> getFeatures(Phase phase) {
+        prepare();
+        return phases[phase.ordinal()].features;
+    }
+    
+    /**
+     * Getter for the timings of the features in a phase.
+     * 
+     * @param phase
+     *            The phase.
+     * @return the timings in the order the features run, must not be changed
+     */
+    public Array<Timing> getTimings(Phase phase) {
+        prepare();
+        return phases[phase.ordinal()].timings;
+    }
+    
+    /**
+     * Getter for the timing of a whole phase.
+     * 
+     * @param phase
+     *            The phase.
+     * @return the timing of all features in the phase
+     */
+    public Timing getTiming(Phase phase) {
+        return phases[phase.ordinal()].total;
+    }
+    
+    /**
+     * Collects the timings of the features in the phases running every frame,
+     * the slowest first.
+     * 
+     * @param timings
+     *            The array the timings are put in, it is cleared first.
+     * @param count
+     *            Maximum number of timings.
+     * @return the given array
+     */
+    public Array<Timing> getSlowestTimings(Array<Timing> timings, int count) {
+        prepare();
+        timings.clear();
+        for (FeatureList<Object> phase : phases) {
+            if (phase.phase.perFrame) {
+                timings.addAll(phase.timings);
+            }
+        }
+        timings.sort(SLOWEST_FIRST);
+        timings.truncate(Math.min(count, timings.size));
+        return timings;
+    }
+    
+    /**
+     * Getter for the number of batches of update features. Each batch is
+     * updated in parallel if the workers are started.
+     */
+    public int getUpdateBatches() {
+        prepare();
+        int batches = 0;
+        for (int i = 0; i < batchEnds.length; i = batchEnds[i]) {
+            batches++;
+        }
+        return batches;
+    }
+}
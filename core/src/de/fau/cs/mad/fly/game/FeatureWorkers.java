@@ -0,0 +1,231 @@
+package de.fau.cs.mad.fly.game;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Updates batches of features of a {@link FeatureScheduler} in parallel on a
+ * few threads of their own.
+ * <p>
+ * The game thread hands a batch over with {@link #update(int, int, float)},
+ * updates features of the batch itself as well and returns when all features
+ * of the batch are updated. The features of a batch must not share any state,
+ * see {@link de.fau.cs.mad.fly.features.IFeatureParallelUpdate}. Handing a
+ * batch over does not allocate memory.
+ */
+public class FeatureWorkers implements Runnable {
+    
+    /** Maximum number of threads started by default. */
+    public static final int MAX_THREADS = 3;
+    
+    private final FeatureScheduler scheduler;
+    
+    private final Thread[] threads;
+    
+    private final Object lock = new Object();
+    
+    /** The index of the next feature of the batch that is not taken yet. */
+    private int next = 0;
+    
+    /** The index after the last feature of the batch. */
+    private int end = 0;
+    
+    /** Number of features of the batch that are not updated yet. */
+    private int unfinished = 0;
+    
+    /** Time after the last update. */
+    private float delta;
+    
+    /** True after {@link #stop()}. */
+    private boolean stopped = false;
+    
+    /** The exception thrown by a feature of the batch, if there was one. */
+    private Throwable failure;
+    
+    /** Number of batches updated in parallel. */
+    private long batches = 0;
+    
+    /** Nanoseconds the game thread spent waiting for the worker threads. */
+    private long waitNanos = 0;
+    
+    /**
+     * Getter for the number of worker threads that make sense on this device.
+     * 
+     * @return number of cores besides the one of the game thread, at most
+     *         {@link #MAX_THREADS}, 0 on a single core
+     */
+    public static int defaultThreads() {
+        return Math.min(Runtime.getRuntime().availableProcessors() - 1, MAX_THREADS);
+    }
+    
+    /**
+     * Creates new workers. They have to be started with {@link #start()}.
+     * 
+     * @param scheduler
+     *            The scheduler of the updated features.
+     * @param threads
+     *            Number of worker threads.
+     */
+    public FeatureWorkers(FeatureScheduler scheduler, int threads) {
+        this.scheduler = scheduler;
+        this.threads = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            this.threads[i] = new Thread(this, "Features " + i);
+            this.threads[i].setDaemon(true);
+        }
+    }
+    
+    /**
+     * Starts the threads.
+     */
+    public void start() {
+        for (Thread thread : threads) {
+            thread.start();
+        }
+    }
+    
+    /**
+     * Updates a batch of features in parallel and waits until all of them are
+     * updated.
+     * 
+     * @param from
+     *            The index of the first feature of the batch in the update
+     *            phase.
+     * @param to
+     *            The index after the last feature of the batch.
+     * @param delta
+     *            Time after the last update.
+     * @throws GdxRuntimeException
+     *             if the update of a feature failed.
+     */
+    public void update(int from, int to, float delta) {
+        synchronized (lock) {
+            this.delta = delta;
+            next = from;
+            end = to;
+            unfinished = to - from;
+            batches++;
+            lock.notifyAll();
+        }
+        
+        work();
+        
+        long start = System.nanoTime();
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (unfinished > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // the features may not be touched before they are updated
+                    interrupted = true;
+                }
+            }
+        }
+        waitNanos += System.nanoTime() - start;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            Throwable t = failure;
+            failure = null;
+            throw new GdxRuntimeException("FeatureWorkers: update failed.", t);
+        }
+    }
+    
+    /**
+     * Updates features of the batch until all of them are taken.
+     */
+    private void work() {
+        while (true) {
+            int index;
+            float delta;
+            synchronized (lock) {
+                if (next >= end) {
+                    return;
+                }
+                index = next++;
+                delta = this.delta;
+            }
+            
+            Throwable t = null;
+            try {
+                scheduler.update(index, delta);
+            } catch (Throwable e) {
+                t = e;
+            }
+            
+            synchronized (lock) {
+                if (t != null) {
+                    failure = t;
+                }
+                unfinished--;
+                if (unfinished == 0) {
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Stops the threads. Has to be called by the game thread between two
+     * updates.
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    @Override
+    public void run() {
+        while (true) {
+            synchronized (lock) {
+                while (next >= end && !stopped) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (stopped) {
+                    return;
+                }
+            }
+            work();
+        }
+    }
+    
+    /**
+     * Getter for the number of worker threads.
+     */
+    public int getThreads() {
+        return threads.length;
+    }
+    
+    /**
+     * Getter for the number of batches updated in parallel.
+     * 
+     * @return number of batches since the workers were created
+     */
+    public long getBatches() {
+        return batches;
+    }
+    
+    /**
+     * Getter for the time the game thread spent waiting for the worker
+     * threads.
+     * 
+     * @return nanoseconds since the workers were created
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+}
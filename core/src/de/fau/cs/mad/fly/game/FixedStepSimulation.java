@@ -0,0 +1,135 @@
+package de.fau.cs.mad.fly.game;
+
+import de.fau.cs.mad.fly.game.GameController.GameState;
+
+/**
+ * Runs the simulation half of the {@link GameController} with a fixed time
+ * step and without rendering anything.
+ * <p>
+ * Used to measure the cost of a frame without a GPU, for example by the
+ * benchmarks in the benchmark project. Every call of {@link #step()} is one
+ * frame of {@link GameController#updateGame(float)}.
+ */
+public class FixedStepSimulation {
+    
+    /** Default time step, equals 60 frames per second. */
+    public static final float DEFAULT_TIME_STEP = 1f / 60f;
+    
+    private final GameController gameController;
+    
+    /** Time step in seconds that is passed to every simulated frame. */
+    private final float timeStep;
+    
+    /** Number of simulated frames since the last {@link #resetStatistics()}. */
+    private long frames;
+    
+    /** Nanoseconds spent in simulated frames since the last reset. */
+    private long nanoTime;
+    
+    /**
+     * Creates a new simulation with {@link #DEFAULT_TIME_STEP}.
+     * 
+     * @param gameController
+     *            The loaded and initialized game controller to simulate.
+     */
+    public FixedStepSimulation(GameController gameController) {
+        this(gameController, DEFAULT_TIME_STEP);
+    }
+    
+    /**
+     * Creates a new simulation.
+     * 
+     * @param gameController
+     *            The loaded and initialized game controller to simulate.
+     * @param timeStep
+     *            Time step in seconds for every frame.
+     * @throws IllegalArgumentException
+     *             for a time step that is not positive.
+     */
+    public FixedStepSimulation(GameController gameController, float timeStep) {
+        if (timeStep <= 0f) {
+            throw new IllegalArgumentException("FixedStepSimulation(" + timeStep + ") got a non positive time step.");
+        }
+        this.gameController = gameController;
+        this.timeStep = timeStep;
+    }
+    
+    /**
+     * Simulates exactly one frame.
+     * 
+     * @return true, if the game is still running after the frame, false
+     *         otherwise.
+     */
+    public boolean step() {
+        long start = System.nanoTime();
+        gameController.updateGame(timeStep);
+        nanoTime += System.nanoTime() - start;
+        frames++;
+        return isRunning();
+    }
+    
+    /**
+     * Simulates the given number of frames or less, if the game is over
+     * before.
+     * 
+     * @param numberOfFrames
+     *            Maximum number of frames to simulate.
+     * @return Number of frames that were actually simulated.
+     */
+    public int run(int numberOfFrames) {
+        int i;
+        for (i = 0; i < numberOfFrames; i++) {
+            if (!step()) {
+                return i + 1;
+            }
+        }
+        return i;
+    }
+    
+    /**
+     * Checks if the simulated game is still running.
+     * 
+     * @return true, if the game state is {@link GameState#RUNNING}.
+     */
+    public boolean isRunning() {
+        return gameController.getGameState() == GameState.RUNNING;
+    }
+    
+    /**
+     * Getter for the time step.
+     * 
+     * @return {@link #timeStep}
+     */
+    public float getTimeStep() {
+        return timeStep;
+    }
+    
+    /**
+     * Getter for the number of simulated frames.
+     * 
+     * @return {@link #frames}
+     */
+    public long getFrames() {
+        return frames;
+    }
+    
+    /**
+     * Getter for the average time one frame took.
+     * 
+     * @return nanoseconds per frame, 0 if no frame was simulated.
+     */
+    public long getNanosPerFrame() {
+        if (frames == 0) {
+            return 0;
+        }
+        return nanoTime / frames;
+    }
+    
+    /**
+     * Resets the frame counter and the measured time.
+     */
+    public void resetStatistics() {
+        frames = 0;
+        nanoTime = 0;
+    }
+}
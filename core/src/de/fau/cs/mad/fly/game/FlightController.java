@@ -1,7 +1,5 @@
 package de.fau.cs.mad.fly.game;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
 
@@ -59,8 +57,13 @@ public class FlightController implements InputProcessor {
     
     // variables for Sensor input smoothing
     protected int bufferSize;
-    protected List<Float> rollInput;
-    protected List<Float> pitchInput;
+    /** Ring buffers with the last {@link #bufferSize} sensor values. */
+    protected float[] rollInput;
+    protected float[] pitchInput;
+    /** Index in the ring buffers where the next sensor value is stored. */
+    protected int bufferIndex;
+    /** Number of sensor values in the ring buffers. */
+    protected int bufferCount;
     
     /** Degree of lifting and leaning the ship */
     protected float roll;
@@ -145,9 +148,35 @@ public class FlightController implements InputProcessor {
         player.getPlane().rotate(rollFactor * invertYFactor, azimuthFactor * invertXFactor, 60 * delta);
     }
 
+    /**
+     * Empties the buffers for the sensor input. The arrays are only created
+     * again if the {@link #bufferSize} changed.
+     */
     protected void resetBuffers() {
-        rollInput = new ArrayList<Float>();
-        pitchInput = new ArrayList<Float>();
+        if (rollInput == null || rollInput.length != bufferSize) {
+            rollInput = new float[bufferSize];
+            pitchInput = new float[bufferSize];
+        }
+        bufferIndex = 0;
+        bufferCount = 0;
+    }
+    
+    /**
+     * Stores new sensor values in the buffers. If the buffers are full, the
+     * oldest values are overwritten.
+     * 
+     * @param roll
+     *            The new roll value.
+     * @param pitch
+     *            The new pitch value.
+     */
+    protected void bufferSensorInput(float roll, float pitch) {
+        rollInput[bufferIndex] = roll;
+        pitchInput[bufferIndex] = pitch;
+        bufferIndex = (bufferIndex + 1) % bufferSize;
+        if (bufferCount < bufferSize) {
+            bufferCount++;
+        }
     }
     
     /**
@@ -161,15 +190,8 @@ public class FlightController implements InputProcessor {
         roll *= rotationFactor;
         pitch *= rotationFactor;
         
-        // removing oldest element in buffers
-        if (rollInput.size() >= bufferSize) {
-            rollInput.remove(0);
-            pitchInput.remove(0);
-        }
-        
         // adding newest sensor-data to buffers
-        rollInput.add(roll);
-        pitchInput.add(pitch);
+        bufferSensorInput(roll, pitch);
         
         roll = average(rollInput);
         pitch = average(pitchInput);
@@ -248,14 +270,20 @@ public class FlightController implements InputProcessor {
 
     }
     
-    protected float average(List<Float> input) {
+    /**
+     * Computes the average of the values in a sensor input buffer.
+     * 
+     * @param input
+     *            {@link #rollInput} or {@link #pitchInput}
+     * @return average of the buffered values
+     */
+    protected float average(float[] input) {
         float result = 0.0f;
-        int size = input.size();
-        for (int i = 0; i < size; i++) {
-            result += input.get(i);
+        for (int i = 0; i < bufferCount; i++) {
+            result += input[i];
         }
         
-        return result / (float) input.size();
+        return result / (float) bufferCount;
     }
 
     private void evaluateKeyboardInput() {
@@ -9,13 +9,7 @@ import com.badlogic.gdx.graphics.PerspectiveCamera;
 import com.badlogic.gdx.graphics.g3d.ModelBatch;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 
-import de.fau.cs.mad.fly.features.IFeatureDispose;
-import de.fau.cs.mad.fly.features.IFeatureDraw;
-import de.fau.cs.mad.fly.features.IFeatureFinish;
-import de.fau.cs.mad.fly.features.IFeatureInit;
-import de.fau.cs.mad.fly.features.IFeatureLoad;
-import de.fau.cs.mad.fly.features.IFeatureRender;
-import de.fau.cs.mad.fly.features.IFeatureUpdate;
+import de.fau.cs.mad.fly.graphics.shaders.FlyShaderProvider;
 import de.fau.cs.mad.fly.player.Player;
 import de.fau.cs.mad.fly.res.Level;
 import de.fau.cs.mad.fly.sound.AudioManager;
@@ -58,18 +52,13 @@ public class GameController implements TimeIsUpListener {
     protected static GameController instance = null;
     
     protected Stage stage;
-    protected List<IFeatureLoad> optionalFeaturesToLoad;
-    protected List<IFeatureInit> optionalFeaturesToInit;
-    protected List<IFeatureUpdate> optionalFeaturesToUpdate;
-    protected List<IFeatureRender> optionalFeaturesToRender;
-    protected List<IFeatureDraw> optionalFeaturesToDraw;
-    protected List<IFeatureDispose> optionalFeaturesToDispose;
-    protected List<IFeatureFinish> optionalFeaturesToFinish;
+    protected FeatureScheduler featureScheduler;
     protected List<GameStateListener> gameStateListeners;
     protected FlightController flightController;
     protected CameraController cameraController;
     protected PerspectiveCamera camera;
     protected ModelBatch batch;
+    protected FlyShaderProvider shaderProvider;
     protected Level level;
     protected Player player;
     protected ScoreController scoreController;
@@ -107,6 +96,15 @@ public class GameController implements TimeIsUpListener {
         return batch;
     }
     
+    /**
+     * Getter for the shader provider of the {@link #batch}.
+     * 
+     * @return {@link #shaderProvider}
+     */
+    public FlyShaderProvider getShaderProvider() {
+        return shaderProvider;
+    }
+    
     /**
      * Getter for the stage.
      * 
@@ -125,6 +123,15 @@ public class GameController implements TimeIsUpListener {
         return flightController;
     }
     
+    /**
+     * Getter for the camera controller.
+     * 
+     * @return {@link #cameraController}
+     */
+    public CameraController getCameraController() {
+        return cameraController;
+    }
+    
     /**
      * Getter for the camera.
      * 
@@ -143,6 +150,16 @@ public class GameController implements TimeIsUpListener {
         this.inputProcessor = inputProcessor;
     }
     
+    /**
+     * Getter for the scheduler of the optional features, which also measures
+     * their times.
+     * 
+     * @return {@link #featureScheduler}
+     */
+    public FeatureScheduler getFeatureScheduler() {
+        return featureScheduler;
+    }
+    
     /**
      * Getter for the level.
      * 
@@ -164,29 +181,25 @@ public class GameController implements TimeIsUpListener {
     /**
      * This method is called, while the level is loading. It loads everything
      * the default functions need. Furthermore all optional features in
-     * {@link #optionalFeaturesToLoad} are loaded.
+     * {@link #featureScheduler} are loaded.
      */
     public void loadGame() {
         camera = cameraController.getCamera();
         ParticleController.getInstance().load(camera, batch);
         
         // load features
-        for (IFeatureLoad optionalFeature : optionalFeaturesToLoad) {
-            optionalFeature.load(this);
-        }
+        featureScheduler.load(this);
     }
     
     /**
      * This method is called, when the level is initialized. It initializes all
      * default functions that are needed in all levels, like render the level.
-     * Furthermore all optional features in {@link #optionalFeaturesToInit} are
+     * Furthermore all optional features in {@link #featureScheduler} are
      * initialized.
      */
     public void initGame() {
         // initialize features
-        for (IFeatureInit optionalFeature : optionalFeaturesToInit) {
-            optionalFeature.init(this);
-        }
+        featureScheduler.init(this);
         
         Gdx.input.setCatchBackKey(true);
         Gdx.input.setInputProcessor(inputProcessor);
@@ -230,83 +243,113 @@ public class GameController implements TimeIsUpListener {
     
     /**
      * This method is called every frame. Furthermore all optional features in
-     * {@link #optionalFeaturesToRender} are updated and rendered.
+     * {@link #featureScheduler} are updated, rendered and drawn.
      * 
      * @param delta
      *            Time after the last call.
      */
     public void renderGame(float delta) {
         stage.act(delta);
-        int len, i;
         
-        if (gameState == GameState.RUNNING) {
-            // update features if the game is not paused
-            
-            flightController.update(delta);
-            camera = cameraController.updateCamera();
-            level.update(delta, camera);
-            
-            len = optionalFeaturesToUpdate.size();
-            for (i = 0; i < len; i++) {
-                optionalFeaturesToUpdate.get(i).update(delta);
-            }
-            
-            CollisionDetector.getInstance().perform(delta);
-            timeController.checkTime();
-        }
+        updateGame(delta);
         
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT | GL20.GL_DEPTH_BUFFER_BIT);
         
         // render features
         batch.begin(camera);
         level.render(delta, batch, camera);
-        len = optionalFeaturesToRender.size();
-        for (i = 0; i < len; i++) {
-            optionalFeaturesToRender.get(i).render(delta);
-        }
+        featureScheduler.render(delta);
         ParticleController.getInstance().render();
         batch.end();
         
         // draw features
-        len = optionalFeaturesToDraw.size();
-        for (i = 0; i < len; i++) {
-            optionalFeaturesToDraw.get(i).draw(delta);
-        }
+        featureScheduler.draw(delta);
         stage.draw();
     }
     
+    /**
+     * Simulation half of {@link #renderGame(float)}. Moves the player, the
+     * level and all optional features in {@link #featureScheduler},
+     * checks if the player passed a gate and performs the collision detection,
+     * but does not touch any GL state.
+     * <p>
+     * If the collision detector has a {@link PhysicsThread}, the step started
+     * in the last frame is synchronized first and the step of this frame runs
+     * in parallel to the rendering.
+     * <p>
+     * Starts a new frame in the timings of the features. Does nothing if the game is not running. Can be called without
+     * {@link #renderGame(float)} to simulate the game headless, see
+     * {@link FixedStepSimulation}.
+     * 
+     * @param delta
+     *            Time after the last call.
+     */
+    public void updateGame(float delta) {
+        featureScheduler.nextFrame();
+        CollisionDetector collisionDetector = CollisionDetector.getInstance();
+        collisionDetector.synchronize();
+        if (gameState != GameState.RUNNING) {
+            return;
+        }
+        
+        level.getGateCircuit().checkGatePassed(player.getPlane().getPosition());
+        flightController.update(delta);
+        camera = cameraController.updateCamera();
+        level.update(delta, camera);
+        
+        featureScheduler.update(delta);
+        
+        timeController.checkTime();
+        // last, the physics thread may step the world during the rendering
+        collisionDetector.perform(delta);
+    }
+    
     /**
      * This method is called when the game is over. Furthermore all optional
-     * features in {@link #optionalFeaturesToFinish} are finished.
+     * features in {@link #featureScheduler} are finished.
      */
     public void endGame() {
         timeController.pause();
-        for (IFeatureFinish optionalFeature : optionalFeaturesToFinish) {
-            optionalFeature.finish();
-        }
+        featureScheduler.finish();
     }
     
     /**
      * This method is called when the game is over. Furthermore all optional
-     * features in {@link #optionalFeaturesToDispose} are disposed.
+     * features in {@link #featureScheduler} are disposed.
      */
     public void disposeGame() {
-        // dispose features
-        for (IFeatureDispose optionalFeature : optionalFeaturesToDispose) {
-            optionalFeature.dispose();
-        }
+        disposeFeatures();
         // remove all objects from a previous level
         CollisionDetector.getInstance().dispose();
         
         audioManager.dispose();
+    }
+    
+    /**
+     * Disposes the game like {@link #disposeGame()}, but keeps the collision
+     * detector with the collision objects of the level and the sounds of the
+     * audio manager, and restores the initial state of the level. Has to be
+     * followed by building the game again with
+     * {@link GameControllerBuilder#init(de.fau.cs.mad.fly.Fly, boolean)}.
+     */
+    public void restartGame() {
+        disposeFeatures();
+        // the listeners belong to the disposed features
+        CollisionDetector.getInstance().getCollisionContactListener().clearListeners();
+        stage.dispose();
+        level.restoreInitialState();
+    }
+    
+    /**
+     * Disposes the optional features, removes them from the scheduler and
+     * pauses the game.
+     */
+    private void disposeFeatures() {
+        // the world may not be touched while the physics thread steps it
+        CollisionDetector.getInstance().stopPhysicsThread();
+        featureScheduler.dispose();
         
-        optionalFeaturesToLoad.clear();
-        optionalFeaturesToInit.clear();
-        optionalFeaturesToUpdate.clear();
-        optionalFeaturesToRender.clear();
-        optionalFeaturesToDraw.clear();
-        optionalFeaturesToDispose.clear();
-        optionalFeaturesToFinish.clear();
+        featureScheduler.clear();
         gameStateListeners.clear();
         gameState = GameState.PAUSED;
     }
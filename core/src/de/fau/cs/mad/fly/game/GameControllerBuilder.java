@@ -20,14 +20,8 @@ import com.badlogic.gdx.utils.viewport.Viewport;
 
 import de.fau.cs.mad.fly.Fly;
 import de.fau.cs.mad.fly.Loader;
+import de.fau.cs.mad.fly.features.ICollisionCategoryListener;
 import de.fau.cs.mad.fly.features.ICollisionListener;
-import de.fau.cs.mad.fly.features.IFeatureDispose;
-import de.fau.cs.mad.fly.features.IFeatureDraw;
-import de.fau.cs.mad.fly.features.IFeatureFinish;
-import de.fau.cs.mad.fly.features.IFeatureInit;
-import de.fau.cs.mad.fly.features.IFeatureLoad;
-import de.fau.cs.mad.fly.features.IFeatureRender;
-import de.fau.cs.mad.fly.features.IFeatureUpdate;
 import de.fau.cs.mad.fly.features.game.EndlessLevelGenerator;
 import de.fau.cs.mad.fly.features.game.EndlessRailLevelGenerator;
 import de.fau.cs.mad.fly.features.overlay.BackButtonOverlay;
@@ -54,6 +48,7 @@ import de.fau.cs.mad.fly.player.Player;
 import de.fau.cs.mad.fly.player.Spaceship;
 import de.fau.cs.mad.fly.profile.PlayerProfile;
 import de.fau.cs.mad.fly.profile.PlayerProfileManager;
+import de.fau.cs.mad.fly.res.Assets;
 import de.fau.cs.mad.fly.res.GateCircuit;
 import de.fau.cs.mad.fly.res.GateCircuitAdapter;
 import de.fau.cs.mad.fly.res.GateCircuitListener;
@@ -79,13 +74,7 @@ public class GameControllerBuilder {
     private PlayerProfile playerProfile;
     private Stage stage;
     private Level level;
-    private List<IFeatureLoad> optionalFeaturesToLoad;
-    private List<IFeatureInit> optionalFeaturesToInit;
-    private List<IFeatureUpdate> optionalFeaturesToUpdate;
-    private List<IFeatureRender> optionalFeaturesToRender;
-    private List<IFeatureDraw> optionalFeaturesToDraw;
-    private List<IFeatureFinish> optionalFeaturesToFinish;
-    private List<IFeatureDispose> optionalFeaturesToDispose;
+    private FeatureScheduler featureScheduler;
     private List<GameStateListener> gameStateListener;
     private FlightController flightController;
     private CameraController cameraController;
@@ -107,11 +96,29 @@ public class GameControllerBuilder {
      *         selected settings
      */
     public GameControllerBuilder init(final Fly game) {
-        clearFeatureLists();
-        
+        return init(game, false);
+    }
+    
+    /**
+     * Creates a basic {@link GameController} like {@link #init(Fly)}.
+     * <p>
+     * If the level is restarted in place, the collision detector of the last
+     * game is still alive and the level keeps its collision objects, see
+     * {@link GameController#restartGame()}.
+     * 
+     * @param game
+     *            needed to get the player for the current settings and the
+     *            level
+     * @param restart
+     *            true, if the level was restarted in place
+     * @return new GameController with the current selected level and the
+     *         selected settings
+     */
+    public GameControllerBuilder init(final Fly game, boolean restart) {
         gameStateListener = new ArrayList<GameStateListener>();
         player = new Player();
         playerProfile = PlayerProfileManager.getInstance().getCurrentPlayerProfile();
+        clearFeatureLists();
         level = Loader.getInstance().getCurrentLevel();
         switch( Gdx.app.getType() ) {
             case iOS:
@@ -133,7 +140,12 @@ public class GameControllerBuilder {
         
         scoreController = new ScoreController();
         
-        audioManager = new AudioManager();
+        if (restart) {
+            // the sounds are still loaded
+            audioManager = GameController.getInstance().getAudioManager();
+        } else {
+            audioManager = new AudioManager();
+        }
         
         float widthScalingFactor = UI.Window.REFERENCE_WIDTH / (float) Gdx.graphics.getWidth();
         float heightScalingFactor = UI.Window.REFERENCE_HEIGHT / (float) Gdx.graphics.getHeight();
@@ -142,15 +154,23 @@ public class GameControllerBuilder {
         stage.setViewport(viewport);
         
         GateCircuit gateCircuit = level.getGateCircuit();
-        optionalFeaturesToLoad.add(gateCircuit);
+        featureScheduler.add(gateCircuit);
         
         addPlayerPlane();
         Bullet.init();
         CollisionDetector.createCollisionDetector();
         CollisionDetector collisionDetector = CollisionDetector.getInstance();
+        collisionDetector.getShapeManager().setCache(Assets.modelCache);
+        if (playerProfile.getSettingManager().getBoolean(SettingManager.PHYSICS_THREAD)) {
+            collisionDetector.startPhysicsThread();
+        }
         
-        collisionDetector.getCollisionContactListener().addListener(gateCircuit);
-        collisionDetector.getCollisionContactListener().addListener(new ICollisionListener() {
+        collisionDetector.getCollisionContactListener().addListener(new ICollisionCategoryListener() {
+            @Override
+            public int getCollisionCategories() {
+                return CollisionDetector.GATE_DISPLAY_CATEGORY | CollisionDetector.OBSTACLE_CATEGORY;
+            }
+            
             @Override
             public void onCollision(GameObject g1, GameObject g2) {
                 GameObject g;
@@ -174,9 +194,11 @@ public class GameControllerBuilder {
             }
         });
         
-        gateCircuit.createGateRigidBodies();
-        
-        createDecoRigidBodies(collisionDetector, level);
+        if (!restart) {
+            gateCircuit.createGateRigidBodies();
+            
+            createDecoRigidBodies(collisionDetector, level);
+        }
         
         gateCircuit.addListener(new GateCircuitAdapter() {
             @Override
@@ -247,27 +269,19 @@ public class GameControllerBuilder {
     }
     
     /**
-     * Clears all feature lists, when created, else they are new created.
+     * Clears the feature scheduler, when created, else it is new created.
      * <p>
-     * As they are created together it is sufficient to check only one of them.
+     * Starts the workers of the scheduler, if the features should be updated
+     * in parallel.
      */
     private void clearFeatureLists() {
-        if (optionalFeaturesToLoad == null) {
-            optionalFeaturesToLoad = new ArrayList<IFeatureLoad>();
-            optionalFeaturesToInit = new ArrayList<IFeatureInit>();
-            optionalFeaturesToUpdate = new ArrayList<IFeatureUpdate>();
-            optionalFeaturesToRender = new ArrayList<IFeatureRender>();
-            optionalFeaturesToDraw = new ArrayList<IFeatureDraw>();
-            optionalFeaturesToFinish = new ArrayList<IFeatureFinish>();
-            optionalFeaturesToDispose = new ArrayList<IFeatureDispose>();
+        if (featureScheduler == null) {
+            featureScheduler = new FeatureScheduler();
         } else {
-            optionalFeaturesToLoad.clear();
-            optionalFeaturesToInit.clear();
-            optionalFeaturesToUpdate.clear();
-            optionalFeaturesToRender.clear();
-            optionalFeaturesToDraw.clear();
-            optionalFeaturesToFinish.clear();
-            optionalFeaturesToDispose.clear();
+            featureScheduler.clear();
+        }
+        if (playerProfile.getSettingManager().getBoolean(SettingManager.PARALLEL_FEATURES)) {
+            featureScheduler.startWorkers(FeatureWorkers.defaultThreads());
         }
     }
     
@@ -320,7 +334,12 @@ public class GameControllerBuilder {
             addTouchScreenOverlay();
         }
         if (settings.getBoolean(SettingManager.VIBRATE_WHEN_COLLIDE)) {
-            CollisionDetector.getInstance().getCollisionContactListener().addListener(new ICollisionListener() {
+            CollisionDetector.getInstance().getCollisionContactListener().addListener(new ICollisionCategoryListener() {
+                @Override
+                public int getCollisionCategories() {
+                    return CollisionDetector.GATE_DISPLAY_CATEGORY | CollisionDetector.OBSTACLE_CATEGORY;
+                }
+                
                 @Override
                 public void onCollision(GameObject g1, GameObject g2) {
                     GameObject g;
@@ -424,40 +443,15 @@ public class GameControllerBuilder {
     }
     
     /**
-     * Puts the feature in the optional feature lists depending on the
-     * interfaces it implements.
+     * Adds the feature to the {@link FeatureScheduler}, which runs it in the
+     * phases depending on the interfaces it implements, and registers it as
+     * listener.
      * 
      * @param feature
-     *            The feature to put in the lists.
+     *            The feature to add.
      */
     public void addFeatureToLists(Object feature) {
-        if (feature instanceof IFeatureLoad) {
-            optionalFeaturesToLoad.add((IFeatureLoad) feature);
-        }
-        
-        if (feature instanceof IFeatureInit) {
-            optionalFeaturesToInit.add((IFeatureInit) feature);
-        }
-        
-        if (feature instanceof IFeatureUpdate) {
-            optionalFeaturesToUpdate.add((IFeatureUpdate) feature);
-        }
-        
-        if (feature instanceof IFeatureRender) {
-            optionalFeaturesToRender.add((IFeatureRender) feature);
-        }
-        
-        if (feature instanceof IFeatureDraw) {
-            optionalFeaturesToDraw.add((IFeatureDraw) feature);
-        }
-        
-        if (feature instanceof IFeatureFinish) {
-            optionalFeaturesToFinish.add((IFeatureFinish) feature);
-        }
-        
-        if (feature instanceof IFeatureDispose) {
-            optionalFeaturesToDispose.add((IFeatureDispose) feature);
-        }
+        featureScheduler.add(feature);
         
         if (feature instanceof ICollisionListener) {
             CollisionDetector.getInstance().getCollisionContactListener().addListener((ICollisionListener) feature);
@@ -590,20 +584,18 @@ public class GameControllerBuilder {
     public GameController build() {
         GameController gc = GameController.getInstance();
         gc.stage = stage;
-        gc.optionalFeaturesToLoad = optionalFeaturesToLoad;
-        gc.optionalFeaturesToInit = optionalFeaturesToInit;
-        gc.optionalFeaturesToUpdate = optionalFeaturesToUpdate;
-        gc.optionalFeaturesToRender = optionalFeaturesToRender;
-        gc.optionalFeaturesToDraw = optionalFeaturesToDraw;
-        gc.optionalFeaturesToFinish = optionalFeaturesToFinish;
-        gc.optionalFeaturesToDispose = optionalFeaturesToDispose;
+        gc.featureScheduler = featureScheduler;
         gc.gameStateListeners = gameStateListener;
         gc.level = level;
         gc.player = player;
         gc.flightController = flightController;
         gc.cameraController = cameraController;
         // gc.batch = new ModelBatch();
-        gc.batch = new ModelBatch(null, new FlyShaderProvider(), null);
+        if (gc.batch == null) {
+            // the compiled shaders are kept for the next levels
+            gc.shaderProvider = new FlyShaderProvider();
+            gc.batch = new ModelBatch(null, gc.shaderProvider, null);
+        }
         gc.setTimeController(timeController);
         gc.registerGameStateListener(timeController);
         gc.scoreController = scoreController;
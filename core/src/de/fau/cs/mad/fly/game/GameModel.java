@@ -23,6 +23,12 @@ public class GameModel implements Disposable, Poolable {
      */
     public final Model hitbox;
     
+    /**
+     * The collision shapes baked for the display model, null if there are
+     * none. The {@link CollisionShapeManager} creates the shapes from them.
+     */
+    public final BakedCollisionShape bakedShape;
+    
     /**
      * Constructs a new game model with display and hitbox model.
      * 
@@ -30,8 +36,21 @@ public class GameModel implements Disposable, Poolable {
      * @param hitbox
      */
     public GameModel(final Model display, final Model hitbox) {
+        this(display, hitbox, null);
+    }
+    
+    /**
+     * Constructs a new game model with display and hitbox model and the baked
+     * collision shapes of the display model.
+     * 
+     * @param display
+     * @param hitbox
+     * @param bakedShape
+     */
+    public GameModel(final Model display, final Model hitbox, final BakedCollisionShape bakedShape) {
         this.display = display;
         this.hitbox = hitbox;
+        this.bakedShape = bakedShape;
     }
     
     @Override
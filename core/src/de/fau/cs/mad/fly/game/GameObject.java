@@ -1,14 +1,18 @@
 package de.fau.cs.mad.fly.game;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.PerspectiveCamera;
 import com.badlogic.gdx.graphics.g3d.Environment;
 import com.badlogic.gdx.graphics.g3d.ModelBatch;
 import com.badlogic.gdx.graphics.g3d.ModelInstance;
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Plane;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.physics.bullet.collision.btCollisionObject;
 import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
+import com.badlogic.gdx.physics.bullet.collision.btGhostObject;
 import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody;
 import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody.btRigidBodyConstructionInfo;
 import com.badlogic.gdx.utils.Disposable;
@@ -36,25 +40,59 @@ public class GameObject extends ModelInstance implements Disposable {
     private final Vector3 position = new Vector3();
     
     /**
-     * Center of the bounding box of the game object.
+     * Center of the bounding box of the model in model space.
      */
-    private final Vector3 frustumBBoxCenter = new Vector3();
+    private final Vector3 localBoundsCenter = new Vector3();
     
     /**
-     * Dimensions of the bounding box of the game object.
+     * Half of the dimensions of the bounding box of the model in model space.
      */
-    private final Vector3 frustumBBoxDimensions = new Vector3();
+    private final Vector3 localBoundsHalfExtents = new Vector3();
     
     /**
-     * Bounding box of the game object used for frustum culling.
+     * Center of the axis aligned bounding box in world space.
      */
-    private final static BoundingBox frustumBBox = new BoundingBox();
+    private final Vector3 worldBoundsCenter = new Vector3();
+    
+    /**
+     * Half of the dimensions of the axis aligned bounding box in world space.
+     */
+    private final Vector3 worldBoundsHalfExtents = new Vector3();
+    
+    /**
+     * Radius of the bounding sphere around {@link #worldBoundsCenter}.
+     */
+    private float boundingRadius;
+    
+    /**
+     * Determines if the world bounds have to be recomputed, because the
+     * transform was changed.
+     */
+    private boolean boundsDirty = true;
+    
+    /**
+     * The spatial index the game object is stored in, null if it is not
+     * stored in one.
+     */
+    SpatialIndex spatialIndex;
+    
+    /**
+     * Key of the cell of the {@link #spatialIndex} the game object is stored
+     * in.
+     */
+    long spatialCell;
     
     /**
      * Rigid body of the game object.
      */
     protected btRigidBody rigidBody;
     
+    /**
+     * Trigger of the game object, if it has no rigid body. It only reports
+     * the contacts with the player.
+     */
+    protected btGhostObject trigger;
+    
     /**
      * Motion state for the rigid body.
      */
@@ -92,6 +130,12 @@ public class GameObject extends ModelInstance implements Disposable {
      */
     private short filterMask = CollisionDetector.ALL_FLAG;
     
+    /**
+     * Category of the game object for the routing of the collisions, e.g.
+     * {@link CollisionDetector#OBSTACLE_CATEGORY}.
+     */
+    private int collisionCategory = CollisionDetector.OBSTACLE_CATEGORY;
+    
     /**
      * Id of the game object.
      */
@@ -137,24 +181,101 @@ public class GameObject extends ModelInstance implements Disposable {
     }
     
     /**
-     * Initializes the bounding box for the frustum culling.
-     * <p>
-     * Size of the bounding box is doubled to make sure the object is always
-     * displayed when it should be.
+     * Adds a trigger with a shape to the game object instead of a rigid body.
+     * The trigger is not part of the simulation, it only reports the contacts
+     * with the player. It has to be added to the collision world with
+     * {@link CollisionDetector#addCollisionObject(GameObject)}.
+     * 
+     * @param shape
+     *            The collision shape of the trigger.
+     * @param filterGroup
+     *            The collision group of the trigger.
+     * @param filterMask
+     *            The collision mask of the trigger.
+     */
+    public void createTrigger(btCollisionShape shape, short filterGroup, short filterMask) {
+        this.filterGroup = filterGroup;
+        this.filterMask = filterMask;
+        this.trigger = CollisionDetector.createTrigger(this, shape);
+    }
+    
+    /**
+     * Initializes the bounding box of the model for the frustum culling.
      */
     private void initFrustumBoundingBox() {
-        calculateBoundingBox(frustumBBox);
-        frustumBBoxCenter.set(frustumBBox.getCenter());
-        frustumBBoxDimensions.set(frustumBBox.getDimensions().cpy().scl(2.0f));
+        BoundingBox bounds = calculateBoundingBox(new BoundingBox());
+        localBoundsCenter.set(bounds.getCenter());
+        localBoundsHalfExtents.set(bounds.getDimensions()).scl(0.5f);
+    }
+    
+    /**
+     * Marks the world bounds as outdated and updates the game object in its
+     * {@link #spatialIndex}.
+     * <p>
+     * Has to be called every time the {@link #transform} was changed from
+     * outside, for example after scaling or rotating it. Movers and the
+     * physics simulation call it on their own.
+     */
+    public void invalidateBounds() {
+        boundsDirty = true;
+        if (spatialIndex != null) {
+            spatialIndex.update(this);
+        }
+    }
+    
+    /**
+     * Recomputes the world bounds from the {@link #transform}, if it was
+     * changed since the last call.
+     * <p>
+     * The bounding box of the model is transformed with the absolute values
+     * of the rotation and scale part of the transform. The result contains
+     * the rotated and scaled box, so rotated game objects are not culled too
+     * early.
+     */
+    private void updateBounds() {
+        if (!boundsDirty) {
+            return;
+        }
+        final float[] m = transform.val;
+        final float x = localBoundsHalfExtents.x;
+        final float y = localBoundsHalfExtents.y;
+        final float z = localBoundsHalfExtents.z;
+        worldBoundsCenter.set(localBoundsCenter).mul(transform);
+        worldBoundsHalfExtents.set(Math.abs(m[Matrix4.M00]) * x + Math.abs(m[Matrix4.M01]) * y + Math.abs(m[Matrix4.M02]) * z, Math.abs(m[Matrix4.M10]) * x + Math.abs(m[Matrix4.M11]) * y + Math.abs(m[Matrix4.M12]) * z, Math.abs(m[Matrix4.M20]) * x + Math.abs(m[Matrix4.M21]) * y + Math.abs(m[Matrix4.M22]) * z);
+        boundingRadius = worldBoundsHalfExtents.len();
+        boundsDirty = false;
+    }
+    
+    /**
+     * Getter for the center of the bounds in world space.
+     * 
+     * @return {@link #worldBoundsCenter}
+     */
+    public Vector3 getBoundsCenter() {
+        updateBounds();
+        return worldBoundsCenter;
+    }
+    
+    /**
+     * Getter for the half dimensions of the axis aligned bounding box in world
+     * space.
+     * 
+     * @return {@link #worldBoundsHalfExtents}
+     */
+    public Vector3 getBoundsHalfExtents() {
+        updateBounds();
+        return worldBoundsHalfExtents;
     }
     
     /**
-     * Updates the scale of the bounding box if the transform matrix was scaled.
+     * Getter for the radius of the bounding sphere around the
+     * {@link #getBoundsCenter()}.
+     * 
+     * @return {@link #boundingRadius}
      */
-    public void scaleFrustumBoundingBox() {
-        Vector3 dummy = new Vector3();
-        frustumBBoxCenter.scl(transform.getScale(dummy));
-        frustumBBoxDimensions.scl(transform.getScale(dummy));
+    public float getBoundingRadius() {
+        updateBounds();
+        return boundingRadius;
     }
     
     /**
@@ -193,9 +314,42 @@ public class GameObject extends ModelInstance implements Disposable {
      * @return true, if the object is visible, otherwise false.
      */
     public boolean isVisibleInFrustum(final Camera camera) {
-        transform.getTranslation(position);
-        position.add(frustumBBoxCenter);
-        return camera.frustum.boundsInFrustum(position, frustumBBoxDimensions);
+        return isInFrustum(camera.frustum);
+    }
+    
+    /**
+     * Checks if the bounds of the object are inside of the frustum.
+     * <p>
+     * Every plane is tested against the bounding sphere first. Only if the
+     * sphere intersects the plane, the bounding box is tested as well. Objects
+     * that are completely inside the frustum therefore only need one dot
+     * product per plane.
+     * 
+     * @param frustum
+     *            the frustum for the culling.
+     * @return true, if the bounds are at least partly inside, otherwise false.
+     */
+    public boolean isInFrustum(final Frustum frustum) {
+        updateBounds();
+        Plane plane;
+        Vector3 normal;
+        float distance;
+        final Plane[] planes = frustum.planes;
+        for (int i = 0; i < planes.length; i++) {
+            plane = planes[i];
+            distance = plane.normal.dot(worldBoundsCenter) + plane.d;
+            if (distance >= boundingRadius) {
+                continue;
+            }
+            if (distance < -boundingRadius) {
+                return false;
+            }
+            normal = plane.normal;
+            if (distance < -(Math.abs(normal.x) * worldBoundsHalfExtents.x + Math.abs(normal.y) * worldBoundsHalfExtents.y + Math.abs(normal.z) * worldBoundsHalfExtents.z)) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
@@ -217,21 +371,36 @@ public class GameObject extends ModelInstance implements Disposable {
     }
     
     /**
-     * Setter for the rigidBody.userData of the GameObject.
+     * Setter for the userData of the collision object of the GameObject.
      */
     public void setCollisionTarget(Object object) {
-        if (rigidBody == null)
+        if (getCollisionObject() == null)
             return;
-        rigidBody.userData = object;
+        getCollisionObject().userData = object;
     }
     
     /**
-     * Setter for the rigidBody.userValue of the GameObject.
+     * Setter for the collision category of the GameObject, which is also
+     * stored in the userValue and the contact callback flag of its collision
+     * object.
+     * 
+     * @param userValue
+     *            The category, e.g. {@link CollisionDetector#PLAYER_CATEGORY}.
      */
     public void setCollisionType(int userValue) {
-        if (rigidBody == null)
+        collisionCategory = userValue;
+        if (getCollisionObject() == null)
             return;
-        rigidBody.setUserValue(userValue);
+        CollisionDetector.setCollisionCategory(getCollisionObject(), userValue);
+    }
+    
+    /**
+     * Getter for the collision category of the GameObject.
+     * 
+     * @return category, e.g. {@link CollisionDetector#OBSTACLE_CATEGORY}
+     */
+    public int getCollisionCategory() {
+        return collisionCategory;
     }
     
     /**
@@ -246,13 +415,36 @@ public class GameObject extends ModelInstance implements Disposable {
     /**
      * Adds a motion state to the game object which cares about the updating of
      * the transform matrix if the rigid body is updated by the dynamic world.
+     * If the world is stepped by a {@link PhysicsThread}, the transforms are
+     * buffered by it.
+     * <p>
+     * The motion state is owned by the resource manager of the collision
+     * detector and freed together with the rigid body.
      */
     public void addMotionState() {
         motionState = new GameObjectMotionState();
         motionState.transform = transform;
+        motionState.gameObject = this;
+        BulletResourceManager resourceManager = CollisionDetector.getInstance().getResourceManager();
+        resourceManager.manage(motionState, BulletResourceManager.MOTION_STATE_BYTES, null);
+        resourceManager.addDependency(rigidBody, motionState);
+        PhysicsThread physicsThread = CollisionDetector.getInstance().getPhysicsThread();
+        if (physicsThread != null) {
+            physicsThread.register(motionState);
+        }
         rigidBody.setMotionState(motionState);
     }
     
+    /**
+     * Checks if the game object is static. Static game objects are neither
+     * moved by a mover nor by the physics simulation.
+     * 
+     * @return true, if the game object has no mover and no motion state.
+     */
+    public boolean isStatic() {
+        return mover == null && motionState == null;
+    }
+    
     /**
      * Getter for the rigid body.
      */
@@ -260,12 +452,26 @@ public class GameObject extends ModelInstance implements Disposable {
         return rigidBody;
     }
     
+    /**
+     * Getter for the collision object, which is either the rigid body or the
+     * trigger.
+     * 
+     * @return collision object or null, if the game object has none
+     */
+    public btCollisionObject getCollisionObject() {
+        if (rigidBody != null) {
+            return rigidBody;
+        }
+        return trigger;
+    }
+    
     /**
      * Updates the current transform matrix with the rigid body transform matrix
      * after the rigid body simulation.
      */
     public void updateRigidBody() {
         rigidBody.getWorldTransform(transform);
+        invalidateBounds();
     }
     
     /**
@@ -277,6 +483,7 @@ public class GameObject extends ModelInstance implements Disposable {
     public void move(float delta) {
         if (mover != null) {
             mover.move(delta);
+            invalidateBounds();
         }
     }
     
@@ -367,19 +574,40 @@ public class GameObject extends ModelInstance implements Disposable {
     }
     
     /**
-     * Removes the rigid body from the collision world and disposes it.
+     * Removes the rigid body or the trigger from the collision world and
+     * disposes it.
+     * <p>
+     * If it is called during a step of the collision world, the rigid body and
+     * its motion state are freed after the step, as Bullet still writes the
+     * transform to the motion state. The motion state does not update the game
+     * object anymore. If the collision detector is already disposed, the
+     * collision object was freed together with it and is only forgotten.
      */
     public void removeRigidBody() {
-        Gdx.app.log("GameObject", "removeRigidBody");
-//        if (rigidBody != null && CollisionDetector.getInstance() != null) {
-//            CollisionDetector.getInstance().removeRigidBody(this);
-//            rigidBody.dispose();
-//            rigidBody = null;
-//        }
+        btCollisionObject collisionObject = getCollisionObject();
+        if (collisionObject == null) {
+            return;
+        }
+        if (motionState != null) {
+            if (CollisionDetector.getInstance() != null && CollisionDetector.getInstance().getPhysicsThread() != null) {
+                CollisionDetector.getInstance().getPhysicsThread().unregister(motionState);
+            }
+            // freed with the rigid body by the resource manager
+            motionState.gameObject = null;
+            motionState = null;
+        }
+        if (CollisionDetector.getInstance() != null) {
+            CollisionDetector.getInstance().releaseCollisionObject(collisionObject);
+        }
+        rigidBody = null;
+        trigger = null;
     }
     
     @Override
     public void dispose() {
+        if (spatialIndex != null) {
+            spatialIndex.remove(this);
+        }
         removeRigidBody();
     }
     
@@ -418,4 +646,13 @@ public class GameObject extends ModelInstance implements Disposable {
     public void setModelId(String modelId) {
         this.modelId = modelId;
     }
+    
+    /**
+     * Getter for the game model the game object was created from.
+     * 
+     * @return {@link #gmodel}
+     */
+    public GameModel getGameModel() {
+        return gmodel;
+    }
 }
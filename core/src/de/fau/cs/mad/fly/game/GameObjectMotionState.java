@@ -6,12 +6,43 @@ import com.badlogic.gdx.physics.bullet.linearmath.btMotionState;
 /**
  * Motion state class to update the game object transform matrix if the rigid
  * body transform matrix is changed and the other way around.
+ * <p>
+ * If the dynamics world is stepped by a {@link PhysicsThread}, the transform
+ * of the game object is not written by the physics thread. The simulated
+ * transforms are buffered instead and the game thread interpolates between the
+ * last two of them, see {@link #publish(float, int)}.
  * 
  * @author Tobi
  */
 public class GameObjectMotionState extends btMotionState {
     public Matrix4 transform;
     
+    /** Game object whose bounds are invalidated if the transform changes. */
+    public GameObject gameObject;
+    
+    /**
+     * The physics thread the transforms are buffered for, null if the
+     * transform is written directly.
+     */
+    private PhysicsThread physicsThread;
+    
+    /** The published transforms, the transform is interpolated between them. */
+    private Matrix4 previous;
+    private Matrix4 current;
+    
+    /**
+     * The transforms written by the physics thread during the last step, the
+     * last one and the one before.
+     */
+    private Matrix4 pending;
+    private Matrix4 beforePending;
+    
+    /** Number of transforms written by the physics thread during the last step. */
+    private int updates;
+    
+    /** True if the published transforms are equal. */
+    private boolean resting;
+    
     @Override
     public void getWorldTransform(Matrix4 worldTrans) {
         worldTrans.set(transform);
@@ -19,6 +50,81 @@ public class GameObjectMotionState extends btMotionState {
     
     @Override
     public void setWorldTransform(Matrix4 worldTrans) {
+        if (physicsThread != null) {
+            if (updates > 0) {
+                beforePending.set(pending);
+            }
+            pending.set(worldTrans);
+            updates++;
+            return;
+        }
         transform.set(worldTrans);
+        if (gameObject != null) {
+            gameObject.invalidateBounds();
+        }
+    }
+    
+    /**
+     * Sets the physics thread the transforms are buffered for. The buffers
+     * start at the current transform. When the physics thread is removed, the
+     * transform is set to the last simulated one.
+     * 
+     * @param physicsThread
+     *            The physics thread or null to write the transform directly.
+     */
+    void setPhysicsThread(PhysicsThread physicsThread) {
+        if (physicsThread != null) {
+            if (current == null) {
+                previous = new Matrix4();
+                current = new Matrix4();
+                pending = new Matrix4();
+                beforePending = new Matrix4();
+            }
+            previous.set(transform);
+            current.set(transform);
+            updates = 0;
+            resting = true;
+        } else if (this.physicsThread != null) {
+            transform.set(updates > 0 ? pending : current);
+            if (gameObject != null) {
+                gameObject.invalidateBounds();
+            }
+        }
+        this.physicsThread = physicsThread;
+    }
+    
+    /**
+     * Publishes the transforms of the last step of the physics thread and
+     * interpolates the transform between the last two simulated transforms.
+     * Has to be called by the game thread while the physics thread is idle.
+     * 
+     * @param alpha
+     *            The interpolation factor between 0 (previous transform) and 1
+     *            (current transform).
+     * @param steps
+     *            The number of simulation steps of the last step of the physics
+     *            thread.
+     */
+    void publish(float alpha, int steps) {
+        if (updates > 0) {
+            previous.set(updates > 1 ? beforePending : current);
+            current.set(pending);
+            updates = 0;
+            resting = false;
+        } else if (steps > 0) {
+            // the body did not move during the simulation steps
+            if (resting) {
+                return;
+            }
+            previous.set(current);
+            resting = true;
+            alpha = 1f;
+        } else if (resting) {
+            return;
+        }
+        transform.set(previous).lerp(current, alpha);
+        if (gameObject != null) {
+            gameObject.invalidateBounds();
+        }
     }
 }
\ No newline at end of file
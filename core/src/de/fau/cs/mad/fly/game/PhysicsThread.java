@@ -0,0 +1,280 @@
+package de.fau.cs.mad.fly.game;
+
+import com.badlogic.gdx.physics.bullet.dynamics.btDynamicsWorld;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Steps a dynamics world on a thread of its own.
+ * <p>
+ * The game thread submits one step per frame with {@link #submit(float)} after
+ * the game is updated and waits for it with {@link #await()} before the game is
+ * updated in the next frame, so the simulation runs in parallel to the
+ * rendering. While a step is running, the game thread must not touch the
+ * dynamics world or any of its collision objects.
+ * <p>
+ * The world is stepped at a fixed rate. The transforms of the rigid bodies with
+ * a registered {@link GameObjectMotionState} are double buffered, the physics
+ * thread never writes the transforms of the game objects.
+ * {@link #publish()} makes the last simulated transforms visible to the game
+ * thread and interpolates between them by the time left over in the
+ * accumulator.
+ */
+public class PhysicsThread implements Runnable {
+    
+    private final btDynamicsWorld dynamicsWorld;
+    
+    /** Fixed time step of the simulation in seconds. */
+    private final float timeStep;
+    
+    /** Maximum number of simulation steps per submitted step. */
+    private final int maxSteps;
+    
+    private final Thread thread;
+    
+    private final Object lock = new Object();
+    
+    /** True from {@link #submit(float)} until the step is simulated. */
+    private boolean stepRequested = false;
+    
+    /** True after {@link #stop()}. */
+    private boolean stopped = false;
+    
+    /** The time to simulate in the requested step. */
+    private float requestedDelta;
+    
+    /** The exception thrown by the last step, if there was one. */
+    private Throwable failure;
+    
+    /** Simulated time that was not yet stepped, less than one time step. */
+    private float accumulator = 0f;
+    
+    /** Number of simulation steps of the last submitted step. */
+    private int lastSteps = 0;
+    
+    /** The motion states whose transforms are buffered. */
+    private final Array<GameObjectMotionState> motionStates = new Array<GameObjectMotionState>();
+    
+    /** Nanoseconds the physics thread spent stepping the world. */
+    private long stepNanos = 0;
+    
+    /** Nanoseconds the game thread spent waiting for the physics thread. */
+    private long waitNanos = 0;
+    
+    /** Number of submitted steps. */
+    private long submittedSteps = 0;
+    
+    /**
+     * Creates a new physics thread. It has to be started with {@link #start()}.
+     * 
+     * @param dynamicsWorld
+     *            The dynamics world to step.
+     * @param timeStep
+     *            The fixed time step in seconds.
+     * @param maxSteps
+     *            The maximum number of time steps per frame, slower frames lose
+     *            simulation time.
+     */
+    public PhysicsThread(btDynamicsWorld dynamicsWorld, float timeStep, int maxSteps) {
+        this.dynamicsWorld = dynamicsWorld;
+        this.timeStep = timeStep;
+        this.maxSteps = maxSteps;
+        thread = new Thread(this, "Physics");
+        thread.setDaemon(true);
+    }
+    
+    /**
+     * Starts the thread.
+     */
+    public void start() {
+        thread.start();
+    }
+    
+    /**
+     * Buffers the transforms of a motion state. Has to be called by the game
+     * thread while the physics thread is idle.
+     * 
+     * @param motionState
+     *            The motion state of a rigid body in the stepped world.
+     */
+    public void register(GameObjectMotionState motionState) {
+        motionState.setPhysicsThread(this);
+        motionStates.add(motionState);
+    }
+    
+    /**
+     * Stops buffering the transforms of a motion state. Has to be called by
+     * the game thread while the physics thread is idle.
+     * 
+     * @param motionState
+     *            The registered motion state.
+     */
+    public void unregister(GameObjectMotionState motionState) {
+        if (motionStates.removeValue(motionState, true)) {
+            motionState.setPhysicsThread(null);
+        }
+    }
+    
+    /**
+     * Starts a step on the physics thread.
+     * 
+     * @param delta
+     *            Time after the last step.
+     * @throws IllegalStateException
+     *             if the last step was not awaited.
+     */
+    public void submit(float delta) {
+        synchronized (lock) {
+            if (stepRequested) {
+                throw new IllegalStateException("PhysicsThread.submit: the last step was not awaited.");
+            }
+            requestedDelta = delta;
+            stepRequested = true;
+            submittedSteps++;
+            lock.notifyAll();
+        }
+    }
+    
+    /**
+     * Waits until the submitted step is simulated. Returns immediately if there
+     * is none.
+     * 
+     * @throws GdxRuntimeException
+     *             if the step failed.
+     */
+    public void await() {
+        long start = System.nanoTime();
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (stepRequested) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    // the world may not be touched before the step is done
+                    interrupted = true;
+                }
+            }
+        }
+        waitNanos += System.nanoTime() - start;
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            Throwable t = failure;
+            failure = null;
+            throw new GdxRuntimeException("PhysicsThread: step failed.", t);
+        }
+    }
+    
+    /**
+     * Publishes the transforms of the last step to the registered motion
+     * states. Has to be called by the game thread after {@link #await()}.
+     */
+    public void publish() {
+        final float alpha = accumulator / timeStep;
+        final int len = motionStates.size;
+        for (int i = 0; i < len; i++) {
+            motionStates.get(i).publish(alpha, lastSteps);
+        }
+    }
+    
+    /**
+     * Waits for the submitted step and stops the thread. The registered motion
+     * states write the transforms directly again.
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            lock.notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (GameObjectMotionState motionState : motionStates) {
+            motionState.setPhysicsThread(null);
+        }
+        motionStates.clear();
+    }
+    
+    @Override
+    public void run() {
+        while (true) {
+            float delta;
+            synchronized (lock) {
+                while (!stepRequested && !stopped) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!stepRequested) {
+                    return;
+                }
+                delta = requestedDelta;
+            }
+            
+            long start = System.nanoTime();
+            try {
+                step(delta);
+            } catch (Throwable t) {
+                failure = t;
+            }
+            stepNanos += System.nanoTime() - start;
+            
+            synchronized (lock) {
+                stepRequested = false;
+                lock.notifyAll();
+            }
+        }
+    }
+    
+    /**
+     * Steps the world at the fixed rate. Each time step is simulated on its
+     * own, so the motion states get the exact transforms without Bullet's
+     * interpolation.
+     */
+    private void step(float delta) {
+        accumulator += delta;
+        int steps = 0;
+        while (accumulator >= timeStep && steps < maxSteps) {
+            dynamicsWorld.stepSimulation(timeStep, 0, timeStep);
+            accumulator -= timeStep;
+            steps++;
+        }
+        if (accumulator >= timeStep) {
+            accumulator = 0f;
+        }
+        lastSteps = steps;
+    }
+    
+    /**
+     * Getter for the time the physics thread spent stepping the world.
+     * 
+     * @return nanoseconds since the thread was created
+     */
+    public long getStepNanos() {
+        return stepNanos;
+    }
+    
+    /**
+     * Getter for the time the game thread spent waiting for the physics
+     * thread.
+     * 
+     * @return nanoseconds since the thread was created
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+    
+    /**
+     * Getter for the number of submitted steps.
+     * 
+     * @return number of steps since the thread was created
+     */
+    public long getSubmittedSteps() {
+        return submittedSteps;
+    }
+}
@@ -3,19 +3,15 @@ package de.fau.cs.mad.fly.game;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector3;
 
 import de.fau.cs.mad.fly.Fly;
-import de.fau.cs.mad.fly.features.ICollisionListener;
+import de.fau.cs.mad.fly.features.ICollisionCategoryListener;
 import de.fau.cs.mad.fly.features.game.EndlessLevelGenerator;
 import de.fau.cs.mad.fly.features.game.EndlessRailLevelGenerator;
-import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
 import de.fau.cs.mad.fly.player.Player;
 import de.fau.cs.mad.fly.profile.PlayerProfile;
-import de.fau.cs.mad.fly.res.GateDisplay;
-import de.fau.cs.mad.fly.res.GateGoal;
 import de.fau.cs.mad.fly.res.Perspective;
 
 /**
@@ -23,7 +19,7 @@ import de.fau.cs.mad.fly.res.Perspective;
  * @author Sebastian
  *
  */
-public class RailFlightController extends FlightController implements ICollisionListener{
+public class RailFlightController extends FlightController implements ICollisionCategoryListener{
 	
 	private EndlessRailLevelGenerator generator;
 	
@@ -47,6 +43,11 @@ public class RailFlightController extends FlightController implements ICollision
 	
 	/** Speed of the current plane*/
 	private float planeSpeed, rollSpeed, azimuthSpeed;
+	
+	/** Vector by which the plane is shifted in the current frame*/
+	private final Vector3 shiftVector = new Vector3();
+	/** Passed rail point that is reused for the next step of the rail*/
+	private Vector3 unusedRailPoint = new Vector3();
 
 	public RailFlightController(Player player, PlayerProfile playerProfile, EndlessLevelGenerator generator, Perspective perspective) {
 		super(player, playerProfile);
@@ -75,14 +76,14 @@ public class RailFlightController extends FlightController implements ICollision
 		changeRail(delta);
 		
 		if(checkRailPointPassed()) {
-			Vector3 nextStep = nextStep();
+			Vector3 nextStep = nextStep(unusedRailPoint);
 			centerRail.add(nextStep);
 			generator.addRailPosition(nextStep);
 
 			// remove objects behind the passed point
 			generator.removeComponents(centerRail.get(0));
 			
-			centerRail.remove(0);
+			unusedRailPoint = centerRail.remove(0);
 			currentPosition = centerRail.get(0);
 			
 		}
@@ -95,21 +96,27 @@ public class RailFlightController extends FlightController implements ICollision
 		generator.setRail(centerRail);
 		generator.setRailOffset(railOffset);
 		
-		this.currentPosition.add(direction.cpy().scl(5));
+		this.currentPosition.mulAdd(direction, 5);
 		this.endPosition = this.currentPosition.cpy();
 		
 		for(int i = 1; i < listSize; i++) {
-			Vector3 nextStep = nextStep();
+			Vector3 nextStep = nextStep(new Vector3());
 			centerRail.add(nextStep);
 			generator.addRailPosition(nextStep);
 		}
 		generator.endInit();
 	}
 	
-	private Vector3 nextStep() {
-		Vector3 nextPos = new Vector3();
-		
-		nextPos = endPosition.cpy().add(direction);
+	/**
+	 * Computes the next point at the end of the rail.
+	 * 
+	 * @param nextPos
+	 *            Vector that is set to the next point and is no longer used
+	 *            otherwise.
+	 * @return nextPos
+	 */
+	private Vector3 nextStep(Vector3 nextPos) {
+		nextPos.set(endPosition).add(direction);
 		
 		endPosition = nextPos;
 		return nextPos;
@@ -119,7 +126,7 @@ public class RailFlightController extends FlightController implements ICollision
 		rollSpeed = player.getPlane().getRollingSpeed();
 		azimuthSpeed = player.getPlane().getAzimuthSpeed();
 		
-		Vector3 shiftVector = new Vector3();
+		shiftVector.setZero();
 		if(Math.abs(getRollFactor()) > 0.5) {
 			if(Math.abs(railX + Math.signum(rollFactor)) <= 1.f && !changeRailX) {
 				railX += Math.signum(rollFactor);
@@ -142,7 +149,6 @@ public class RailFlightController extends FlightController implements ICollision
 		if(changeTimeY == 1f) {
 			changeRailY = true;
 		}
-		Gdx.app.log("rails", "" + planeSpeed);
 		if(changeRailX) {
 			if(changeTimeX - delta * rollSpeed <= 0) {
 				shiftVector.z = changeX * changeTimeX * railOffset * rollSpeed;
@@ -178,10 +184,15 @@ public class RailFlightController extends FlightController implements ICollision
 		return false;
 	}
 
+	@Override
+	public int getCollisionCategories() {
+		return CollisionDetector.GATE_DISPLAY_CATEGORY | CollisionDetector.OBSTACLE_CATEGORY;
+	}
+	
 	@Override
 	public void onCollision(GameObject g1, GameObject g2) {
 		
-		if(g2 instanceof GateDisplay) {
+		if(g2.getCollisionCategory() == CollisionDetector.GATE_DISPLAY_CATEGORY) {
 			if(generator.checkAsteroidPosition(currentPosition, railX * railOffset, railY * railOffset)) {
 				railX -= changeX;
 				railY -= changeY;
@@ -192,7 +203,7 @@ public class RailFlightController extends FlightController implements ICollision
 			changeX = changeY = 0;
 			changeRailX = changeRailY = false;
 			
-		} else if(!(g2 instanceof GateGoal) && !(g2 instanceof Collectible)) {
+		} else if(g2.getCollisionCategory() == CollisionDetector.OBSTACLE_CATEGORY) {
 			//asteroid
 			while(generator.checkAsteroidPosition(currentPosition, railX * railOffset, railY * railOffset)) {
 				Vector3 newPos = generateRandomAdjacentPosition();
@@ -1,9 +1,11 @@
 package de.fau.cs.mad.fly.game;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.physics.bullet.BulletBase;
 import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
 import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody;
 import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody.btRigidBodyConstructionInfo;
@@ -12,18 +14,26 @@ import com.badlogic.gdx.utils.Disposable;
 /**
  * Manager for the btRigidBodyConstructionInfo.
  * <p>
- * Creates, stores and disposes all used rigid body construction infos.
+ * Creates and stores all used rigid body construction infos. The infos are
+ * owned by the {@link BulletResourceManager}, which frees an info as soon as
+ * the last rigid body created with it is freed.
  * 
  * @author Tobias Zangl
  */
-public class RigidBodyInfoManager implements Disposable {
+public class RigidBodyInfoManager implements Disposable, BulletResourceManager.ResourceOwner {
     
     /**
      * Map to save the different rigid body construction infos.
      */
     Map<String, btRigidBodyConstructionInfo> rigidBodyInfoMap;
     
-    public RigidBodyInfoManager() {
+    /**
+     * The owner of the created rigid body construction infos.
+     */
+    private final BulletResourceManager resourceManager;
+    
+    public RigidBodyInfoManager(BulletResourceManager resourceManager) {
+        this.resourceManager = resourceManager;
         rigidBodyInfoMap = new HashMap<String, btRigidBodyConstructionInfo>();
     }
     
@@ -63,6 +73,7 @@ public class RigidBodyInfoManager implements Disposable {
             localInertia.set(0.0f, 0.0f, 0.0f);
         }
         constructionInfo = new btRigidBody.btRigidBodyConstructionInfo(mass, null, shape, localInertia);
+        resourceManager.manage(constructionInfo, BulletResourceManager.CONSTRUCTION_INFO_BYTES, this, shape);
         
         // Gdx.app.log("RigidBodyInfoManager", "Created rigid body info: " +
         // infoId + " with mass " + mass);
@@ -71,12 +82,26 @@ public class RigidBodyInfoManager implements Disposable {
         return constructionInfo;
     }
     
+    /**
+     * Removes a rigid body construction info freed by the
+     * {@link BulletResourceManager}.
+     */
     @Override
-    public void dispose() {
-        for (btRigidBodyConstructionInfo info : rigidBodyInfoMap.values()) {
-            info.dispose();
+    public void freed(BulletBase resource) {
+        Iterator<btRigidBodyConstructionInfo> infos = rigidBodyInfoMap.values().iterator();
+        while (infos.hasNext()) {
+            if (infos.next() == resource) {
+                infos.remove();
+            }
         }
-        
+    }
+    
+    /**
+     * Forgets all rigid body construction infos. They are freed by the
+     * {@link BulletResourceManager}.
+     */
+    @Override
+    public void dispose() {
         rigidBodyInfoMap.clear();
     }
 }
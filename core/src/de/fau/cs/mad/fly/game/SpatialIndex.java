@@ -0,0 +1,470 @@
+package de.fau.cs.mad.fly.game;
+
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * Loose grid of {@link GameObject}s for spatial queries.
+ * <p>
+ * Every game object is stored in the cell that contains the center of its
+ * bounds. Its bounding sphere is {@link GameObject#getBoundingRadius()} around
+ * {@link GameObject#getBoundsCenter()} and may reach out of the cell by half a
+ * cell size at most. Game objects with a larger bounding sphere, like the
+ * border of the level, are stored in an extra list that is checked by every
+ * query.
+ * <p>
+ * Only cells that contain game objects exist. Queries with a small range look
+ * up the cells in range, queries with a large range like the frustum of the
+ * camera walk the existing cells instead. No query allocates memory.
+ * <p>
+ * Game objects update their cell on their own when their bounds are
+ * invalidated with {@link GameObject#invalidateBounds()}. Game objects whose
+ * transform is changed without invalidating the bounds can be added with
+ * {@link #addDynamic(GameObject)} instead and are updated by
+ * {@link #refresh()}.
+ */
+public class SpatialIndex {
+    
+    /** Default edge length of a cell. */
+    public static final float DEFAULT_CELL_SIZE = 16.0f;
+    
+    /** Cell key of game objects that are stored in {@link #largeObjects}. */
+    private static final long LARGE_OBJECT = Long.MIN_VALUE;
+    
+    /**
+     * Maximal number of cells a nearest search looks up around its cell,
+     * larger searches walk all existing cells.
+     */
+    private static final int MAX_REACH = 1 << 19;
+    
+    /** Number of bits per coordinate in a cell key. */
+    private static final int KEY_BITS = 21;
+    private static final long KEY_MASK = (1L << KEY_BITS) - 1;
+    
+    /**
+     * A cell of the grid with all the game objects whose bounds center is
+     * inside of it.
+     */
+    private static class Cell {
+        private long key;
+        private int x, y, z;
+        /** Index of the cell in {@link SpatialIndex#cellList}. */
+        private int listIndex;
+        private final Array<GameObject> objects = new Array<GameObject>(false, 8);
+    }
+    
+    private final float cellSize;
+    private final float invCellSize;
+    
+    /** Maximal bounding radius of game objects stored in cells. */
+    private final float maxCellObjectRadius;
+    
+    private final LongMap<Cell> cells = new LongMap<Cell>();
+    
+    /** All cells that contain game objects, to walk them without iterator. */
+    private final Array<Cell> cellList = new Array<Cell>(false, 64);
+    
+    /** Empty cells that are reused. */
+    private final Array<Cell> freeCells = new Array<Cell>(false, 16);
+    
+    /** Game objects that are too large to be stored in a cell. */
+    private final Array<GameObject> largeObjects = new Array<GameObject>(false, 4);
+    
+    /** Game objects that are updated by {@link #refresh()}. */
+    private final Array<GameObject> dynamicObjects = new Array<GameObject>(false, 16);
+    
+    private int size = 0;
+    
+    /** Current result and its squared distance of a nearest search. */
+    private GameObject nearest;
+    private float nearestDistance2;
+    
+    /**
+     * Creates a new spatial index with {@link #DEFAULT_CELL_SIZE}.
+     */
+    public SpatialIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+    
+    /**
+     * Creates a new spatial index.
+     * 
+     * @param cellSize
+     *            Edge length of a cell.
+     * @throws IllegalArgumentException
+     *             for a cell size that is not positive.
+     */
+    public SpatialIndex(float cellSize) {
+        if (cellSize <= 0f) {
+            throw new IllegalArgumentException("SpatialIndex(" + cellSize + ") got a non positive cell size.");
+        }
+        this.cellSize = cellSize;
+        this.invCellSize = 1.0f / cellSize;
+        this.maxCellObjectRadius = cellSize * 0.5f;
+    }
+    
+    /**
+     * Getter for the number of game objects in the index.
+     * 
+     * @return {@link #size}
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Adds a game object to the index. A game object that is already stored in
+     * another index is removed from it.
+     * 
+     * @param object
+     *            The game object to add.
+     */
+    public void add(GameObject object) {
+        if (object.spatialIndex == this) {
+            update(object);
+            return;
+        }
+        if (object.spatialIndex != null) {
+            object.spatialIndex.remove(object);
+        }
+        object.spatialIndex = this;
+        insert(object);
+        size++;
+    }
+    
+    /**
+     * Adds a game object whose transform is changed without invalidating its
+     * bounds. Its bounds are updated every time {@link #refresh()} is called.
+     * 
+     * @param object
+     *            The game object to add.
+     */
+    public void addDynamic(GameObject object) {
+        add(object);
+        if (!dynamicObjects.contains(object, true)) {
+            dynamicObjects.add(object);
+        }
+    }
+    
+    /**
+     * Removes a game object from the index.
+     * 
+     * @param object
+     *            The game object to remove.
+     * @return true, if the game object was in the index, false otherwise.
+     */
+    public boolean remove(GameObject object) {
+        if (object.spatialIndex != this) {
+            return false;
+        }
+        detach(object);
+        dynamicObjects.removeValue(object, true);
+        object.spatialIndex = null;
+        size--;
+        return true;
+    }
+    
+    /**
+     * Removes all game objects from the index.
+     */
+    public void clear() {
+        while (cellList.size > 0) {
+            remove(cellList.peek().objects.peek());
+        }
+        while (largeObjects.size > 0) {
+            remove(largeObjects.peek());
+        }
+    }
+    
+    /**
+     * Moves the game object to the right cell after its bounds changed. Game
+     * objects that are not in the index are ignored.
+     * 
+     * @param object
+     *            The moved game object.
+     */
+    public void update(GameObject object) {
+        if (object.spatialIndex != this) {
+            return;
+        }
+        long key = keyFor(object);
+        if (key != object.spatialCell) {
+            detach(object);
+            insert(object);
+        }
+    }
+    
+    /**
+     * Updates all game objects that were added with
+     * {@link #addDynamic(GameObject)}.
+     */
+    public void refresh() {
+        final int numberOfObjects = dynamicObjects.size;
+        for (int i = 0; i < numberOfObjects; i++) {
+            dynamicObjects.get(i).invalidateBounds();
+        }
+    }
+    
+    /**
+     * Collects all game objects whose bounding sphere may be inside of the
+     * frustum.
+     * 
+     * @param frustum
+     *            The frustum, for example of a camera.
+     * @param out
+     *            Is cleared and filled with the game objects.
+     * @return out
+     */
+    public Array<GameObject> queryFrustum(Frustum frustum, Array<GameObject> out) {
+        out.clear();
+        // a cell contains the bounding spheres of its objects if it is
+        // extended by the maximal radius on every side
+        final float halfSize = cellSize * 0.5f + maxCellObjectRadius;
+        Cell cell;
+        final int numberOfCells = cellList.size;
+        for (int i = 0; i < numberOfCells; i++) {
+            cell = cellList.get(i);
+            if (frustum.boundsInFrustum((cell.x + 0.5f) * cellSize, (cell.y + 0.5f) * cellSize, (cell.z + 0.5f) * cellSize, halfSize, halfSize, halfSize)) {
+                addInFrustum(cell.objects, frustum, out);
+            }
+        }
+        addInFrustum(largeObjects, frustum, out);
+        return out;
+    }
+    
+    /**
+     * Collects all game objects whose bounding sphere intersects the sphere.
+     * 
+     * @param center
+     *            Center of the sphere.
+     * @param radius
+     *            Radius of the sphere.
+     * @param out
+     *            Is cleared and filled with the game objects.
+     * @return out
+     */
+    public Array<GameObject> querySphere(Vector3 center, float radius, Array<GameObject> out) {
+        out.clear();
+        float range = radius + maxCellObjectRadius;
+        int minX = cellCoordinate(center.x - range);
+        int minY = cellCoordinate(center.y - range);
+        int minZ = cellCoordinate(center.z - range);
+        int maxX = cellCoordinate(center.x + range);
+        int maxY = cellCoordinate(center.y + range);
+        int maxZ = cellCoordinate(center.z + range);
+        
+        if (isRangeSmall(minX, minY, minZ, maxX, maxY, maxZ)) {
+            Cell cell;
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        cell = cells.get(key(x, y, z));
+                        if (cell != null) {
+                            addInSphere(cell.objects, center, radius, out);
+                        }
+                    }
+                }
+            }
+        } else {
+            Cell cell;
+            final int numberOfCells = cellList.size;
+            for (int i = 0; i < numberOfCells; i++) {
+                cell = cellList.get(i);
+                if (cell.x >= minX && cell.x <= maxX && cell.y >= minY && cell.y <= maxY && cell.z >= minZ && cell.z <= maxZ) {
+                    addInSphere(cell.objects, center, radius, out);
+                }
+            }
+        }
+        addInSphere(largeObjects, center, radius, out);
+        return out;
+    }
+    
+    /**
+     * Searches the game object whose bounds center is nearest to the given
+     * position.
+     * 
+     * @param position
+     *            The position to search from.
+     * @param maxDistance
+     *            Only game objects that are closer than this are found.
+     * @return the nearest game object or null, if there is no game object
+     *         closer than maxDistance.
+     */
+    public GameObject nearest(Vector3 position, float maxDistance) {
+        int minX = cellCoordinate(position.x - maxDistance);
+        int minY = cellCoordinate(position.y - maxDistance);
+        int minZ = cellCoordinate(position.z - maxDistance);
+        int maxX = cellCoordinate(position.x + maxDistance);
+        int maxY = cellCoordinate(position.y + maxDistance);
+        int maxZ = cellCoordinate(position.z + maxDistance);
+        return nearest(position, maxDistance * maxDistance, minX, minY, minZ, maxX, maxY, maxZ);
+    }
+    
+    /**
+     * Searches the game object whose bounds center is nearest to the given
+     * position, like {@link #nearest(Vector3, float)}, but takes the squared
+     * maximal distance, so that the distances of the game objects need no
+     * square root. The range is extended to whole cells around the cell of
+     * the position.
+     * 
+     * @param position
+     *            The position to search from.
+     * @param maxDistance2
+     *            Only game objects whose squared distance is smaller than
+     *            this are found.
+     * @return the nearest game object or null, if there is no game object
+     *         closer than the maximal distance.
+     */
+    public GameObject nearest2(Vector3 position, float maxDistance2) {
+        double reachCells = Math.ceil(Math.sqrt(maxDistance2) * invCellSize);
+        if (reachCells > MAX_REACH) {
+            return nearest(position, maxDistance2, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        int reach = (int) reachCells;
+        int x = cellCoordinate(position.x);
+        int y = cellCoordinate(position.y);
+        int z = cellCoordinate(position.z);
+        return nearest(position, maxDistance2, x - reach, y - reach, z - reach, x + reach, y + reach, z + reach);
+    }
+    
+    private GameObject nearest(Vector3 position, float maxDistance2, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        nearest = null;
+        nearestDistance2 = maxDistance2;
+        if (isRangeSmall(minX, minY, minZ, maxX, maxY, maxZ)) {
+            Cell cell;
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        cell = cells.get(key(x, y, z));
+                        if (cell != null) {
+                            findNearest(cell.objects, position);
+                        }
+                    }
+                }
+            }
+        } else {
+            Cell cell;
+            final int numberOfCells = cellList.size;
+            for (int i = 0; i < numberOfCells; i++) {
+                cell = cellList.get(i);
+                if (cell.x >= minX && cell.x <= maxX && cell.y >= minY && cell.y <= maxY && cell.z >= minZ && cell.z <= maxZ) {
+                    findNearest(cell.objects, position);
+                }
+            }
+        }
+        findNearest(largeObjects, position);
+        
+        GameObject result = nearest;
+        nearest = null;
+        return result;
+    }
+    
+    private void findNearest(Array<GameObject> objects, Vector3 position) {
+        GameObject object;
+        float distance2;
+        final int numberOfObjects = objects.size;
+        for (int i = 0; i < numberOfObjects; i++) {
+            object = objects.get(i);
+            distance2 = position.dst2(object.getBoundsCenter());
+            if (distance2 < nearestDistance2) {
+                nearestDistance2 = distance2;
+                nearest = object;
+            }
+        }
+    }
+    
+    private void addInFrustum(Array<GameObject> objects, Frustum frustum, Array<GameObject> out) {
+        GameObject object;
+        final int numberOfObjects = objects.size;
+        for (int i = 0; i < numberOfObjects; i++) {
+            object = objects.get(i);
+            if (frustum.sphereInFrustum(object.getBoundsCenter(), object.getBoundingRadius())) {
+                out.add(object);
+            }
+        }
+    }
+    
+    private void addInSphere(Array<GameObject> objects, Vector3 center, float radius, Array<GameObject> out) {
+        GameObject object;
+        float distance;
+        final int numberOfObjects = objects.size;
+        for (int i = 0; i < numberOfObjects; i++) {
+            object = objects.get(i);
+            distance = radius + object.getBoundingRadius();
+            if (center.dst2(object.getBoundsCenter()) <= distance * distance) {
+                out.add(object);
+            }
+        }
+    }
+    
+    /**
+     * Checks if looking up every cell in the range is cheaper than walking
+     * all existing cells.
+     */
+    private boolean isRangeSmall(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        long sizeX = (long) maxX - minX + 1;
+        long sizeY = (long) maxY - minY + 1;
+        long sizeZ = (long) maxZ - minZ + 1;
+        // checked step by step, the product of large ranges overflows
+        return sizeX <= cellList.size && sizeY <= cellList.size && sizeZ <= cellList.size && sizeX * sizeY <= cellList.size && sizeX * sizeY * sizeZ <= cellList.size;
+    }
+    
+    private void insert(GameObject object) {
+        long key = keyFor(object);
+        object.spatialCell = key;
+        if (key == LARGE_OBJECT) {
+            largeObjects.add(object);
+            return;
+        }
+        Cell cell = cells.get(key);
+        if (cell == null) {
+            cell = freeCells.size > 0 ? freeCells.pop() : new Cell();
+            cell.key = key;
+            Vector3 position = object.getBoundsCenter();
+            cell.x = cellCoordinate(position.x);
+            cell.y = cellCoordinate(position.y);
+            cell.z = cellCoordinate(position.z);
+            cell.listIndex = cellList.size;
+            cellList.add(cell);
+            cells.put(key, cell);
+        }
+        cell.objects.add(object);
+    }
+    
+    private void detach(GameObject object) {
+        if (object.spatialCell == LARGE_OBJECT) {
+            largeObjects.removeValue(object, true);
+            return;
+        }
+        Cell cell = cells.get(object.spatialCell);
+        cell.objects.removeValue(object, true);
+        if (cell.objects.size == 0) {
+            cells.remove(cell.key);
+            // the last cell takes the place of the removed one
+            Cell last = cellList.pop();
+            if (last != cell) {
+                cellList.set(cell.listIndex, last);
+                last.listIndex = cell.listIndex;
+            }
+            freeCells.add(cell);
+        }
+    }
+    
+    private long keyFor(GameObject object) {
+        if (object.getBoundingRadius() > maxCellObjectRadius) {
+            return LARGE_OBJECT;
+        }
+        Vector3 position = object.getBoundsCenter();
+        return key(cellCoordinate(position.x), cellCoordinate(position.y), cellCoordinate(position.z));
+    }
+    
+    private int cellCoordinate(float value) {
+        return (int) Math.floor(value * invCellSize);
+    }
+    
+    private static long key(int x, int y, int z) {
+        return ((x & KEY_MASK) << (2 * KEY_BITS)) | ((y & KEY_MASK) << KEY_BITS) | (z & KEY_MASK);
+    }
+}
@@ -60,7 +60,7 @@ public class RotationMover implements IGameObjectMover {
     	}
     	
         gameObject.transform.rotate(rotation, degrees * delta * 10.0f);
-        gameObject.getRigidBody().setWorldTransform(gameObject.transform);
+        gameObject.getCollisionObject().setWorldTransform(gameObject.transform);
     }
 
 	@Override
@@ -46,7 +46,7 @@ public class SinusMover implements IGameObjectMover {
         moving.z = Z.x * (float) Math.sin(Z.y * i + Z.z);
         
         gameObject.transform.setTranslation(startPosition.add(moving));
-        gameObject.getRigidBody().setWorldTransform(gameObject.transform);
+        gameObject.getCollisionObject().setWorldTransform(gameObject.transform);
         
         i += delta;
     }
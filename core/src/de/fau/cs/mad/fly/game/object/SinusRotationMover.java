@@ -75,7 +75,7 @@ public class SinusRotationMover implements IGameObjectMover {
         
         gameObject.transform.rotate(rotation, degrees * delta * 10.0f);
         gameObject.transform.setTranslation(startPosition.add(moving));
-        gameObject.getRigidBody().setWorldTransform(gameObject.transform);
+        gameObject.getCollisionObject().setWorldTransform(gameObject.transform);
         
         i += delta;
     }
@@ -0,0 +1,186 @@
+package de.fau.cs.mad.fly.graphics;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.ModelBatch;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import de.fau.cs.mad.fly.game.GameObject;
+
+/**
+ * Renders game objects that share a model, its materials and the environment
+ * together instead of one by one.
+ * <p>
+ * Game objects are added every frame with
+ * {@link #add(GameObject, Environment)} and drawn with
+ * {@link #render(ModelBatch)}. Game objects are grouped by model, materials
+ * and environment. A group with at least {@link #MIN_INSTANCES} game objects
+ * is drawn with one draw call per part of the model:
+ * <ul>
+ * <li>If OpenGL ES 3.0 is available, the model matrices are packed into a
+ * buffer and the group is drawn instanced, see {@link InstanceData}.</li>
+ * <li>Otherwise the geometry of the static game objects is merged into one
+ * mesh in world space. The merged mesh is kept until the set of visible
+ * static game objects of the group changes. Game objects of the group that
+ * are moved are rendered one by one.</li>
+ * </ul>
+ * All other game objects are rendered one by one like before.
+ */
+public class InstanceBatch implements Disposable {
+    
+    /** Minimal number of game objects in a group to draw them together. */
+    public static final int MIN_INSTANCES = 2;
+    
+    /** Number of frames after which an unused group is disposed. */
+    private static final int MAX_UNUSED_FRAMES = 300;
+    
+    private final Array<InstanceGroup> groups = new Array<InstanceGroup>();
+    
+    /** Game objects and environments that are rendered one by one. */
+    private final Array<GameObject> singleObjects = new Array<GameObject>();
+    private final Array<Environment> singleEnvironments = new Array<Environment>();
+    
+    private boolean enabled = true;
+    
+    private int frame = 0;
+    
+    /** Number of game objects drawn together in the last frame. */
+    private int batchedObjects = 0;
+    
+    /**
+     * Checks if the platform supports instanced draw calls.
+     * 
+     * @return true, if OpenGL ES 3.0 is available.
+     */
+    public static boolean isInstancingSupported() {
+        return Gdx.gl30 != null;
+    }
+    
+    /**
+     * Getter if game objects are drawn together.
+     * 
+     * @return {@link #enabled}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Setter if game objects are drawn together. If disabled, every game
+     * object is rendered one by one.
+     * 
+     * @param enabled
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Getter for the number of game objects that were drawn together in the
+     * last frame.
+     * 
+     * @return {@link #batchedObjects}
+     */
+    public int getBatchedObjects() {
+        return batchedObjects;
+    }
+    
+    /**
+     * Adds a game object that is rendered in this frame. The game object has
+     * to be visible, it is not culled again.
+     * 
+     * @param object
+     *            The game object to render.
+     * @param environment
+     *            The environment to render the game object with.
+     */
+    public void add(GameObject object, Environment environment) {
+        if (enabled && environment != null) {
+            InstanceGroup group;
+            for (int i = 0; i < groups.size; i++) {
+                group = groups.get(i);
+                if (group.matches(object, environment)) {
+                    group.objects.add(object);
+                    group.lastUsedFrame = frame;
+                    return;
+                }
+            }
+            group = new InstanceGroup();
+            group.init(object, environment);
+            group.objects.add(object);
+            group.lastUsedFrame = frame;
+            groups.add(group);
+            return;
+        }
+        singleObjects.add(object);
+        singleEnvironments.add(environment);
+    }
+    
+    /**
+     * Renders all game objects added since the last call into the model batch
+     * and clears them.
+     * 
+     * @param batch
+     *            The model batch between begin() and end().
+     */
+    public void render(ModelBatch batch) {
+        batchedObjects = 0;
+        for (int i = 0; i < singleObjects.size; i++) {
+            renderSingle(batch, singleObjects.get(i), singleEnvironments.get(i));
+        }
+        singleObjects.clear();
+        singleEnvironments.clear();
+        
+        InstanceGroup group;
+        for (int i = groups.size - 1; i >= 0; i--) {
+            group = groups.get(i);
+            if (group.objects.size == 0) {
+                if (frame - group.lastUsedFrame > MAX_UNUSED_FRAMES) {
+                    groups.removeIndex(i).dispose();
+                }
+                continue;
+            }
+            if (group.objects.size >= MIN_INSTANCES && group.isBatchable() && prepare(group)) {
+                batch.render(group);
+                batchedObjects += group.getBatchedObjects();
+                for (int j = 0; j < group.dynamicObjects.size; j++) {
+                    renderSingle(batch, group.dynamicObjects.get(j), group.getEnvironment());
+                }
+                group.dynamicObjects.clear();
+            } else {
+                for (int j = 0; j < group.objects.size; j++) {
+                    renderSingle(batch, group.objects.get(j), group.getEnvironment());
+                }
+            }
+            group.objects.clear();
+        }
+        frame++;
+    }
+    
+    private boolean prepare(InstanceGroup group) {
+        if (isInstancingSupported()) {
+            group.prepareInstanced();
+            return true;
+        }
+        return group.prepareMerged();
+    }
+    
+    private void renderSingle(ModelBatch batch, GameObject object, Environment environment) {
+        if (environment == null) {
+            batch.render(object);
+        } else {
+            batch.render(object, environment);
+        }
+    }
+    
+    @Override
+    public void dispose() {
+        for (int i = 0; i < groups.size; i++) {
+            groups.get(i).dispose();
+        }
+        groups.clear();
+        singleObjects.clear();
+        singleEnvironments.clear();
+    }
+}
@@ -0,0 +1,157 @@
+package de.fau.cs.mad.fly.graphics;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.GL30;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Model matrices of all instances of one part of an {@link InstanceGroup}.
+ * <p>
+ * Is passed to the shaders as {@link Renderable#userData}. The shaders draw
+ * all instances with one instanced draw call, which needs OpenGL ES 3.0.
+ * 
+ * @see InstanceBatch
+ */
+public class InstanceData implements Disposable {
+    
+    /** Number of floats of one model matrix. */
+    public static final int MATRIX_SIZE = 16;
+    
+    /**
+     * Names of the vertex attributes for the columns of the model matrix of an
+     * instance.
+     */
+    public static final String[] MODEL_MATRIX_ATTRIBUTES = { "a_modelMatrix0", "a_modelMatrix1", "a_modelMatrix2", "a_modelMatrix3" };
+    
+    /** Packed column major model matrices of the instances. */
+    private float[] matrices = new float[4 * MATRIX_SIZE];
+    
+    private int count = 0;
+    
+    private FloatBuffer buffer;
+    
+    /** Handle of the vertex buffer object for the matrices, 0 if not created. */
+    private int bufferHandle = 0;
+    
+    private final IntBuffer handleBuffer = BufferUtils.newIntBuffer(1);
+    
+    /**
+     * Checks if the renderable contains instances.
+     * 
+     * @param renderable
+     *            The renderable to check.
+     * @return true, if the {@link Renderable#userData} is instance data.
+     */
+    public static boolean isInstanced(Renderable renderable) {
+        return renderable.userData instanceof InstanceData;
+    }
+    
+    /**
+     * Removes all instances.
+     */
+    public void clear() {
+        count = 0;
+    }
+    
+    /**
+     * Adds an instance with the given model matrix.
+     * 
+     * @param modelMatrix
+     *            The model matrix of the instance.
+     */
+    public void add(Matrix4 modelMatrix) {
+        int offset = count * MATRIX_SIZE;
+        if (offset + MATRIX_SIZE > matrices.length) {
+            float[] newMatrices = new float[matrices.length * 2];
+            System.arraycopy(matrices, 0, newMatrices, 0, offset);
+            matrices = newMatrices;
+        }
+        System.arraycopy(modelMatrix.val, 0, matrices, offset, MATRIX_SIZE);
+        count++;
+    }
+    
+    /**
+     * Getter for the number of instances.
+     * 
+     * @return {@link #count}
+     */
+    public int size() {
+        return count;
+    }
+    
+    /**
+     * Uploads the model matrices and draws all instances of the renderable
+     * with one draw call.
+     * 
+     * @param program
+     *            The bound shader program that was compiled for instancing.
+     * @param renderable
+     *            The renderable whose mesh is drawn.
+     */
+    public void render(ShaderProgram program, Renderable renderable) {
+        final GL30 gl = Gdx.gl30;
+        final Mesh mesh = renderable.mesh;
+        final int floats = count * MATRIX_SIZE;
+        if (buffer == null || buffer.capacity() < floats) {
+            buffer = BufferUtils.newFloatBuffer(matrices.length);
+        }
+        buffer.clear();
+        buffer.put(matrices, 0, floats);
+        buffer.flip();
+        
+        mesh.bind(program);
+        if (bufferHandle == 0) {
+            handleBuffer.clear();
+            gl.glGenBuffers(1, handleBuffer);
+            bufferHandle = handleBuffer.get(0);
+        }
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+        gl.glBufferData(GL20.GL_ARRAY_BUFFER, floats * 4, buffer, GL20.GL_STREAM_DRAW);
+        int location;
+        for (int i = 0; i < MODEL_MATRIX_ATTRIBUTES.length; i++) {
+            location = program.getAttributeLocation(MODEL_MATRIX_ATTRIBUTES[i]);
+            if (location >= 0) {
+                gl.glEnableVertexAttribArray(location);
+                gl.glVertexAttribPointer(location, 4, GL20.GL_FLOAT, false, MATRIX_SIZE * 4, i * 16);
+                gl.glVertexAttribDivisor(location, 1);
+            }
+        }
+        gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+        
+        if (mesh.getNumIndices() > 0) {
+            gl.glDrawElementsInstanced(renderable.primitiveType, renderable.meshPartSize, GL20.GL_UNSIGNED_SHORT, renderable.meshPartOffset * 2, count);
+        } else {
+            gl.glDrawArraysInstanced(renderable.primitiveType, renderable.meshPartOffset, renderable.meshPartSize, count);
+        }
+        
+        for (int i = 0; i < MODEL_MATRIX_ATTRIBUTES.length; i++) {
+            location = program.getAttributeLocation(MODEL_MATRIX_ATTRIBUTES[i]);
+            if (location >= 0) {
+                gl.glVertexAttribDivisor(location, 0);
+                gl.glDisableVertexAttribArray(location);
+            }
+        }
+        mesh.unbind(program);
+    }
+    
+    @Override
+    public void dispose() {
+        if (bufferHandle != 0 && Gdx.gl30 != null) {
+            handleBuffer.clear();
+            handleBuffer.put(bufferHandle);
+            handleBuffer.flip();
+            Gdx.gl30.glDeleteBuffers(1, handleBuffer);
+        }
+        bufferHandle = 0;
+        buffer = null;
+    }
+}
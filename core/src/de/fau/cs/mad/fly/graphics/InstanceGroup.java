@@ -0,0 +1,487 @@
+package de.fau.cs.mad.fly.graphics;
+
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.g3d.Attribute;
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.Material;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.graphics.g3d.Renderable;
+import com.badlogic.gdx.graphics.g3d.RenderableProvider;
+import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import com.badlogic.gdx.utils.Pool;
+
+import de.fau.cs.mad.fly.game.GameObject;
+
+/**
+ * Game objects of one frame that share the model, the materials and the
+ * environment and can therefore be drawn together.
+ * <p>
+ * The group provides one renderable per part of the model. Depending on the
+ * last prepare call, the renderable either carries the {@link InstanceData}
+ * of all game objects or a merged mesh that contains the geometry of the
+ * static game objects in world space.
+ * 
+ * @see InstanceBatch
+ */
+class InstanceGroup implements RenderableProvider, Disposable {
+    
+    /** Maximal number of vertices of a merged mesh with short indices. */
+    static final int MAX_MERGED_VERTICES = 65536;
+    
+    /**
+     * Geometry of one part of the model and the merged mesh built from it.
+     */
+    private static class MergedPart {
+        
+        /** Vertices used by the part in model space. */
+        private float[] sourceVertices;
+        /** Indices of the part relative to the first used vertex. */
+        private short[] sourceIndices;
+        private int sourceVertexCount;
+        
+        private float[] vertices;
+        private short[] indices;
+        private Mesh mesh;
+        private int indexCount;
+    }
+    
+    private Model model;
+    private Environment environment;
+    
+    /** Copies of the materials of the first game object of the group. */
+    private final Array<Material> materials = new Array<Material>();
+    
+    /**
+     * Mesh parts of the model in the order of the renderables, the global
+     * transforms of their nodes and the indices of their materials.
+     */
+    private final Array<MeshPart> parts = new Array<MeshPart>();
+    private final Array<Matrix4> partTransforms = new Array<Matrix4>();
+    private final IntArray partMaterials = new IntArray();
+    
+    private InstanceData[] instanceData;
+    private MergedPart[] mergedParts;
+    
+    /** Determines if the model can be drawn by the instanced shaders. */
+    private boolean batchable;
+    
+    /** Determines if the renderables use the merged meshes. */
+    private boolean merged;
+    
+    /** Game objects of the current frame. */
+    final Array<GameObject> objects = new Array<GameObject>();
+    
+    /**
+     * Static game objects of the current frame that are merged and the game
+     * objects that are moved and have to be drawn one by one.
+     */
+    private final Array<GameObject> staticObjects = new Array<GameObject>();
+    final Array<GameObject> dynamicObjects = new Array<GameObject>();
+    
+    /**
+     * Static game objects the merged meshes were built from, with the index
+     * of their transform in {@link #mergedTransforms}.
+     */
+    private final ObjectIntMap<GameObject> mergedObjects = new ObjectIntMap<GameObject>();
+    private float[] mergedTransforms = new float[0];
+    
+    /** Frame in which the last game object was added. */
+    int lastUsedFrame;
+    
+    private final Matrix4 tmpMatrix = new Matrix4();
+    
+    /**
+     * Initializes the group for the model and materials of the game object.
+     * 
+     * @param object
+     *            The first game object of the group.
+     * @param environment
+     *            The environment the game object is rendered with.
+     */
+    void init(GameObject object, Environment environment) {
+        this.model = object.model;
+        this.environment = environment;
+        for (int i = 0; i < object.materials.size; i++) {
+            materials.add(object.materials.get(i).copy());
+        }
+        
+        batchable = model.animations.size == 0;
+        addParts(object, object.nodes);
+        instanceData = new InstanceData[parts.size];
+        mergedParts = new MergedPart[parts.size];
+        for (int i = 0; i < parts.size; i++) {
+            instanceData[i] = new InstanceData();
+        }
+    }
+    
+    private void addParts(GameObject object, Array<Node> nodes) {
+        Node node;
+        NodePart part;
+        for (int i = 0; i < nodes.size; i++) {
+            node = nodes.get(i);
+            for (int j = 0; j < node.parts.size; j++) {
+                part = node.parts.get(j);
+                if (!part.enabled) {
+                    continue;
+                }
+                int material = object.materials.indexOf(part.material, true);
+                if (material < 0 || part.bones != null || part.material.has(TextureAttribute.Normal)) {
+                    batchable = false;
+                }
+                parts.add(part.meshPart);
+                partTransforms.add(new Matrix4(node.globalTransform));
+                partMaterials.add(Math.max(material, 0));
+            }
+            addParts(object, node.children);
+        }
+    }
+    
+    /**
+     * Checks if the game object can be added to the group.
+     * 
+     * @param object
+     *            The game object to check.
+     * @param environment
+     *            The environment the game object is rendered with.
+     * @return true, if the game object has the same model, materials and
+     *         environment.
+     */
+    boolean matches(GameObject object, Environment environment) {
+        if (object.model != model || environment != this.environment || object.materials.size != materials.size) {
+            return false;
+        }
+        for (int i = 0; i < materials.size; i++) {
+            if (!isSameMaterial(materials.get(i), object.materials.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Compares the attributes of two materials. Material.equals compares the
+     * identity of the materials and TextureAttribute.equals the identity of
+     * the texture descriptors, but every game object has its own copies.
+     */
+    private static boolean isSameMaterial(Material a, Material b) {
+        final long mask = a.getMask();
+        if (mask != b.getMask()) {
+            return false;
+        }
+        long type;
+        Attribute attributeA, attributeB;
+        for (int bit = 0; bit < 64; bit++) {
+            type = 1L << bit;
+            if ((mask & type) == 0) {
+                continue;
+            }
+            attributeA = a.get(type);
+            attributeB = b.get(type);
+            if (attributeA instanceof TextureAttribute) {
+                TextureAttribute textureA = (TextureAttribute) attributeA;
+                TextureAttribute textureB = (TextureAttribute) attributeB;
+                if (!textureA.textureDescription.equals(textureB.textureDescription) || textureA.offsetU != textureB.offsetU || textureA.offsetV != textureB.offsetV || textureA.scaleU != textureB.scaleU || textureA.scaleV != textureB.scaleV || textureA.uvIndex != textureB.uvIndex) {
+                    return false;
+                }
+            } else if (!attributeA.equals(attributeB)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Getter for the environment of the game objects.
+     * 
+     * @return {@link #environment}
+     */
+    Environment getEnvironment() {
+        return environment;
+    }
+    
+    /**
+     * Getter if the model of the group can be drawn instanced or merged.
+     * 
+     * @return {@link #batchable}
+     */
+    boolean isBatchable() {
+        return batchable;
+    }
+    
+    /**
+     * Collects the model matrices of all game objects for instanced drawing.
+     */
+    void prepareInstanced() {
+        merged = false;
+        dynamicObjects.clear();
+        for (int p = 0; p < parts.size; p++) {
+            InstanceData data = instanceData[p];
+            data.clear();
+            Matrix4 nodeTransform = partTransforms.get(p);
+            for (int i = 0; i < objects.size; i++) {
+                data.add(tmpMatrix.set(objects.get(i).transform).mul(nodeTransform));
+            }
+        }
+    }
+    
+    /**
+     * Prepares the merged meshes of the static game objects. The game objects
+     * that are not static are collected in {@link #dynamicObjects} and have
+     * to be drawn one by one, so that moving game objects do not rebuild the
+     * merged meshes every frame. The merged meshes are only rebuilt if the
+     * set of visible static game objects or one of their transforms changed
+     * since the last build, the order of the game objects does not matter.
+     * 
+     * @return false, if there are not enough static game objects or the
+     *         merged mesh would be too large. All game objects have to be
+     *         drawn one by one then.
+     */
+    boolean prepareMerged() {
+        staticObjects.clear();
+        dynamicObjects.clear();
+        GameObject object;
+        for (int i = 0; i < objects.size; i++) {
+            object = objects.get(i);
+            if (object.isStatic()) {
+                staticObjects.add(object);
+            } else {
+                dynamicObjects.add(object);
+            }
+        }
+        if (staticObjects.size < InstanceBatch.MIN_INSTANCES) {
+            dynamicObjects.clear();
+            return false;
+        }
+        if (!isMergedValid()) {
+            for (int p = 0; p < parts.size; p++) {
+                if (!buildMergedPart(p)) {
+                    mergedObjects.clear();
+                    dynamicObjects.clear();
+                    return false;
+                }
+            }
+            mergedObjects.clear();
+            if (mergedTransforms.length < staticObjects.size * InstanceData.MATRIX_SIZE) {
+                mergedTransforms = new float[staticObjects.size * InstanceData.MATRIX_SIZE];
+            }
+            for (int i = 0; i < staticObjects.size; i++) {
+                object = staticObjects.get(i);
+                mergedObjects.put(object, i);
+                System.arraycopy(object.transform.val, 0, mergedTransforms, i * InstanceData.MATRIX_SIZE, InstanceData.MATRIX_SIZE);
+            }
+        }
+        merged = true;
+        return true;
+    }
+    
+    /**
+     * Checks if the merged meshes were built from the same static game
+     * objects with the same transforms.
+     */
+    private boolean isMergedValid() {
+        if (mergedObjects.size != staticObjects.size) {
+            return false;
+        }
+        GameObject object;
+        float[] transform;
+        int index;
+        for (int i = 0; i < staticObjects.size; i++) {
+            object = staticObjects.get(i);
+            index = mergedObjects.get(object, -1);
+            if (index < 0) {
+                return false;
+            }
+            transform = object.transform.val;
+            for (int j = 0; j < InstanceData.MATRIX_SIZE; j++) {
+                if (transform[j] != mergedTransforms[index * InstanceData.MATRIX_SIZE + j]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Getter for the number of game objects drawn by the renderables of the
+     * last prepare call.
+     * 
+     * @return the number of merged or instanced game objects
+     */
+    int getBatchedObjects() {
+        return merged ? staticObjects.size : objects.size;
+    }
+    
+    private boolean buildMergedPart(int p) {
+        MergedPart mergedPart = mergedParts[p];
+        if (mergedPart == null) {
+            mergedPart = new MergedPart();
+            loadSource(mergedPart, parts.get(p));
+            mergedParts[p] = mergedPart;
+        }
+        final Mesh sourceMesh = parts.get(p).mesh;
+        final int vertexCount = staticObjects.size * mergedPart.sourceVertexCount;
+        if (vertexCount > MAX_MERGED_VERTICES) {
+            return false;
+        }
+        final VertexAttributes attributes = sourceMesh.getVertexAttributes();
+        final int vertexSize = sourceMesh.getVertexSize() / 4;
+        final int sourceFloats = mergedPart.sourceVertexCount * vertexSize;
+        final int sourceIndexCount = mergedPart.sourceIndices.length;
+        final int indexCount = staticObjects.size * sourceIndexCount;
+        if (mergedPart.vertices == null || mergedPart.vertices.length < vertexCount * vertexSize) {
+            mergedPart.vertices = new float[vertexCount * vertexSize];
+        }
+        if (mergedPart.indices == null || mergedPart.indices.length < indexCount) {
+            mergedPart.indices = new short[indexCount];
+        }
+        
+        final Matrix4 nodeTransform = partTransforms.get(p);
+        final VertexAttribute position = attributes.findByUsage(Usage.Position);
+        for (int i = 0; i < staticObjects.size; i++) {
+            tmpMatrix.set(staticObjects.get(i).transform).mul(nodeTransform);
+            System.arraycopy(mergedPart.sourceVertices, 0, mergedPart.vertices, i * sourceFloats, sourceFloats);
+            if (position != null) {
+                transform(mergedPart.vertices, i * sourceFloats, mergedPart.sourceVertexCount, vertexSize, position.offset / 4, tmpMatrix, false);
+            }
+            for (int a = 0; a < attributes.size(); a++) {
+                VertexAttribute attribute = attributes.get(a);
+                if (attribute.usage == Usage.Normal || attribute.usage == Usage.Tangent || attribute.usage == Usage.BiNormal) {
+                    transform(mergedPart.vertices, i * sourceFloats, mergedPart.sourceVertexCount, vertexSize, attribute.offset / 4, tmpMatrix, true);
+                }
+            }
+            final int base = i * mergedPart.sourceVertexCount;
+            for (int j = 0; j < sourceIndexCount; j++) {
+                mergedPart.indices[i * sourceIndexCount + j] = (short) (base + mergedPart.sourceIndices[j]);
+            }
+        }
+        
+        if (mergedPart.mesh == null || mergedPart.mesh.getMaxVertices() < vertexCount || mergedPart.mesh.getMaxIndices() < indexCount) {
+            if (mergedPart.mesh != null) {
+                mergedPart.mesh.dispose();
+            }
+            mergedPart.mesh = new Mesh(true, vertexCount, indexCount, attributes);
+        }
+        mergedPart.mesh.setVertices(mergedPart.vertices, 0, vertexCount * vertexSize);
+        mergedPart.mesh.setIndices(mergedPart.indices, 0, indexCount);
+        mergedPart.indexCount = indexCount;
+        return true;
+    }
+    
+    /**
+     * Copies the vertices and indices used by the mesh part.
+     */
+    private static void loadSource(MergedPart mergedPart, MeshPart meshPart) {
+        final Mesh mesh = meshPart.mesh;
+        final int vertexSize = mesh.getVertexSize() / 4;
+        if (mesh.getNumIndices() > 0) {
+            short[] allIndices = new short[mesh.getNumIndices()];
+            mesh.getIndices(allIndices);
+            int min = Integer.MAX_VALUE;
+            int max = -1;
+            for (int i = meshPart.indexOffset; i < meshPart.indexOffset + meshPart.numVertices; i++) {
+                min = Math.min(min, allIndices[i] & 0xFFFF);
+                max = Math.max(max, allIndices[i] & 0xFFFF);
+            }
+            if (max < 0) {
+                min = 0;
+            }
+            mergedPart.sourceVertexCount = max - min + 1;
+            mergedPart.sourceIndices = new short[meshPart.numVertices];
+            for (int i = 0; i < meshPart.numVertices; i++) {
+                mergedPart.sourceIndices[i] = (short) ((allIndices[meshPart.indexOffset + i] & 0xFFFF) - min);
+            }
+            mergedPart.sourceVertices = mesh.getVertices(min * vertexSize, mergedPart.sourceVertexCount * vertexSize, new float[mergedPart.sourceVertexCount * vertexSize]);
+        } else {
+            mergedPart.sourceVertexCount = meshPart.numVertices;
+            mergedPart.sourceIndices = new short[meshPart.numVertices];
+            for (int i = 0; i < meshPart.numVertices; i++) {
+                mergedPart.sourceIndices[i] = (short) i;
+            }
+            mergedPart.sourceVertices = mesh.getVertices(meshPart.indexOffset * vertexSize, mergedPart.sourceVertexCount * vertexSize, new float[mergedPart.sourceVertexCount * vertexSize]);
+        }
+    }
+    
+    /**
+     * Transforms a three component vertex attribute in place. Directions are
+     * only rotated and scaled and normalized afterwards.
+     */
+    private static void transform(float[] vertices, int offset, int count, int vertexSize, int attributeOffset, Matrix4 matrix, boolean direction) {
+        final float[] m = matrix.val;
+        float x, y, z, length;
+        int index;
+        for (int i = 0; i < count; i++) {
+            index = offset + i * vertexSize + attributeOffset;
+            x = vertices[index];
+            y = vertices[index + 1];
+            z = vertices[index + 2];
+            vertices[index] = m[Matrix4.M00] * x + m[Matrix4.M01] * y + m[Matrix4.M02] * z;
+            vertices[index + 1] = m[Matrix4.M10] * x + m[Matrix4.M11] * y + m[Matrix4.M12] * z;
+            vertices[index + 2] = m[Matrix4.M20] * x + m[Matrix4.M21] * y + m[Matrix4.M22] * z;
+            if (direction) {
+                length = (float) Math.sqrt(vertices[index] * vertices[index] + vertices[index + 1] * vertices[index + 1] + vertices[index + 2] * vertices[index + 2]);
+                if (length != 0f) {
+                    vertices[index] /= length;
+                    vertices[index + 1] /= length;
+                    vertices[index + 2] /= length;
+                }
+            } else {
+                vertices[index] += m[Matrix4.M03];
+                vertices[index + 1] += m[Matrix4.M13];
+                vertices[index + 2] += m[Matrix4.M23];
+            }
+        }
+    }
+    
+    @Override
+    public void getRenderables(Array<Renderable> renderables, Pool<Renderable> pool) {
+        Renderable renderable;
+        MeshPart meshPart;
+        for (int p = 0; p < parts.size; p++) {
+            meshPart = parts.get(p);
+            renderable = pool.obtain();
+            renderable.worldTransform.idt();
+            renderable.material = materials.get(partMaterials.get(p));
+            renderable.environment = environment;
+            renderable.bones = null;
+            renderable.shader = null;
+            renderable.primitiveType = meshPart.primitiveType;
+            if (merged) {
+                renderable.mesh = mergedParts[p].mesh;
+                renderable.meshPartOffset = 0;
+                renderable.meshPartSize = mergedParts[p].indexCount;
+                renderable.userData = null;
+            } else {
+                renderable.mesh = meshPart.mesh;
+                renderable.meshPartOffset = meshPart.indexOffset;
+                renderable.meshPartSize = meshPart.numVertices;
+                renderable.userData = instanceData[p];
+            }
+            renderables.add(renderable);
+        }
+    }
+    
+    @Override
+    public void dispose() {
+        for (int p = 0; p < parts.size; p++) {
+            instanceData[p].dispose();
+            if (mergedParts[p] != null && mergedParts[p].mesh != null) {
+                mergedParts[p].mesh.dispose();
+            }
+        }
+        mergedObjects.clear();
+        staticObjects.clear();
+        dynamicObjects.clear();
+        objects.clear();
+    }
+}
@@ -4,7 +4,9 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.Material;
 import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.Shader;
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
@@ -13,23 +15,69 @@ import com.badlogic.gdx.graphics.g3d.utils.RenderContext;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
 import com.badlogic.gdx.math.Matrix3;
 import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import de.fau.cs.mad.fly.graphics.InstanceData;
 
 /**
  * Created by tschaei on 13.08.14.
+ * <p>
+ * Uniforms that depend on the camera are uploaded once in
+ * {@link #begin(Camera, RenderContext)}. Uniforms that depend on the
+ * environment are uploaded once per environment after begin, because the
+ * shader renders all environments with the same number of lights. Uniforms of
+ * the material are only uploaded if their values differ from the last
+ * uploaded ones, so that the cost per renderable drops to the model and
+ * normal matrices. All uploads are counted, see {@link #getUniformUploads()}.
+ * <p>
+ * The sources of the shaders are read once and shared by all variants.
  */
 public abstract class FlyBaseShader implements Shader {
     
+    /** Number of texture units whose bound texture is tracked. */
+    private static final int TEXTURE_UNITS = 2;
+    
+    /** Number of uniform uploads of all shaders since the last reset. */
+    private static int uniformUploads = 0;
+    
+    /** Sources of the shaders by their file names. */
+    private static final ObjectMap<String, String> sources = new ObjectMap<String, String>();
+    
     protected ShaderProgram program;
     protected Environment environment;
     private Matrix3 normalMatrix;
     private Matrix4 modelViewMatrix, modelViewProjectionMatrix;
     protected int numDirLights, numPointLights;
-    private int u_modelViewMatrix, u_modelMatrix, u_modelViewProjectionMatrix, u_shininess, u_ambientColor, u_specularColor, u_normalMatrix, u_cameraPosition;
+    private int u_modelViewMatrix, u_modelMatrix, u_modelViewProjectionMatrix, u_viewProjectionMatrix, u_shininess, u_ambientColor, u_specularColor, u_diffuseColor, u_normalMatrix, u_cameraPosition;
     protected int[][] u_dirLights, u_pointLights;
     protected Camera camera;
     private RenderContext context;
     
+    /**
+     * Determines if the shader draws renderables with {@link InstanceData}.
+     */
+    protected boolean instanced;
+    
+    /** Environment and material of the last renderable since {@link #begin}. */
+    private Environment currentEnvironment;
+    private Material currentMaterial;
+    
+    /**
+     * Determines if the material of the current renderable differs from the
+     * material of the renderable before.
+     */
+    protected boolean materialChanged;
+    
+    /** Values of the material uniforms uploaded since {@link #begin}. */
+    private float currentShininess;
+    private final Color currentSpecularColor = new Color();
+    private final Color currentDiffuseColor = new Color();
+    
+    /** Textures bound to the texture units since {@link #begin}. */
+    private final Texture[] currentTextures = new Texture[TEXTURE_UNITS];
+    
     public FlyBaseShader() {
         
     }
@@ -38,6 +86,24 @@ public abstract class FlyBaseShader implements Shader {
         this.environment = renderable.environment;
         this.numDirLights = this.environment.directionalLights.size;
         this.numPointLights = this.environment.pointLights.size;
+        this.instanced = InstanceData.isInstanced(renderable);
+    }
+    
+    /**
+     * Getter for the number of uniform uploads of all shaders since the last
+     * {@link #resetUniformUploads()}.
+     * 
+     * @return {@link #uniformUploads}
+     */
+    public static int getUniformUploads() {
+        return uniformUploads;
+    }
+    
+    /**
+     * Resets the number of uniform uploads, e.g. at the beginning of a frame.
+     */
+    public static void resetUniformUploads() {
+        uniformUploads = 0;
     }
     
     protected void createShaderProgram(String vertexShader, String fragmentShader) {
@@ -47,14 +113,28 @@ public abstract class FlyBaseShader implements Shader {
             prefix += "#define numDirLights " + this.numDirLights + "\n";
         if (numPointLights > 0)
             prefix += "#define numPointLights " + this.numPointLights + "\n";
-        String vert = prefix + Gdx.files.internal(vertexShader).readString();
-        String frag = prefix + Gdx.files.internal(fragmentShader).readString();
+        if (instanced)
+            prefix += "#define instanced\n";
+        String vert = prefix + readSource(vertexShader);
+        String frag = prefix + readSource(fragmentShader);
         program = new ShaderProgram(vert, frag);
         if (!program.isCompiled()) {
             throw new GdxRuntimeException(program.getLog());
         }
     }
     
+    /**
+     * Reads the source of a shader, only the first time for every file.
+     */
+    private static String readSource(String fileName) {
+        String source = sources.get(fileName);
+        if (source == null) {
+            source = Gdx.files.internal(fileName).readString();
+            sources.put(fileName, source);
+        }
+        return source;
+    }
+    
     @Override
     public void init() {
         u_dirLights = new int[this.numDirLights][2];
@@ -67,9 +147,11 @@ public abstract class FlyBaseShader implements Shader {
         u_modelViewMatrix = program.getUniformLocation("u_modelViewMatrix");
         u_modelMatrix = program.getUniformLocation("u_modelMatrix");
         u_modelViewProjectionMatrix = program.getUniformLocation("u_modelViewProjectionMatrix");
+        u_viewProjectionMatrix = program.getUniformLocation("u_viewProjectionMatrix");
         u_shininess = program.getUniformLocation("u_shininess");
         u_ambientColor = program.getUniformLocation("u_ambientColor");
         u_specularColor = program.getUniformLocation("u_specularColor");
+        u_diffuseColor = program.getUniformLocation("u_diffuseColor");
         u_normalMatrix = program.getUniformLocation("u_normalMatrix");
         u_cameraPosition = program.getUniformLocation("u_cameraPosition");
         for (int i = 0; i < this.numDirLights; i++) {
@@ -89,6 +171,46 @@ public abstract class FlyBaseShader implements Shader {
         program.begin();
         this.context.setDepthTest(GL20.GL_DEPTH_TEST);
         this.context.setCullFace(GL20.GL_BACK);
+        
+        // the program may have been relinked since the last frame
+        currentEnvironment = null;
+        currentMaterial = null;
+        currentShininess = 0.0f;
+        currentSpecularColor.set(0.0f, 0.0f, 0.0f, 0.0f);
+        currentDiffuseColor.set(0.0f, 0.0f, 0.0f, 0.0f);
+        for (int i = 0; i < TEXTURE_UNITS; i++) {
+            currentTextures[i] = null;
+        }
+        
+        // constant for all renderables until end()
+        if (instanced) {
+            // the model matrices are vertex attributes of the instances
+            setUniformMatrix(u_viewProjectionMatrix, camera.combined);
+        }
+        setUniformf(u_cameraPosition, camera.position);
+        setUniformf(u_shininess, currentShininess);
+        setUniformf(u_specularColor, currentSpecularColor);
+        setUniformf(u_diffuseColor, currentDiffuseColor);
+    }
+    
+    /**
+     * Uploads the ambient color and the lights of the environment.
+     */
+    private void setUpEnvironmentUniforms(Environment environment) {
+        if (environment.has(ColorAttribute.AmbientLight)) {
+            setUniformf(u_ambientColor, ((ColorAttribute) environment.get(ColorAttribute.AmbientLight)).color);
+        } else {
+            setUniformf(u_ambientColor, Color.BLACK);
+        }
+        for (int i = 0; i < this.numDirLights; i++) {
+            setUniformf(u_dirLights[i][0], environment.directionalLights.get(i).direction);
+            setUniformf(u_dirLights[i][1], environment.directionalLights.get(i).color);
+        }
+        
+        for (int i = 0; i < this.numPointLights; i++) {
+            setUniformf(u_pointLights[i][0], environment.pointLights.get(i).position);
+            setUniformf(u_pointLights[i][1], environment.pointLights.get(i).color);
+        }
     }
     
     @Override
@@ -96,37 +218,148 @@ public abstract class FlyBaseShader implements Shader {
         return false;
     }
     
+    /**
+     * Checks if the environment of the renderable has the number of lights
+     * the shader was compiled for.
+     */
+    protected boolean canRenderEnvironment(Renderable renderable) {
+        return renderable.environment != null && renderable.environment.directionalLights.size == numDirLights && renderable.environment.pointLights.size == numPointLights;
+    }
+    
+    /**
+     * Checks if the shader draws renderables of the same kind, with or without
+     * {@link InstanceData}.
+     */
+    protected boolean canRenderInstanced(Renderable renderable) {
+        return InstanceData.isInstanced(renderable) == instanced;
+    }
+    
     protected void setUpBaseUniforms(Renderable renderable) {
-        // Calculate the normal matrix
-        normalMatrix.set(renderable.worldTransform).inv().transpose();
+        if (!instanced) {
+            // Calculate the normal matrix
+            normalMatrix.set(renderable.worldTransform).inv().transpose();
+            
+            // Pass the uniform values
+            setUniformMatrix(u_normalMatrix, normalMatrix);
+            setUniformMatrix(u_modelMatrix, renderable.worldTransform);
+            setUniformMatrix(u_modelViewMatrix, modelViewMatrix.set(camera.view).mul(renderable.worldTransform));
+            setUniformMatrix(u_modelViewProjectionMatrix, modelViewProjectionMatrix.set(camera.combined).mul(renderable.worldTransform));
+        }
+        
+        if (renderable.environment != currentEnvironment) {
+            currentEnvironment = renderable.environment;
+            setUpEnvironmentUniforms(currentEnvironment);
+        }
         
-        // Pass the uniform values
-        program.setUniformMatrix(u_normalMatrix, normalMatrix);
-        program.setUniformMatrix(u_modelMatrix, renderable.worldTransform);
-        program.setUniformMatrix(u_modelViewMatrix, modelViewMatrix.set(camera.view).mul(renderable.worldTransform));
-        program.setUniformMatrix(u_modelViewProjectionMatrix, modelViewProjectionMatrix.set(camera.combined).mul(renderable.worldTransform));
+        materialChanged = renderable.material != currentMaterial;
+        if (!materialChanged) {
+            return;
+        }
+        currentMaterial = renderable.material;
         if (renderable.material.has(FloatAttribute.Shininess)) {
-            program.setUniformf(u_shininess, ((FloatAttribute) renderable.material.get(FloatAttribute.Shininess)).value);
-            program.setUniformf(u_specularColor, ((ColorAttribute) renderable.material.get(ColorAttribute.Specular)).color);
+            setShininess(((FloatAttribute) renderable.material.get(FloatAttribute.Shininess)).value);
+            setSpecularColor(((ColorAttribute) renderable.material.get(ColorAttribute.Specular)).color);
         } else {
-            program.setUniformf(u_shininess, 0.0f);
-            program.setUniformf(u_specularColor, Color.BLACK);
+            setShininess(0.0f);
+            setSpecularColor(Color.BLACK);
         }
-        if (renderable.environment.has(ColorAttribute.AmbientLight)) {
-            program.setUniformf(u_ambientColor, ((ColorAttribute) renderable.environment.get(ColorAttribute.AmbientLight)).color);
-        } else {
-            program.setUniformf(u_ambientColor, Color.BLACK);
+    }
+    
+    private void setShininess(float shininess) {
+        if (shininess != currentShininess) {
+            currentShininess = shininess;
+            setUniformf(u_shininess, shininess);
         }
-        for (int i = 0; i < this.numDirLights; i++) {
-            program.setUniformf(u_dirLights[i][0], this.environment.directionalLights.get(i).direction);
-            program.setUniformf(u_dirLights[i][1], this.environment.directionalLights.get(i).color);
+    }
+    
+    private void setSpecularColor(Color color) {
+        if (!color.equals(currentSpecularColor)) {
+            currentSpecularColor.set(color);
+            setUniformf(u_specularColor, color);
         }
-        
-        for (int i = 0; i < this.numPointLights; i++) {
-            program.setUniformf(u_pointLights[i][0], this.environment.pointLights.get(i).position);
-            program.setUniformf(u_pointLights[i][1], this.environment.pointLights.get(i).color);
+    }
+    
+    /**
+     * Uploads the diffuse color, if it differs from the last uploaded one.
+     * 
+     * @param color
+     *            The diffuse color of the material.
+     */
+    protected void setDiffuseColor(Color color) {
+        if (!color.equals(currentDiffuseColor)) {
+            currentDiffuseColor.set(color);
+            setUniformf(u_diffuseColor, color);
+        }
+    }
+    
+    /**
+     * Binds the texture to the texture unit, if it is not already bound since
+     * {@link #begin}.
+     * 
+     * @param texture
+     *            The texture to bind.
+     * @param unit
+     *            The texture unit.
+     */
+    protected void bindTexture(Texture texture, int unit) {
+        if (currentTextures[unit] != texture) {
+            currentTextures[unit] = texture;
+            texture.bind(unit);
+        }
+    }
+    
+    protected void setUniformMatrix(int location, Matrix4 matrix) {
+        if (location >= 0) {
+            program.setUniformMatrix(location, matrix);
+            uniformUploads++;
+        }
+    }
+    
+    protected void setUniformMatrix(int location, Matrix3 matrix) {
+        if (location >= 0) {
+            program.setUniformMatrix(location, matrix);
+            uniformUploads++;
+        }
+    }
+    
+    protected void setUniformf(int location, float value) {
+        if (location >= 0) {
+            program.setUniformf(location, value);
+            uniformUploads++;
+        }
+    }
+    
+    protected void setUniformf(int location, Vector3 value) {
+        if (location >= 0) {
+            program.setUniformf(location, value);
+            uniformUploads++;
+        }
+    }
+    
+    protected void setUniformf(int location, Color value) {
+        if (location >= 0) {
+            program.setUniformf(location, value);
+            uniformUploads++;
+        }
+    }
+    
+    protected void setUniformi(int location, int value) {
+        if (location >= 0) {
+            program.setUniformi(location, value);
+            uniformUploads++;
+        }
+    }
+    
+    /**
+     * Draws the mesh of the renderable, all instances with one draw call if
+     * the renderable has {@link InstanceData}.
+     */
+    protected void renderMesh(Renderable renderable) {
+        if (instanced) {
+            ((InstanceData) renderable.userData).render(program, renderable);
+        } else {
+            renderable.mesh.render(program, renderable.primitiveType, renderable.meshPartOffset, renderable.meshPartSize);
         }
-        program.setUniformf(u_cameraPosition, camera.position);
     }
     
     @Override
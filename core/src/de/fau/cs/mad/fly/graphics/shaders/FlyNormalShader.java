@@ -1,10 +1,12 @@
 package de.fau.cs.mad.fly.graphics.shaders;
 
+import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.Shader;
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.graphics.g3d.utils.RenderContext;
 
 /**
  * Created by tschaei on 21.08.14.
@@ -13,17 +15,26 @@ public class FlyNormalShader extends FlyBaseShader {
     
     private String VERTEX_SHADER = "shaders/vertex.glsl";
     private String FRAGMENT_SHADER = "shaders/normalmap.fragment.glsl";
-    private int u_diffuseColor, normalMap;
+    private int normalMap;
+    
+    public FlyNormalShader(Renderable renderable) {
+        super(renderable);
+    }
     
     @Override
     public void init() {
         createShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
         super.init();
         
-        u_diffuseColor = program.getUniformLocation("u_diffuseColor");
         normalMap = program.getUniformLocation("normalMap");
     }
     
+    @Override
+    public void begin(Camera camera, RenderContext context) {
+        super.begin(camera, context);
+        setUniformi(normalMap, 1);
+    }
+    
     @Override
     public int compareTo(Shader other) {
         return 0;
@@ -33,16 +44,17 @@ public class FlyNormalShader extends FlyBaseShader {
     public void render(Renderable renderable) {
         super.setUpBaseUniforms(renderable);
         
-        program.setUniformf(u_diffuseColor, ((ColorAttribute) renderable.material.get(ColorAttribute.Diffuse)).color);
-        // Bind texture
-        ((TextureAttribute) renderable.material.get(TextureAttribute.Normal)).textureDescription.texture.bind(1);
-        program.setUniformi(normalMap, 1);
+        if (materialChanged) {
+            setDiffuseColor(((ColorAttribute) renderable.material.get(ColorAttribute.Diffuse)).color);
+            // Bind texture
+            bindTexture(((TextureAttribute) renderable.material.get(TextureAttribute.Normal)).textureDescription.texture, 1);
+        }
         
         renderable.mesh.render(program, renderable.primitiveType, renderable.meshPartOffset, renderable.meshPartSize);
     }
     
     @Override
     public boolean canRender(Renderable renderable) {
-        return (renderable.environment.equals(environment) && !renderable.material.has(TextureAttribute.Diffuse) && renderable.material.has(TextureAttribute.Normal));
+        return (canRenderEnvironment(renderable) && !renderable.material.has(TextureAttribute.Diffuse) && renderable.material.has(TextureAttribute.Normal) && canRenderInstanced(renderable));
     }
 }
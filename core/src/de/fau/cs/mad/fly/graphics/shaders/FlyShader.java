@@ -154,7 +154,6 @@ public class FlyShader extends FlyBaseShader {
     
     private String VERTEX_SHADER = "shaders/vertex.glsl";
     private String FRAGMENT_SHADER = "shaders/fragment.glsl";
-    private int u_diffuseColor;
     
     public FlyShader() {
     };
@@ -168,8 +167,6 @@ public class FlyShader extends FlyBaseShader {
         // Prepare and compile the ShaderProgram
         createShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
         super.init();
-        
-        u_diffuseColor = program.getUniformLocation("u_diffuseColor");
     }
     
     @Override
@@ -179,16 +176,17 @@ public class FlyShader extends FlyBaseShader {
     
     @Override
     public boolean canRender(Renderable instance) {
-        return (instance.environment.equals(environment) && !instance.material.has(TextureAttribute.Diffuse) && !instance.material.has(TextureAttribute.Normal));
+        return (canRenderEnvironment(instance) && !instance.material.has(TextureAttribute.Diffuse) && !instance.material.has(TextureAttribute.Normal) && canRenderInstanced(instance));
     }
     
     @Override
     public void render(Renderable renderable) {
         // Set up uniforms
         super.setUpBaseUniforms(renderable);
-        program.setUniformf(u_diffuseColor, ((ColorAttribute) renderable.material.get(ColorAttribute.Diffuse)).color);
+        if (materialChanged)
+            setDiffuseColor(((ColorAttribute) renderable.material.get(ColorAttribute.Diffuse)).color);
         
         // Render the renderable
-        renderable.mesh.render(program, renderable.primitiveType, renderable.meshPartOffset, renderable.meshPartSize);
+        renderMesh(renderable);
     }
 }
\ No newline at end of file
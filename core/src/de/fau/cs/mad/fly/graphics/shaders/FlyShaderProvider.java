@@ -1,35 +1,168 @@
 package de.fau.cs.mad.fly.graphics.shaders;
 
+import java.util.Collection;
+
+import com.badlogic.gdx.graphics.g3d.Environment;
+import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.Shader;
 import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
 import com.badlogic.gdx.graphics.g3d.utils.BaseShaderProvider;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+
+import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.graphics.InstanceBatch;
+import de.fau.cs.mad.fly.graphics.InstanceData;
+import de.fau.cs.mad.fly.res.Level;
 
 /**
  * Created by tschaei on 22.07.14.
+ * <p>
+ * Shaders are cached by their variant, see {@link #getVariantKey(Renderable)}.
+ * A variant is compiled once and shared by all environments with the same
+ * number of lights. To avoid compiling shaders during the game,
+ * {@link #warmUp(Level)} builds all variants a level needs while it is
+ * loaded.
  */
 public class FlyShaderProvider extends BaseShaderProvider {
     
+    private static final int DIFFUSE_TEXTURE = 1 << 16;
+    private static final int NORMAL_TEXTURE = 1 << 17;
+    private static final int INSTANCED = 1 << 18;
+    
+    /** Shaders by their variant key. */
+    private final IntMap<Shader> variants = new IntMap<Shader>();
+    
+    /** Renderable used to build the variants in {@link #warmUp(Level)}. */
+    private final Renderable warmUpRenderable = new Renderable();
+    
+    /** Instance data that marks the warm up renderable as instanced. */
+    private final InstanceData warmUpInstanceData = new InstanceData();
+    
+    /**
+     * Calculates the key of the shader variant that renders the renderable.
+     * The key contains the number of directional and point lights of the
+     * environment, if the material has a diffuse or normal texture and if the
+     * renderable is drawn instanced.
+     * 
+     * @param renderable
+     *            The renderable to render.
+     * @return key of the shader variant
+     */
+    public static int getVariantKey(Renderable renderable) {
+        int key = renderable.environment.directionalLights.size | renderable.environment.pointLights.size << 8;
+        if (renderable.material.has(TextureAttribute.Diffuse)) {
+            key |= DIFFUSE_TEXTURE;
+        }
+        if (renderable.material.has(TextureAttribute.Normal)) {
+            key |= NORMAL_TEXTURE;
+        }
+        if (InstanceData.isInstanced(renderable)) {
+            key |= INSTANCED;
+        }
+        return key;
+    }
+    
     @Override
     public Shader getShader(Renderable renderable) {
         Shader suggestedShader = renderable.shader;
         if (suggestedShader != null && suggestedShader.canRender(renderable))
             return suggestedShader;
-        for (Shader shader : shaders) {
-            if (shader.canRender(renderable))
-                return shader;
+        final int key = getVariantKey(renderable);
+        Shader shader = variants.get(key);
+        if (shader == null) {
+            shader = createShader(renderable);
+            shader.init();
+            shaders.add(shader);
+            variants.put(key, shader);
         }
-        final Shader shader = createShader(renderable);
-        shader.init();
-        shaders.add(shader);
         return shader;
     }
     
     @Override
     protected Shader createShader(Renderable renderable) {
-        if (renderable.material.has(TextureAttribute.Diffuse)) {
+        final boolean diffuse = renderable.material.has(TextureAttribute.Diffuse);
+        if (renderable.material.has(TextureAttribute.Normal)) {
+            if (diffuse) {
+                return new FlyNormalTextureShader(renderable);
+            }
+            return new FlyNormalShader(renderable);
+        }
+        if (diffuse) {
             return new FlyTextureShader(renderable);
         }
         return new FlyShader(renderable);
     }
+    
+    /**
+     * Builds all shader variants the level needs. Every part of every
+     * dependency of the level is combined with every environment of the level,
+     * with and without instancing if it is supported.
+     * 
+     * @param level
+     *            The loaded level.
+     */
+    public void warmUp(Level level) {
+        Collection<Environment> environments = level.getEnvironments();
+        for (GameModel model : level.getDependencies()) {
+            for (Environment environment : environments) {
+                warmUp(model.display, environment);
+            }
+        }
+    }
+    
+    /**
+     * Builds all shader variants the parts of the model need in the given
+     * environment.
+     * 
+     * @param model
+     *            The model to render.
+     * @param environment
+     *            The environment to render the model with.
+     */
+    public void warmUp(Model model, Environment environment) {
+        warmUp(model.nodes, environment);
+        warmUpRenderable.environment = null;
+        warmUpRenderable.material = null;
+        warmUpRenderable.userData = null;
+    }
+    
+    private void warmUp(Array<Node> nodes, Environment environment) {
+        Node node;
+        NodePart part;
+        for (int i = 0; i < nodes.size; i++) {
+            node = nodes.get(i);
+            for (int j = 0; j < node.parts.size; j++) {
+                part = node.parts.get(j);
+                warmUpRenderable.environment = environment;
+                warmUpRenderable.material = part.material;
+                warmUpRenderable.userData = null;
+                warmUpRenderable.shader = null;
+                getShader(warmUpRenderable);
+                if (InstanceBatch.isInstancingSupported() && part.bones == null && !part.material.has(TextureAttribute.Normal)) {
+                    warmUpRenderable.userData = warmUpInstanceData;
+                    getShader(warmUpRenderable);
+                }
+            }
+            warmUp(node.children, environment);
+        }
+    }
+    
+    /**
+     * Getter for the number of compiled shader variants.
+     * 
+     * @return number of variants
+     */
+    public int getVariantCount() {
+        return variants.size;
+    }
+    
+    @Override
+    public void dispose() {
+        super.dispose();
+        variants.clear();
+    }
 }
@@ -121,12 +121,14 @@
 package de.fau.cs.mad.fly.graphics.shaders;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.VertexAttributes;
 import com.badlogic.gdx.graphics.g3d.Renderable;
 import com.badlogic.gdx.graphics.g3d.Shader;
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.badlogic.gdx.graphics.g3d.utils.RenderContext;
 
 import javax.swing.text.AttributeSet;
 
@@ -134,7 +136,7 @@ public class FlyTextureShader extends FlyBaseShader {
     
     private String VERTEX_SHADER = "shaders/vertex.glsl";
     private String FRAGMENT_SHADER = "shaders/texture.fragment.glsl";
-    private int texture1, u_diffuseColor;
+    private int texture1;
     
     public FlyTextureShader(Renderable renderable) {
         super(renderable);
@@ -147,10 +149,15 @@ public class FlyTextureShader extends FlyBaseShader {
         
         super.init();
 
-        u_diffuseColor = program.getUniformLocation("u_diffuseColor");
         texture1 = program.getUniformLocation("texture1");
     }
     
+    @Override
+    public void begin(Camera camera, RenderContext context) {
+        super.begin(camera, context);
+        setUniformi(texture1, 0);
+    }
+    
     @Override
     public int compareTo(Shader other) {
         return 0;
@@ -158,20 +165,21 @@ public class FlyTextureShader extends FlyBaseShader {
     
     @Override
     public boolean canRender(Renderable instance) {
-        return (instance.environment.equals(environment) && instance.material.has(TextureAttribute.Diffuse) && !instance.material.has(TextureAttribute.Normal));
+        return (canRenderEnvironment(instance) && instance.material.has(TextureAttribute.Diffuse) && !instance.material.has(TextureAttribute.Normal) && canRenderInstanced(instance));
     }
     
     @Override
     public void render(Renderable renderable) {
         // Set up uniforms
         super.setUpBaseUniforms(renderable);
-        if(renderable.material.has(ColorAttribute.Diffuse))
-            program.setUniformf(u_diffuseColor, ((ColorAttribute) renderable.material.get(ColorAttribute.Diffuse)).color);
-        else
-            program.setUniformf(u_diffuseColor, Color.BLACK);
-        // Bind texture
-        ((TextureAttribute) renderable.material.get(TextureAttribute.Diffuse)).textureDescription.texture.bind(0);
-        program.setUniformi(texture1, 0);
-        renderable.mesh.render(program, renderable.primitiveType, renderable.meshPartOffset, renderable.meshPartSize);
+        if (materialChanged) {
+            if(renderable.material.has(ColorAttribute.Diffuse))
+                setDiffuseColor(((ColorAttribute) renderable.material.get(ColorAttribute.Diffuse)).color);
+            else
+                setDiffuseColor(Color.BLACK);
+            // Bind texture
+            bindTexture(((TextureAttribute) renderable.material.get(TextureAttribute.Diffuse)).textureDescription.texture, 0);
+        }
+        renderMesh(renderable);
     }
 }
@@ -5,10 +5,11 @@ import java.util.List;
 import com.badlogic.gdx.math.Vector3;
 
 import de.fau.cs.mad.fly.I18n;
-import de.fau.cs.mad.fly.features.ICollisionListener;
+import de.fau.cs.mad.fly.features.ICollisionCategoryListener;
 import de.fau.cs.mad.fly.features.IFeatureInit;
 import de.fau.cs.mad.fly.features.overlay.InfoOverlay;
 import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
+import de.fau.cs.mad.fly.game.CollisionDetector;
 import de.fau.cs.mad.fly.game.GameController;
 import de.fau.cs.mad.fly.game.GameControllerBuilder;
 import de.fau.cs.mad.fly.game.GameObject;
@@ -21,7 +22,7 @@ import de.fau.cs.mad.fly.res.GateGoal;
  * @author Tobi
  * 
  */
-public class ResizeGatesTutorial implements ILevel, IFeatureInit, ICollisionListener {
+public class ResizeGatesTutorial implements ILevel, IFeatureInit, ICollisionCategoryListener {
     
     @Override
     public void create(GameControllerBuilder builder) {
@@ -37,17 +38,24 @@ public class ResizeGatesTutorial implements ILevel, IFeatureInit, ICollisionList
         for (GateGoal g : game.getLevel().getGateCircuit().allGateGoals()) {
             if (g.getDisplay() != null) {
                 g.getDisplay().transform.scl(scale);
+                g.getDisplay().invalidateBounds();
                 g.getDisplay().transform.getScale(scaling);
                 g.getDisplay().getRigidBody().getCollisionShape().setLocalScaling(scaling);
             }
             g.transform.scl(scale);
+            g.invalidateBounds();
             g.transform.getScale(scaling);
-            g.getRigidBody().getCollisionShape().setLocalScaling(scaling);
+            g.getCollisionObject().getCollisionShape().setLocalScaling(scaling);
         }
         
         InfoOverlay.getInstance().setOverlay(I18n.tLevel("tutorial.resize"), 5);
     }
     
+    @Override
+    public int getCollisionCategories() {
+        return CollisionDetector.COLLECTIBLE_CATEGORY;
+    }
+    
     @Override
     public void onCollision(GameObject g1, GameObject g2) {
         if (!(g2 instanceof Collectible)) {
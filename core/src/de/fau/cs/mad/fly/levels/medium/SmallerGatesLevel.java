@@ -30,12 +30,14 @@ public class SmallerGatesLevel implements ILevel, IFeatureInit {
         for (GateGoal g : game.getLevel().getGateCircuit().allGateGoals()) {
             if (g.getDisplay() != null) {
                 g.getDisplay().transform.scl(scale);
+                g.getDisplay().invalidateBounds();
                 g.getDisplay().transform.getScale(scaling);
                 g.getDisplay().getRigidBody().getCollisionShape().setLocalScaling(scaling);
             }
             g.transform.scl(scale);
+            g.invalidateBounds();
             g.transform.getScale(scaling);
-            g.getRigidBody().getCollisionShape().setLocalScaling(scaling);
+            g.getCollisionObject().getCollisionShape().setLocalScaling(scaling);
         }
         
         InfoOverlay.getInstance().setOverlay(I18n.tLevel("gates.smaller"), 5);
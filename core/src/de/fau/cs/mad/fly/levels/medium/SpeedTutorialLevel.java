@@ -3,10 +3,11 @@ package de.fau.cs.mad.fly.levels.medium;
 import java.util.List;
 
 import de.fau.cs.mad.fly.I18n;
-import de.fau.cs.mad.fly.features.ICollisionListener;
+import de.fau.cs.mad.fly.features.ICollisionCategoryListener;
 import de.fau.cs.mad.fly.features.IFeatureInit;
 import de.fau.cs.mad.fly.features.overlay.InfoOverlay;
 import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
+import de.fau.cs.mad.fly.game.CollisionDetector;
 import de.fau.cs.mad.fly.game.GameController;
 import de.fau.cs.mad.fly.game.GameControllerBuilder;
 import de.fau.cs.mad.fly.game.GameObject;
@@ -18,7 +19,7 @@ import de.fau.cs.mad.fly.levels.ILevel;
  * @author Tobi
  * 
  */
-public class SpeedTutorialLevel implements ILevel, IFeatureInit, ICollisionListener {
+public class SpeedTutorialLevel implements ILevel, IFeatureInit, ICollisionCategoryListener {
     
     @Override
     public void create(GameControllerBuilder builder) {
@@ -30,6 +31,11 @@ public class SpeedTutorialLevel implements ILevel, IFeatureInit, ICollisionListe
         InfoOverlay.getInstance().setOverlay(I18n.tLevel("tutorial.speed"), 5);
     }
     
+    @Override
+    public int getCollisionCategories() {
+        return CollisionDetector.COLLECTIBLE_CATEGORY;
+    }
+    
     @Override
     public void onCollision(GameObject g1, GameObject g2) {
         if (!(g2 instanceof Collectible)) {
@@ -9,7 +9,9 @@ import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
 
+import de.fau.cs.mad.fly.features.IFeatureParallelUpdate;
 import de.fau.cs.mad.fly.game.CollisionDetector;
+import de.fau.cs.mad.fly.game.FeatureScheduler;
 import de.fau.cs.mad.fly.game.GameController;
 import de.fau.cs.mad.fly.game.GameModel;
 import de.fau.cs.mad.fly.game.GameObject;
@@ -19,7 +21,7 @@ import de.fau.cs.mad.fly.player.particle.IParticle;
 import de.fau.cs.mad.fly.player.particle.ShuttleParticle;
 import de.fau.cs.mad.fly.res.Perspective;
 
-public class Spaceship extends GameObject implements IPlane {
+public class Spaceship extends GameObject implements IPlane, IFeatureParallelUpdate {
     private GameController gameController;
     private ModelBatch batch;
     private Environment environment;
@@ -30,7 +32,7 @@ public class Spaceship extends GameObject implements IPlane {
     private Matrix4 startTransform;
     
     private Vector3 particleOffset = null;
-    private Matrix4 particleTransform;
+    private final Matrix4 particleTransform = new Matrix4();
     
     private IParticle particle;
     
@@ -44,6 +46,8 @@ public class Spaceship extends GameObject implements IPlane {
     
     private Vector3 movingDir = new Vector3(0, 0, 1);
     private final Vector3 up = new Vector3(0, 1, 0);
+    /** Axis for rolling, computed once to avoid allocations per frame. */
+    private final Vector3 rollAxis = new Vector3(movingDir).crs(up);
     Vector3 linearMovement;
     
     private float lastRoll = 0.f;
@@ -60,6 +64,7 @@ public class Spaceship extends GameObject implements IPlane {
     
     public Spaceship(GameModel model, IPlane.Head head) {
         super(model, "Spaceship");
+        setCollisionType(CollisionDetector.PLAYER_CATEGORY);
         this.head = head;
 
         this.baseSpeed = head.speed / 5;
@@ -104,8 +109,8 @@ public class Spaceship extends GameObject implements IPlane {
         Gdx.app.log("Spaceship.load", "Creating collision shape...");
         btCollisionShape shape = CollisionDetector.getInstance().getShapeManager().createConvexShape(modelRef, this);
         
-        Gdx.app.log("Spaceship.load", "Scaling bounding box...");
-        scaleFrustumBoundingBox();
+        Gdx.app.log("Spaceship.load", "Updating bounding box...");
+        invalidateBounds();
         createRigidBody(modelRef, shape, 1.0f, CollisionDetector.PLAYER_FLAG, CollisionDetector.ALL_FLAG);
         Gdx.app.log("Spaceship.load", "Adding motion state...");
         addMotionState();
@@ -127,20 +132,22 @@ public class Spaceship extends GameObject implements IPlane {
         displayTransform.set(transform);
         transform = displayTransform;
         
-        transform.rotate(movingDir.cpy().crs(up), rollDir);
+        transform.rotate(rollAxis, rollDir);
         transform.rotate(movingDir, -azimuthDir);
         
         if (rotation != null) {
             transform.rotate(rotation, i * rotationSpeed);
         }
+        invalidateBounds();
         
         render(batch, environment, camera);
         
-        particleTransform = transform.cpy();
+        particleTransform.set(transform);
         particleTransform.translate(particleOffset);
         particle.render(particleTransform);
         
         transform = storedTransform;
+        invalidateBounds();
         
         i += delta;
     }
@@ -204,7 +211,7 @@ public class Spaceship extends GameObject implements IPlane {
     @Override
     public void rotate(float rollDir, float azimuthDir, float deltaFactor) {
         rotationTransform = getRigidBody().getCenterOfMassTransform();
-        rotationTransform.rotate(movingDir.cpy().crs(up), rollDir * deltaFactor).rotate(up, azimuthDir * deltaFactor);
+        rotationTransform.rotate(rollAxis, rollDir * deltaFactor).rotate(up, azimuthDir * deltaFactor);
         getRigidBody().setCenterOfMassTransform(rotationTransform);
         
         float[] transformValues = rotationTransform.getValues();
@@ -252,6 +259,12 @@ public class Spaceship extends GameObject implements IPlane {
     	getRigidBody().setCenterOfMassTransform(rotationTransform);
     }
     
+    @Override
+    public int getSharedState() {
+        // the plane is moved by the flight controller, not by its update
+        return FeatureScheduler.PLAYER_STATE;
+    }
+    
     @Override
     public void update(float delta) {
         // TODO Auto-generated method stub
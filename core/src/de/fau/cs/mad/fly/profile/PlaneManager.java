@@ -9,8 +9,10 @@ import com.badlogic.gdx.Preferences;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.sql.RowMapper;
 import com.badlogic.gdx.utils.JsonReader;
 import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectIntMap;
 
 import de.fau.cs.mad.fly.db.FlyDBManager;
 import de.fau.cs.mad.fly.player.IPlane;
@@ -31,6 +33,15 @@ public class PlaneManager {
     private Map<Integer, IPlane.Head> planes;
     private IPlane.Head chosenPlane;
     
+    /** Puts a row of upgrade name and count into the map. */
+    private static final RowMapper<Map<String, Integer>> COUNT_ROWS = new RowMapper<Map<String, Integer>>() {
+        @Override
+        public boolean map(DatabaseCursor row, Map<String, Integer> counts) {
+            counts.put(row.getString(0), row.getInt(1));
+            return true;
+        }
+    };
+    
     private static PlaneManager Instance = new PlaneManager();
     
     public static PlaneManager getInstance() {
@@ -104,64 +115,63 @@ public class PlaneManager {
 			planeHead.getUpgradesBought().clear();
 			planeHead.getUpgradesEquiped().clear();
 
-			Map<String, Integer> upgradeDB = getUpgradesFromDB(planeHead.id);
-			Map<String, Integer> equipedDB = getEquipedsFromDB(planeHead.id);
+			// read from the cache instead of two queries per plane
+			ObjectIntMap<String> upgradeDB = ProfileCache.getInstance().getUpgrades(playerID, planeHead.id);
+			ObjectIntMap<String> equipedDB = ProfileCache.getInstance().getEquiped(playerID, planeHead.id);
 
 
 			for (PlaneUpgrade upgrade : upgrades) {
-				Integer upgradeAmount = upgradeDB.get(upgrade.name);
-				if (upgradeAmount != null)
-					planeHead.getUpgradesBought().put(upgrade.name, upgradeAmount);
+				if (upgradeDB != null)
+					planeHead.getUpgradesBought().put(upgrade.name, upgradeDB.get(upgrade.name, 0));
 				else
 					planeHead.getUpgradesBought().put(upgrade.name, 0);
 				planeHead.getUpgradesEquiped().put(upgrade.name, 0);
-				Integer equippedAmount = equipedDB.get(upgrade.name);
-				if (equippedAmount != null)
-					upgradePlane(planeHead, upgrade.name, equippedAmount);
+				if (equipedDB != null && equipedDB.containsKey(upgrade.name))
+					upgradePlane(planeHead, upgrade.name, equipedDB.get(upgrade.name, 0));
 			}
 		}
 	}
     
     public Map<String, Integer> getEquipedsFromDB(int planeID) {
         Map<String, Integer> result = new HashMap<String, Integer>();
-        String sql = "select equiped_name, _count from fly_plane_Equiped where player_id=" + PlayerProfileManager.getInstance().getCurrentPlayerProfile().getId() + " and plane_id=" + planeID;
-        DatabaseCursor cursor = FlyDBManager.getInstance().selectData(sql);
-		if (cursor != null && cursor.getCount() > 0) {
-			while (cursor.next()) {
-				result.put(cursor.getString(0), cursor.getInt(1));
-			}
-			cursor.close();
-		}
+        String sql = "select equiped_name, _count from fly_plane_Equiped where player_id=? and plane_id=?";
+        FlyDBManager.getInstance().queryRows(sql, COUNT_ROWS, result, PlayerProfileManager.getInstance().getCurrentPlayerProfile().getId(), planeID);
         return result;
     }
     
     public Map<String, Integer> getUpgradesFromDB(int planeID) {
         Map<String, Integer> result = new HashMap<String, Integer>();
-        String sql = "select update_name, _count from fly_plane_upgrade where player_id=" + PlayerProfileManager.getInstance().getCurrentPlayerProfile().getId() + " and plane_id=" + planeID;
-        DatabaseCursor cursor = FlyDBManager.getInstance().selectData(sql);
-		if (cursor != null && cursor.getCount() > 0) {
-			while (cursor.next()) {
-				result.put(cursor.getString(0), cursor.getInt(1));
-			}
-			cursor.close();
-		}
+        String sql = "select update_name, _count from fly_plane_upgrade where player_id=? and plane_id=?";
+        FlyDBManager.getInstance().queryRows(sql, COUNT_ROWS, result, PlayerProfileManager.getInstance().getCurrentPlayerProfile().getId(), planeID);
         return result;
     }
     
-    public void updateEquiped(int planeID, String name, int newValue) {
-        int playerId = PlayerProfileManager.getInstance().getCurrentPlayerProfile().getId();
-        String sql = "delete from fly_plane_Equiped where player_id=" + playerId + " and equiped_name='" + name + "' and plane_id=" + planeID;
-        String insert = "insert into fly_plane_Equiped(player_id, plane_id, equiped_name, _count ) values (" + playerId + ", " + planeID + ",'" + name + "'," + newValue + ")";
-        FlyDBManager.getInstance().execSQL(sql);
-        FlyDBManager.getInstance().execSQL(insert);
+    public void updateEquiped(final int planeID, final String name, final int newValue) {
+        final int playerId = PlayerProfileManager.getInstance().getCurrentPlayerProfile().getId();
+        ProfileCache.getInstance().putEquiped(playerId, planeID, name, newValue);
+        FlyDBManager.getInstance().runLater("equiped " + playerId + " " + planeID + " " + name, new Runnable() {
+            @Override
+            public void run() {
+                String sql = "delete from fly_plane_Equiped where player_id=? and equiped_name=? and plane_id=?";
+                String insert = "insert into fly_plane_Equiped(player_id, plane_id, equiped_name, _count ) values (?, ?, ?, ?)";
+                FlyDBManager.getInstance().execute(sql, playerId, name, planeID);
+                FlyDBManager.getInstance().execute(insert, playerId, planeID, name, newValue);
+            }
+        }, "fly_plane_Equiped");
     }
     
-    public void updateUpdate(int planeID, String name, int newValue) {
-        int playerId = PlayerProfileManager.getInstance().getCurrentPlayerProfile().getId();
-        String sql = "delete from fly_plane_upgrade where player_id=" + playerId + " and update_name='" + name + "' and plane_id=" + planeID;
-        String insert = "insert into fly_plane_upgrade(player_id, plane_id, update_name, _count ) values (" + playerId + ", " + planeID + ",'" + name + "'," + newValue + ")";
-        FlyDBManager.getInstance().execSQL(sql);
-        FlyDBManager.getInstance().execSQL(insert);
+    public void updateUpdate(final int planeID, final String name, final int newValue) {
+        final int playerId = PlayerProfileManager.getInstance().getCurrentPlayerProfile().getId();
+        ProfileCache.getInstance().putUpgrade(playerId, planeID, name, newValue);
+        FlyDBManager.getInstance().runLater("upgrade " + playerId + " " + planeID + " " + name, new Runnable() {
+            @Override
+            public void run() {
+                String sql = "delete from fly_plane_upgrade where player_id=? and update_name=? and plane_id=?";
+                String insert = "insert into fly_plane_upgrade(player_id, plane_id, update_name, _count ) values (?, ?, ?, ?)";
+                FlyDBManager.getInstance().execute(sql, playerId, name, planeID);
+                FlyDBManager.getInstance().execute(insert, playerId, planeID, name, newValue);
+            }
+        }, "fly_plane_upgrade");
     }
     
     public int getUpgradeType(String name) {
@@ -2,9 +2,6 @@ package de.fau.cs.mad.fly.profile;
 
 import java.util.List;
 
-import com.badlogic.gdx.sql.DatabaseCursor;
-
-import de.fau.cs.mad.fly.db.FlyDBManager;
 import de.fau.cs.mad.fly.player.IPlane;
 import de.fau.cs.mad.fly.settings.SettingManager;
 
@@ -140,13 +137,7 @@ public class PlayerProfile {
      * @return the totalScoreOfAll, solution A
      */
     public int getTotalScoreOfAll() {
-        String selectSQL = "select sum(score) from score where player_id=" + this.getId();
-        DatabaseCursor cursor = FlyDBManager.getInstance().selectData(selectSQL);
-        if (cursor != null && cursor.getCount() > 0) {
-            cursor.next();
-            totalScoreOfAll = cursor.getInt(0);
-            cursor.close();
-        }
+        totalScoreOfAll = ProfileCache.getInstance().getTotalScore(this.getId());
         return totalScoreOfAll;
     }
     
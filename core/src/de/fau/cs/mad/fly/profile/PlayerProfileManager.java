@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.sql.RowMapper;
 
 import de.fau.cs.mad.fly.I18n;
 import de.fau.cs.mad.fly.HttpClient.PutUserHttpRespListener;
@@ -20,6 +21,30 @@ public class PlayerProfileManager {
     
     private PlayerProfile currentPlayerProfile;
     private List<PlayerProfile> playerProfiles;
+    
+    /**
+     * Adds a profile for a row of the player table to the list. Initialized
+     * before {@link #Instance}, whose constructor reads the players.
+     */
+    private static final RowMapper<List<PlayerProfile>> PLAYER_ROWS = new RowMapper<List<PlayerProfile>>() {
+        @Override
+        public boolean map(DatabaseCursor row, List<PlayerProfile> players) {
+            PlayerProfile playerProfile = new PlayerProfile();
+            playerProfile.setId(row.getInt(0));
+            playerProfile.setFlyID(row.getInt(1));
+            playerProfile.setName(row.getString(2));
+            playerProfile.setMoney(row.getInt(3));
+            playerProfile.setCurrentLevelGroup(LevelGroupManager.getInstance().getLevelGroup(row.getInt(5)));
+            playerProfile.setCurrentLevelProfile(row.getInt(6));
+            playerProfile.setPassedLevelgroupID(row.getInt(7));
+            playerProfile.setPassedLevelID(row.getInt(8));
+            playerProfile.setSecretKey(row.getString(9));
+            playerProfile.setNewnameUploaded(row.getInt(10) > 0);
+            players.add(playerProfile);
+            return true;
+        }
+    };
+    
     private static PlayerProfileManager Instance = new PlayerProfileManager();
     private List<ChangeListener<PlayerProfile>> playerProfileChangeListener;
     
@@ -106,10 +131,10 @@ public class PlayerProfileManager {
     }
     
     public PlayerProfile getPlayerfromDB(int userID) {
-        final String selectSQL = "select player_id, fly_id,name from player where player_id =" + userID;
+        final String selectSQL = "select player_id, fly_id,name from player where player_id=?";
         PlayerProfile playerProfile = null;
         
-        DatabaseCursor cursor = FlyDBManager.getInstance().selectData(selectSQL);
+        DatabaseCursor cursor = FlyDBManager.getInstance().query(selectSQL, userID);
         if (cursor != null && cursor.getCount() > 0) {
             cursor.next();
             playerProfile = new PlayerProfile();
@@ -130,33 +155,20 @@ public class PlayerProfileManager {
         playerProfiles = new ArrayList<PlayerProfile>();
         final String selectSQL = "select player_id,fly_id,name,total_score,total_geld,current_levelgroup_id,current_level_id,passed_levelgroup_id,passed_level_id,secret_key,is_newname_uploaded from player";
         
-        DatabaseCursor cursor = FlyDBManager.getInstance().selectData(selectSQL);
-        
-        if (cursor != null && cursor.getCount() > 0) {
-            while (cursor.next()) {
-                PlayerProfile playerProfile = new PlayerProfile();
-                playerProfile.setId(cursor.getInt(0));
-                playerProfile.setFlyID(cursor.getInt(1));
-                playerProfile.setName(cursor.getString(2));
-                playerProfile.setMoney(cursor.getInt(3));
-                playerProfile.setCurrentLevelGroup(LevelGroupManager.getInstance().getLevelGroup(cursor.getInt(5)));
-                playerProfile.setCurrentLevelProfile(cursor.getInt(6));
-                playerProfile.setPassedLevelgroupID(cursor.getInt(7));
-                playerProfile.setPassedLevelID(cursor.getInt(8));
-				playerProfile.setSecretKey(cursor.getString(9));
-				playerProfile.setNewnameUploaded(cursor.getInt(10)>0);
-
-                playerProfiles.add(playerProfile);
-            }
-            cursor.close();
-        }
+        FlyDBManager.getInstance().queryRows(selectSQL, PLAYER_ROWS, playerProfiles);
     }
     
-    private void addNewPlayerToDatabase(PlayerProfile playerProfile) {
-        int newID = getMaxPlayerID() + 1;
-        playerProfile.setId(newID);
-        final String insertSQL = "insert into player (player_id, name) values (" + playerProfile.getId() + " , '" + playerProfile.getName() + "')";
-        FlyDBManager.getInstance().execSQL(insertSQL);
+    private void addNewPlayerToDatabase(final PlayerProfile playerProfile) {
+        // no other player may get the same id in between
+        FlyDBManager.getInstance().runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                int newID = getMaxPlayerID() + 1;
+                playerProfile.setId(newID);
+                final String insertSQL = "insert into player (player_id, name) values (?, ?)";
+                FlyDBManager.getInstance().execute(insertSQL, playerProfile.getId(), playerProfile.getName());
+            }
+        }, "player");
     }
     
     private int getMaxPlayerID() {
@@ -174,21 +186,29 @@ public class PlayerProfileManager {
     
     public void saveFlyID(PlayerProfile playerProfile) {
 
-        final String sql = "update player set fly_id=" + playerProfile.getFlyID() + " where player_id=" + playerProfile.getId();
+        final String sql = "update player set fly_id=? where player_id=?";
 
-        FlyDBManager.getInstance().execSQL(sql);
+        FlyDBManager.getInstance().executeLater(playerColumnKey(playerProfile, "fly_id"), sql, playerProfile.getFlyID(), playerProfile.getId());
     }
 
 
 	public void saveSecretKey(PlayerProfile profile) {
-		final String sql = "update player set secret_key='" + profile.getSecretKey() + "' where player_id=" + profile.getId();
+		final String sql = "update player set secret_key=? where player_id=?";
 
-		FlyDBManager.getInstance().execSQL(sql);
+		FlyDBManager.getInstance().executeLater(playerColumnKey(profile, "secret_key"), sql, profile.getSecretKey(), profile.getId());
 	}
     
     public void updateIntColumn(PlayerProfile playerProfile, String colname, int newValue) {
-        final String sql = "update player set " + colname + "=" + newValue + " where player_id=" + playerProfile.getId();
-        FlyDBManager.getInstance().execSQL(sql);
+        final String sql = "update player set " + colname + "=? where player_id=?";
+        FlyDBManager.getInstance().executeLater(playerColumnKey(playerProfile, colname), sql, newValue, playerProfile.getId());
+    }
+    
+    /**
+     * Key of the pending write of a column of the player, so that only its
+     * last value is written.
+     */
+    private String playerColumnKey(PlayerProfile playerProfile, String colname) {
+        return "player " + playerProfile.getId() + " " + colname;
     }
     
     /**
@@ -215,8 +235,8 @@ public class PlayerProfileManager {
     }
     
     public void updateStringColumn(PlayerProfile playerProfile, String colname, String newValue) {
-        final String sql = "update player set " + colname + "='" + newValue + "' where player_id=" + playerProfile.getId();
-        FlyDBManager.getInstance().execSQL(sql);
+        final String sql = "update player set " + colname + "=? where player_id=?";
+        FlyDBManager.getInstance().executeLater(playerColumnKey(playerProfile, colname), sql, newValue, playerProfile.getId());
     }
     
     public void deletePlayerProfile() {
@@ -224,14 +244,18 @@ public class PlayerProfileManager {
     }
     
     public void deletePlayerProfile(PlayerProfile playerProfile) {
-        final String sql = "delete from player where player_id=" + playerProfile.getId();
-        final String sql1 = "delete from score where player_id=" + playerProfile.getId();
-        final String sql2 = "delete from fly_plane_Equiped where player_id=" + playerProfile.getId();
-        final String sql3 = "delete from fly_plane_upgrade where player_id=" + playerProfile.getId();
-        FlyDBManager.getInstance().execSQL(sql);
-        FlyDBManager.getInstance().execSQL(sql1);
-        FlyDBManager.getInstance().execSQL(sql2);
-        FlyDBManager.getInstance().execSQL(sql3);
+        final int playerId = playerProfile.getId();
+        ProfileCache.getInstance().invalidate(playerId);
+        // either the player and all his data is deleted or nothing
+        FlyDBManager.getInstance().runLater(null, new Runnable() {
+            @Override
+            public void run() {
+                FlyDBManager.getInstance().execute("delete from player where player_id=?", playerId);
+                FlyDBManager.getInstance().execute("delete from score where player_id=?", playerId);
+                FlyDBManager.getInstance().execute("delete from fly_plane_Equiped where player_id=?", playerId);
+                FlyDBManager.getInstance().execute("delete from fly_plane_upgrade where player_id=?", playerId);
+            }
+        }, "player", "score", "fly_plane_Equiped", "fly_plane_upgrade");
         
         if (playerProfile == this.getCurrentPlayerProfile()) {
             this.getAllPlayerProfiles().remove(playerProfile);
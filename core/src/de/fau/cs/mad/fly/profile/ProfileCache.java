@@ -0,0 +1,263 @@
+package de.fau.cs.mad.fly.profile;
+
+import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.sql.RowMapper;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import de.fau.cs.mad.fly.db.FlyDBManager;
+
+/**
+ * Keeps the best scores, the equipped and the bought upgrades of one player in
+ * memory, so that menus and overlays do not read the database.
+ * <p>
+ * The data of a player is read with one query per table, when it is needed
+ * for the first time. It stays cached until the data of another player is
+ * needed or the player is deleted. The total score of the player is kept up
+ * to date with every new best score. {@link ScoreManager} and
+ * {@link PlaneManager} update the cache whenever they write to the database.
+ * The scores are handed out as copies, the cached maps of the upgrades must
+ * not be changed by anyone else.
+ */
+public class ProfileCache {
+    
+    /** Puts a row of the score table into the cache. */
+    private static final RowMapper<ProfileCache> SCORE_ROWS = new RowMapper<ProfileCache>() {
+        @Override
+        public boolean map(DatabaseCursor row, ProfileCache cache) {
+            Score score = new Score();
+            score.setTotalScore(row.getInt(2));
+            score.setCompareScore(row.getString(3));
+            score.setIsUploaded(row.getInt(4) > 0);
+            score.setServerScoreId(row.getInt(5));
+            cache.putScore(row.getInt(0), row.getInt(1), score);
+            return true;
+        }
+    };
+    
+    /** Puts a row of plane id, upgrade name and count into the planes. */
+    private static final RowMapper<IntMap<ObjectIntMap<String>>> UPGRADE_ROWS = new RowMapper<IntMap<ObjectIntMap<String>>>() {
+        @Override
+        public boolean map(DatabaseCursor row, IntMap<ObjectIntMap<String>> planes) {
+            put(planes, row.getInt(0), row.getString(1), row.getInt(2));
+            return true;
+        }
+    };
+    
+    private static ProfileCache Instance = new ProfileCache();
+    
+    public static ProfileCache getInstance() {
+        return Instance;
+    }
+    
+    /** The id of the player whose data is cached, -1 if none is cached. */
+    private int playerId = -1;
+    
+    /** The best scores by the level group id and the level id. */
+    private final IntMap<IntMap<Score>> scores = new IntMap<IntMap<Score>>();
+    
+    /** Sum of the best scores of all levels. */
+    private int totalScore = 0;
+    
+    /** The number of equipped upgrades by plane id and upgrade name. */
+    private final IntMap<ObjectIntMap<String>> equiped = new IntMap<ObjectIntMap<String>>();
+    
+    /** The number of bought upgrades by plane id and upgrade name. */
+    private final IntMap<ObjectIntMap<String>> upgrades = new IntMap<ObjectIntMap<String>>();
+    
+    /** Number of players whose data was read from the database. */
+    private int loads = 0;
+    
+    protected ProfileCache() {
+    }
+    
+    /**
+     * Getter for the best score of a level.
+     * 
+     * @return a copy of the best score, null if the level was not finished
+     *         yet
+     */
+    public synchronized Score getBestScore(int playerId, int levelGroupId, int levelId) {
+        Score score = getCachedScore(playerId, levelGroupId, levelId);
+        return score == null ? null : copy(score);
+    }
+    
+    /**
+     * Getter for the best scores of all levels of a level group.
+     * 
+     * @return copies of the best scores by level id, null if no level of the
+     *         group was finished yet
+     */
+    public synchronized IntMap<Score> getBestScores(int playerId, int levelGroupId) {
+        ensureLoaded(playerId);
+        IntMap<Score> group = scores.get(levelGroupId);
+        if (group == null) {
+            return null;
+        }
+        IntMap<Score> copies = new IntMap<Score>(group.size);
+        for (IntMap.Entry<Score> entry : group.entries()) {
+            copies.put(entry.key, copy(entry.value));
+        }
+        return copies;
+    }
+    
+    /**
+     * Getter for the sum of the best scores of all levels.
+     */
+    public synchronized int getTotalScore(int playerId) {
+        ensureLoaded(playerId);
+        return totalScore;
+    }
+    
+    /**
+     * Sets the best score of a level. A copy of the score is cached, so that
+     * later changes of the score are not cached.
+     */
+    public synchronized void putBestScore(int playerId, int levelGroupId, int levelId, Score score) {
+        ensureLoaded(playerId);
+        putScore(levelGroupId, levelId, copy(score));
+    }
+    
+    /**
+     * Sets whether the best score of a level is uploaded.
+     */
+    public synchronized void setUploaded(int playerId, int levelGroupId, int levelId, boolean uploaded) {
+        Score score = getCachedScore(playerId, levelGroupId, levelId);
+        if (score != null) {
+            score.setIsUploaded(uploaded);
+        }
+    }
+    
+    /**
+     * Sets the id of the best score of a level on the server.
+     */
+    public synchronized void setServerScoreId(int playerId, int levelGroupId, int levelId, int serverScoreId) {
+        Score score = getCachedScore(playerId, levelGroupId, levelId);
+        if (score != null) {
+            score.setServerScoreId(serverScoreId);
+        }
+    }
+    
+    /**
+     * Getter for the number of equipped upgrades of a plane.
+     * 
+     * @return the number by upgrade name, null if no upgrade was equipped yet
+     */
+    public synchronized ObjectIntMap<String> getEquiped(int playerId, int planeId) {
+        ensureLoaded(playerId);
+        return equiped.get(planeId);
+    }
+    
+    /**
+     * Getter for the number of bought upgrades of a plane.
+     * 
+     * @return the number by upgrade name, null if no upgrade was bought yet
+     */
+    public synchronized ObjectIntMap<String> getUpgrades(int playerId, int planeId) {
+        ensureLoaded(playerId);
+        return upgrades.get(planeId);
+    }
+    
+    /**
+     * Sets the number of equipped upgrades of a plane.
+     */
+    public synchronized void putEquiped(int playerId, int planeId, String name, int count) {
+        ensureLoaded(playerId);
+        put(equiped, planeId, name, count);
+    }
+    
+    /**
+     * Sets the number of bought upgrades of a plane.
+     */
+    public synchronized void putUpgrade(int playerId, int planeId, String name, int count) {
+        ensureLoaded(playerId);
+        put(upgrades, planeId, name, count);
+    }
+    
+    /**
+     * Removes the cached data of a player, e.g. after the player is deleted.
+     */
+    public synchronized void invalidate(int playerId) {
+        if (this.playerId == playerId) {
+            clear();
+        }
+    }
+    
+    /**
+     * Getter for the number of players whose data was read from the database.
+     */
+    public synchronized int getLoads() {
+        return loads;
+    }
+    
+    private void ensureLoaded(int playerId) {
+        if (this.playerId != playerId) {
+            clear();
+            this.playerId = playerId;
+            loads++;
+            load(playerId);
+        }
+    }
+    
+    private void clear() {
+        playerId = -1;
+        scores.clear();
+        totalScore = 0;
+        equiped.clear();
+        upgrades.clear();
+    }
+    
+    /**
+     * Reads the data of a player from the database.
+     */
+    protected void load(int playerId) {
+        FlyDBManager db = FlyDBManager.getInstance();
+        db.queryRows("select level_group_id, level_id, score, compare_score, is_uploaded, server_score_id from score where player_id=?", SCORE_ROWS, this, playerId);
+        db.queryRows("select plane_id, equiped_name, _count from fly_plane_Equiped where player_id=?", UPGRADE_ROWS, equiped, playerId);
+        db.queryRows("select plane_id, update_name, _count from fly_plane_upgrade where player_id=?", UPGRADE_ROWS, upgrades, playerId);
+    }
+    
+    private void putScore(int levelGroupId, int levelId, Score score) {
+        IntMap<Score> group = scores.get(levelGroupId);
+        if (group == null) {
+            group = new IntMap<Score>();
+            scores.put(levelGroupId, group);
+        }
+        Score old = group.put(levelId, score);
+        if (old != null) {
+            totalScore -= old.getTotalScore();
+        }
+        totalScore += score.getTotalScore();
+    }
+    
+    private static void put(IntMap<ObjectIntMap<String>> planes, int planeId, String name, int count) {
+        ObjectIntMap<String> plane = planes.get(planeId);
+        if (plane == null) {
+            plane = new ObjectIntMap<String>();
+            planes.put(planeId, plane);
+        }
+        plane.put(name, count);
+    }
+    
+    /**
+     * Getter for the cached best score of a level, which is changed by the
+     * cache only.
+     */
+    private Score getCachedScore(int playerId, int levelGroupId, int levelId) {
+        ensureLoaded(playerId);
+        IntMap<Score> group = scores.get(levelGroupId);
+        return group == null ? null : group.get(levelId);
+    }
+    
+    /**
+     * Copies the part of the score that is stored in the database.
+     */
+    private static Score copy(Score score) {
+        Score copy = new Score();
+        copy.setTotalScore(score.getTotalScore());
+        copy.setCompareScore(score.getCompareScore());
+        copy.setIsUploaded(score.isUploaded());
+        copy.setServerScoreId(score.getServerScoreId());
+        return copy;
+    }
+}
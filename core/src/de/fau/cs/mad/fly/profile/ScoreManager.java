@@ -3,8 +3,7 @@ package de.fau.cs.mad.fly.profile;
 import java.util.HashMap;
 import java.util.Map;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.utils.IntMap;
 
 import de.fau.cs.mad.fly.db.FlyDBManager;
 
@@ -15,6 +14,9 @@ import de.fau.cs.mad.fly.db.FlyDBManager;
  */
 public class ScoreManager {
     
+    /** Replaces the score of the level, see the primary key of the table. */
+    private static final String UPSERT_SCORE = "insert or replace into score(player_id, level_group_id, level_id, score, compare_score, is_uploaded, server_score_id) values (?, ?, ?, ?, ?, ?, ?)";
+    
     private ScoreManager() {
     }
     
@@ -28,22 +30,19 @@ public class ScoreManager {
         Score compareScore = getLevelBestScore(playerProfile, level);
         if (compareScore != null && compareScore.getTotalScore() > score.getTotalScore())
             return;
+        int playerId = playerProfile.getId();
         int levelgroupID = playerProfile.getCurrentLevelGroup().id;
+        int levelId = level.id;
         
         // String deleteDetail = "delete from score_detail where player_id=" +
         // playerProfile.getId() + " and level_id=" + level.id +
         // " and level_group_id=" + levelgroupID;
         
-        String deleteScore = "delete from score where player_id=" + playerProfile.getId() + " and level_id=" + level.id + " and level_group_id=" + levelgroupID;
-        
-        String insertScore = "insert into score(player_id, level_group_id, level_id, score, compare_score,is_uploaded,server_score_id) values ("
-        // todo+ ", " + FlyDBManager.SCORE_COLUMN_REACHEDDATE
-                + playerProfile.getId() + ", " + levelgroupID + ", " + level.id + "," + score.getTotalScore() + ", '" + score.getCompareScore() + "'," + (score.isUploaded() ? "1" : "0") + "," + score.getServerScoreId() + ") ";
-        
-        // FlyDBManager.getInstance().openDatabase();
-        // FlyDBManager.getInstance().execSQL(deleteDetail);
-        FlyDBManager.getInstance().execSQL(deleteScore);
-        FlyDBManager.getInstance().execSQL(insertScore);
+        ProfileCache.getInstance().putBestScore(playerId, levelgroupID, levelId, score);
+        // written later, a later best score of the same level replaces this
+        // one if it is not written yet
+        // todo reached_date
+        FlyDBManager.getInstance().executeLater("score " + playerId + " " + levelgroupID + " " + levelId, UPSERT_SCORE, playerId, levelgroupID, levelId, score.getTotalScore(), score.getCompareScore(), score.isUploaded(), score.getServerScoreId());
         // for (ScoreDetail detail : score.getScoreDetails()) {
         // String insertDetail =
         // "insert into score_detail(player_id,level_id,score_detail,_value,level_group_id) values ("
@@ -64,53 +63,32 @@ public class ScoreManager {
     }
     
     /**
-     * return the best scores of all levels in one level group.
+     * return the best scores of all levels in one level group. The scores are
+     * copies of the scores in the {@link ProfileCache}.
      * 
      * @param playerProfile
      * @return
      */
     public Map<Integer, Score> getPlayerBestScores(PlayerProfile playerProfile, LevelGroup levelGroup) {
-        String selectScore = "select level_id, score, compare_score, reached_date,is_uploaded,server_score_id from score where player_id =" + playerProfile.getId() + " and level_group_id=" + levelGroup.id;
         Map<Integer, Score> bestScores = new HashMap<Integer, Score>();
         
-        DatabaseCursor cursor = FlyDBManager.getInstance().selectData(selectScore);
-        if (cursor != null && cursor.getCount() > 0) {
-            
-            while (cursor.next()) {
-                int levelId = cursor.getInt(0);
-                Score score = new Score();
-                score.setTotalScore(cursor.getInt(1));
-                score.setCompareScore(cursor.getString(2));
-                // todo score.setReachedDate(cursor.getString(3));
-                score.setIsUploaded(cursor.getInt(4) > 0);
-                score.setServerScoreId(cursor.getInt(5));
-                
-                Gdx.app.log("ScoreManager", "LevelId: " + levelId);
-                bestScores.put(levelId, score);
+        IntMap<Score> groupScores = ProfileCache.getInstance().getBestScores(playerProfile.getId(), levelGroup.id);
+        if (groupScores != null) {
+            for (IntMap.Entry<Score> entry : groupScores.entries()) {
+                bestScores.put(entry.key, entry.value);
             }
-            cursor.close();
         }
         
         return bestScores;
     }
     
+    /**
+     * The score is a copy of the score in the {@link ProfileCache}, changes
+     * are saved by {@link #updateIsUploaded} and {@link #updateServerScoreId}.
+     */
     public Score getLevelBestScore(PlayerProfile playerProfile, LevelProfile level) {
         int levelgroupID = playerProfile.getCurrentLevelGroup().id;
-        String selectScore = "select score, compare_score, reached_date, is_uploaded, server_score_id from score where player_id =" + playerProfile.getId() + " and level_id=" + level.id + " and level_group_id=" + levelgroupID;
-        Score score = null;
-        
-        DatabaseCursor cursor = FlyDBManager.getInstance().selectData(selectScore);
-        if (cursor != null && cursor.getCount() > 0) {
-            cursor.next();
-            score = new Score();
-            score.setTotalScore(cursor.getInt(0));
-            score.setCompareScore(cursor.getString(1));
-            // todo score.setReachedDate(cursor.getString(2));
-            score.setIsUploaded(cursor.getInt(3) > 0);
-            score.setServerScoreId(cursor.getInt(4));
-            cursor.close();
-        }
-        return score;
+        return ProfileCache.getInstance().getBestScore(playerProfile.getId(), levelgroupID, level.id);
     }
     
     public Score getLevelBestScore(PlayerProfile playerProfile) {
@@ -122,8 +100,9 @@ public class ScoreManager {
     }
     
     public void updateIsUploaded(Score score, int playerId, int groupId, int levelId) {
-        String sql = "update score set is_uploaded = " + (score.isUploaded() ? "1" : "0") + " where player_id=" + playerId + " and level_id=" + levelId + " and level_group_id=" + groupId;
-        FlyDBManager.getInstance().execSQL(sql);
+        ProfileCache.getInstance().setUploaded(playerId, groupId, levelId, score.isUploaded());
+        String sql = "update score set is_uploaded=? where player_id=? and level_id=? and level_group_id=?";
+        FlyDBManager.getInstance().executeLater("is_uploaded " + playerId + " " + groupId + " " + levelId, sql, score.isUploaded(), playerId, levelId, groupId);
         
     }
     
@@ -137,7 +116,8 @@ public class ScoreManager {
      * @param levelId
      */
     public void updateServerScoreId(Score score, int playerId, int groupId, int levelId) {
-        String sql = "update score set server_score_id = " + score.getServerScoreId() + " where player_id=" + playerId + " and level_id=" + levelId + " and level_group_id=" + groupId;
-        FlyDBManager.getInstance().execSQL(sql);
+        ProfileCache.getInstance().setServerScoreId(playerId, groupId, levelId, score.getServerScoreId());
+        String sql = "update score set server_score_id=? where player_id=? and level_id=? and level_group_id=?";
+        FlyDBManager.getInstance().executeLater("server_score_id " + playerId + " " + groupId + " " + levelId, sql, score.getServerScoreId(), playerId, levelId, groupId);
     }
 }
@@ -14,6 +14,29 @@ import de.fau.cs.mad.fly.game.GameModel;
 public class Assets {
     public static AssetManager manager;
     
+    /**
+     * Estimated size of the game models and collision shapes that are kept
+     * for the next levels, see {@link ModelCache}.
+     */
+    public static final long MODEL_CACHE_BUDGET = 16 * 1024 * 1024;
+    
+    /**
+     * Keeps the game models of the levels and their collision shapes across
+     * level transitions.
+     */
+    public static ModelCache modelCache;
+    
+    /**
+     * Estimated size of the models that may be loaded for the next level
+     * while the current one is played, see {@link LevelPrefetcher}.
+     */
+    public static final long PREFETCH_BUDGET = 8 * 1024 * 1024;
+    
+    /**
+     * Loads the next level while the current level is played.
+     */
+    public static LevelPrefetcher prefetcher;
+    
     public static final AssetDescriptor<TextureAtlas> textureAtlas = new AssetDescriptor<TextureAtlas>("uiskin.atlas", TextureAtlas.class);
     
     public static void init() {
@@ -21,9 +44,12 @@ public class Assets {
         manager.setLoader(Level.class, new LevelLoader());
         manager.setLoader(GameModel.class, new GameModelLoader());
         manager.finishLoading();
+        modelCache = new ModelCache(manager, MODEL_CACHE_BUDGET);
+        prefetcher = new LevelPrefetcher(manager, PREFETCH_BUDGET);
     }
     
     public static void dispose() {
+        modelCache.dispose();
         manager.dispose();
     }
     
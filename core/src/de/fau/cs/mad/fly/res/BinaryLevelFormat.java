@@ -0,0 +1,419 @@
+package de.fau.cs.mad.fly.res;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import de.fau.cs.mad.fly.res.LevelDescriptor.CollectibleDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.GateDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.ObjectDescriptor;
+
+/**
+ * Compact binary form of a {@link LevelDescriptor}.
+ * <p>
+ * The {@link LevelCompiler} writes a compiled file with the extension
+ * {@link #EXTENSION} next to every level json file. The {@link LevelLoader}
+ * prefers the compiled file and reads it from a memory-mapped buffer without
+ * any json parsing.
+ * <p>
+ * All strings of the level are stored once in a table at the start of the
+ * file and referred to by their index. Numbers are stored big-endian:
+ * 
+ * <pre>
+ * int magic, int version
+ * int stringCount, stringCount * (short length, utf-8 bytes)
+ * name, id, time, class, start (3 * 3 floats)
+ * int dependencyCount, dependencyCount * (name, file)
+ * gravity type, if not null: 3 floats, strength
+ * ambient, lighting ambient (byte flag, 4 floats each)
+ * int directionalLightCount, 7 floats each, int pointLightCount, 8 floats each
+ * int componentCount, components
+ * int gateCount, gates
+ * int collectibleCount, collectibles
+ * </pre>
+ * 
+ * A string is an index into the table or -1 for null.
+ */
+public class BinaryLevelFormat {
+    
+    /** Extension of compiled level files. */
+    public static final String EXTENSION = ".lvl";
+    
+    /** "FLVL" */
+    private static final int MAGIC = 0x464C564C;
+    
+    /** Has to be increased whenever the layout of the format changes. */
+    public static final int VERSION = 1;
+    
+    private static final int SINUS_X = 1;
+    private static final int SINUS_Y = 2;
+    private static final int SINUS_Z = 4;
+    private static final int ANGULAR_VELOCITY = 8;
+    
+    private BinaryLevelFormat() {
+    }
+    
+    /**
+     * Getter for the compiled file of a level json file.
+     * 
+     * @param levelFile
+     *            The level json file.
+     * @return compiled file next to the json file, may not exist
+     */
+    public static FileHandle compiledFile(FileHandle levelFile) {
+        return levelFile.sibling(levelFile.nameWithoutExtension() + EXTENSION);
+    }
+    
+    /**
+     * Reads a compiled level file. The file is memory-mapped if it is a file
+     * on the file system, otherwise it is read into a buffer.
+     * 
+     * @param file
+     *            The compiled level file.
+     * @return descriptor of the level
+     */
+    public static LevelDescriptor read(FileHandle file) {
+        File f = file.file();
+        if (f.isFile()) {
+            RandomAccessFile input = null;
+            try {
+                input = new RandomAccessFile(f, "r");
+                FileChannel channel = input.getChannel();
+                return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IOException e) {
+                throw new GdxRuntimeException("Error reading compiled level " + file, e);
+            } finally {
+                if (input != null) {
+                    try {
+                        input.close();
+                    } catch (IOException e) {
+                        // the buffer is already read
+                    }
+                }
+            }
+        }
+        return read(ByteBuffer.wrap(file.readBytes()));
+    }
+    
+    /**
+     * Reads a compiled level.
+     * 
+     * @param buffer
+     *            The buffer positioned at the start of the compiled level.
+     * @return descriptor of the level
+     */
+    public static LevelDescriptor read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException("Not a compiled level.");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException("Compiled level has version " + version + ", expected " + VERSION + ".");
+        }
+        
+        String[] strings = new String[buffer.getInt()];
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getShort() & 0xFFFF;
+            if (length > bytes.length) {
+                bytes = new byte[length];
+            }
+            buffer.get(bytes, 0, length);
+            strings[i] = decode(bytes, length);
+        }
+        
+        LevelDescriptor level = new LevelDescriptor();
+        level.name = string(buffer, strings);
+        level.id = buffer.getInt();
+        level.time = buffer.getInt();
+        level.levelClass = string(buffer, strings);
+        level.start.position.set(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+        level.start.viewDirection.set(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+        level.start.upDirection.set(buffer.getFloat(), buffer.getFloat(), buffer.getFloat());
+        
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            level.dependencies.put(string(buffer, strings), string(buffer, strings));
+        }
+        
+        level.gravityType = string(buffer, strings);
+        if (level.gravityType != null) {
+            level.gravityVector = floats(buffer, 3);
+            level.gravityStrength = buffer.getFloat();
+        }
+        
+        level.ambientLight = buffer.get() != 0 ? floats(buffer, 4) : null;
+        level.lightingAmbientLight = buffer.get() != 0 ? floats(buffer, 4) : null;
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            level.directionalLights.add(floats(buffer, 7));
+        }
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            level.pointLights.add(floats(buffer, 8));
+        }
+        
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            ObjectDescriptor o = new ObjectDescriptor();
+            readObject(buffer, strings, o);
+            level.components.add(o);
+        }
+        
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            GateDescriptor gate = new GateDescriptor();
+            readObject(buffer, strings, gate);
+            gate.dummy = buffer.get() != 0;
+            gate.gateId = buffer.getInt();
+            gate.refHole = string(buffer, strings);
+            gate.score = buffer.getInt();
+            gate.successors = new int[buffer.getInt()];
+            for (int j = 0; j < gate.successors.length; j++) {
+                gate.successors[j] = buffer.getInt();
+            }
+            level.gates.add(gate);
+        }
+        
+        count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            CollectibleDescriptor c = new CollectibleDescriptor();
+            readObject(buffer, strings, c);
+            c.type = string(buffer, strings);
+            c.time = buffer.getInt();
+            c.points = buffer.getInt();
+            c.maxSpeedupFactor = buffer.getFloat();
+            c.speedupTime = buffer.getInt();
+            c.maxSpeedTime = buffer.getInt();
+            c.slowdownTime = buffer.getInt();
+            c.resizeFactor = buffer.get() != 0 ? floats(buffer, 3) : null;
+            c.roll = buffer.getFloat();
+            c.azimuth = buffer.getFloat();
+            c.duration = buffer.getFloat();
+            level.collectibles.add(c);
+        }
+        return level;
+    }
+    
+    private static void readObject(ByteBuffer buffer, String[] strings, ObjectDescriptor o) {
+        o.id = string(buffer, strings);
+        o.ref = string(buffer, strings);
+        o.environment = string(buffer, strings);
+        o.visible = buffer.get() != 0;
+        for (int i = 0; i < 16; i++) {
+            o.transform[i] = buffer.getFloat();
+        }
+        int flags = buffer.get();
+        o.sinusX = (flags & SINUS_X) != 0 ? floats(buffer, 3) : null;
+        o.sinusY = (flags & SINUS_Y) != 0 ? floats(buffer, 3) : null;
+        o.sinusZ = (flags & SINUS_Z) != 0 ? floats(buffer, 3) : null;
+        o.angularVelocity = (flags & ANGULAR_VELOCITY) != 0 ? floats(buffer, 3) : null;
+    }
+    
+    private static String string(ByteBuffer buffer, String[] strings) {
+        int index = buffer.getInt();
+        return index < 0 ? null : strings[index];
+    }
+    
+    private static float[] floats(ByteBuffer buffer, int count) {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.getFloat();
+        }
+        return values;
+    }
+    
+    private static String decode(byte[] bytes, int length) {
+        try {
+            return new String(bytes, 0, length, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new GdxRuntimeException(e);
+        }
+    }
+    
+    /**
+     * Writes the level in the compiled form.
+     * 
+     * @param level
+     *            The level to write.
+     * @param stream
+     *            The stream to write to, it is not closed.
+     * @throws IOException
+     */
+    public static void write(LevelDescriptor level, OutputStream stream) throws IOException {
+        StringTable strings = new StringTable();
+        collectStrings(level, strings);
+        
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.list.size());
+        for (String s : strings.list) {
+            byte[] bytes = s.getBytes("UTF-8");
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+        
+        out.writeInt(strings.indexOf(level.name));
+        out.writeInt(level.id);
+        out.writeInt(level.time);
+        out.writeInt(strings.indexOf(level.levelClass));
+        writeFloats(out, level.start.position.x, level.start.position.y, level.start.position.z);
+        writeFloats(out, level.start.viewDirection.x, level.start.viewDirection.y, level.start.viewDirection.z);
+        writeFloats(out, level.start.upDirection.x, level.start.upDirection.y, level.start.upDirection.z);
+        
+        out.writeInt(level.dependencies.size());
+        for (Map.Entry<String, String> e : level.dependencies.entrySet()) {
+            out.writeInt(strings.indexOf(e.getKey()));
+            out.writeInt(strings.indexOf(e.getValue()));
+        }
+        
+        out.writeInt(strings.indexOf(level.gravityType));
+        if (level.gravityType != null) {
+            writeFloats(out, level.gravityVector != null ? level.gravityVector : new float[3]);
+            out.writeFloat(level.gravityStrength);
+        }
+        
+        writeOptionalFloats(out, level.ambientLight);
+        writeOptionalFloats(out, level.lightingAmbientLight);
+        out.writeInt(level.directionalLights.size());
+        for (float[] light : level.directionalLights) {
+            writeFloats(out, light);
+        }
+        out.writeInt(level.pointLights.size());
+        for (float[] light : level.pointLights) {
+            writeFloats(out, light);
+        }
+        
+        out.writeInt(level.components.size());
+        for (ObjectDescriptor o : level.components) {
+            writeObject(out, strings, o);
+        }
+        
+        out.writeInt(level.gates.size());
+        for (GateDescriptor gate : level.gates) {
+            writeObject(out, strings, gate);
+            out.writeBoolean(gate.dummy);
+            out.writeInt(gate.gateId);
+            out.writeInt(strings.indexOf(gate.refHole));
+            out.writeInt(gate.score);
+            out.writeInt(gate.successors.length);
+            for (int successor : gate.successors) {
+                out.writeInt(successor);
+            }
+        }
+        
+        out.writeInt(level.collectibles.size());
+        for (CollectibleDescriptor c : level.collectibles) {
+            writeObject(out, strings, c);
+            out.writeInt(strings.indexOf(c.type));
+            out.writeInt(c.time);
+            out.writeInt(c.points);
+            out.writeFloat(c.maxSpeedupFactor);
+            out.writeInt(c.speedupTime);
+            out.writeInt(c.maxSpeedTime);
+            out.writeInt(c.slowdownTime);
+            writeOptionalFloats(out, c.resizeFactor);
+            out.writeFloat(c.roll);
+            out.writeFloat(c.azimuth);
+            out.writeFloat(c.duration);
+        }
+        out.flush();
+    }
+    
+    private static void writeObject(DataOutputStream out, StringTable strings, ObjectDescriptor o) throws IOException {
+        out.writeInt(strings.indexOf(o.id));
+        out.writeInt(strings.indexOf(o.ref));
+        out.writeInt(strings.indexOf(o.environment));
+        out.writeBoolean(o.visible);
+        writeFloats(out, o.transform);
+        int flags = 0;
+        flags |= o.sinusX != null ? SINUS_X : 0;
+        flags |= o.sinusY != null ? SINUS_Y : 0;
+        flags |= o.sinusZ != null ? SINUS_Z : 0;
+        flags |= o.angularVelocity != null ? ANGULAR_VELOCITY : 0;
+        out.writeByte(flags);
+        writeVector(out, o.sinusX);
+        writeVector(out, o.sinusY);
+        writeVector(out, o.sinusZ);
+        writeVector(out, o.angularVelocity);
+    }
+    
+    /** Writes the first three values of the array, if it is not null. */
+    private static void writeVector(DataOutputStream out, float[] values) throws IOException {
+        if (values != null) {
+            writeFloats(out, values[0], values[1], values[2]);
+        }
+    }
+    
+    private static void writeOptionalFloats(DataOutputStream out, float[] values) throws IOException {
+        out.writeBoolean(values != null);
+        if (values != null) {
+            writeFloats(out, values);
+        }
+    }
+    
+    private static void writeFloats(DataOutputStream out, float... values) throws IOException {
+        for (float value : values) {
+            out.writeFloat(value);
+        }
+    }
+    
+    private static void collectStrings(LevelDescriptor level, StringTable strings) {
+        strings.add(level.name);
+        strings.add(level.levelClass);
+        for (Map.Entry<String, String> e : level.dependencies.entrySet()) {
+            strings.add(e.getKey());
+            strings.add(e.getValue());
+        }
+        strings.add(level.gravityType);
+        for (ObjectDescriptor o : level.components) {
+            collectStrings(o, strings);
+        }
+        for (GateDescriptor gate : level.gates) {
+            collectStrings(gate, strings);
+            strings.add(gate.refHole);
+        }
+        for (CollectibleDescriptor c : level.collectibles) {
+            collectStrings(c, strings);
+            strings.add(c.type);
+        }
+    }
+    
+    private static void collectStrings(ObjectDescriptor o, StringTable strings) {
+        strings.add(o.id);
+        strings.add(o.ref);
+        strings.add(o.environment);
+    }
+    
+    /**
+     * Strings of a level in the order they are written.
+     */
+    private static class StringTable {
+        private final List<String> list = new ArrayList<String>();
+        private final Map<String, Integer> indices = new HashMap<String, Integer>();
+        
+        void add(String s) {
+            if (s != null && !indices.containsKey(s)) {
+                indices.put(s, list.size());
+                list.add(s);
+            }
+        }
+        
+        int indexOf(String s) {
+            return s == null ? -1 : indices.get(s);
+        }
+    }
+}
@@ -3,14 +3,10 @@ package de.fau.cs.mad.fly.res;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.badlogic.gdx.graphics.PerspectiveCamera;
-import com.badlogic.gdx.graphics.g3d.Environment;
-import com.badlogic.gdx.graphics.g3d.ModelBatch;
-
 import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
 
 /**
- * Manages and displays all collectible objects.
+ * Manages all collectible objects. They are displayed by the level.
  * 
  * @author Tobi
  * 
@@ -21,6 +17,11 @@ public class CollectibleManager {
      */
     private List<Collectible> collectibles;
     
+    /**
+     * The level where the collectibles are located.
+     */
+    protected Level level = null;
+    
     /**
      * Creates a new collectible manager with no collectibles.
      */
@@ -54,7 +55,13 @@ public class CollectibleManager {
      *            of collectibles.
      */
     public void setCollectibles(List<Collectible> collectibles) {
+        if (level != null) {
+            removeFromSpatialIndex();
+        }
         this.collectibles = collectibles;
+        if (level != null) {
+            addToSpatialIndex();
+        }
     }
     
     /**
@@ -65,6 +72,9 @@ public class CollectibleManager {
      */
     public void addCollectible(Collectible c) {
         collectibles.add(c);
+        if (level != null) {
+            level.getSpatialIndex().add(c);
+        }
     }
     
     /**
@@ -78,6 +88,20 @@ public class CollectibleManager {
         c.dispose();
     }
     
+    /**
+     * Removes a collectible from the collectible manager without disposing
+     * it, e.g. to reuse it later.
+     * 
+     * @param c
+     *            The collectible that should be removed.
+     */
+    public void detachCollectible(Collectible c) {
+        collectibles.remove(c);
+        if (level != null) {
+            level.getSpatialIndex().remove(c);
+        }
+    }
+    
     /**
      * Calls the mover for all collectibles.
      * 
@@ -92,19 +116,22 @@ public class CollectibleManager {
     }
     
     /**
-     * Renders the collectibles.
-     * 
-     * @param batch
-     *            The model batch for the rendering.
-     * @param environment
-     *            The environment for the rendering.
-     * @param camera
-     *            The camera for the rendering.
+     * Adds all collectibles to the spatial index of the {@link #level}.
+     */
+    protected void addToSpatialIndex() {
+        final int numberOfUpgrades = collectibles.size();
+        for (int i = 0; i < numberOfUpgrades; i++) {
+            level.getSpatialIndex().add(collectibles.get(i));
+        }
+    }
+    
+    /**
+     * Removes all collectibles from the spatial index of the {@link #level}.
      */
-    public void render(ModelBatch batch, Environment environment, PerspectiveCamera camera) {
+    private void removeFromSpatialIndex() {
         final int numberOfUpgrades = collectibles.size();
         for (int i = 0; i < numberOfUpgrades; i++) {
-            collectibles.get(i).render(batch, environment, camera);
+            level.getSpatialIndex().remove(collectibles.get(i));
         }
     }
 }
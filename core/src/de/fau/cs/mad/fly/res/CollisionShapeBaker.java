@@ -0,0 +1,271 @@
+package de.fau.cs.mad.fly.res;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.g3d.loader.G3dModelLoader;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.graphics.g3d.model.data.ModelData;
+import com.badlogic.gdx.graphics.g3d.model.data.ModelMesh;
+import com.badlogic.gdx.graphics.g3d.model.data.ModelMeshPart;
+import com.badlogic.gdx.graphics.g3d.model.data.ModelNode;
+import com.badlogic.gdx.graphics.g3d.model.data.ModelNodePart;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.physics.bullet.Bullet;
+import com.badlogic.gdx.physics.bullet.collision.btBvhTriangleMeshShape;
+import com.badlogic.gdx.physics.bullet.collision.btConvexHullShape;
+import com.badlogic.gdx.physics.bullet.collision.btIndexedMesh;
+import com.badlogic.gdx.physics.bullet.collision.btShapeHull;
+import com.badlogic.gdx.physics.bullet.collision.btTriangleIndexVertexArray;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.UBJsonReader;
+
+import de.fau.cs.mad.fly.game.BakedCollisionShape;
+import de.fau.cs.mad.fly.game.BakedCollisionShape.BakedBvh;
+import de.fau.cs.mad.fly.game.BakedCollisionShape.MeshGroup;
+
+/**
+ * Bakes the collision shapes of the models into {@link BakedCollisionShape}
+ * files.
+ * <p>
+ * Used by the bakeCollisionShapes task of the desktop build, as the Bullet
+ * natives are needed. The only argument is the models folder, every model in
+ * it and its sub folders gets a baked file next to it. Hitbox models are
+ * skipped, the shapes are created from the displayed models.
+ * <p>
+ * The models are read without creating any meshes, so no OpenGL context is
+ * needed. The hull and the hierarchies are built the same way as the
+ * {@link de.fau.cs.mad.fly.game.CollisionShapeManager} builds them at runtime.
+ */
+public class CollisionShapeBaker {
+    
+    private static final String MODEL_EXTENSION = ".g3db";
+    private static final String HITBOX_EXTENSION = ".hitbox.g3db";
+    
+    private final G3dModelLoader loader = new G3dModelLoader(new UBJsonReader());
+    
+    /**
+     * The vertices and indices of a mesh of the model data, in the layout of a
+     * loaded mesh.
+     */
+    private static class BakeMesh {
+        FloatBuffer vertices;
+        ShortBuffer indices;
+        int vertexSize;
+        int vertexCount;
+        int positionOffset;
+    }
+    
+    /**
+     * Bakes the collision shape of a model file.
+     * 
+     * @param modelFile
+     *            The g3db model file.
+     * @param bakedFile
+     *            The file to write the baked shape to.
+     * @throws IOException
+     */
+    public void bake(File modelFile, File bakedFile) throws IOException {
+        ModelData data = loader.loadModelData(new FileHandle(modelFile));
+        
+        ObjectMap<String, MeshPart> meshParts = new ObjectMap<String, MeshPart>();
+        ObjectMap<MeshPart, BakeMesh> meshes = new ObjectMap<MeshPart, BakeMesh>();
+        BakeMesh first = null;
+        for (ModelMesh modelMesh : data.meshes) {
+            BakeMesh mesh = createMesh(modelMesh);
+            if (first == null) {
+                first = mesh;
+            }
+            int offset = 0;
+            for (ModelMeshPart modelPart : modelMesh.parts) {
+                MeshPart part = new MeshPart();
+                part.id = modelPart.id;
+                part.primitiveType = modelPart.primitiveType;
+                part.indexOffset = offset;
+                part.numVertices = modelPart.indices.length;
+                offset += part.numVertices;
+                meshParts.put(part.id, part);
+                meshes.put(part, mesh);
+            }
+        }
+        if (first == null) {
+            throw new IOException("No mesh in " + modelFile);
+        }
+        
+        Array<Node> nodes = new Array<Node>();
+        for (ModelNode modelNode : data.nodes) {
+            Node node = createNode(modelNode, meshParts);
+            node.calculateTransforms(true);
+            nodes.add(node);
+        }
+        Array<BakedBvh> bvhs = new Array<BakedBvh>();
+        for (MeshGroup group : BakedCollisionShape.collectMeshGroups(nodes)) {
+            bvhs.add(bakeBvh(group, meshes));
+        }
+        
+        BakedCollisionShape shape = new BakedCollisionShape(first.vertexCount, first.vertexSize, bakeHull(first), BakedCollisionShape.getBvhLayout(), bvhs);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(bakedFile));
+        try {
+            shape.write(out);
+        } finally {
+            out.close();
+        }
+    }
+    
+    private static BakeMesh createMesh(ModelMesh modelMesh) {
+        VertexAttributes attributes = new VertexAttributes(modelMesh.attributes);
+        VertexAttribute position = attributes.findByUsage(Usage.Position);
+        BakeMesh mesh = new BakeMesh();
+        mesh.vertexSize = attributes.vertexSize;
+        mesh.vertexCount = modelMesh.vertices.length / (attributes.vertexSize / 4);
+        mesh.positionOffset = position == null ? 0 : position.offset;
+        mesh.vertices = BufferUtils.newFloatBuffer(modelMesh.vertices.length);
+        mesh.vertices.put(modelMesh.vertices);
+        mesh.vertices.flip();
+        int indexCount = 0;
+        for (ModelMeshPart part : modelMesh.parts) {
+            indexCount += part.indices.length;
+        }
+        mesh.indices = BufferUtils.newShortBuffer(indexCount);
+        for (ModelMeshPart part : modelMesh.parts) {
+            mesh.indices.put(part.indices);
+        }
+        mesh.indices.flip();
+        return mesh;
+    }
+    
+    private static Node createNode(ModelNode modelNode, ObjectMap<String, MeshPart> meshParts) {
+        Node node = new Node();
+        node.id = modelNode.id;
+        if (modelNode.translation != null) {
+            node.translation.set(modelNode.translation);
+        }
+        if (modelNode.rotation != null) {
+            node.rotation.set(modelNode.rotation);
+        }
+        if (modelNode.scale != null) {
+            node.scale.set(modelNode.scale);
+        }
+        if (modelNode.parts != null) {
+            node.parts = new Array<NodePart>();
+            for (ModelNodePart modelPart : modelNode.parts) {
+                MeshPart meshPart = meshParts.get(modelPart.meshPartId);
+                if (meshPart != null) {
+                    NodePart part = new NodePart();
+                    part.meshPart = meshPart;
+                    node.parts.add(part);
+                }
+            }
+        }
+        if (modelNode.children != null) {
+            for (ModelNode modelChild : modelNode.children) {
+                Node child = createNode(modelChild, meshParts);
+                child.parent = node;
+                node.children.add(child);
+            }
+        }
+        return node;
+    }
+    
+    /**
+     * Builds the simplified convex hull of a mesh like
+     * {@link de.fau.cs.mad.fly.game.CollisionShapeManager#createConvexShape(String, de.fau.cs.mad.fly.game.GameObject)}
+     * .
+     */
+    private static float[] bakeHull(BakeMesh mesh) {
+        btConvexHullShape hullShape = new btConvexHullShape(mesh.vertices, mesh.vertexCount, mesh.vertexSize);
+        btShapeHull hull = new btShapeHull(hullShape);
+        hull.buildHull(hullShape.getMargin());
+        btConvexHullShape convexShape = new btConvexHullShape(hull);
+        float[] points = new float[convexShape.getNumPoints() * 3];
+        for (int i = 0; i < convexShape.getNumPoints(); i++) {
+            Vector3 point = convexShape.getScaledPoint(i);
+            points[i * 3] = point.x;
+            points[i * 3 + 1] = point.y;
+            points[i * 3 + 2] = point.z;
+        }
+        convexShape.dispose();
+        hull.dispose();
+        hullShape.dispose();
+        return points;
+    }
+    
+    /**
+     * Builds the hierarchy of the triangles of a mesh group from the same
+     * vertex and index layout as a loaded model.
+     */
+    private static BakedBvh bakeBvh(MeshGroup group, ObjectMap<MeshPart, BakeMesh> meshes) {
+        btTriangleIndexVertexArray meshInterface = new btTriangleIndexVertexArray();
+        Array<btIndexedMesh> indexedMeshes = new Array<btIndexedMesh>();
+        String[] partIds = new String[group.parts.size];
+        for (int i = 0; i < group.parts.size; i++) {
+            MeshPart part = group.parts.get(i);
+            BakeMesh mesh = meshes.get(part);
+            btIndexedMesh indexedMesh = new btIndexedMesh(mesh.vertices, mesh.vertexSize, mesh.vertexCount, mesh.positionOffset, mesh.indices, part.indexOffset, part.numVertices);
+            meshInterface.addIndexedMesh(indexedMesh);
+            indexedMeshes.add(indexedMesh);
+            partIds[i] = part.id;
+        }
+        btBvhTriangleMeshShape shape = new btBvhTriangleMeshShape(meshInterface, true, true);
+        byte[] data = BakedCollisionShape.serialize(shape.getOptimizedBvh());
+        shape.dispose();
+        meshInterface.dispose();
+        for (btIndexedMesh indexedMesh : indexedMeshes) {
+            indexedMesh.dispose();
+        }
+        return new BakedBvh(group.transform.val.clone(), partIds, BakedCollisionShape.countTriangles(group.parts), data);
+    }
+    
+    /**
+     * Bakes the collision shapes of all models in a folder and its sub
+     * folders.
+     * 
+     * @param modelsFolder
+     *            The models folder.
+     * @return number of baked models
+     * @throws IOException
+     */
+    public int bakeAll(File modelsFolder) throws IOException {
+        File[] files = modelsFolder.listFiles();
+        if (files == null) {
+            throw new IOException("No models folder: " + modelsFolder);
+        }
+        int baked = 0;
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                baked += bakeAll(file);
+            } else if (name.endsWith(MODEL_EXTENSION) && !name.endsWith(HITBOX_EXTENSION)) {
+                String baseName = name.substring(0, name.length() - MODEL_EXTENSION.length());
+                bake(file, new File(modelsFolder, baseName + BakedCollisionShape.EXTENSION));
+                baked++;
+            }
+        }
+        return baked;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: CollisionShapeBaker <models folder>");
+            System.exit(1);
+        }
+        GdxNativesLoader.load();
+        Bullet.init();
+        int baked = new CollisionShapeBaker().bakeAll(new File(args[0]));
+        System.out.println("Baked " + baked + " collision shapes.");
+    }
+}
@@ -1,5 +1,6 @@
 package de.fau.cs.mad.fly.res;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetDescriptor;
 import com.badlogic.gdx.assets.AssetLoaderParameters;
 import com.badlogic.gdx.assets.AssetManager;
@@ -12,6 +13,7 @@ import com.badlogic.gdx.graphics.g3d.Model;
 import com.badlogic.gdx.graphics.g3d.loader.ObjLoader.ObjLoaderParameters;
 import com.badlogic.gdx.utils.Array;
 
+import de.fau.cs.mad.fly.game.BakedCollisionShape;
 import de.fau.cs.mad.fly.game.GameModel;
 
 /**
@@ -45,10 +47,35 @@ public class GameModelLoader extends AsynchronousAssetLoader<GameModel, GameMode
         object = null;
         getHitbox(fileName);
         Model display = manager.get(fileName, Model.class);
+        BakedCollisionShape bakedShape = loadBakedShape(resolve(fileName));
         if (hitboxExists) {
-            object = new GameModel(display, manager.get(hitboxName, Model.class));
+            object = new GameModel(display, manager.get(hitboxName, Model.class), bakedShape);
         } else {
-            object = new GameModel(display, display);
+            object = new GameModel(display, display, bakedShape);
+        }
+    }
+    
+    /**
+     * Reads the collision shapes baked for the model, see
+     * {@link BakedCollisionShape}.
+     * 
+     * @param modelFile
+     *            The model file.
+     * @return the baked shapes or null if there are none or they are out of
+     *         date
+     */
+    private BakedCollisionShape loadBakedShape(FileHandle modelFile) {
+        FileHandle bakedFile = BakedCollisionShape.bakedFile(modelFile);
+        // a baked file older than the model is out of date
+        if (!bakedFile.exists() || bakedFile.lastModified() < modelFile.lastModified()) {
+            return null;
+        }
+        try {
+            return BakedCollisionShape.read(bakedFile);
+        } catch (RuntimeException e) {
+            // a broken file only costs the time to generate the shapes
+            Gdx.app.error("GameModelLoader", "Ignoring baked collision shapes " + bakedFile + ": " + e.getMessage());
+            return null;
         }
     }
     
@@ -8,25 +8,26 @@ import java.util.List;
 import java.util.Map;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.PerspectiveCamera;
-import com.badlogic.gdx.graphics.g3d.Environment;
-import com.badlogic.gdx.graphics.g3d.ModelBatch;
+import com.badlogic.gdx.math.Vector3;
 
-import de.fau.cs.mad.fly.features.ICollisionListener;
 import de.fau.cs.mad.fly.features.IFeatureLoad;
 import de.fau.cs.mad.fly.sound.AudioManager;
 import de.fau.cs.mad.fly.game.CollisionDetector;
 import de.fau.cs.mad.fly.game.GameController;
-import de.fau.cs.mad.fly.game.GameObject;
 
 /**
  * Manages the logic of the gates like storing the gate list and handling the
  * gate passing.
+ * <p>
+ * A gate is passed when the movement of the player between two frames crosses
+ * the disc of an active gate goal, see {@link #checkGatePassed(Vector3)}. As
+ * the test does not rely on contacts, no gate is missed when the physics world
+ * is stepped at a lower rate than the frame rate.
  * 
  * @author Tobi
  * 
  */
-public class GateCircuit implements IFeatureLoad, ICollisionListener {
+public class GateCircuit implements IFeatureLoad {
     
     /**
      * Comparator for the gate goals.
@@ -84,6 +85,17 @@ public class GateCircuit implements IFeatureLoad, ICollisionListener {
      */
     protected Level level = null;
     
+    /**
+     * The position of the player at the last call of
+     * {@link #checkGatePassed(Vector3)}.
+     */
+    private final Vector3 lastPlayerPosition = new Vector3();
+    
+    /**
+     * True if {@link #lastPlayerPosition} is set.
+     */
+    private boolean hasLastPlayerPosition = false;
+    
     /**
      * Creates a new gate circuit.
      * 
@@ -134,6 +146,9 @@ public class GateCircuit implements IFeatureLoad, ICollisionListener {
         gates.put(gate.getGateId(), gate);
         allGateGoals.add(gate);
         allGateDisplays.add(gate.getDisplay());
+        if (level != null && gate.getDisplay() != null) {
+            level.getSpatialIndex().add(gate.getDisplay());
+        }
     }
     
     /**
@@ -143,9 +158,12 @@ public class GateCircuit implements IFeatureLoad, ICollisionListener {
      *            The gate goal to remove.
      */
     public void removeGate(GateGoal gate) {
-        gates.remove(gate);
+        gates.remove(gate.getGateId());
         allGateGoals.remove(gate);
         allGateDisplays.remove(gate.getDisplay());
+        if (level != null && gate.getDisplay() != null) {
+            level.getSpatialIndex().remove(gate.getDisplay());
+        }
     }
     
     /**
@@ -156,6 +174,9 @@ public class GateCircuit implements IFeatureLoad, ICollisionListener {
      *            The map with all the gates.
      */
     public void setGates(Map<Integer, GateGoal> gates) {
+        if (level != null) {
+            removeFromSpatialIndex();
+        }
         this.gates = gates;
         allGateGoals.clear();
         allGateDisplays.clear();
@@ -168,6 +189,10 @@ public class GateCircuit implements IFeatureLoad, ICollisionListener {
                 allGateDisplays.add(g.getDisplay());
             }
         }
+        
+        if (level != null) {
+            addToSpatialIndex();
+        }
     }
     
     /**
@@ -268,6 +293,30 @@ public class GateCircuit implements IFeatureLoad, ICollisionListener {
         return virtualGate.successors;
     }
     
+    /**
+     * Checks if the player passed one of the currently active gates since the
+     * last call and calls {@link #gatePassed(GateGoal)} for it. Has to be
+     * called once per frame with the position of the last physics step.
+     * 
+     * @param playerPosition
+     *            The current position of the player.
+     */
+    public void checkGatePassed(Vector3 playerPosition) {
+        if (hasLastPlayerPosition) {
+            final int[] successors = virtualGate.successors;
+            final int numberOfSuccessorGates = successors.length;
+            for (int i = 0; i < numberOfSuccessorGates; i++) {
+                GateGoal gate = getGateGoalById(successors[i]);
+                if (gate != null && gate.isPassedBy(lastPlayerPosition, playerPosition)) {
+                    gatePassed(gate);
+                    break;
+                }
+            }
+        }
+        lastPlayerPosition.set(playerPosition);
+        hasLastPlayerPosition = true;
+    }
+    
     /**
      * Getter for all the gate goals of the gate circuit.
      * 
@@ -322,50 +371,48 @@ public class GateCircuit implements IFeatureLoad, ICollisionListener {
     }
     
     /**
-     * Renders the gates.
-     * 
-     * @param batch
-     *            The model batch for the rendering.
-     * @param environment
-     *            The environment for the rendering.
-     * @param camera
-     *            The camera for the rendering.
-     */
-    public void render(ModelBatch batch, Environment environment, PerspectiveCamera camera) {
-        GateDisplay display;
-        
+     * Adds all gate displays to the spatial index of the {@link #level}, which
+     * renders them.
+     */
+    protected void addToSpatialIndex() {
         final int numberOfDisplays = allGateDisplays.size();
-        
         for (int i = 0; i < numberOfDisplays; i++) {
-            display = allGateDisplays.get(i);
-            display.render(batch, environment, camera);
+            level.getSpatialIndex().add(allGateDisplays.get(i));
+        }
+    }
+    
+    /**
+     * Removes all gate displays from the spatial index of the {@link #level}.
+     */
+    private void removeFromSpatialIndex() {
+        final int numberOfDisplays = allGateDisplays.size();
+        for (int i = 0; i < numberOfDisplays; i++) {
+            level.getSpatialIndex().remove(allGateDisplays.get(i));
         }
     }
     
     /**
      * Resets the gate circuit.
      * <p>
-     * Clears the gate circuit listeners and sets the virtual gate to the
-     * starting gate.
+     * Clears the gate circuit listeners, sets the virtual gate to the
+     * starting gate and forgets the gates passed in the last game.
      */
     public void reset() {
         gateCircuitListeners.clear();
         virtualGate = startingGate;
+        hasLastPlayerPosition = false;
+        reachedLastGate = false;
+        gateCount = 0;
+        final int numberOfGates = allGateGoals.size();
+        for (int i = 0; i < numberOfGates; i++) {
+            allGateGoals.get(i).passedTimes = 0;
+            allGateGoals.get(i).unmark();
+        }
     }
     
     @Override
     public void load(GameController game) {
+        hasLastPlayerPosition = false;
         activeGatePassed(virtualGate);
     }
-    
-    @Override
-    public void onCollision(GameObject g1, GameObject g2) {
-        if (!(g2 instanceof GateGoal)) {
-            return;
-        }
-        
-        GateGoal gate = (GateGoal) g2;
-        
-        gatePassed(gate);
-    }
 }
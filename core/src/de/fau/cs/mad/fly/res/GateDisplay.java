@@ -28,6 +28,7 @@ public class GateDisplay extends GameObject implements Disposable {
      */
     public GateDisplay(GameModel model) {
         super(model, "GateDisplay");
+        setCollisionType(CollisionDetector.GATE_DISPLAY_CATEGORY);
     }
     
     /**
@@ -72,20 +73,28 @@ public class GateDisplay extends GameObject implements Disposable {
      * Marks the gate display with a special color.
      */
     public void mark() {
-        materials.get(0).set(ColorAttribute.createDiffuse(0.8f, 0f, 0f, 1f));
+        setDiffuseColor(0.8f, 0f, 0f, 1f);
     }
     
     /**
      * Unmarks the gate display.
      */
     public void unmark() {
-        materials.get(0).set(ColorAttribute.createDiffuse(Color.DARK_GRAY));
+        setDiffuseColor(Color.DARK_GRAY.r, Color.DARK_GRAY.g, Color.DARK_GRAY.b, Color.DARK_GRAY.a);
     }
     
-    @Override
-    public void dispose() {
-        CollisionDetector.getInstance().removeRigidBody(this);
-        super.dispose();
+    /**
+     * Sets the diffuse color of the gate display. The color attribute is only
+     * created once, as the gates are marked and unmarked every time a gate is
+     * passed.
+     */
+    private void setDiffuseColor(float r, float g, float b, float a) {
+        ColorAttribute diffuse = (ColorAttribute) materials.get(0).get(ColorAttribute.Diffuse);
+        if (diffuse == null) {
+            materials.get(0).set(ColorAttribute.createDiffuse(r, g, b, a));
+        } else {
+            diffuse.color.set(r, g, b, a);
+        }
     }
     
 }
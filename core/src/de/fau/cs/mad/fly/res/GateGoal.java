@@ -1,8 +1,8 @@
 package de.fau.cs.mad.fly.res;
 
+import com.badlogic.gdx.math.Matrix4;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
-import com.badlogic.gdx.physics.bullet.dynamics.btRigidBody;
 import com.badlogic.gdx.utils.Disposable;
 
 import de.fau.cs.mad.fly.game.CollisionDetector;
@@ -16,8 +16,20 @@ import de.fau.cs.mad.fly.game.GameObject;
  * 
  */
 public class GateGoal extends GameObject implements Disposable {
+    
+    /**
+     * Radius of the disc the player has to fly through, in the local
+     * coordinates of the goal. Equals the half extent of the trigger box.
+     */
+    public static final float PASS_RADIUS = 0.8f;
+    
+    /** Temporary vectors for {@link #isPassedBy(Vector3, Vector3)}. */
+    private static final Vector3 tmpCenter = new Vector3();
+    private static final Vector3 tmpAxis = new Vector3();
+    private static final Vector3 tmpHit = new Vector3();
+    
     private GateDisplay display = null;
-    private final int gateId;
+    private int gateId;
     private int score;
     public int passedTimes = 0;
     public int[] successors;
@@ -38,24 +50,61 @@ public class GateGoal extends GameObject implements Disposable {
         this.score = gateScore;
         this.display = display;
         dummy = true;
+        setCollisionType(CollisionDetector.GATE_GOAL_CATEGORY);
     }
     
     /**
-     * Creates the rigid body of the gate goal if its not already created.
+     * Creates the trigger of the gate goal and adds it to the collision world.
+     * The trigger only reports the contacts with the player.
      * 
      * @param collisionDetector
      */
     public void createShapeAndRigidBody(CollisionDetector collisionDetector) {
-        btCollisionShape goalShape = collisionDetector.getShapeManager().createBoxShape(super.getModelId() + ".goal", new Vector3(0.8f, 0.1f, 0.8f));
-        super.createRigidBody(super.getModelId() + ".goal", goalShape, 0.0f, CollisionDetector.DUMMY_FLAG, CollisionDetector.PLAYER_FLAG);
-        rigidBody.setCollisionFlags(rigidBody.getCollisionFlags() | btRigidBody.CollisionFlags.CF_NO_CONTACT_RESPONSE);
+        btCollisionShape goalShape = collisionDetector.getShapeManager().createBoxShape(super.getModelId() + ".goal", new Vector3(PASS_RADIUS, 0.1f, PASS_RADIUS));
+        super.createTrigger(goalShape, CollisionDetector.DUMMY_FLAG, CollisionDetector.PLAYER_FLAG);
         
         // different scaling for the gates is buggy
         /*
          * transform.scl(scaling);
-         * rigidBody.getCollisionShape().setLocalScaling(scaling);
+         * trigger.getCollisionShape().setLocalScaling(scaling);
          */
-        collisionDetector.addRigidBody(this);
+        collisionDetector.addCollisionObject(this);
+    }
+    
+    /**
+     * Checks if a movement crosses the disc of the gate goal.
+     * <p>
+     * The disc lies in the local xz plane of the goal with radius
+     * {@link #PASS_RADIUS}, the scaling of the transform is taken into account.
+     * The test is analytic, so the result does not depend on how far the
+     * player moved between the two positions.
+     * 
+     * @param from
+     *            The position before the movement.
+     * @param to
+     *            The position after the movement.
+     * @return true, if the segment from the first to the second position
+     *         crosses the disc.
+     */
+    public boolean isPassedBy(Vector3 from, Vector3 to) {
+        final float[] m = transform.val;
+        transform.getTranslation(tmpCenter);
+        
+        tmpAxis.set(m[Matrix4.M01], m[Matrix4.M11], m[Matrix4.M21]).nor();
+        final float fromDistance = tmpHit.set(from).sub(tmpCenter).dot(tmpAxis);
+        final float toDistance = tmpHit.set(to).sub(tmpCenter).dot(tmpAxis);
+        if ((fromDistance > 0f) == (toDistance > 0f)) {
+            return false;
+        }
+        
+        final float t = fromDistance / (fromDistance - toDistance);
+        tmpHit.set(to).sub(from).scl(t).add(from).sub(tmpCenter);
+        
+        tmpAxis.set(m[Matrix4.M00], m[Matrix4.M10], m[Matrix4.M20]);
+        final float x = tmpHit.dot(tmpAxis) / tmpAxis.len2();
+        tmpAxis.set(m[Matrix4.M02], m[Matrix4.M12], m[Matrix4.M22]);
+        final float z = tmpHit.dot(tmpAxis) / tmpAxis.len2();
+        return x * x + z * z <= PASS_RADIUS * PASS_RADIUS;
     }
     
     /**
@@ -86,6 +135,18 @@ public class GateGoal extends GameObject implements Disposable {
         return gateId;
     }
     
+    /**
+     * Setter for the id of this gate. The id is also the hash code, so it may
+     * only be changed while the gate is not part of a gate circuit, e.g. when
+     * a pooled gate is reused.
+     * 
+     * @param gateId
+     *            The gate id.
+     */
+    public void setGateId(int gateId) {
+        this.gateId = gateId;
+    }
+    
     /**
      * Getter for the score of this gate.
      * 
@@ -95,6 +156,16 @@ public class GateGoal extends GameObject implements Disposable {
         return score;
     }
     
+    /**
+     * Setter for the score of this gate.
+     * 
+     * @param score
+     *            The score.
+     */
+    public void setScore(int score) {
+        this.score = score;
+    }
+    
     /**
      * Marks the display game object.
      */
@@ -137,10 +208,4 @@ public class GateGoal extends GameObject implements Disposable {
     public void setSuccessors(int[] successors) {
         this.successors = successors;
     }
-    
-    @Override
-    public void dispose() {
-        CollisionDetector.getInstance().removeRigidBody(this);
-        super.dispose();
-    }
 }
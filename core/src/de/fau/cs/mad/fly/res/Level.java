@@ -4,10 +4,13 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.PerspectiveCamera;
 import com.badlogic.gdx.graphics.g3d.Environment;
 import com.badlogic.gdx.graphics.g3d.ModelBatch;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
 
 import de.fau.cs.mad.fly.game.GameModel;
 import de.fau.cs.mad.fly.game.GameObject;
+import de.fau.cs.mad.fly.game.SpatialIndex;
+import de.fau.cs.mad.fly.graphics.InstanceBatch;
 
 import de.fau.cs.mad.fly.profile.LevelProfile;
 import de.fau.cs.mad.fly.player.gravity.EmptyGravity;
@@ -39,6 +42,7 @@ public class Level implements Disposable {
     public final Perspective start;
     private final Environment environment;
     private final Map<String, GameModel> dependencies;
+    private final Map<String, Environment> environments;
     
     private GameObject borderObject = null;
     
@@ -47,8 +51,32 @@ public class Level implements Disposable {
     
     private IGravity gravity = new EmptyGravity();
     
+    /**
+     * Spatial index of all displayed game objects of the level: components,
+     * gate displays, collectibles and the objects of features like the
+     * asteroid belt.
+     */
+    private final SpatialIndex spatialIndex = new SpatialIndex();
+    
+    /**
+     * Game objects found by the frustum query of the last {@link #render}.
+     */
+    private final Array<GameObject> visibleObjects = new Array<GameObject>();
+    
+    /**
+     * Draws the visible game objects, game objects with the same model
+     * together.
+     */
+    private final InstanceBatch instanceBatch = new InstanceBatch();
+    
     private float leftTime = 0;
     
+    /**
+     * The initial state of the level to restart it in place, null if it was
+     * not saved.
+     */
+    private LevelSnapshot initialState = null;
+    
     public float getLeftTime() {
         return leftTime;
     }
@@ -63,17 +91,17 @@ public class Level implements Disposable {
         this.components = components;
         this.start = start;
         this.dependencies = Collections.unmodifiableMap(dependencies);
+        this.environments = Collections.unmodifiableMap(environments);
         this.environment = environments.get("lighting");
-        environments.get(AMBIENT_ENVIRONMENT);
         
         int size = components.size();
         GameObject c;
         for (int i = 0; i < size; i++) {
             c = components.get(i);
-            if (c.getId().equals(BORDER_NAME)) {
+            spatialIndex.add(c);
+            if (borderObject == null && c.getId().equals(BORDER_NAME)) {
                 borderObject = c;
                 borderObject.environment = environments.get(AMBIENT_ENVIRONMENT);
-                i = size; // break
             }
         }
         
@@ -101,10 +129,41 @@ public class Level implements Disposable {
         return gravity;
     }
     
+    /**
+     * Getter for the spatial index of the level.
+     * <p>
+     * Game objects that are added to it are rendered by the level, if they are
+     * visible.
+     * 
+     * @return {@link #spatialIndex}
+     */
+    public SpatialIndex getSpatialIndex() {
+        return spatialIndex;
+    }
+    
     public GameModel getDependency(String id) {
         return dependencies.get(id);
     }
     
+    /**
+     * Getter for the models the level depends on.
+     * 
+     * @return models of {@link #dependencies}
+     */
+    public Collection<GameModel> getDependencies() {
+        return dependencies.values();
+    }
+    
+    /**
+     * Getter for all environments of the level, e.g. the lighting and the
+     * ambient environment.
+     * 
+     * @return environments of {@link #environments}
+     */
+    public Collection<Environment> getEnvironments() {
+        return environments.values();
+    }
+    
     /**
      * Getter for the collectible manager.
      * 
@@ -121,6 +180,8 @@ public class Level implements Disposable {
      */
     public void addCollectibleManager(CollectibleManager collectibleManager) {
         this.collectibleManager = collectibleManager;
+        this.collectibleManager.level = this;
+        this.collectibleManager.addToSpatialIndex();
     }
     
     /**
@@ -140,20 +201,35 @@ public class Level implements Disposable {
     public void addGateCircuit(GateCircuit gateCircuit) {
         this.gateCircuit = gateCircuit;
         this.gateCircuit.level = this;
+        this.gateCircuit.addToSpatialIndex();
     }
     
     public void addComponent(GameObject o) {
     	components.add(o);
+    	spatialIndex.add(o);
     }
     
     public boolean removeComponent(GameObject o) {
-    	boolean removed = components.remove(o);
+    	boolean removed = detachComponent(o);
     	if(removed) {
     		o.dispose();
     	}
     	return removed;
     }
     
+    /**
+     * Removes a game object from the level without disposing it, e.g. to
+     * reuse it later.
+     * 
+     * @param o
+     *            The game object to remove.
+     * @return true, if the game object was a component of the level.
+     */
+    public boolean detachComponent(GameObject o) {
+    	spatialIndex.remove(o);
+    	return components.remove(o);
+    }
+    
     /**
      * Environment in the level.
      * <p>
@@ -175,6 +251,7 @@ public class Level implements Disposable {
      */
     public void update(float delta, PerspectiveCamera camera) {
         borderObject.transform.setToTranslation(camera.position);
+        borderObject.invalidateBounds();
         
         gateCircuit.moveGates(delta);
         
@@ -187,8 +264,21 @@ public class Level implements Disposable {
         collectibleManager.moveCollectibles(delta);
     }
     
+    /**
+     * Getter for the instance batch that draws the game objects of the level.
+     * 
+     * @return {@link #instanceBatch}
+     */
+    public InstanceBatch getInstanceBatch() {
+        return instanceBatch;
+    }
+    
     /**
      * Render the level.
+     * <p>
+     * Only the game objects of the {@link #spatialIndex} whose bounds are
+     * inside the frustum of the camera are rendered. Game objects with the
+     * same model are drawn together by the {@link #instanceBatch}.
      * 
      * @param delta
      *            time after the last call.
@@ -198,18 +288,46 @@ public class Level implements Disposable {
      *            that displays the level.
      */
     public void render(float delta, ModelBatch batch, PerspectiveCamera camera) {
+        spatialIndex.refresh();
+        spatialIndex.queryFrustum(camera.frustum, visibleObjects);
+        
         int i;
-        final int numberOfComponents = components.size();
-        for (i = 0; i < numberOfComponents; i++) {
-            if (components.get(i).environment != null)
-                components.get(i).render(batch, camera);
-            else
-                components.get(i).render(batch, environment, camera);
+        GameObject o;
+        final int numberOfVisibleObjects = visibleObjects.size;
+        for (i = 0; i < numberOfVisibleObjects; i++) {
+            o = visibleObjects.get(i);
+            if (o.isVisible() && o.isVisibleInFrustum(camera)) {
+                instanceBatch.add(o, o.environment != null ? o.environment : environment);
+            }
         }
-        
-        gateCircuit.render(batch, environment, camera);
-        
-        collectibleManager.render(batch, environment, camera);
+        instanceBatch.render(batch);
+    }
+    
+    /**
+     * Saves the current state of the level as its initial state. Has to be
+     * called after the level was loaded and before the first game with it is
+     * built.
+     */
+    public void saveInitialState() {
+        initialState = new LevelSnapshot(this);
+    }
+    
+    /**
+     * Checks if the level can be restarted in place.
+     * 
+     * @return true, if the initial state was saved
+     */
+    public boolean hasInitialState() {
+        return initialState != null;
+    }
+    
+    /**
+     * Restores the initial state of the level, see {@link LevelSnapshot}. The
+     * game using the level has to be disposed before and a new one has to be
+     * built afterwards.
+     */
+    public void restoreInitialState() {
+        initialState.restore(this);
     }
     
     @Override
@@ -222,6 +340,7 @@ public class Level implements Disposable {
         Gdx.app.log("Level.dispose", "Disposing...");
         for (GameObject o : components)
             o.dispose();
+        instanceBatch.dispose();
         // for ( GameModel m : dependencies )
         // m.dispose();
     }
@@ -0,0 +1,83 @@
+package de.fau.cs.mad.fly.res;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+
+/**
+ * Compiles level json files into the {@link BinaryLevelFormat}.
+ * <p>
+ * Used by the compileLevels task of the build. The only argument is the
+ * levels folder, every level json file in its group folders is compiled into
+ * a file next to it.
+ */
+public class LevelCompiler {
+    
+    private final JsonReader reader = new JsonReader();
+    private final LevelParser parser = new LevelParser();
+    
+    /**
+     * Compiles a level json file.
+     * 
+     * @param levelFile
+     *            The level json file.
+     * @param compiledFile
+     *            The file to write the compiled level to.
+     * @throws IOException
+     */
+    public void compile(File levelFile, File compiledFile) throws IOException {
+        LevelDescriptor level = parser.parse(reader.parse(new FileHandle(levelFile)));
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(compiledFile));
+        try {
+            BinaryLevelFormat.write(level, out);
+        } finally {
+            out.close();
+        }
+    }
+    
+    /**
+     * Compiles all level json files in the group folders of the levels
+     * folder.
+     * 
+     * @param levelsFolder
+     *            The levels folder.
+     * @return number of compiled levels
+     * @throws IOException
+     */
+    public int compileAll(File levelsFolder) throws IOException {
+        int compiled = 0;
+        File[] groups = levelsFolder.listFiles();
+        if (groups == null) {
+            throw new IOException("No levels folder: " + levelsFolder);
+        }
+        for (File group : groups) {
+            File[] files = group.listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                String name = file.getName();
+                if (name.endsWith(".json") && !"group.json".equals(name)) {
+                    String baseName = name.substring(0, name.length() - ".json".length());
+                    compile(file, new File(group, baseName + BinaryLevelFormat.EXTENSION));
+                    compiled++;
+                }
+            }
+        }
+        return compiled;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: LevelCompiler <levels folder>");
+            System.exit(1);
+        }
+        int compiled = new LevelCompiler().compileAll(new File(args[0]));
+        System.out.println("Compiled " + compiled + " levels.");
+    }
+}
@@ -0,0 +1,103 @@
+package de.fau.cs.mad.fly.res;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain data of a level file as read by the {@link LevelParser}.
+ * <p>
+ * The descriptor contains no models or game objects, it can be created on
+ * any thread before the dependencies of the level are loaded. The
+ * {@link LevelLoader} builds the {@link Level} from it.
+ */
+public class LevelDescriptor {
+    
+    public String name;
+    public int id;
+    public int time;
+    public String levelClass;
+    public Perspective start = new Perspective();
+    
+    /** Model files by the name the level refers to them. */
+    public final Map<String, String> dependencies = new HashMap<String, String>();
+    
+    /** Type of the gravity or null, if the level has no gravity. */
+    public String gravityType;
+    /** Direction of a constant gravity or position of a directional gravity. */
+    public float[] gravityVector;
+    public float gravityStrength;
+    
+    /**
+     * Ambient light of the ambient environment as rgba or null, if the level
+     * uses the default environments.
+     */
+    public float[] ambientLight;
+    /** Ambient light of the lighting environment as rgba or null. */
+    public float[] lightingAmbientLight;
+    /** Directional lights as rgba color followed by the direction. */
+    public final List<float[]> directionalLights = new ArrayList<float[]>();
+    /** Point lights as rgba color followed by the position and intensity. */
+    public final List<float[]> pointLights = new ArrayList<float[]>();
+    
+    public final List<ObjectDescriptor> components = new ArrayList<ObjectDescriptor>();
+    public final List<GateDescriptor> gates = new ArrayList<GateDescriptor>();
+    public final List<CollectibleDescriptor> collectibles = new ArrayList<CollectibleDescriptor>();
+    
+    /**
+     * Getter for the number of game objects the level consists of.
+     * 
+     * @return number of components, gates and collectibles
+     */
+    public int getObjectCount() {
+        return components.size() + gates.size() + collectibles.size();
+    }
+    
+    /**
+     * Plain data of a game object.
+     */
+    public static class ObjectDescriptor {
+        public String id;
+        public String ref;
+        public String environment;
+        public boolean visible = true;
+        /** Transform matrix in column major order. */
+        public final float[] transform = new float[16];
+        /** Amplitude, frequency and offset of the sinus movements or null. */
+        public float[] sinusX;
+        public float[] sinusY;
+        public float[] sinusZ;
+        /** Angular velocity or null, if the object does not rotate. */
+        public float[] angularVelocity;
+    }
+    
+    /**
+     * Plain data of a gate. A gate without gate id is the dummy gate at the
+     * start of the level.
+     */
+    public static class GateDescriptor extends ObjectDescriptor {
+        public boolean dummy;
+        public int gateId;
+        public String refHole;
+        public int score;
+        public int[] successors;
+    }
+    
+    /**
+     * Plain data of a collectible. Only the values of its type are set.
+     */
+    public static class CollectibleDescriptor extends ObjectDescriptor {
+        public String type;
+        public int time;
+        public int points;
+        public float maxSpeedupFactor;
+        public int speedupTime;
+        public int maxSpeedTime;
+        public int slowdownTime;
+        public float[] resizeFactor;
+        public float roll;
+        public float azimuth;
+        public float duration;
+    }
+}
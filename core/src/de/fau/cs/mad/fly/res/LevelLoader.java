@@ -5,7 +5,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetDescriptor;
 import com.badlogic.gdx.assets.AssetLoaderParameters;
 import com.badlogic.gdx.assets.AssetManager;
@@ -17,12 +16,9 @@ import com.badlogic.gdx.graphics.g3d.Environment;
 import com.badlogic.gdx.graphics.g3d.attributes.ColorAttribute;
 import com.badlogic.gdx.graphics.g3d.environment.DirectionalLight;
 import com.badlogic.gdx.graphics.g3d.environment.PointLight;
-import com.badlogic.gdx.math.Quaternion;
 import com.badlogic.gdx.math.Vector3;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonReader;
-import com.badlogic.gdx.utils.JsonValue;
 
 import de.fau.cs.mad.fly.features.upgrades.types.ChangePointsUpgrade;
 import de.fau.cs.mad.fly.features.upgrades.types.ChangeSteeringUpgrade;
@@ -38,27 +34,52 @@ import de.fau.cs.mad.fly.game.object.SinusMover;
 import de.fau.cs.mad.fly.game.object.SinusRotationMover;
 import de.fau.cs.mad.fly.player.gravity.ConstantGravity;
 import de.fau.cs.mad.fly.player.gravity.DirectionalGravity;
+import de.fau.cs.mad.fly.res.LevelDescriptor.CollectibleDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.GateDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.ObjectDescriptor;
 
 /**
  * Created by danyel on 26/05/14.
+ * <p>
+ * Loads a level in two stages on the loading thread of the asset manager:
+ * <ol>
+ * <li>{@link #getDependencies(String, FileHandle, LevelParameters)} reads the
+ * level file into a {@link LevelDescriptor}. A compiled level file of the
+ * {@link BinaryLevelFormat} is read directly, otherwise the json file is read
+ * with the {@link LevelParser}. Large json files or files loaded with
+ * {@link LevelParameters#streaming} are read without building the json tree
+ * of the whole file.</li>
+ * <li>{@link #loadAsync(AssetManager, String, FileHandle, LevelParameters)}
+ * builds the game objects from the descriptor after the models are loaded.</li>
+ * </ol>
+ * A level needs no GL calls, so
+ * {@link #loadSync(AssetManager, String, FileHandle, LevelParameters)} only
+ * hands out the built level. The progress of reading the level file and of
+ * building the game objects is available with {@link #getProgress()}.
  */
 public class LevelLoader extends AsynchronousAssetLoader<Level, LevelLoader.LevelParameters> {
-    private static final String JSON_POSITION = "position";
-    private static final String MODEL_FOLDER = "models/";
-    private static final int DEFAULT_GATE_SCORE = 50;
+    /** Files larger than this number of bytes are always read streaming. */
+    public static final long STREAMING_FILE_SIZE = 256 * 1024;
+    
+    /** Share of the progress that is taken by reading the level file. */
+    private static final float PARSE_PROGRESS = 0.5f;
     
     Level level;
     private final JsonReader reader;
-    private final Json auto;
-    private JsonValue json;
+    private final LevelParser parser;
+    private LevelDescriptor descriptor;
     private Map<String, GameModel> models;
-    private Map<String, String> dependencies;
     private Map<String, GameObject> components;
     private AssetManager manager;
-    private FileHandle file;
-    private LevelParameters parameter;
     private Map<String, Environment> environments;
     
+    /** Number of game objects of the level that is loaded. */
+    private volatile int objectCount;
+    /** Number of game objects of the level that are already built. */
+    private volatile int builtObjects;
+    /** True while the json file of the level is read by the parser. */
+    private volatile boolean parsing;
+    
     /**
      * Constructor, sets the
      * {@link com.badlogic.gdx.assets.loaders.FileHandleResolver} to use to
@@ -67,125 +88,141 @@ public class LevelLoader extends AsynchronousAssetLoader<Level, LevelLoader.Leve
     public LevelLoader() {
         super(new InternalFileHandleResolver());
         reader = new JsonReader();
-        auto = new Json();
-        models = new HashMap<String, GameModel>();
+        parser = new LevelParser();
         components = new HashMap<String, GameObject>();
     }
     
-    public void loadLevelfromJson() {
-        parseJson();
-        for (Map.Entry<String, String> e : dependencies.entrySet()) {
-            models.put(e.getKey(), dependencyFor(e.getKey()));
+    /**
+     * Getter for the progress of loading the level. The first
+     * {@link #PARSE_PROGRESS} is the share of the game objects read by the
+     * {@link LevelParser}, the rest the share of the game objects that are
+     * built. May be called from any thread.
+     * 
+     * @return progress between 0 and 1
+     */
+    public float getProgress() {
+        if (parsing) {
+            int expected = parser.getObjectCount();
+            if (expected == 0) {
+                return 0f;
+            }
+            return PARSE_PROGRESS * Math.min(1f, (float) parser.getParsedObjects() / (float) expected);
+        }
+        int count = objectCount;
+        if (count == 0) {
+            return 0f;
+        }
+        return PARSE_PROGRESS + (1f - PARSE_PROGRESS) * Math.min(1f, (float) builtObjects / (float) count);
+    }
+    
+    /**
+     * Reads the level file into a descriptor. The compiled level is
+     * preferred, if there is one, see {@link BinaryLevelFormat}.
+     * 
+     * @param file
+     *            The level file.
+     * @param parameter
+     *            The parameters the level is loaded with or null.
+     */
+    private void parseLevel(FileHandle file, LevelParameters parameter) {
+        FileHandle compiled = BinaryLevelFormat.compiledFile(file);
+        // a compiled file older than the json file is out of date
+        if (compiled.exists() && compiled.lastModified() >= file.lastModified()) {
+            descriptor = BinaryLevelFormat.read(compiled);
+        } else {
+            parsing = true;
+            try {
+                if ((parameter != null && parameter.streaming) || file.length() > STREAMING_FILE_SIZE) {
+                    descriptor = parser.parseStreaming(file);
+                } else {
+                    descriptor = parser.parse(reader.parse(file));
+                }
+            } finally {
+                parsing = false;
+            }
         }
-        environments = parseEnvironments();
-        parseComponents();
-        Perspective start = auto.fromJson(Perspective.class, json.get("start").toString());
+        builtObjects = 0;
+        objectCount = descriptor.getObjectCount();
+    }
+    
+    /**
+     * Builds the level from the descriptor. The models of the level have to
+     * be loaded.
+     */
+    private void buildLevel() {
+        // the level keeps the map, models of former levels must not be in it
+        models = new HashMap<String, GameModel>();
+        for (Map.Entry<String, String> e : descriptor.dependencies.entrySet()) {
+            models.put(e.getKey(), manager.get(e.getValue(), GameModel.class));
+        }
+        environments = buildEnvironments();
+        buildComponents();
         
         List<GameObject> componentsList = new ArrayList<GameObject>();
         componentsList.addAll(components.values());
-        level = new Level(json.getString("name"), start, componentsList, models, environments);
-        JsonValue levelClass = json.get("class");
-        if (levelClass != null) {
-            level.levelClass = levelClass.asString();
-        }
-        level.head.id = json.getInt("id");
-        level.setLeftTime(json.getInt("time"));
-        
-        JsonValue gravity = json.get("gravity");
-        if (gravity != null) {
-            parseGravity(level, gravity);
+        level = new Level(descriptor.name, descriptor.start, componentsList, models, environments);
+        if (descriptor.levelClass != null) {
+            level.levelClass = descriptor.levelClass;
         }
+        level.head.id = descriptor.id;
+        level.setLeftTime(descriptor.time);
+        buildGravity(level);
         
-        level.addGateCircuit(parseGates());
-        level.addCollectibleManager(parseCollectibles());
+        level.addGateCircuit(buildGates());
+        level.addCollectibleManager(buildCollectibles());
     }
     
     /**
-     * Parses and adds the gravity to the level.
+     * Adds the gravity to the level.
      * 
      * @param level
      *            The level to add the gravity to.
-     * @param e
-     *            The json value of the level.
      */
-    private void parseGravity(Level level, JsonValue e) {
-        String type = e.getString("type");
-        
+    private void buildGravity(Level level) {
+        String type = descriptor.gravityType;
+        float[] v = descriptor.gravityVector;
         if ("ConstantGravity".equals(type)) {
-            JsonValue dir = e.get("direction");
-            ConstantGravity gravity = new ConstantGravity(new Vector3(dir.getFloat(0), dir.getFloat(1), dir.getFloat(2)));
-            level.setGravity(gravity);
+            level.setGravity(new ConstantGravity(new Vector3(v[0], v[1], v[2])));
         } else if ("DirectionalGravity".equals(type)) {
-            JsonValue pos = e.get(JSON_POSITION);
-            float strength = e.getFloat("strength");
-            DirectionalGravity gravity = new DirectionalGravity(new Vector3(pos.getFloat(0), pos.getFloat(1), pos.getFloat(2)), strength);
-            level.setGravity(gravity);
+            level.setGravity(new DirectionalGravity(new Vector3(v[0], v[1], v[2]), descriptor.gravityStrength));
         }
     }
     
     /**
-     * Parses the gates in the level file and creates a gate circuit.
+     * Builds the gates of the level and creates a gate circuit.
      * 
      * @return GateCircuit
-     * @throws LevelLoadingException
      */
-    private GateCircuit parseGates() {
+    private GateCircuit buildGates() {
         Map<Integer, GateGoal> gateMap = new HashMap<Integer, GateGoal>();
         
-        JsonValue gates = json.get("gates");
-        if (gates == null) {
-            return null;
-        }
-        
         // dummy gate goal at the start
         GateGoal dummyGate = null;
-        
-        int len = gates.size;
-        JsonValue jsonGate;
         GateDisplay display;
         GateGoal goal;
         
-        for (int i = 0; i < len; i++) {
-            jsonGate = gates.get(i);
-            JsonValue gateId = jsonGate.get("gateId");
-            
-            if (gateId != null) {
-                String ref = jsonGate.getString("ref");
-                String refHole = jsonGate.getString("refHole");
-                display = new GateDisplay(models.get(ref));
-                JsonValue scoreJS = jsonGate.get("score");
-                int score = DEFAULT_GATE_SCORE;
-                if (scoreJS != null) {
-                    score = scoreJS.asInt();
-                }
-                goal = new GateGoal(gateId.asInt(), models.get(refHole), score, display);
+        for (GateDescriptor e : descriptor.gates) {
+            if (!e.dummy) {
+                display = new GateDisplay(models.get(e.ref));
+                goal = new GateGoal(e.gateId, models.get(e.refHole), e.score, display);
                 goal.hide();
                 display.setGoal(goal);
                 
-                parseTransform(display, jsonGate);
+                buildTransform(display, e);
                 goal.transform = display.transform.cpy();
-                parseVelocity(display, jsonGate);
-                if(display.getMover() != null) {
-                	goal.setMover(display.getMover().getCopy(goal));
+                buildVelocity(display, e);
+                if (display.getMover() != null) {
+                    goal.setMover(display.getMover().getCopy(goal));
                 }
-                gateMap.put(gateId.asInt(), goal);
             } else {
                 goal = new GateGoal(-1, models.get("hole"), 0, null);
                 goal.hide();
                 dummyGate = goal;
             }
             
-            goal.successors = jsonGate.get("successors").asIntArray();
+            goal.successors = e.successors;
             gateMap.put(goal.getGateId(), goal);
-        }
-        
-        if (dummyGate == null) {
-            Gdx.app.log("LevelLoader.parseGates", "no dummy gate found, create default one");
-            dummyGate = new GateGoal(-1, models.get("hole"), 0, null);
-            dummyGate.hide();
-            int[] dummySuccessors = new int[1];
-            dummySuccessors[0] = 0;
-            dummyGate.setSuccessors(dummySuccessors);
+            builtObjects++;
         }
         
         GateCircuit gateCircuit = new GateCircuit(dummyGate);
@@ -195,177 +232,120 @@ public class LevelLoader extends AsynchronousAssetLoader<Level, LevelLoader.Leve
     }
     
     /**
-     * Parses the additional information of the current game object like the id.
+     * Sets the additional information of the game object like the id.
      * 
      * @param o
      *            The game object.
      * @param e
-     *            The json value of the game object.
+     *            The descriptor of the game object.
      */
-    private void parseInformation(GameObject o, JsonValue e) {
-        o.setId(e.getString("id"));
-        
-        JsonValue visible = e.get("visible");
-        if (visible != null && !visible.asBoolean()) {
+    private void buildInformation(GameObject o, ObjectDescriptor e) {
+        o.setId(e.id);
+        if (!e.visible) {
             o.hide();
         }
     }
     
     /**
-     * Parses the transform matrix of the current game object.
+     * Sets the transform matrix of the game object.
      * 
      * @param o
      *            The game object.
      * @param e
-     *            The json value of the game object.
+     *            The descriptor of the game object.
      */
-    private void parseTransform(GameObject o, JsonValue e) {
-        JsonValue transform = e.get("transformMatrix");
-        JsonValue position = e.get(JSON_POSITION);
-        if (transform != null) {
-            o.transform.set(transform.asFloatArray());
-        } else if (position != null) {
-            Vector3 pos = new Vector3(position.asFloatArray());
-            
-            JsonValue euler = e.get("euler");
-            JsonValue quaternion = e.get("quaternion");
-            if (euler != null) {
-                Quaternion quat = new Quaternion();
-                quat.setEulerAngles(euler.getFloat(1), euler.getFloat(0), euler.getFloat(2));
-                o.transform.set(pos, quat, new Vector3(1.0f, 1.0f, 1.0f));
-            } else if (quaternion != null) {
-                Quaternion quat = new Quaternion(quaternion.getFloat(0), quaternion.getFloat(1), quaternion.getFloat(2), quaternion.getFloat(3));
-                o.transform.set(pos, quat, new Vector3(1.0f, 1.0f, 1.0f));
-            } else {
-                o.transform.idt();
-                o.transform.trn(pos);
-            }
-            
-            JsonValue scale = e.get("scale");
-            if (scale != null) {
-                o.transform.scale(scale.getFloat(0), scale.getFloat(1), scale.getFloat(2));
-            }
-        } else {
-            o.transform.idt();
-        }
+    private void buildTransform(GameObject o, ObjectDescriptor e) {
+        o.transform.set(e.transform);
     }
     
     /**
-     * Parses the velocity information of the current game object. Has to be
-     * called after parse transform.
+     * Sets the mover of the game object. Has to be called after build
+     * transform.
      * 
      * @param o
      *            The game object.
      * @param e
-     *            The json value of the game object.
+     *            The descriptor of the game object.
      */
-    private void parseVelocity(GameObject o, JsonValue e) {
-        JsonValue sinusX = e.get("sinus_x");
-        JsonValue sinusY = e.get("sinus_y");
-        JsonValue sinusZ = e.get("sinus_z");
-        JsonValue angular = e.get("angular_velocity");
-        if ((sinusX != null || sinusY != null || sinusZ != null) && angular != null) {
-            // sin + rot
-            SinusRotationMover mover = new SinusRotationMover(o);
-            if (sinusX != null) {
-                mover.X.set(sinusX.getFloat(0) * 0.01f, sinusX.getFloat(1), sinusX.getFloat(2));
-            }
-            if (sinusY != null) {
-                mover.Y.set(sinusY.getFloat(0) * 0.01f, sinusY.getFloat(1), sinusY.getFloat(2));
-            }
-            if (sinusZ != null) {
-                mover.Z.set(sinusZ.getFloat(0) * 0.01f, sinusZ.getFloat(1), sinusZ.getFloat(2));
-            }
-            mover.setRotation(new Vector3(angular.getFloat(0), angular.getFloat(1), angular.getFloat(2)));
-            o.setMover(mover);
-        } else if ((sinusX != null || sinusY != null || sinusZ != null) && angular == null) {
-            // sin
-            SinusMover mover = new SinusMover(o);
-            if (sinusX != null) {
-                mover.X.set(sinusX.getFloat(0) * 0.01f, sinusX.getFloat(1), sinusX.getFloat(2));
-            }
-            if (sinusY != null) {
-                mover.Y.set(sinusY.getFloat(0) * 0.01f, sinusY.getFloat(1), sinusY.getFloat(2));
-            }
-            if (sinusZ != null) {
-                mover.Z.set(sinusZ.getFloat(0) * 0.01f, sinusZ.getFloat(1), sinusZ.getFloat(2));
+    private void buildVelocity(GameObject o, ObjectDescriptor e) {
+        float[] angular = e.angularVelocity;
+        if (e.sinusX != null || e.sinusY != null || e.sinusZ != null) {
+            if (angular != null) {
+                // sin + rot
+                SinusRotationMover mover = new SinusRotationMover(o);
+                setSinus(mover.X, e.sinusX);
+                setSinus(mover.Y, e.sinusY);
+                setSinus(mover.Z, e.sinusZ);
+                mover.setRotation(new Vector3(angular[0], angular[1], angular[2]));
+                o.setMover(mover);
+            } else {
+                // sin
+                SinusMover mover = new SinusMover(o);
+                setSinus(mover.X, e.sinusX);
+                setSinus(mover.Y, e.sinusY);
+                setSinus(mover.Z, e.sinusZ);
+                o.setMover(mover);
             }
-            o.setMover(mover);
         } else if (angular != null) {
             // rot
             RotationMover mover = new RotationMover(o);
-            mover.setRotation(new Vector3(angular.getFloat(0), angular.getFloat(1), angular.getFloat(2)));
+            mover.setRotation(new Vector3(angular[0], angular[1], angular[2]));
             o.setMover(mover);
         }
     }
     
+    private void setSinus(Vector3 sinus, float[] values) {
+        if (values != null) {
+            sinus.set(values[0] * 0.01f, values[1], values[2]);
+        }
+    }
+    
     /**
-     * Parses the collectibles in the level file.
+     * Builds the collectibles of the level.
      * 
      * @return CollectibleManager
      */
-    private CollectibleManager parseCollectibles() {
+    private CollectibleManager buildCollectibles() {
         List<Collectible> upgradeList = new ArrayList<Collectible>();
-        JsonValue upgrades = json.get("upgrades");
-        if (upgrades == null) {
-            return new CollectibleManager();
-        }
-        
-        int len = upgrades.size;
-        JsonValue jsonUpgrade;
+        Collectible c;
+        GameModel model;
         
-        for (int i = 0; i < len; i++) {
-            jsonUpgrade = upgrades.get(i);
-            JsonValue upgradeType = jsonUpgrade.get("type");
-            if (upgradeType != null) {
-                String type = upgradeType.asString();
-                Collectible c = null;
-                String ref = jsonUpgrade.getString("ref");
-                if ("ChangeTimeUpgrade".equals(type)) {
-                    c = new ChangeTimeUpgrade(models.get(ref), jsonUpgrade.get("time").asInt());
-                } else if (type.equals("ChangePointsUpgrade")) {
-                    c = new ChangePointsUpgrade(models.get(ref), jsonUpgrade.get("points").asInt());
-                } else if (type.equals(TemporarySpeedUpgrade.TYPE)) {
-                    float maxSpeedupFactor = jsonUpgrade.get("maxSpeedupFactor").asFloat();
-                    int speedupTimeInMilliSeconds = jsonUpgrade.get("speedupTimeInMilliSeconds").asInt();
-                    int maxSpeedTimeInMilliSeconds = jsonUpgrade.get("maxSpeedTimeInMilliSeconds").asInt();
-                    int slowdownTimeInMilliSeconds = jsonUpgrade.get("slowdownTimeInMilliSeconds").asInt();
-                    SpeedUpgradeEffect effect = new SpeedUpgradeEffect(maxSpeedupFactor, speedupTimeInMilliSeconds, maxSpeedTimeInMilliSeconds, slowdownTimeInMilliSeconds);
-                    c = new TemporarySpeedUpgrade(models.get(ref), effect);
-                    
-                } else if ("ResizeGatesUpgrade".equals(type)) {
-                    JsonValue jsonResizeFactor = jsonUpgrade.get("resizeFactor");
-                    Vector3 scale = new Vector3(jsonResizeFactor.getFloat(0), jsonResizeFactor.getFloat(1), jsonResizeFactor.getFloat(2));
-                    c = new ResizeGatesUpgrade(models.get(ref), scale);
-                } else if ("ChangeSteeringUpgrade".equals(type)) {
-                    c = new ChangeSteeringUpgrade(models.get(ref), jsonUpgrade.get("roll").asFloat(), jsonUpgrade.get("azimuth").asFloat(), jsonUpgrade.get("duration").asFloat());
-                }
-                
-                if (c != null) {
-                    parseInformation(c, jsonUpgrade);
-                    parseTransform(c, jsonUpgrade);
-                    parseVelocity(c, jsonUpgrade);
-                    
-                    upgradeList.add(c);
-                } else {
-                    Gdx.app.log("LevelLoader.parseUpgrades", "Upgrade type not found.");
-                }
+        for (CollectibleDescriptor e : descriptor.collectibles) {
+            model = models.get(e.ref);
+            if ("ChangeTimeUpgrade".equals(e.type)) {
+                c = new ChangeTimeUpgrade(model, e.time);
+            } else if ("ChangePointsUpgrade".equals(e.type)) {
+                c = new ChangePointsUpgrade(model, e.points);
+            } else if (TemporarySpeedUpgrade.TYPE.equals(e.type)) {
+                SpeedUpgradeEffect effect = new SpeedUpgradeEffect(e.maxSpeedupFactor, e.speedupTime, e.maxSpeedTime, e.slowdownTime);
+                c = new TemporarySpeedUpgrade(model, effect);
+            } else if ("ResizeGatesUpgrade".equals(e.type)) {
+                c = new ResizeGatesUpgrade(model, new Vector3(e.resizeFactor[0], e.resizeFactor[1], e.resizeFactor[2]));
+            } else {
+                // the parser only keeps known types
+                c = new ChangeSteeringUpgrade(model, e.roll, e.azimuth, e.duration);
             }
+            
+            buildInformation(c, e);
+            buildTransform(c, e);
+            buildVelocity(c, e);
+            upgradeList.add(c);
+            builtObjects++;
         }
         
         return new CollectibleManager(upgradeList);
     }
     
     /**
-     * Parses the environments
+     * Builds the environments
      */
-    private Map<String, Environment> parseEnvironments() {
+    private Map<String, Environment> buildEnvironments() {
         Environment ambientEnvironment = new Environment();
         Environment lightingEnvironment = new Environment();
         Map<String, Environment> envList = new HashMap<String, Environment>();
         
-        JsonValue environments = json.get("environments");
-        if (environments == null) {
+        float[] ambient = descriptor.ambientLight;
+        if (ambient == null) {
             // Set default environments if they aren't specified
             ambientEnvironment.set(new ColorAttribute(ColorAttribute.AmbientLight, 1f, 1f, 1f, 1f));
             lightingEnvironment.set(new ColorAttribute(ColorAttribute.AmbientLight, 0.3f, 0.3f, 0.3f, 1f));
@@ -375,35 +355,16 @@ public class LevelLoader extends AsynchronousAssetLoader<Level, LevelLoader.Leve
             return envList;
         }
         
-        JsonValue ambient = environments.get("ambient");
-        ambientEnvironment.set(new ColorAttribute(ColorAttribute.AmbientLight, ambient.getFloat(0), ambient.getFloat(1), ambient.getFloat(2), ambient.getFloat(3)));
-        JsonValue lighting = environments.get("lighting");
-        if (lighting != null) {
-            ambient = lighting.get("ambientLight");
-            if (ambient != null) {
-                lightingEnvironment.set(new ColorAttribute(ColorAttribute.AmbientLight, ambient.getFloat(0), ambient.getFloat(1), ambient.getFloat(2), ambient.getFloat(3)));
-            }
-            JsonValue directionalLights = lighting.get("directionalLights");
-            if (directionalLights != null) {
-                for (int i = 0; i < directionalLights.size; i++) {
-                    JsonValue colorValue = directionalLights.get(i).get("color");
-                    JsonValue directionValue = directionalLights.get(i).get("direction");
-                    Color color = new Color(colorValue.getFloat(0), colorValue.getFloat(1), colorValue.getFloat(2), colorValue.getFloat(3));
-                    Vector3 direction = new Vector3(directionValue.getFloat(0), directionValue.getFloat(1), directionValue.getFloat(2));
-                    lightingEnvironment.add(new DirectionalLight().set(color, direction));
-                }
-            }
-            JsonValue pointLights = lighting.get("pointLights");
-            if (pointLights != null) {
-                for (int i = 0; i < pointLights.size; i++) {
-                    JsonValue colorValue = pointLights.get(i).get("color");
-                    JsonValue positionValue = pointLights.get(i).get(JSON_POSITION);
-                    JsonValue intensityValue = pointLights.get(i).get("intensity");
-                    Color color = new Color(colorValue.getFloat(0), colorValue.getFloat(1), colorValue.getFloat(2), colorValue.getFloat(3));
-                    Vector3 position = new Vector3(positionValue.getFloat(0), positionValue.getFloat(1), positionValue.getFloat(2));
-                    lightingEnvironment.add(new PointLight().set(color, position, intensityValue.asFloat()));
-                }
-            }
+        ambientEnvironment.set(new ColorAttribute(ColorAttribute.AmbientLight, ambient[0], ambient[1], ambient[2], ambient[3]));
+        ambient = descriptor.lightingAmbientLight;
+        if (ambient != null) {
+            lightingEnvironment.set(new ColorAttribute(ColorAttribute.AmbientLight, ambient[0], ambient[1], ambient[2], ambient[3]));
+        }
+        for (float[] l : descriptor.directionalLights) {
+            lightingEnvironment.add(new DirectionalLight().set(new Color(l[0], l[1], l[2], l[3]), new Vector3(l[4], l[5], l[6])));
+        }
+        for (float[] l : descriptor.pointLights) {
+            lightingEnvironment.add(new PointLight().set(new Color(l[0], l[1], l[2], l[3]), new Vector3(l[4], l[5], l[6]), l[7]));
         }
         envList.put("ambient", ambientEnvironment);
         envList.put("lighting", lightingEnvironment);
@@ -411,79 +372,41 @@ public class LevelLoader extends AsynchronousAssetLoader<Level, LevelLoader.Leve
     }
     
     /**
-     * Parses the json file.
-     */
-    private void parseJson() {
-        if (json == null) {
-            json = reader.parse(file);
-        }
-    }
-    
-    /**
-     * Parses the dependencies.
-     */
-    private void parseDependencies() {
-        if (dependencies == null) {
-            parseJson();
-            dependencies = new HashMap<String, String>();
-            JsonValue e;
-            JsonValue jsonDependencies = json.get("dependencies");
-            int len = jsonDependencies.size;
-            for (int i = 0; i < len; i++) {
-                e = jsonDependencies.get(i);
-                String fileName = MODEL_FOLDER + e.asString() + "/" + e.asString();
-                dependencies.put(e.name(), fileName);
-            }
-        }
-    }
-    
-    /**
-     * Parses the components.
+     * Builds the components.
      * <p>
      * Components are all the decoration stuff in the level.
      */
-    private void parseComponents() {
-        parseJson();
+    private void buildComponents() {
         components.clear();
         GameObject o;
-        for (JsonValue e : json.get("components")) {
-            String ref = e.getString("ref");
-            
-            long timeStart = System.currentTimeMillis();
-            o = new GameObject(models.get(ref), ref);
-            Gdx.app.log("loadGameObject", String.valueOf(System.currentTimeMillis() - timeStart));
-            
-            if (e.has("environment")) {
-                o.environment = environments.get(e.getString("environment"));
+        for (ObjectDescriptor e : descriptor.components) {
+            o = new GameObject(models.get(e.ref), e.ref);
+            if (e.environment != null) {
+                o.environment = environments.get(e.environment);
             }
             
-            parseInformation(o, e);
-            parseTransform(o, e);
-            parseVelocity(o, e);
+            buildInformation(o, e);
+            buildTransform(o, e);
+            buildVelocity(o, e);
             
             components.put(o.getId(), o);
+            builtObjects++;
         }
     }
     
-    private GameModel dependencyFor(String ref) {
-        return manager.get(dependencies.get(ref), GameModel.class);
-    }
-    
     private void deinit() {
         level = null;
-        json = null;
+        descriptor = null;
         components.clear();
-        dependencies = null;
-        file = null;
-        parameter = null;
         manager = null;
+        objectCount = 0;
+        builtObjects = 0;
         // Models are needed for the features, dont clear them!
         // models.clear();
     }
     
     @Override
     public Level loadSync(AssetManager manager, String fileName, FileHandle file, LevelParameters parameter) {
-        Gdx.app.log("LevelLoader.loadSync", "LOADING.");
         Level l = level;
         deinit();
         return l;
@@ -491,25 +414,30 @@ public class LevelLoader extends AsynchronousAssetLoader<Level, LevelLoader.Leve
     
     @Override
     public void loadAsync(AssetManager manager, String fileName, FileHandle file, LevelParameters parameter) {
-        Gdx.app.log("LevelLoader.loadAsync", "LOADING.");
         this.level = null;
         this.manager = manager;
-        loadLevelfromJson();
+        if (descriptor == null) {
+            parseLevel(file, parameter);
+        }
+        buildLevel();
     }
     
     @Override
     public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, LevelParameters parameter) {
-        this.file = file;
-        this.parameter = parameter;
-        parseDependencies();
+        parseLevel(file, parameter);
         Array<AssetDescriptor> deps = new Array<AssetDescriptor>();
-        for (String name : dependencies.values()) {
-            // Gdx.app.log("LevelLoader.getDependencies", name);
+        for (String name : descriptor.dependencies.values()) {
             deps.add(new AssetDescriptor<GameModel>(name, GameModel.class));
         }
         return deps;
     }
     
     static public class LevelParameters extends AssetLoaderParameters<Level> {
+        /**
+         * True, if the level file is read without building the json tree of
+         * the whole file. Files larger than
+         * {@link LevelLoader#STREAMING_FILE_SIZE} are always read streaming.
+         */
+        public boolean streaming;
     }
-}
\ No newline at end of file
+}
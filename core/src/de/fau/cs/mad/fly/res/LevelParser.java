@@ -0,0 +1,561 @@
+package de.fau.cs.mad.fly.res;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Quaternion;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.Json;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.JsonValue.ValueType;
+
+import de.fau.cs.mad.fly.features.upgrades.types.TemporarySpeedUpgrade;
+import de.fau.cs.mad.fly.res.LevelDescriptor.CollectibleDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.GateDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.ObjectDescriptor;
+
+/**
+ * Reads level files into {@link LevelDescriptor}s.
+ * <p>
+ * The parser has two modes with the same result:
+ * <ul>
+ * <li>{@link #parse(JsonValue)} reads a level that was parsed into a complete
+ * json tree.</li>
+ * <li>{@link #parseStreaming(FileHandle)} reads the level while the file is
+ * parsed. The elements of the components, gates and upgrades arrays are
+ * converted into descriptors one by one and dropped afterwards, so the json
+ * tree of the whole level never exists.</li>
+ * </ul>
+ * The parser needs neither a GL context nor the native libraries, it is used
+ * on the loading thread of the asset manager and by the {@link LevelCompiler}.
+ * Collectibles of unknown types are skipped.
+ */
+public class LevelParser {
+    private static final String JSON_POSITION = "position";
+    private static final String JSON_COMPONENTS = "components";
+    private static final String JSON_GATES = "gates";
+    private static final String JSON_UPGRADES = "upgrades";
+    private static final String MODEL_FOLDER = "models/";
+    private static final int DEFAULT_GATE_SCORE = 50;
+    
+    private final Json auto = new Json();
+    
+    private final Matrix4 matrix = new Matrix4();
+    private final Vector3 position = new Vector3();
+    private final Vector3 scale = new Vector3(1.0f, 1.0f, 1.0f);
+    private final Quaternion quaternion = new Quaternion();
+    
+    /** Number of game objects read by the parser, read by other threads. */
+    private volatile int parsedObjects;
+    
+    /**
+     * Number of game objects of the level that is read, 0 as long as it is not
+     * known.
+     */
+    private volatile int objectCount;
+    
+    /**
+     * Getter for the number of game objects read since the last level was
+     * started.
+     * 
+     * @return number of read components, gates and collectibles
+     */
+    public int getParsedObjects() {
+        return parsedObjects;
+    }
+    
+    /**
+     * Getter for the number of game objects of the level that is read. It is
+     * known before the first game object is read. Elements of unknown types
+     * are counted but skipped, so fewer game objects may be read.
+     * 
+     * @return number of components, gates and collectibles, 0 if not known
+     */
+    public int getObjectCount() {
+        return objectCount;
+    }
+    
+    /**
+     * Reads the level from its complete json tree.
+     * 
+     * @param json
+     *            The root of the level file.
+     * @return descriptor of the level
+     */
+    public LevelDescriptor parse(JsonValue json) {
+        parsedObjects = 0;
+        int count = 0;
+        for (JsonValue member = json.child; member != null; member = member.next) {
+            if (isObjectArray(member.name)) {
+                count += member.size;
+            }
+        }
+        objectCount = count;
+        LevelDescriptor level = new LevelDescriptor();
+        for (JsonValue member = json.child; member != null; member = member.next) {
+            if (isObjectArray(member.name)) {
+                for (JsonValue element = member.child; element != null; element = element.next) {
+                    readElement(level, member.name, element);
+                }
+            } else {
+                readMember(level, member);
+            }
+        }
+        finish(level);
+        return level;
+    }
+    
+    /**
+     * Reads the level while the file is parsed, without building the json
+     * tree of the whole file.
+     * 
+     * @param file
+     *            The level file.
+     * @return descriptor of the level
+     */
+    public LevelDescriptor parseStreaming(FileHandle file) {
+        parsedObjects = 0;
+        objectCount = 0;
+        char[] data = readChars(file);
+        int length = data.length;
+        objectCount = countObjects(data, length);
+        LevelDescriptor level = new LevelDescriptor();
+        new StreamingReader(level).parse(data, 0, length);
+        finish(level);
+        return level;
+    }
+    
+    /**
+     * Reads the characters of the file, like the json reader would before it
+     * parses them.
+     */
+    private static char[] readChars(FileHandle file) {
+        Reader reader = file.reader("UTF-8");
+        try {
+            // a character of UTF-8 takes one byte at least
+            char[] data = new char[(int) file.length()];
+            int length = 0;
+            int read;
+            while ((read = reader.read(data, length, data.length - length)) > 0) {
+                length += read;
+            }
+            if (length < data.length) {
+                char[] chars = new char[length];
+                System.arraycopy(data, 0, chars, 0, length);
+                return chars;
+            }
+            return data;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Error reading level " + file, e);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+    
+    /**
+     * Counts the elements of the arrays of game objects without parsing them,
+     * so that the progress of reading a level streaming is known. Only the
+     * brackets outside of strings are looked at.
+     * 
+     * @return number of objects in the components, gates and upgrades arrays
+     */
+    private int countObjects(char[] data, int length) {
+        int count = 0;
+        int depth = 0;
+        int keyStart = -1;
+        int keyEnd = -1;
+        boolean objectArray = false;
+        char c;
+        for (int i = 0; i < length; i++) {
+            c = data[i];
+            if (c == '"') {
+                int start = i + 1;
+                for (i = start; i < length && data[i] != '"'; i++) {
+                    if (data[i] == '\\') {
+                        i++;
+                    }
+                }
+                if (depth == 1) {
+                    keyStart = start;
+                    keyEnd = i;
+                }
+            } else if (c == '{' || c == '[') {
+                depth++;
+                if (depth == 2) {
+                    objectArray = c == '[' && keyStart >= 0 && isObjectArray(new String(data, keyStart, keyEnd - keyStart));
+                } else if (depth == 3 && objectArray) {
+                    count++;
+                }
+            } else if (c == '}' || c == ']') {
+                depth--;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Checks if a member of the level is one of the arrays whose elements are
+     * read one by one.
+     */
+    private boolean isObjectArray(String name) {
+        return JSON_COMPONENTS.equals(name) || JSON_GATES.equals(name) || JSON_UPGRADES.equals(name);
+    }
+    
+    /**
+     * Reads a member of the level that is not an array of game objects.
+     * 
+     * @param level
+     *            The level descriptor to fill.
+     * @param e
+     *            The json value of the member.
+     */
+    private void readMember(LevelDescriptor level, JsonValue e) {
+        String name = e.name;
+        if ("name".equals(name)) {
+            level.name = e.asString();
+        } else if ("id".equals(name)) {
+            level.id = e.asInt();
+        } else if ("time".equals(name)) {
+            level.time = e.asInt();
+        } else if ("class".equals(name)) {
+            level.levelClass = e.asString();
+        } else if ("start".equals(name)) {
+            level.start = auto.readValue(Perspective.class, e);
+        } else if ("gravity".equals(name)) {
+            readGravity(level, e);
+        } else if ("dependencies".equals(name)) {
+            for (JsonValue dependency = e.child; dependency != null; dependency = dependency.next) {
+                String fileName = MODEL_FOLDER + dependency.asString() + "/" + dependency.asString();
+                level.dependencies.put(dependency.name, fileName);
+            }
+        } else if ("environments".equals(name)) {
+            readEnvironments(level, e);
+        }
+    }
+    
+    /**
+     * Reads an element of one of the arrays of game objects.
+     * 
+     * @param level
+     *            The level descriptor to fill.
+     * @param array
+     *            The name of the array.
+     * @param e
+     *            The json value of the element.
+     */
+    private void readElement(LevelDescriptor level, String array, JsonValue e) {
+        if (JSON_COMPONENTS.equals(array)) {
+            ObjectDescriptor o = new ObjectDescriptor();
+            o.ref = e.getString("ref");
+            o.environment = e.getString("environment", null);
+            readInformation(o, e);
+            readTransform(o, e);
+            readVelocity(o, e);
+            level.components.add(o);
+        } else if (JSON_GATES.equals(array)) {
+            level.gates.add(readGate(e));
+        } else {
+            CollectibleDescriptor c = readCollectible(e);
+            if (c == null) {
+                return;
+            }
+            level.collectibles.add(c);
+        }
+        parsedObjects++;
+    }
+    
+    /**
+     * Adds the defaults of the level that were not found in the file.
+     */
+    private void finish(LevelDescriptor level) {
+        for (int i = 0; i < level.gates.size(); i++) {
+            if (level.gates.get(i).dummy) {
+                return;
+            }
+        }
+        GateDescriptor dummy = new GateDescriptor();
+        dummy.dummy = true;
+        dummy.gateId = -1;
+        dummy.successors = new int[] { 0 };
+        matrix.idt();
+        System.arraycopy(matrix.val, 0, dummy.transform, 0, 16);
+        level.gates.add(dummy);
+    }
+    
+    private void readGravity(LevelDescriptor level, JsonValue e) {
+        level.gravityType = e.getString("type");
+        if ("ConstantGravity".equals(level.gravityType)) {
+            level.gravityVector = e.get("direction").asFloatArray();
+        } else if ("DirectionalGravity".equals(level.gravityType)) {
+            level.gravityVector = e.get(JSON_POSITION).asFloatArray();
+            level.gravityStrength = e.getFloat("strength");
+        }
+    }
+    
+    private void readEnvironments(LevelDescriptor level, JsonValue environments) {
+        level.ambientLight = environments.get("ambient").asFloatArray();
+        JsonValue lighting = environments.get("lighting");
+        if (lighting == null) {
+            return;
+        }
+        JsonValue ambient = lighting.get("ambientLight");
+        if (ambient != null) {
+            level.lightingAmbientLight = ambient.asFloatArray();
+        }
+        JsonValue directionalLights = lighting.get("directionalLights");
+        if (directionalLights != null) {
+            for (JsonValue light = directionalLights.child; light != null; light = light.next) {
+                float[] values = new float[7];
+                copy(light.get("color"), values, 0, 4);
+                copy(light.get("direction"), values, 4, 3);
+                level.directionalLights.add(values);
+            }
+        }
+        JsonValue pointLights = lighting.get("pointLights");
+        if (pointLights != null) {
+            for (JsonValue light = pointLights.child; light != null; light = light.next) {
+                float[] values = new float[8];
+                copy(light.get("color"), values, 0, 4);
+                copy(light.get(JSON_POSITION), values, 4, 3);
+                values[7] = light.getFloat("intensity");
+                level.pointLights.add(values);
+            }
+        }
+    }
+    
+    private void copy(JsonValue array, float[] values, int offset, int count) {
+        for (int i = 0; i < count; i++) {
+            values[offset + i] = array.getFloat(i);
+        }
+    }
+    
+    private GateDescriptor readGate(JsonValue e) {
+        GateDescriptor gate = new GateDescriptor();
+        JsonValue gateId = e.get("gateId");
+        if (gateId != null) {
+            gate.gateId = gateId.asInt();
+            gate.ref = e.getString("ref");
+            gate.refHole = e.getString("refHole");
+            gate.score = e.getInt("score", DEFAULT_GATE_SCORE);
+            readTransform(gate, e);
+            readVelocity(gate, e);
+        } else {
+            gate.dummy = true;
+            gate.gateId = -1;
+            matrix.idt();
+            System.arraycopy(matrix.val, 0, gate.transform, 0, 16);
+        }
+        gate.successors = e.get("successors").asIntArray();
+        return gate;
+    }
+    
+    /**
+     * Reads a collectible.
+     * 
+     * @return descriptor of the collectible or null, if the type is unknown
+     */
+    private CollectibleDescriptor readCollectible(JsonValue e) {
+        JsonValue upgradeType = e.get("type");
+        if (upgradeType == null) {
+            return null;
+        }
+        CollectibleDescriptor c = new CollectibleDescriptor();
+        c.type = upgradeType.asString();
+        c.ref = e.getString("ref");
+        if ("ChangeTimeUpgrade".equals(c.type)) {
+            c.time = e.getInt("time");
+        } else if ("ChangePointsUpgrade".equals(c.type)) {
+            c.points = e.getInt("points");
+        } else if (TemporarySpeedUpgrade.TYPE.equals(c.type)) {
+            c.maxSpeedupFactor = e.getFloat("maxSpeedupFactor");
+            c.speedupTime = e.getInt("speedupTimeInMilliSeconds");
+            c.maxSpeedTime = e.getInt("maxSpeedTimeInMilliSeconds");
+            c.slowdownTime = e.getInt("slowdownTimeInMilliSeconds");
+        } else if ("ResizeGatesUpgrade".equals(c.type)) {
+            c.resizeFactor = e.get("resizeFactor").asFloatArray();
+        } else if ("ChangeSteeringUpgrade".equals(c.type)) {
+            c.roll = e.getFloat("roll");
+            c.azimuth = e.getFloat("azimuth");
+            c.duration = e.getFloat("duration");
+        } else {
+            return null;
+        }
+        readInformation(c, e);
+        readTransform(c, e);
+        readVelocity(c, e);
+        return c;
+    }
+    
+    /**
+     * Reads the additional information of the game object like the id.
+     */
+    private void readInformation(ObjectDescriptor o, JsonValue e) {
+        o.id = e.getString("id");
+        JsonValue visible = e.get("visible");
+        o.visible = visible == null || visible.asBoolean();
+    }
+    
+    /**
+     * Reads the transform matrix of the game object.
+     */
+    private void readTransform(ObjectDescriptor o, JsonValue e) {
+        JsonValue transform = e.get("transformMatrix");
+        JsonValue positionValue = e.get(JSON_POSITION);
+        if (transform != null) {
+            matrix.set(transform.asFloatArray());
+        } else if (positionValue != null) {
+            position.set(positionValue.getFloat(0), positionValue.getFloat(1), positionValue.getFloat(2));
+            
+            JsonValue euler = e.get("euler");
+            JsonValue quaternionValue = e.get("quaternion");
+            if (euler != null) {
+                quaternion.setEulerAngles(euler.getFloat(1), euler.getFloat(0), euler.getFloat(2));
+                matrix.set(position, quaternion, scale);
+            } else if (quaternionValue != null) {
+                quaternion.set(quaternionValue.getFloat(0), quaternionValue.getFloat(1), quaternionValue.getFloat(2), quaternionValue.getFloat(3));
+                matrix.set(position, quaternion, scale);
+            } else {
+                matrix.idt();
+                matrix.trn(position);
+            }
+            
+            JsonValue scaleValue = e.get("scale");
+            if (scaleValue != null) {
+                scale(matrix, scaleValue.getFloat(0), scaleValue.getFloat(1), scaleValue.getFloat(2));
+            }
+        } else {
+            matrix.idt();
+        }
+        System.arraycopy(matrix.val, 0, o.transform, 0, 16);
+    }
+    
+    /**
+     * Post-multiplies the matrix with a scale matrix like
+     * {@link Matrix4#scale(float, float, float)}, but without the native
+     * libraries, so levels can be compiled by the build.
+     */
+    private void scale(Matrix4 matrix, float x, float y, float z) {
+        float[] val = matrix.val;
+        for (int i = 0; i < 4; i++) {
+            val[i] *= x;
+            val[4 + i] *= y;
+            val[8 + i] *= z;
+        }
+    }
+    
+    /**
+     * Reads the movement of the game object.
+     */
+    private void readVelocity(ObjectDescriptor o, JsonValue e) {
+        o.sinusX = asFloatArray(e.get("sinus_x"));
+        o.sinusY = asFloatArray(e.get("sinus_y"));
+        o.sinusZ = asFloatArray(e.get("sinus_z"));
+        o.angularVelocity = asFloatArray(e.get("angular_velocity"));
+    }
+    
+    private float[] asFloatArray(JsonValue value) {
+        return value == null ? null : value.asFloatArray();
+    }
+    
+    /**
+     * Json reader that builds the json tree only for single members of the
+     * level and single elements of the arrays of game objects. A finished
+     * member or element is passed to the parser and is not added to its
+     * parent.
+     */
+    private class StreamingReader extends JsonReader {
+        private final LevelDescriptor level;
+        private final Array<JsonValue> stack = new Array<JsonValue>();
+        private final Array<JsonValue> lastChild = new Array<JsonValue>();
+        
+        StreamingReader(LevelDescriptor level) {
+            this.level = level;
+        }
+        
+        @Override
+        protected void startObject(String name) {
+            push(new JsonValue(ValueType.object), name);
+        }
+        
+        @Override
+        protected void startArray(String name) {
+            push(new JsonValue(ValueType.array), name);
+        }
+        
+        @Override
+        protected void pop() {
+            lastChild.pop();
+            finished(stack.pop());
+        }
+        
+        @Override
+        protected void string(String name, String value) {
+            value(new JsonValue(value), name);
+        }
+        
+        @Override
+        protected void number(String name, double value) {
+            value(new JsonValue(value), name);
+        }
+        
+        @Override
+        protected void number(String name, long value) {
+            value(new JsonValue(value), name);
+        }
+        
+        @Override
+        protected void bool(String name, boolean value) {
+            value(new JsonValue(value), name);
+        }
+        
+        private void push(JsonValue value, String name) {
+            value.setName(name);
+            stack.add(value);
+            lastChild.add(null);
+        }
+        
+        private void value(JsonValue value, String name) {
+            value.setName(name);
+            finished(value);
+        }
+        
+        /**
+         * Passes a finished value to the parser or adds it to its parent.
+         */
+        private void finished(JsonValue value) {
+            if (stack.size == 0) {
+                // the root of the level, its members are already read
+                return;
+            }
+            if (stack.size == 1) {
+                if (!isObjectArray(value.name)) {
+                    readMember(level, value);
+                }
+                return;
+            }
+            JsonValue parent = stack.peek();
+            if (stack.size == 2 && isObjectArray(parent.name)) {
+                readElement(level, parent.name, value);
+                return;
+            }
+            JsonValue last = lastChild.peek();
+            if (last == null) {
+                parent.child = value;
+            } else {
+                last.next = value;
+                value.prev = last;
+            }
+            lastChild.set(lastChild.size - 1, value);
+            parent.size++;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package de.fau.cs.mad.fly.res;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+import de.fau.cs.mad.fly.game.GameModel;
+
+/**
+ * Loads the level the player is likely to play next while the current level
+ * is played.
+ * <p>
+ * The level is queued in the {@link AssetManager} with {@link #start(String)}
+ * and loaded in small steps by {@link #update(float)}, which does nothing in
+ * frames that already took longer than the frame budget. If the player chooses
+ * the level, the loader takes over the reference of the prefetch with
+ * {@link #claim(String)} and the loading screen only has to finish what is
+ * left. Otherwise the prefetch is cancelled with {@link #cancel()}.
+ * <p>
+ * A level is only prefetched if the models it needs and that are not loaded
+ * yet fit into the memory budget.
+ */
+public class LevelPrefetcher {
+    
+    /** Frames taking longer than this number of seconds are not used. */
+    public static final float DEFAULT_FRAME_BUDGET = 1f / 50f;
+    
+    /** Milliseconds of a frame used to load the level. */
+    public static final int DEFAULT_STEP_MILLIS = 4;
+    
+    private final AssetManager manager;
+    
+    /** Maximum estimated size of the models loaded for the level in bytes. */
+    private long budget;
+    
+    private float frameBudget = DEFAULT_FRAME_BUDGET;
+    private int stepMillis = DEFAULT_STEP_MILLIS;
+    
+    /** Reads the dependencies of a level without loading it. */
+    private LevelLoader levelLoader;
+    
+    /** The file name of the prefetched level or null if there is none. */
+    private String fileName;
+    
+    /**
+     * True, if the prefetch was cancelled while the level was loaded. The
+     * level is unloaded as soon as it is completely loaded.
+     */
+    private boolean cancelled;
+    
+    /**
+     * Creates a new prefetcher.
+     * 
+     * @param manager
+     *            The asset manager the levels are loaded by.
+     * @param budget
+     *            Maximum estimated size of the models that are loaded for a
+     *            prefetched level in bytes.
+     */
+    public LevelPrefetcher(AssetManager manager, long budget) {
+        this.manager = manager;
+        this.budget = budget;
+    }
+    
+    public void setBudget(long budget) {
+        this.budget = budget;
+    }
+    
+    /**
+     * Setter for the frame budget.
+     * 
+     * @param frameBudget
+     *            Frames taking longer than this number of seconds are not used
+     *            to load the level.
+     * @param stepMillis
+     *            Milliseconds of a frame used to load the level.
+     */
+    public void setFrameBudget(float frameBudget, int stepMillis) {
+        this.frameBudget = frameBudget;
+        this.stepMillis = stepMillis;
+    }
+    
+    /**
+     * Starts to prefetch a level. Does nothing if another level is
+     * prefetched, the level is already loaded or it does not fit into the
+     * budget.
+     * 
+     * @param levelFile
+     *            The file name of the level, may be null.
+     * @return true, if the level is prefetched
+     */
+    public boolean start(String levelFile) {
+        if (levelFile == null || fileName != null || manager.isLoaded(levelFile)) {
+            return false;
+        }
+        long bytes = estimateBytes(levelFile);
+        if (bytes > budget) {
+            Gdx.app.log("LevelPrefetcher", "not prefetching " + levelFile + ", ~" + (bytes / 1024) + " KiB of models exceed the budget");
+            return false;
+        }
+        manager.load(levelFile, Level.class);
+        fileName = levelFile;
+        cancelled = false;
+        return true;
+    }
+    
+    /**
+     * Loads the prefetched level for a few milliseconds if the frame was fast
+     * enough. Has to be called every frame on the rendering thread.
+     * 
+     * @param delta
+     *            Time after the last frame in seconds.
+     */
+    public void update(float delta) {
+        releaseCancelled();
+        if (fileName == null || cancelled || manager.isLoaded(fileName)) {
+            return;
+        }
+        if (delta <= frameBudget) {
+            manager.update(stepMillis);
+        }
+    }
+    
+    /**
+     * Unloads a cancelled level as soon as it is completely loaded. Has to be
+     * called while another level is loaded, as the asset manager finishes the
+     * cancelled level first.
+     */
+    public void releaseCancelled() {
+        if (cancelled && manager.isLoaded(fileName)) {
+            release();
+        }
+    }
+    
+    /**
+     * Hands the prefetched level over to the caller, who owns the reference
+     * in the asset manager afterwards and has to finish loading it.
+     * 
+     * @param levelFile
+     *            The file name of the level the player chose.
+     * @return true, if the level is prefetched and now owned by the caller
+     */
+    public boolean claim(String levelFile) {
+        if (fileName == null || cancelled || !fileName.equals(levelFile)) {
+            return false;
+        }
+        Gdx.app.log("LevelPrefetcher", "claimed " + fileName + (manager.isLoaded(fileName) ? ", already loaded" : ", partly loaded"));
+        fileName = null;
+        return true;
+    }
+    
+    /**
+     * Cancels the prefetch. A level that is loaded or still queued is
+     * unloaded immediately. The asset manager cannot cancel a level whose
+     * models are already queued without leaking them, so such a level is
+     * finished by the following updates of the asset manager and unloaded
+     * afterwards, see {@link #releaseCancelled()}.
+     */
+    public void cancel() {
+        if (fileName == null || cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (manager.isLoaded(fileName) || manager.getDependencies(fileName) == null) {
+            release();
+        }
+    }
+    
+    private void release() {
+        Gdx.app.log("LevelPrefetcher", "unloading " + fileName);
+        manager.unload(fileName);
+        fileName = null;
+        cancelled = false;
+    }
+    
+    /**
+     * Getter for the file name of the prefetched level.
+     * 
+     * @return file name or null if no level is prefetched
+     */
+    public String getFileName() {
+        return cancelled ? null : fileName;
+    }
+    
+    /**
+     * Getter for the state of the prefetch.
+     * 
+     * @return true, if a level is prefetched and completely loaded
+     */
+    public boolean isDone() {
+        return fileName != null && !cancelled && manager.isLoaded(fileName);
+    }
+    
+    /**
+     * Estimates the size of the models a level needs that are not loaded yet
+     * by the size of their files.
+     * 
+     * @param levelFile
+     *            The file name of the level.
+     * @return estimated size in bytes
+     */
+    protected long estimateBytes(String levelFile) {
+        if (levelLoader == null) {
+            levelLoader = new LevelLoader();
+        }
+        FileHandle file = levelLoader.resolve(levelFile);
+        @SuppressWarnings("rawtypes")
+        Array<AssetDescriptor> dependencies = levelLoader.getDependencies(levelFile, file, null);
+        long bytes = 0;
+        for (AssetDescriptor<?> dependency : dependencies) {
+            if (dependency.type == GameModel.class && !manager.isLoaded(dependency.fileName)) {
+                bytes += fileLength(dependency.fileName + ".g3db");
+                bytes += fileLength(dependency.fileName + ".hitbox.g3db");
+            }
+        }
+        return bytes;
+    }
+    
+    private long fileLength(String fileName) {
+        FileHandle file = levelLoader.resolve(fileName);
+        return file.exists() ? file.length() : 0;
+    }
+}
@@ -0,0 +1,136 @@
+package de.fau.cs.mad.fly.res;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.physics.bullet.collision.btCollisionObject;
+import com.badlogic.gdx.utils.Array;
+
+import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
+import de.fau.cs.mad.fly.game.GameObject;
+import de.fau.cs.mad.fly.game.object.IGameObjectMover;
+
+/**
+ * The initial state of a loaded {@link Level}, used to restart the level in
+ * place without loading it again.
+ * <p>
+ * The snapshot stores the components and collectibles of the level and for
+ * each of them and each gate the transform, the visibility and a copy of the
+ * mover. Restoring it reuses the game objects, their models and their
+ * collision objects. The gate circuit is reset with
+ * {@link GateCircuit#reset()}.
+ * <p>
+ * The snapshot has to be taken before the first game with the level is built,
+ * as the features and the level classes change the level afterwards.
+ */
+public class LevelSnapshot {
+    
+    /** Collision shapes are created without scaling. */
+    private static final Vector3 UNIT_SCALING = new Vector3(1f, 1f, 1f);
+    
+    /**
+     * The initial state of one game object.
+     */
+    private static class ObjectState {
+        final GameObject object;
+        final Matrix4 transform;
+        final boolean visible;
+        
+        /** Copy of the initial mover, never moved itself, may be null. */
+        final IGameObjectMover mover;
+        
+        ObjectState(GameObject object) {
+            this.object = object;
+            this.transform = new Matrix4(object.transform);
+            this.visible = object.isVisible();
+            this.mover = object.getMover() == null ? null : object.getMover().getCopy(object);
+        }
+        
+        void restore() {
+            object.transform.set(transform);
+            object.invalidateBounds();
+            if (visible) {
+                object.show();
+            } else {
+                object.hide();
+            }
+            object.setMover(mover == null ? null : mover.getCopy(object));
+            
+            btCollisionObject collisionObject = object.getCollisionObject();
+            if (collisionObject != null) {
+                // the gates may have been resized by the last game
+                collisionObject.getCollisionShape().setLocalScaling(UNIT_SCALING);
+                collisionObject.setWorldTransform(object.transform);
+            }
+        }
+    }
+    
+    private final List<GameObject> components;
+    private final List<Collectible> collectibles;
+    private final Array<ObjectState> states = new Array<ObjectState>();
+    private final float leftTime;
+    
+    /**
+     * Takes the snapshot of a level.
+     * 
+     * @param level
+     *            The level, completely loaded.
+     */
+    public LevelSnapshot(Level level) {
+        components = new ArrayList<GameObject>(level.components);
+        for (GameObject o : components) {
+            states.add(new ObjectState(o));
+        }
+        
+        GateCircuit gateCircuit = level.getGateCircuit();
+        for (GateGoal g : gateCircuit.allGateGoals()) {
+            states.add(new ObjectState(g));
+        }
+        for (GateDisplay d : gateCircuit.allGateDisplays()) {
+            states.add(new ObjectState(d));
+        }
+        
+        collectibles = new ArrayList<Collectible>(level.getCollectibleManager().getCollectibles());
+        for (Collectible c : collectibles) {
+            states.add(new ObjectState(c));
+        }
+        
+        leftTime = level.getLeftTime();
+    }
+    
+    /**
+     * Restores the level to the state of the snapshot. Collectibles that were
+     * collected are added again, the collision objects they lost have to be
+     * created again by their features.
+     * 
+     * @param level
+     *            The level the snapshot was taken of.
+     */
+    public void restore(Level level) {
+        for (int i = level.components.size() - 1; i >= 0; i--) {
+            level.detachComponent(level.components.get(i));
+        }
+        for (GameObject o : components) {
+            level.addComponent(o);
+        }
+        level.getCollectibleManager().setCollectibles(new ArrayList<Collectible>(collectibles));
+        
+        for (int i = 0; i < states.size; i++) {
+            states.get(i).restore();
+        }
+        
+        level.getGateCircuit().reset();
+        level.setLeftTime(leftTime);
+    }
+    
+    /**
+     * Getter for the number of game objects in the snapshot.
+     * 
+     * @return number of restored game objects
+     */
+    public int size() {
+        return states.size;
+    }
+}
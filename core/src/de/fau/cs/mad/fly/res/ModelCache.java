@@ -0,0 +1,403 @@
+package de.fau.cs.mad.fly.res;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.physics.bullet.collision.btCollisionShape;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.BufferUtils;
+import com.badlogic.gdx.utils.Disposable;
+
+import de.fau.cs.mad.fly.game.GameModel;
+
+/**
+ * Keeps the game models of the levels and their collision shapes alive across
+ * level transitions.
+ * <p>
+ * The cache counts the levels using a game model, see
+ * {@link #acquire(Collection)} and {@link #release(Collection)}. A game model
+ * that is not used by any level anymore stays loaded in the
+ * {@link AssetManager}, as the cache holds a reference to it, so the next
+ * level using it does not load it again. The collision shapes of a game model
+ * are handed over by the {@link de.fau.cs.mad.fly.game.CollisionShapeManager}
+ * when the collision detector is disposed and are reused by the next game.
+ * <p>
+ * Unused game models are evicted least recently used first as soon as their
+ * estimated size together with their collision shapes exceeds the budget. The
+ * game models used by a level are never evicted.
+ */
+public class ModelCache implements Disposable {
+    
+    /**
+     * A collision shape kept by the cache.
+     */
+    public static class CachedShape {
+        public final btCollisionShape shape;
+        
+        /** Native buffers used by the shape, can be null. */
+        public final Array<ByteBuffer> buffers;
+        
+        /** Estimated native size of the shape. */
+        public final int bytes;
+        
+        public CachedShape(btCollisionShape shape, Array<ByteBuffer> buffers, int bytes) {
+            this.shape = shape;
+            this.buffers = buffers;
+            this.bytes = bytes;
+        }
+        
+        private void dispose() {
+            shape.dispose();
+            if (buffers != null) {
+                for (ByteBuffer buffer : buffers) {
+                    BufferUtils.disposeUnsafeByteBuffer(buffer);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Bookkeeping of one game model.
+     */
+    private static class Entry {
+        String fileName;
+        long modelBytes;
+        long shapeBytes;
+        
+        /** Number of levels using the game model. */
+        int references;
+        
+        /** True while the cache holds a reference in the asset manager. */
+        boolean pinned;
+        
+        final Map<String, CachedShape> shapes = new HashMap<String, CachedShape>();
+    }
+    
+    private final AssetManager manager;
+    
+    /** Maximum estimated size of the unused game models in bytes. */
+    private long budget;
+    
+    /** The entries in the order of their last use, least recently used first. */
+    private final LinkedHashMap<GameModel, Entry> entries = new LinkedHashMap<GameModel, Entry>(16, 0.75f, true);
+    
+    private int modelHits = 0;
+    private int modelMisses = 0;
+    private int shapeHits = 0;
+    private int shapeMisses = 0;
+    private int evictions = 0;
+    
+    /**
+     * Creates a new cache.
+     * 
+     * @param manager
+     *            The asset manager the game models are loaded by.
+     * @param budget
+     *            Maximum estimated size of the unused game models and their
+     *            collision shapes in bytes.
+     */
+    public ModelCache(AssetManager manager, long budget) {
+        this.manager = manager;
+        this.budget = budget;
+    }
+    
+    /**
+     * Sets the budget and evicts unused game models exceeding it.
+     * 
+     * @param budget
+     *            Maximum estimated size of the unused game models and their
+     *            collision shapes in bytes.
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+        trim();
+    }
+    
+    public long getBudget() {
+        return budget;
+    }
+    
+    /**
+     * Has to be called when a level using the game models is loaded. Game
+     * models that were still cached count as hits, the other ones as misses.
+     * 
+     * @param models
+     *            The game models of the level, they have to be loaded by the
+     *            asset manager.
+     */
+    public void acquire(Collection<GameModel> models) {
+        for (GameModel model : models) {
+            Entry entry = entries.get(model);
+            if (entry == null) {
+                String fileName = manager.getAssetFileName(model);
+                if (fileName == null) {
+                    continue;
+                }
+                entry = new Entry();
+                entry.fileName = fileName;
+                entry.modelBytes = sizeOf(model);
+                entries.put(model, entry);
+                modelMisses++;
+            } else if (entry.references == 0) {
+                modelHits++;
+            }
+            entry.references++;
+            if (entry.pinned) {
+                // the level holds a reference now
+                entry.pinned = false;
+                manager.unload(entry.fileName);
+            }
+        }
+    }
+    
+    /**
+     * Has to be called before a level using the game models is unloaded. The
+     * game models not used by any level anymore are kept loaded within the
+     * budget.
+     * 
+     * @param models
+     *            The game models of the level.
+     */
+    public void release(Collection<GameModel> models) {
+        for (GameModel model : models) {
+            Entry entry = entries.get(model);
+            if (entry == null || entry.references == 0) {
+                continue;
+            }
+            entry.references--;
+            if (entry.references > 0) {
+                continue;
+            }
+            if (manager.isLoaded(entry.fileName)) {
+                entry.pinned = true;
+                pin(entry.fileName);
+            } else {
+                entries.remove(model);
+                evict(entry);
+            }
+        }
+        trim();
+    }
+    
+    /**
+     * Adds a reference to an asset and its dependencies, like loading it
+     * again would. Unloading the asset removes the references again, as the
+     * asset manager unloads the dependencies of an asset together with it.
+     * 
+     * @param fileName
+     *            The file name of the loaded asset.
+     */
+    private void pin(String fileName) {
+        manager.setReferenceCount(fileName, manager.getReferenceCount(fileName) + 1);
+        Array<String> dependencies = manager.getDependencies(fileName);
+        if (dependencies != null) {
+            for (int i = 0; i < dependencies.size; i++) {
+                pin(dependencies.get(i));
+            }
+        }
+    }
+    
+    /**
+     * Takes a cached collision shape of a game model. The caller owns the
+     * shape afterwards and may hand it back with
+     * {@link #putShape(GameModel, String, CachedShape)}.
+     * 
+     * @param model
+     *            The game model the shape was created for.
+     * @param key
+     *            The key of the shape.
+     * @return the cached shape or null if there is none
+     */
+    public CachedShape takeShape(GameModel model, String key) {
+        Entry entry = entries.get(model);
+        CachedShape shape = entry == null ? null : entry.shapes.remove(key);
+        if (shape == null) {
+            shapeMisses++;
+            return null;
+        }
+        entry.shapeBytes -= shape.bytes;
+        shapeHits++;
+        return shape;
+    }
+    
+    /**
+     * Hands a collision shape over to the cache.
+     * 
+     * @param model
+     *            The game model the shape was created for.
+     * @param key
+     *            The key of the shape.
+     * @param shape
+     *            The shape.
+     * @return true, if the cache owns the shape now, false if the game model
+     *         is not cached and the caller has to dispose the shape
+     */
+    public boolean putShape(GameModel model, String key, CachedShape shape) {
+        Entry entry = entries.get(model);
+        if (entry == null || entry.shapes.containsKey(key)) {
+            return false;
+        }
+        entry.shapes.put(key, shape);
+        entry.shapeBytes += shape.bytes;
+        if (entry.references == 0) {
+            trim();
+        }
+        return true;
+    }
+    
+    /**
+     * Evicts unused game models, least recently used first, until they fit
+     * into the budget.
+     */
+    private void trim() {
+        long unusedBytes = getUnusedBytes();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (unusedBytes > budget && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.references == 0) {
+                unusedBytes -= entry.modelBytes + entry.shapeBytes;
+                iterator.remove();
+                evict(entry);
+                evictions++;
+            }
+        }
+    }
+    
+    private void evict(Entry entry) {
+        for (CachedShape shape : entry.shapes.values()) {
+            shape.dispose();
+        }
+        entry.shapes.clear();
+        if (entry.pinned) {
+            entry.pinned = false;
+            manager.unload(entry.fileName);
+        }
+    }
+    
+    /**
+     * Estimates the size of a game model when it is added to the cache.
+     * 
+     * @param model
+     *            The game model.
+     * @return estimated size in bytes
+     */
+    protected long sizeOf(GameModel model) {
+        return estimateBytes(model);
+    }
+    
+    /**
+     * Estimates the size of the meshes of a game model.
+     * 
+     * @param model
+     *            The game model.
+     * @return estimated size in bytes
+     */
+    public static long estimateBytes(GameModel model) {
+        long bytes = estimateBytes(model.display);
+        if (model.hitbox != null && model.hitbox != model.display) {
+            bytes += estimateBytes(model.hitbox);
+        }
+        return bytes;
+    }
+    
+    private static long estimateBytes(Model model) {
+        long bytes = 0;
+        for (Mesh mesh : model.meshes) {
+            bytes += (long) mesh.getNumVertices() * mesh.getVertexSize() + mesh.getNumIndices() * 2L;
+        }
+        return bytes;
+    }
+    
+    /**
+     * Getter for the estimated size of the cached game models that are not
+     * used by a level and of their collision shapes.
+     * 
+     * @return estimated size in bytes
+     */
+    public long getUnusedBytes() {
+        long bytes = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.references == 0) {
+                bytes += entry.modelBytes + entry.shapeBytes;
+            }
+        }
+        return bytes;
+    }
+    
+    /**
+     * Getter for the number of cached game models, used or not.
+     */
+    public int getCachedModels() {
+        return entries.size();
+    }
+    
+    /**
+     * Getter for the number of acquired game models that were still cached.
+     */
+    public int getModelHits() {
+        return modelHits;
+    }
+    
+    /**
+     * Getter for the number of acquired game models that had to be loaded.
+     */
+    public int getModelMisses() {
+        return modelMisses;
+    }
+    
+    /**
+     * Getter for the number of collision shapes taken from the cache.
+     */
+    public int getShapeHits() {
+        return shapeHits;
+    }
+    
+    /**
+     * Getter for the number of collision shapes that were not cached.
+     */
+    public int getShapeMisses() {
+        return shapeMisses;
+    }
+    
+    /**
+     * Getter for the number of evicted game models.
+     */
+    public int getEvictions() {
+        return evictions;
+    }
+    
+    /**
+     * Resets the hit, miss and eviction counters.
+     */
+    public void resetMetrics() {
+        modelHits = 0;
+        modelMisses = 0;
+        shapeHits = 0;
+        shapeMisses = 0;
+        evictions = 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "ModelCache: " + entries.size() + " models, models " + modelHits + " hits / " + modelMisses + " misses, shapes " + shapeHits + " hits / " + shapeMisses + " misses, " + evictions + " evictions, ~" + (getUnusedBytes() / 1024) + " KiB unused";
+    }
+    
+    /**
+     * Evicts all game models and disposes the cached collision shapes. The
+     * game models still used by a level stay loaded.
+     */
+    @Override
+    public void dispose() {
+        for (Entry entry : entries.values()) {
+            evict(entry);
+        }
+        entries.clear();
+    }
+}
@@ -37,6 +37,10 @@ public class SettingManager {
 	public static final String MOVE_LEFT = "moveLeft";
 	public static final String MOVE_DOWN = "moveDown";
 	public static final String MOVE_RIGHT = "moveRight";
+	/** Hidden setting, steps the physics on its own thread if true. */
+	public static final String PHYSICS_THREAD = "physicsThread";
+	/** Hidden setting, updates independent features in parallel if true. */
+	public static final String PARALLEL_FEATURES = "parallelFeatures";
 
 	private Preferences prefs;
 	private List<ISetting> settings = new ArrayList<ISetting>();
@@ -6,6 +6,7 @@ import com.badlogic.gdx.Screen;
 import de.fau.cs.mad.fly.Fly;
 import de.fau.cs.mad.fly.game.GameController;
 import de.fau.cs.mad.fly.game.GameController.GameState;
+import de.fau.cs.mad.fly.res.Assets;
 
 /**
  * Provides a screen for the game itself.
@@ -25,6 +26,8 @@ public class GameScreen implements Screen {
     @Override
     public void render(float delta) {
         gameController.renderGame(delta);
+        // load the next level in the time left in the frame
+        Assets.prefetcher.update(delta);
     }
     
     @Override
@@ -41,6 +44,8 @@ public class GameScreen implements Screen {
     public void hide() {
         Gdx.app.log("GameScreen", "hide");
         gameController.disposeGame();
+        // a prefetched level the player did not choose is not needed anymore
+        Assets.prefetcher.cancel();
     }
     
     @Override
@@ -126,6 +126,7 @@ public class PlaneChooserScreen extends PlaneBasicScreen implements InputProcess
         // Steady rotation if the Player doesn't touch the Touch screen
         if (!touched) {
             currentSpaceship.transform.rotate(yRotationAxis, 0.2f);
+            currentSpaceship.invalidateBounds();
             xRotationAxis.rotate(yRotationAxis, -0.2f);
         }
         
@@ -255,6 +256,7 @@ public class PlaneChooserScreen extends PlaneBasicScreen implements InputProcess
             
             currentSpaceship.transform.rotate(yRotationAxis, xFactor * 360);
             currentSpaceship.transform.rotate(xRotationAxis, yFactor * 360);
+            currentSpaceship.invalidateBounds();
             // rotate the rotationAxises so that the rotation stays correct
             yAxis = yRotationAxis;
             xAxis = xRotationAxis;
@@ -286,5 +286,6 @@ public class PlaneUpgradeDetailScreen extends PlaneBasicScreen {
         updateUpgradeDetailTable();
         // place spaceship a little left of the middle a little down
         currentSpaceship.transform.setTranslation(X_OFFSET_OF_SPACESHIP_TRANSLATION, Y_OFFSET_OF_SPACESHIP_TRANSLATION, 0f);
+        currentSpaceship.invalidateBounds();
     }
 }
@@ -77,5 +77,6 @@ public class PlaneUpgradeScreen extends PlaneBasicScreen {
         updateChosenPlaneDetail();
         // place spaceship a little left of the middle a little down
         currentSpaceship.transform.setTranslation(X_OFFSET_OF_SPACESHIP_TRANSLATION, Y_OFFSET_OF_SPACESHIP_TRANSLATION, 0f);
+        currentSpaceship.invalidateBounds();
     }
 }
@@ -0,0 +1,221 @@
+package de.fau.cs.mad.fly.tests.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.sql.Database;
+import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.sql.DatabaseStatement;
+import com.badlogic.gdx.sql.RowMapper;
+import com.badlogic.gdx.sql.RowMappers;
+import com.badlogic.gdx.sql.SQLiteGdxRuntimeException;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import de.fau.cs.mad.fly.db.Migration;
+import de.fau.cs.mad.fly.db.MigrationRunner;
+
+/** Test class for {@link MigrationRunner} */
+public class MigrationRunnerTest {
+
+    /** The statements and transactions of the database in their order. */
+    private List<String> log;
+
+    /** The committed version of the database. */
+    private int version;
+
+    /** The version of the running transaction. */
+    private int pendingVersion;
+
+    /** Logs the statements and keeps the version in memory. */
+    private class FakeDatabase implements Database {
+        @Override
+        public void setupDatabase() {
+        }
+
+        @Override
+        public void openOrCreateDatabase() {
+        }
+
+        @Override
+        public void closeDatabase() {
+        }
+
+        @Override
+        public void execSQL(String sql) {
+            if (sql.equals("fail")) {
+                throw new SQLiteGdxRuntimeException(sql);
+            }
+            if (sql.startsWith("insert into fly_db_version values(")) {
+                pendingVersion = Integer.parseInt(sql.replaceAll("\\D", ""));
+            } else if (!sql.startsWith("delete from fly_db_version")) {
+                log.add(sql);
+            }
+        }
+
+        @Override
+        public DatabaseCursor rawQuery(String sql) {
+            return new VersionCursor();
+        }
+
+        @Override
+        public DatabaseCursor rawQuery(DatabaseCursor cursor, String sql) {
+            return new VersionCursor();
+        }
+
+        @Override
+        public DatabaseStatement prepare(String sql) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void beginTransaction() {
+            pendingVersion = version;
+            log.add("begin");
+        }
+
+        @Override
+        public void commitTransaction() {
+            version = pendingVersion;
+            log.add("commit");
+        }
+
+        @Override
+        public void rollbackTransaction() {
+            log.add("rollback");
+        }
+    }
+
+    /** Returns the version of the database in one row. */
+    private class VersionCursor implements DatabaseCursor {
+        private boolean read = false;
+
+        @Override
+        public byte[] getBlob(int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public double getDouble(int columnIndex) {
+            return version;
+        }
+
+        @Override
+        public float getFloat(int columnIndex) {
+            return version;
+        }
+
+        @Override
+        public int getInt(int columnIndex) {
+            return version;
+        }
+
+        @Override
+        public long getLong(int columnIndex) {
+            return version;
+        }
+
+        @Override
+        public short getShort(int columnIndex) {
+            return (short) version;
+        }
+
+        @Override
+        public String getString(int columnIndex) {
+            return String.valueOf(version);
+        }
+
+        @Override
+        public boolean next() {
+            boolean hasNext = !read;
+            read = true;
+            return hasNext;
+        }
+
+        @Override
+        public int getCount() {
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public <T> int forEach(RowMapper<T> mapper, T target) {
+            return RowMappers.forEach(this, mapper, target);
+        }
+    }
+
+    /** Executes its SQL. */
+    private class SQLMigration implements Migration {
+        private final int version;
+        private final String[] sqls;
+
+        SQLMigration(int version, String... sqls) {
+            this.version = version;
+            this.sqls = sqls;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public void apply(Database database) {
+            for (String sql : sqls) {
+                database.execSQL(sql);
+            }
+        }
+    }
+
+    private Database database;
+
+    @Before
+    public void setUp() {
+        log = new ArrayList<String>();
+        version = 1;
+        database = new FakeDatabase();
+    }
+
+    @Test
+    public void testNewerMigrationsInOrder() {
+        version = 2;
+        MigrationRunner runner = new MigrationRunner(database, new SQLMigration(4, "v4"), new SQLMigration(2, "v2"), new SQLMigration(3, "v3a", "v3b"));
+        assertEquals(2, runner.getVersion());
+        assertEquals(4, runner.getLatestVersion());
+
+        assertEquals(4, runner.migrate());
+        assertEquals(Arrays.asList("begin", "v3a", "v3b", "commit", "begin", "v4", "commit"), log);
+        assertEquals(4, version);
+
+        log.clear();
+        assertEquals(4, runner.migrate());
+        assertEquals(0, log.size());
+    }
+
+    @Test
+    public void testFailedMigrationIsRolledBack() {
+        MigrationRunner runner = new MigrationRunner(database, new SQLMigration(2, "v2"), new SQLMigration(3, "v3", "fail"), new SQLMigration(4, "v4"));
+        try {
+            runner.migrate();
+            fail();
+        } catch (SQLiteGdxRuntimeException e) {
+            // expected
+        }
+        assertEquals(Arrays.asList("begin", "v2", "commit", "begin", "v3", "rollback"), log);
+        assertEquals(2, version);
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void testDuplicateVersions() {
+        new MigrationRunner(database, new SQLMigration(2, "a"), new SQLMigration(2, "b"));
+    }
+}
@@ -0,0 +1,180 @@
+package de.fau.cs.mad.fly.tests.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fau.cs.mad.fly.db.WriteBehindQueue;
+
+/** Test class for {@link WriteBehindQueue} */
+public class WriteBehindQueueTest {
+
+    /** Names of the committed writes in their order. */
+    private List<String> committed;
+
+    /** Number of transactions of the queue. */
+    private int transactions;
+
+    private WriteBehindQueue queue;
+
+    /** Writes its name in a transaction, like a statement would. */
+    private class Write implements Runnable {
+        private final String name;
+        private final List<String> transaction;
+
+        Write(String name, List<String> transaction) {
+            this.name = name;
+            this.transaction = transaction;
+        }
+
+        @Override
+        public void run() {
+            if (name.startsWith("fail")) {
+                throw new RuntimeException(name);
+            }
+            transaction.add(name);
+        }
+    }
+
+    /** The writes of the running transaction, committed if it succeeds. */
+    private final List<String> transaction = new ArrayList<String>();
+
+    /** Blocks the writer thread while it is held. */
+    private final Object writerLock = new Object();
+
+    /** True after the writer thread took the pending writes. */
+    private volatile boolean taken;
+
+    @Before
+    public void setUp() {
+        committed = new ArrayList<String>();
+        transactions = 0;
+        taken = false;
+        queue = new WriteBehindQueue(new WriteBehindQueue.Target() {
+            @Override
+            public void runInTransaction(Runnable work) {
+                taken = true;
+                synchronized (writerLock) {
+                    transaction.clear();
+                    work.run();
+                    committed.addAll(transaction);
+                    transactions++;
+                }
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    public void testWritesInOrder() {
+        for (int i = 0; i < 100; i++) {
+            queue.add(null, new Write("w" + i, transaction));
+        }
+        queue.flush();
+        assertEquals(100, committed.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("w" + i, committed.get(i));
+        }
+        assertEquals(0, queue.getPendingWrites());
+        assertEquals(100, queue.getAddedWrites());
+    }
+
+    @Test
+    public void testCoalescesPendingWrites() {
+        synchronized (writerLock) {
+            // the writer thread takes the first write and waits
+            queue.add("a", new Write("a1", transaction));
+            waitUntilTaken();
+            queue.add("a", new Write("a2", transaction));
+            queue.add("b", new Write("b1", transaction));
+            queue.add("a", new Write("a3", transaction));
+            assertEquals(3, queue.getPendingWrites());
+        }
+        queue.flush();
+        assertEquals(Arrays.asList("a1", "b1", "a3"), committed);
+        assertEquals(1, queue.getCoalescedWrites());
+        assertEquals(2, queue.getMaxPendingWrites());
+        assertEquals(2, transactions);
+        assertEquals(2, queue.getFlushes());
+    }
+
+    @Test
+    public void testIsWritingOnlyPendingTables() {
+        synchronized (writerLock) {
+            queue.add("a", new Write("a1", transaction), "score");
+            waitUntilTaken();
+            queue.add("b", new Write("b1", transaction), "fly_plane_Equiped");
+            // the taken write is not committed yet
+            assertTrue(queue.isWriting("select score from SCORE where player_id=?"));
+            assertTrue(queue.isWriting("select _count from fly_plane_equiped"));
+            assertFalse(queue.isWriting("select name from player"));
+            assertFalse(queue.isWriting("select * from score_v3"));
+        }
+        queue.flush();
+        assertFalse(queue.isWriting("select score from score"));
+        assertFalse(queue.isWriting("select _count from fly_plane_equiped"));
+    }
+
+    @Test
+    public void testIsWritingUnknownTables() {
+        synchronized (writerLock) {
+            queue.add(null, new Write("w0", transaction));
+            assertTrue(queue.isWriting("select name from player"));
+        }
+        queue.flush();
+        assertFalse(queue.isWriting("select name from player"));
+    }
+
+    @Test
+    public void testFailedWriteDoesNotLoseOthers() {
+        synchronized (writerLock) {
+            queue.add(null, new Write("w0", transaction));
+            waitUntilTaken();
+            queue.add(null, new Write("w1", transaction));
+            queue.add(null, new Write("fail", transaction));
+            queue.add(null, new Write("w2", transaction));
+        }
+        queue.flush();
+        assertEquals(Arrays.asList("w0", "w1", "w2"), committed);
+        assertEquals(1, queue.getFailedWrites());
+    }
+
+    @Test
+    public void testStopWritesPendingWrites() {
+        synchronized (writerLock) {
+            queue.add(null, new Write("w0", transaction));
+            waitUntilTaken();
+            queue.add(null, new Write("w1", transaction));
+        }
+        queue.stop();
+        assertEquals(Arrays.asList("w0", "w1"), committed);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoWritesAfterStop() {
+        queue.stop();
+        queue.add(null, new Write("w0", transaction));
+    }
+
+    /**
+     * Waits until the writer thread took all pending writes, it blocks on the
+     * writer lock afterwards.
+     */
+    private void waitUntilTaken() {
+        while (!taken) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.fau.cs.mad.fly.tests.features.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.math.Matrix4;
+
+import de.fau.cs.mad.fly.features.game.GameObjectPool;
+import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.game.GameObject;
+import de.fau.cs.mad.fly.game.object.RotationMover;
+
+/** Test class for {@link GameObjectPool} */
+public class GameObjectPoolTest {
+    
+    private TestPool pool;
+    
+    /**
+     * Pool for game objects without mesh, which does not need native
+     * libraries. It only counts the created rigid bodies.
+     */
+    private static class TestPool extends GameObjectPool<GameObject> {
+        private int createdRigidBodies = 0;
+        
+        @Override
+        protected GameObject newObject() {
+            return new GameObject(new GameModel(new Model(), null), "pooled");
+        }
+        
+        @Override
+        protected void createRigidBody(GameObject object) {
+            createdRigidBodies++;
+        }
+    }
+    
+    @Before
+    public void setUp() {
+        pool = new TestPool();
+    }
+    
+    @Test
+    public void testHitsAndMisses() {
+        GameObject first = pool.obtain();
+        GameObject second = pool.obtain();
+        assertNotSame(first, second);
+        assertEquals(0, pool.getHits());
+        assertEquals(2, pool.getMisses());
+        
+        pool.free(first);
+        assertSame(first, pool.obtain());
+        assertEquals(1, pool.getHits());
+        assertEquals(2, pool.getMisses());
+        
+        pool.resetMetrics();
+        assertEquals(0, pool.getHits());
+        assertEquals(0, pool.getMisses());
+    }
+    
+    @Test
+    public void testSteadyState() {
+        GameObject[] objects = new GameObject[3];
+        for (int segment = 0; segment < 100; segment++) {
+            int slot = segment % objects.length;
+            if (objects[slot] != null) {
+                pool.free(objects[slot]);
+            }
+            objects[slot] = pool.obtain();
+        }
+        assertEquals(objects.length, pool.getMisses());
+        assertEquals(100 - objects.length, pool.getHits());
+    }
+    
+    @Test
+    public void testFreeResetsObject() {
+        GameObject object = pool.obtain();
+        object.transform.setToTranslation(1f, 2f, 3f);
+        object.setMover(new RotationMover(object));
+        object.hide();
+        
+        pool.free(object);
+        assertTrue(isIdentity(object.transform));
+        assertNull(object.getMover());
+        assertFalse(object.isHidden());
+    }
+    
+    @Test
+    public void testActivateCreatesRigidBodyOfNewObjects() {
+        GameObject object = pool.obtain();
+        pool.activate(object);
+        assertEquals(1, pool.createdRigidBodies);
+    }
+    
+    private static boolean isIdentity(Matrix4 matrix) {
+        float[] identity = new Matrix4().val;
+        for (int i = 0; i < identity.length; i++) {
+            if (matrix.val[i] != identity[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -114,4 +114,25 @@ public class TemporarySpeedUpgradeTest {
         assertFalse(testUpgrade.isActive());
         assertEquals(SpeedUpgradeEffect.NO_SPEEDUP, testUpgrade.getCurrentSpeedupFactor(), epsilon);
     }
+    
+    @Test
+    public void testSetRestartsEffect() {
+        SpeedUpgradeEffect testUpgrade = new SpeedUpgradeEffect(2f, 0, 100, 0);
+        assertFalse(testUpgrade.isRunning());
+        
+        testUpgrade.update(50);
+        assertTrue(testUpgrade.isRunning());
+        
+        testUpgrade.update(50);
+        assertFalse(testUpgrade.isRunning());
+        
+        testUpgrade.set(3f, 0, 200, 0);
+        assertTrue(testUpgrade.isActive());
+        assertFalse(testUpgrade.isRunning());
+        assertEquals(SpeedUpgradeEffect.NO_SPEEDUP, testUpgrade.getCurrentSpeedupFactor(), epsilon);
+        
+        testUpgrade.update(150);
+        assertTrue(testUpgrade.isRunning());
+        assertEquals(3f, testUpgrade.getCurrentSpeedupFactor(), epsilon);
+    }
 }
@@ -0,0 +1,102 @@
+package de.fau.cs.mad.fly.tests.game;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g3d.model.MeshPart;
+import com.badlogic.gdx.graphics.g3d.model.Node;
+import com.badlogic.gdx.graphics.g3d.model.NodePart;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import de.fau.cs.mad.fly.game.BakedCollisionShape;
+import de.fau.cs.mad.fly.game.BakedCollisionShape.BakedBvh;
+import de.fau.cs.mad.fly.game.BakedCollisionShape.MeshGroup;
+
+/** Test class for {@link BakedCollisionShape} */
+public class BakedCollisionShapeTest {
+
+    private static MeshPart meshPart(String id, int primitiveType, int indices) {
+        MeshPart part = new MeshPart();
+        part.id = id;
+        part.primitiveType = primitiveType;
+        part.numVertices = indices;
+        return part;
+    }
+
+    private static Node node(float x, MeshPart... meshParts) {
+        Node node = new Node();
+        node.globalTransform.setToTranslation(x, 0f, 0f);
+        node.parts = new Array<NodePart>();
+        for (MeshPart meshPart : meshParts) {
+            NodePart part = new NodePart();
+            part.meshPart = meshPart;
+            node.parts.add(part);
+        }
+        return node;
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        float[] transform = new float[16];
+        transform[0] = transform[5] = transform[10] = transform[15] = 1f;
+        transform[12] = 2.5f;
+        Array<BakedBvh> bvhs = new Array<BakedBvh>();
+        bvhs.add(new BakedBvh(transform, new String[] { "part1", "part2" }, 42, new byte[] { 1, 2, 3, -4 }));
+        float[] hullPoints = { 1f, 2f, 3f, -1f, -2f, -3f };
+        BakedCollisionShape shape = new BakedCollisionShape(120, 32, hullPoints, 76, bvhs);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        shape.write(out);
+        BakedCollisionShape read = BakedCollisionShape.read(ByteBuffer.wrap(out.toByteArray()));
+
+        assertEquals(2, read.getHullPointCount());
+        assertEquals(1, read.getBvhs().size);
+        BakedBvh bvh = read.getBvhs().first();
+        assertArrayEquals(transform, bvh.transform, 0f);
+        assertArrayEquals(new String[] { "part1", "part2" }, bvh.partIds);
+        assertEquals(42, bvh.triangles);
+        assertArrayEquals(new byte[] { 1, 2, 3, -4 }, bvh.data);
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void testReadRejectsOtherFiles() {
+        BakedCollisionShape.read(ByteBuffer.wrap(new byte[] { 'F', 'L', 'V', 'L', 0, 0, 0, 1 }));
+    }
+
+    @Test
+    public void testMeshGroupsByTransform() {
+        MeshPart a = meshPart("a", GL20.GL_TRIANGLES, 30);
+        MeshPart b = meshPart("b", GL20.GL_TRIANGLES, 6);
+        MeshPart c = meshPart("c", GL20.GL_TRIANGLES, 3);
+        MeshPart lines = meshPart("lines", GL20.GL_LINES, 4);
+
+        Node root = node(0f);
+        Node first = node(1f, a, lines);
+        Node second = node(2f, c);
+        Node third = node(1f, b);
+        root.children.add(first);
+        root.children.add(second);
+        first.children.add(third);
+        Array<Node> nodes = new Array<Node>();
+        nodes.add(root);
+
+        Array<MeshGroup> groups = BakedCollisionShape.collectMeshGroups(nodes);
+        assertEquals(2, groups.size);
+        assertEquals(2, groups.get(0).parts.size);
+        assertSame(a, groups.get(0).parts.get(0));
+        assertSame(b, groups.get(0).parts.get(1));
+        assertEquals(1f, groups.get(0).transform.val[12], 0f);
+        assertSame(c, groups.get(1).parts.first());
+        assertEquals(2f, groups.get(1).transform.val[12], 0f);
+        assertEquals(12, BakedCollisionShape.countTriangles(groups.get(0).parts));
+    }
+}
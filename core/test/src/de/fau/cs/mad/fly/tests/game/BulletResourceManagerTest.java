@@ -0,0 +1,144 @@
+package de.fau.cs.mad.fly.tests.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.physics.bullet.BulletBase;
+import com.badlogic.gdx.utils.Array;
+
+import de.fau.cs.mad.fly.game.BulletResourceManager;
+import de.fau.cs.mad.fly.game.BulletResourceManager.ResourceOwner;
+
+/** Test class for {@link BulletResourceManager} */
+public class BulletResourceManagerTest {
+
+    private BulletResourceManager manager;
+    private long nextPointer = 1;
+
+    /** Remembers the freed objects in the order they were freed. */
+    private final Array<BulletBase> freed = new Array<BulletBase>();
+
+    private final ResourceOwner owner = new ResourceOwner() {
+        @Override
+        public void freed(BulletBase resource) {
+            freed.add(resource);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        manager = new BulletResourceManager(null);
+        freed.clear();
+    }
+
+    /**
+     * Creates a native object that does not own native memory, so the native
+     * libraries are not needed.
+     */
+    private BulletBase createObject() {
+        return new BulletBase("TestObject", nextPointer++, false) {
+        };
+    }
+
+    @Test
+    public void testReleaseFreesObjectAndDependencies() {
+        BulletBase shape = createObject();
+        BulletBase info = createObject();
+        manager.manage(shape, 100, owner);
+        manager.manage(info, 10, owner, shape);
+        assertEquals(2, manager.getLiveObjects());
+        assertEquals(110, manager.getEstimatedNativeBytes());
+        assertEquals(1, manager.getReferences(shape));
+
+        manager.retain(info);
+        assertTrue(manager.release(info));
+        assertFalse(manager.isManaged(info));
+        assertFalse(manager.isManaged(shape));
+        assertEquals(0, manager.getLiveObjects());
+        assertEquals(0, manager.getEstimatedNativeBytes());
+        assertEquals(2, freed.size);
+        assertSame(info, freed.get(0));
+        assertSame(shape, freed.get(1));
+    }
+
+    @Test
+    public void testSharedDependencyIsKeptWhileReferenced() {
+        BulletBase shape = createObject();
+        BulletBase first = createObject();
+        BulletBase second = createObject();
+        manager.manage(shape, 100, owner);
+        manager.manage(first, 10, owner, shape);
+        manager.manage(second, 10, owner, shape);
+        assertEquals(2, manager.getReferences(shape));
+
+        manager.retain(first);
+        manager.release(first);
+        assertTrue(manager.isManaged(shape));
+        assertEquals(1, manager.getReferences(shape));
+
+        manager.retain(second);
+        manager.release(second);
+        assertFalse(manager.isManaged(shape));
+    }
+
+    @Test
+    public void testReleaseOfUnmanagedObjectIsIgnored() {
+        BulletBase object = createObject();
+        assertFalse(manager.release(object));
+
+        manager.manage(object, 1, owner);
+        manager.retain(object);
+        assertTrue(manager.release(object));
+        assertFalse(manager.release(object));
+        assertEquals(1, freed.size);
+    }
+
+    @Test
+    public void testAddedDependencyIsFreedWithObject() {
+        BulletBase shape = createObject();
+        BulletBase body = createObject();
+        BulletBase motionState = createObject();
+        manager.manage(shape, 100, owner);
+        manager.manage(body, 10, owner, shape);
+        manager.manage(motionState, 1, owner);
+        manager.addDependency(body, motionState);
+        assertEquals(1, manager.getReferences(motionState));
+
+        manager.retain(body);
+        assertTrue(manager.release(body));
+        assertFalse(manager.isManaged(motionState));
+        assertFalse(manager.isManaged(shape));
+        assertEquals(3, freed.size);
+        assertSame(body, freed.get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnmanagedAddedDependency() {
+        BulletBase object = createObject();
+        manager.manage(object, 1, null);
+        manager.addDependency(object, createObject());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnmanagedDependency() {
+        manager.manage(createObject(), 1, null, createObject());
+    }
+
+    @Test
+    public void testDisposeFreesEverything() {
+        BulletBase shape = createObject();
+        manager.manage(shape, 100, owner);
+        manager.manage(createObject(), 10, owner, shape);
+        manager.manage(createObject(), 10, owner);
+
+        manager.dispose();
+        assertEquals(0, manager.getLiveObjects());
+        assertEquals(0, manager.getEstimatedNativeBytes());
+        assertEquals(3, freed.size);
+    }
+}
@@ -0,0 +1,125 @@
+package de.fau.cs.mad.fly.tests.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.graphics.g3d.Model;
+
+import de.fau.cs.mad.fly.features.ICollisionCategoryListener;
+import de.fau.cs.mad.fly.features.ICollisionListener;
+import de.fau.cs.mad.fly.game.CollisionDetector;
+import de.fau.cs.mad.fly.game.CollisionRouter;
+import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.game.GameObject;
+
+/** Test class for {@link CollisionRouter} */
+public class CollisionRouterTest {
+    
+    private CollisionRouter router;
+    private GameObject player;
+    private GameObject gate;
+    private GameObject collectible;
+    private GameObject asteroid;
+    
+    /**
+     * Remembers the last collision and counts the collisions.
+     */
+    private static class CountingListener implements ICollisionListener {
+        int collisions = 0;
+        GameObject first;
+        GameObject second;
+        
+        @Override
+        public void onCollision(GameObject g1, GameObject g2) {
+            collisions++;
+            first = g1;
+            second = g2;
+        }
+    }
+    
+    @Before
+    public void setUp() {
+        router = new CollisionRouter();
+        player = createGameObject("player", CollisionDetector.PLAYER_CATEGORY);
+        gate = createGameObject("gate", CollisionDetector.GATE_GOAL_CATEGORY);
+        collectible = createGameObject("collectible", CollisionDetector.COLLECTIBLE_CATEGORY);
+        asteroid = createGameObject("asteroid", CollisionDetector.OBSTACLE_CATEGORY);
+    }
+    
+    private static GameObject createGameObject(String id, int category) {
+        GameObject gameObject = new GameObject(new GameModel(new Model(), null), id);
+        gameObject.setCollisionType(category);
+        return gameObject;
+    }
+    
+    @Test
+    public void testDefaultCategory() {
+        GameObject gameObject = new GameObject(new GameModel(new Model(), null), "object");
+        assertEquals(CollisionDetector.OBSTACLE_CATEGORY, gameObject.getCollisionCategory());
+    }
+    
+    @Test
+    public void testRoutesOnlyToRegisteredCategories() {
+        CountingListener gateListener = new CountingListener();
+        CountingListener obstacleListener = new CountingListener();
+        router.addListener(gateListener, CollisionDetector.GATE_GOAL_CATEGORY);
+        router.addListener(obstacleListener, CollisionDetector.GATE_DISPLAY_CATEGORY | CollisionDetector.OBSTACLE_CATEGORY);
+        
+        router.route(player, gate);
+        router.route(player, collectible);
+        router.route(asteroid, player);
+        
+        assertEquals(1, gateListener.collisions);
+        assertSame(gate, gateListener.second);
+        assertEquals(1, obstacleListener.collisions);
+        assertSame(asteroid, obstacleListener.second);
+    }
+    
+    @Test
+    public void testPlayerIsFirst() {
+        CountingListener listener = new CountingListener();
+        router.addListener(listener);
+        
+        router.route(collectible, player);
+        assertSame(player, listener.first);
+        assertSame(collectible, listener.second);
+    }
+    
+    @Test
+    public void testCategoryListener() {
+        final int[] collisions = new int[1];
+        router.addListener(new ICollisionCategoryListener() {
+            @Override
+            public int getCollisionCategories() {
+                return CollisionDetector.COLLECTIBLE_CATEGORY;
+            }
+            
+            @Override
+            public void onCollision(GameObject g1, GameObject g2) {
+                collisions[0]++;
+            }
+        });
+        assertEquals(1, router.getListenerCount(CollisionDetector.COLLECTIBLE_CATEGORY));
+        assertEquals(0, router.getListenerCount(CollisionDetector.GATE_GOAL_CATEGORY));
+        
+        router.route(player, gate);
+        router.route(player, collectible);
+        assertEquals(1, collisions[0]);
+    }
+    
+    @Test
+    public void testRemoveListener() {
+        CountingListener listener = new CountingListener();
+        router.addListener(listener);
+        router.removeListener(listener);
+        
+        for (int i = 0; i < CollisionRouter.CATEGORY_COUNT; i++) {
+            assertEquals(0, router.getListenerCount(1 << i));
+        }
+        router.route(player, asteroid);
+        assertEquals(0, listener.collisions);
+    }
+}
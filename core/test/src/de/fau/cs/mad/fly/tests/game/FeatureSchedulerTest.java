@@ -0,0 +1,162 @@
+package de.fau.cs.mad.fly.tests.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import de.fau.cs.mad.fly.features.IFeatureDependent;
+import de.fau.cs.mad.fly.features.IFeatureDraw;
+import de.fau.cs.mad.fly.features.IFeatureParallelUpdate;
+import de.fau.cs.mad.fly.features.IFeatureUpdate;
+import de.fau.cs.mad.fly.game.FeatureScheduler;
+import de.fau.cs.mad.fly.game.FeatureScheduler.Phase;
+import de.fau.cs.mad.fly.game.FeatureScheduler.Timing;
+
+/** Test class for {@link FeatureScheduler} */
+public class FeatureSchedulerTest {
+
+    /** Updated features in the order of their updates. */
+    private List<Object> updated;
+
+    private FeatureScheduler scheduler;
+
+    private class UpdateFeature implements IFeatureUpdate {
+        @Override
+        public void update(float delta) {
+            updated.add(this);
+        }
+    }
+
+    private class ParallelFeature implements IFeatureParallelUpdate {
+        private final int state;
+
+        ParallelFeature(int state) {
+            this.state = state;
+        }
+
+        @Override
+        public int getSharedState() {
+            return state;
+        }
+
+        @Override
+        public void update(float delta) {
+            updated.add(this);
+        }
+    }
+
+    private class DependentFeature extends UpdateFeature implements IFeatureDependent {
+        private final Class<?>[] dependencies;
+
+        DependentFeature(Class<?>... dependencies) {
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public Class<?>[] getDependencies() {
+            return dependencies;
+        }
+    }
+
+    private class DrawFeature implements IFeatureDraw {
+        @Override
+        public void draw(float delta) {
+            updated.add(this);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        updated = Collections.synchronizedList(new ArrayList<Object>());
+        scheduler = new FeatureScheduler();
+    }
+
+    @Test
+    public void testFeaturesRunInTheirPhases() {
+        UpdateFeature update = new UpdateFeature();
+        DrawFeature draw = new DrawFeature();
+        scheduler.add(draw);
+        scheduler.add(update);
+
+        scheduler.update(0f);
+        assertEquals(Collections.<Object> singletonList(update), updated);
+        scheduler.draw(0f);
+        assertEquals(2, updated.size());
+        assertEquals(1, scheduler.getFeatures(Phase.DRAW).size);
+        assertEquals(0, scheduler.getFeatures(Phase.LOAD).size);
+    }
+
+    @Test
+    public void testDependenciesRunFirst() {
+        DependentFeature dependent = new DependentFeature(ParallelFeature.class);
+        UpdateFeature first = new UpdateFeature();
+        ParallelFeature parallel = new ParallelFeature(0);
+        scheduler.add(dependent);
+        scheduler.add(first);
+        scheduler.add(parallel);
+
+        scheduler.update(0f);
+        assertEquals(first, updated.get(0));
+        assertEquals(parallel, updated.get(1));
+        assertEquals(dependent, updated.get(2));
+    }
+
+    @Test(expected = GdxRuntimeException.class)
+    public void testCyclicDependencies() {
+        scheduler.add(new DependentFeature(DependentFeature.class));
+        scheduler.add(new DependentFeature(DependentFeature.class));
+        scheduler.update(0f);
+    }
+
+    @Test
+    public void testBatchesOfIndependentFeatures() {
+        scheduler.add(new ParallelFeature(FeatureScheduler.WORLD_STATE));
+        scheduler.add(new ParallelFeature(FeatureScheduler.STAGE_STATE));
+        scheduler.add(new ParallelFeature(FeatureScheduler.PLAYER_STATE));
+        // shares the state of the last feature
+        scheduler.add(new ParallelFeature(FeatureScheduler.PLAYER_STATE));
+        scheduler.add(new UpdateFeature());
+        scheduler.add(new ParallelFeature(0));
+        assertEquals(4, scheduler.getUpdateBatches());
+
+        scheduler.startWorkers(2);
+        try {
+            for (int i = 0; i < 100; i++) {
+                scheduler.nextFrame();
+                scheduler.update(0f);
+            }
+        } finally {
+            scheduler.stopWorkers();
+        }
+        assertEquals(600, updated.size());
+        assertTrue(scheduler.getWorkers() == null);
+        for (Timing timing : scheduler.getTimings(Phase.UPDATE)) {
+            assertEquals(100, timing.getCalls());
+        }
+    }
+
+    @Test
+    public void testTimingsOfTheLastFrames() {
+        scheduler.add(new UpdateFeature());
+        Timing timing = scheduler.getTimings(Phase.UPDATE).first();
+        for (int i = 0; i < FeatureScheduler.FRAMES * 2; i++) {
+            scheduler.nextFrame();
+            scheduler.update(0f);
+        }
+        scheduler.nextFrame();
+
+        assertEquals("FeatureSchedulerTest$UpdateFeature.update", timing.getName());
+        assertEquals(FeatureScheduler.FRAMES * 2, timing.getCalls());
+        assertTrue(timing.getAverageNanos() > 0);
+        assertTrue(timing.getMaxNanos() >= timing.getAverageNanos());
+        assertTrue(scheduler.getTiming(Phase.UPDATE).getTotalNanos() >= timing.getTotalNanos());
+    }
+}
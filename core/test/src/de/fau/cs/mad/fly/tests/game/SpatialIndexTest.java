@@ -0,0 +1,233 @@
+package de.fau.cs.mad.fly.tests.game;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import com.badlogic.gdx.utils.Array;
+
+import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.game.GameObject;
+import de.fau.cs.mad.fly.game.SpatialIndex;
+
+/** Test class for {@link SpatialIndex} */
+public class SpatialIndexTest {
+    
+    private SpatialIndex index;
+    private Array<GameObject> result;
+    
+    @Before
+    public void setUp() {
+        index = new SpatialIndex(10.0f);
+        result = new Array<GameObject>();
+    }
+    
+    /**
+     * Game object with a fixed bounding radius, which does not need a mesh and
+     * therefore no native libraries.
+     */
+    private static class TestObject extends GameObject {
+        private final float radius;
+        
+        public TestObject(String id, float radius, float x, float y, float z) {
+            super(new GameModel(new Model(), null), id);
+            this.radius = radius;
+            transform.setToTranslation(x, y, z);
+        }
+        
+        @Override
+        public float getBoundingRadius() {
+            return radius;
+        }
+    }
+    
+    /**
+     * Game object whose bounds center is 15 units away from its position on
+     * the x axis.
+     */
+    private static class OffsetObject extends TestObject {
+        public OffsetObject(String id, float x, float y, float z) {
+            super(id, 0.5f, x, y, z);
+        }
+        
+        @Override
+        public BoundingBox calculateBoundingBox(BoundingBox out) {
+            return out.set(new Vector3(14, -1, -1), new Vector3(16, 1, 1));
+        }
+    }
+    
+    private GameObject small(String id, float x, float y, float z) {
+        return new TestObject(id, 0.5f, x, y, z);
+    }
+    
+    private GameObject large(String id, float x, float y, float z) {
+        return new TestObject(id, 85.0f, x, y, z);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCellSize() {
+        new SpatialIndex(0.0f);
+    }
+    
+    @Test
+    public void testAddAndRemove() {
+        GameObject a = small("a", 0, 0, 0);
+        GameObject b = large("b", 0, 0, 0);
+        index.add(a);
+        index.add(b);
+        index.add(a);
+        assertEquals(2, index.size());
+        
+        assertTrue(index.remove(a));
+        assertFalse(index.remove(a));
+        assertEquals(1, index.size());
+        
+        index.clear();
+        assertEquals(0, index.size());
+        index.querySphere(new Vector3(), 100.0f, result);
+        assertEquals(0, result.size);
+    }
+    
+    @Test
+    public void testQuerySphere() {
+        GameObject near = small("near", 1, 0, 0);
+        GameObject otherCell = small("otherCell", 0, 0, -12);
+        GameObject far = small("far", 100, 0, 0);
+        GameObject large = large("large", 500, 0, 0);
+        index.add(near);
+        index.add(otherCell);
+        index.add(far);
+        index.add(large);
+        
+        index.querySphere(new Vector3(0, 0, -5), 7.0f, result);
+        assertEquals(2, result.size);
+        assertTrue(result.contains(near, true));
+        assertTrue(result.contains(otherCell, true));
+        
+        // the large object reaches up to the query because of its radius
+        index.querySphere(new Vector3(420, 0, 0), 1.0f, result);
+        assertEquals(1, result.size);
+        assertSame(large, result.first());
+    }
+    
+    @Test
+    public void testUpdate() {
+        GameObject object = small("object", 0, 0, 0);
+        index.add(object);
+        
+        object.transform.setToTranslation(55, 0, 0);
+        index.querySphere(new Vector3(55, 0, 0), 1.0f, result);
+        assertEquals(0, result.size);
+        
+        object.invalidateBounds();
+        index.querySphere(new Vector3(55, 0, 0), 1.0f, result);
+        assertEquals(1, result.size);
+        index.querySphere(new Vector3(0, 0, 0), 1.0f, result);
+        assertEquals(0, result.size);
+    }
+    
+    @Test
+    public void testRefreshDynamic() {
+        GameObject object = small("object", 0, 0, 0);
+        index.addDynamic(object);
+        
+        object.transform.setToTranslation(0, -40, 0);
+        index.refresh();
+        assertSame(object, index.nearest(new Vector3(0, -40, 0), 1.0f));
+    }
+    
+    @Test
+    public void testNearest() {
+        GameObject a = small("a", 3, 0, 0);
+        GameObject b = small("b", -2, 0, 0);
+        GameObject c = small("c", 0, 25, 0);
+        index.add(a);
+        index.add(b);
+        index.add(c);
+        
+        assertSame(b, index.nearest(new Vector3(), 10.0f));
+        assertSame(c, index.nearest(new Vector3(0, 20, 0), 10.0f));
+        assertNull(index.nearest(new Vector3(0, 20, 0), 4.0f));
+        // the distance has to be smaller than the maximal distance
+        assertNull(index.nearest(new Vector3(), 2.0f));
+    }
+    
+    @Test
+    public void testNearest2() {
+        GameObject a = small("a", 3, 0, 0);
+        GameObject b = small("b", -2, 0, 0);
+        GameObject c = small("c", 0, 25, 0);
+        GameObject d = small("d", 40, 0, 0);
+        index.add(a);
+        index.add(b);
+        index.add(c);
+        index.add(d);
+        
+        assertSame(b, index.nearest2(new Vector3(), 100.0f));
+        assertSame(c, index.nearest2(new Vector3(0, 20, 0), 100.0f));
+        assertNull(index.nearest2(new Vector3(0, 20, 0), 16.0f));
+        // the squared distance has to be smaller than the maximal one
+        assertNull(index.nearest2(new Vector3(), 4.0f));
+        // two cells away
+        assertSame(d, index.nearest2(new Vector3(40, 36, 0), 37.0f * 37.0f));
+        assertNull(index.nearest2(new Vector3(40, 36, 0), 35.0f * 35.0f));
+    }
+    
+    @Test
+    public void testNearest2WithoutLimit() {
+        GameObject a = small("a", 3, 0, 0);
+        GameObject b = small("b", 1000, 0, 0);
+        index.add(a);
+        index.add(b);
+        
+        assertSame(b, index.nearest2(new Vector3(900, 0, 0), Float.POSITIVE_INFINITY));
+        assertSame(a, index.nearest2(new Vector3(), Float.MAX_VALUE));
+        assertSame(a, index.nearest(new Vector3(), Float.POSITIVE_INFINITY));
+    }
+    
+    @Test
+    public void testNearestMeasuresToBoundsCenter() {
+        GameObject offset = new OffsetObject("offset", 0, 0, 0);
+        index.add(offset);
+        
+        assertSame(offset, index.nearest(new Vector3(16, 0, 0), 2.0f));
+        assertSame(offset, index.nearest2(new Vector3(16, 0, 0), 4.0f));
+        assertNull(index.nearest(new Vector3(), 2.0f));
+        assertNull(index.nearest2(new Vector3(), 4.0f));
+    }
+    
+    @Test
+    public void testQueryFrustum() {
+        // box shaped frustum looking along the negative z axis
+        Frustum frustum = new Frustum();
+        frustum.planes[0].set(1, 0, 0, 50);
+        frustum.planes[1].set(-1, 0, 0, 50);
+        frustum.planes[2].set(0, 1, 0, 50);
+        frustum.planes[3].set(0, -1, 0, 50);
+        frustum.planes[4].set(0, 0, -1, -0.1f);
+        frustum.planes[5].set(0, 0, 1, 100);
+        
+        GameObject inFront = small("inFront", 0, 0, -20);
+        GameObject behind = small("behind", 0, 0, 20);
+        GameObject tooFar = small("tooFar", 0, 0, -300);
+        GameObject large = large("large", 0, 0, 60);
+        index.add(inFront);
+        index.add(behind);
+        index.add(tooFar);
+        index.add(large);
+        
+        index.queryFrustum(frustum, result);
+        assertEquals(2, result.size);
+        assertTrue(result.contains(inFront, true));
+        assertTrue(result.contains(large, true));
+    }
+}
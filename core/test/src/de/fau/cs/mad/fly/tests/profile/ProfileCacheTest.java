@@ -0,0 +1,101 @@
+package de.fau.cs.mad.fly.tests.profile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fau.cs.mad.fly.profile.ProfileCache;
+import de.fau.cs.mad.fly.profile.Score;
+
+/** Test class for {@link ProfileCache} */
+public class ProfileCacheTest {
+
+    /** A cache without database, every player starts without data. */
+    private static class EmptyProfileCache extends ProfileCache {
+        @Override
+        protected void load(int playerId) {
+        }
+    }
+
+    private ProfileCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new EmptyProfileCache();
+    }
+
+    private static Score score(int totalScore) {
+        Score score = new Score();
+        score.setTotalScore(totalScore);
+        return score;
+    }
+
+    @Test
+    public void testTotalScoreIsKeptUpToDate() {
+        cache.putBestScore(1, 1, 1, score(100));
+        cache.putBestScore(1, 1, 2, score(50));
+        cache.putBestScore(1, 2, 1, score(30));
+        assertEquals(180, cache.getTotalScore(1));
+
+        // a new best score replaces the old one
+        cache.putBestScore(1, 1, 1, score(120));
+        assertEquals(200, cache.getTotalScore(1));
+        assertEquals(120, cache.getBestScore(1, 1, 1).getTotalScore());
+        assertEquals(2, cache.getBestScores(1, 1).size);
+        assertNull(cache.getBestScore(1, 3, 1));
+        assertEquals(1, cache.getLoads());
+    }
+
+    @Test
+    public void testCachedScoreIsACopy() {
+        Score score = score(100);
+        cache.putBestScore(1, 1, 1, score);
+        score.setTotalScore(500);
+        assertEquals(100, cache.getBestScore(1, 1, 1).getTotalScore());
+
+        cache.setUploaded(1, 1, 1, true);
+        cache.setServerScoreId(1, 1, 1, 7);
+        assertTrue(cache.getBestScore(1, 1, 1).isUploaded());
+        assertEquals(7, cache.getBestScore(1, 1, 1).getServerScoreId());
+        assertFalse(score.isUploaded());
+    }
+
+    @Test
+    public void testReturnedScoresAreCopies() {
+        cache.putBestScore(1, 1, 1, score(100));
+        Score returned = cache.getBestScore(1, 1, 1);
+        returned.setIsUploaded(true);
+        returned.setServerScoreId(7);
+        cache.getBestScores(1, 1).get(1).setTotalScore(500);
+
+        Score cached = cache.getBestScore(1, 1, 1);
+        assertFalse(cached.isUploaded());
+        assertEquals(-1, cached.getServerScoreId());
+        assertEquals(100, cached.getTotalScore());
+        assertEquals(100, cache.getTotalScore(1));
+    }
+
+    @Test
+    public void testOtherPlayerIsLoaded() {
+        cache.putBestScore(1, 1, 1, score(100));
+        cache.putEquiped(1, 2, "speed", 1);
+        cache.putUpgrade(1, 2, "speed", 3);
+        assertEquals(1, cache.getEquiped(1, 2).get("speed", 0));
+        assertEquals(3, cache.getUpgrades(1, 2).get("speed", 0));
+        assertNull(cache.getUpgrades(1, 1));
+
+        assertEquals(0, cache.getTotalScore(2));
+        assertNull(cache.getEquiped(2, 2));
+        assertEquals(2, cache.getLoads());
+
+        cache.invalidate(1);
+        assertEquals(2, cache.getLoads());
+        cache.invalidate(2);
+        cache.getTotalScore(2);
+        assertEquals(3, cache.getLoads());
+    }
+}
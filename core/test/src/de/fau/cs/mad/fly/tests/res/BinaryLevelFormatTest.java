@@ -0,0 +1,151 @@
+package de.fau.cs.mad.fly.tests.res;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+
+import de.fau.cs.mad.fly.res.BinaryLevelFormat;
+import de.fau.cs.mad.fly.res.LevelDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.CollectibleDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.GateDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.ObjectDescriptor;
+import de.fau.cs.mad.fly.res.LevelParser;
+
+/** Test class for {@link BinaryLevelFormat} */
+public class BinaryLevelFormatTest {
+    
+    /**
+     * Every level json file that is shipped with the game. The tests run in
+     * the core folder or in the root folder of the project.
+     */
+    private static List<File> levelFiles() {
+        File levels = new File("../android/assets/levels");
+        if (!levels.isDirectory()) {
+            levels = new File("android/assets/levels");
+        }
+        assertTrue("levels folder not found", levels.isDirectory());
+        List<File> files = new ArrayList<File>();
+        for (File group : levels.listFiles()) {
+            File[] groupFiles = group.listFiles();
+            if (groupFiles == null) {
+                continue;
+            }
+            for (File file : groupFiles) {
+                if (file.getName().endsWith(".json") && !"group.json".equals(file.getName())) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+    
+    private static byte[] write(LevelDescriptor level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryLevelFormat.write(level, out);
+        return out.toByteArray();
+    }
+    
+    @Test
+    public void testRoundTripOfShippedLevels() throws IOException {
+        LevelParser parser = new LevelParser();
+        JsonReader reader = new JsonReader();
+        List<File> files = levelFiles();
+        assertTrue(files.size() > 0);
+        for (File file : files) {
+            LevelDescriptor json = parser.parse(reader.parse(new FileHandle(file)));
+            byte[] compiled = write(json);
+            LevelDescriptor binary = BinaryLevelFormat.read(ByteBuffer.wrap(compiled));
+            
+            assertLevelEquals(file.getPath(), json, binary);
+            assertArrayEquals(file.getPath(), compiled, write(binary));
+        }
+    }
+    
+    @Test(expected = RuntimeException.class)
+    public void testRejectsOtherFiles() {
+        BinaryLevelFormat.read(ByteBuffer.wrap("{ \"id\": 1 }".getBytes()));
+    }
+    
+    private void assertLevelEquals(String message, LevelDescriptor expected, LevelDescriptor actual) {
+        assertEquals(message, expected.name, actual.name);
+        assertEquals(message, expected.id, actual.id);
+        assertEquals(message, expected.time, actual.time);
+        assertEquals(message, expected.levelClass, actual.levelClass);
+        assertEquals(message, expected.start.position, actual.start.position);
+        assertEquals(message, expected.start.viewDirection, actual.start.viewDirection);
+        assertEquals(message, expected.start.upDirection, actual.start.upDirection);
+        assertEquals(message, expected.dependencies, actual.dependencies);
+        assertEquals(message, expected.gravityType, actual.gravityType);
+        assertArrayEquals(message, expected.gravityVector, actual.gravityVector, 0f);
+        assertEquals(message, expected.gravityStrength, actual.gravityStrength, 0f);
+        assertArrayEquals(message, expected.ambientLight, actual.ambientLight, 0f);
+        assertArrayEquals(message, expected.lightingAmbientLight, actual.lightingAmbientLight, 0f);
+        assertEquals(message, expected.directionalLights.size(), actual.directionalLights.size());
+        for (int i = 0; i < expected.directionalLights.size(); i++) {
+            assertArrayEquals(message, expected.directionalLights.get(i), actual.directionalLights.get(i), 0f);
+        }
+        assertEquals(message, expected.pointLights.size(), actual.pointLights.size());
+        for (int i = 0; i < expected.pointLights.size(); i++) {
+            assertArrayEquals(message, expected.pointLights.get(i), actual.pointLights.get(i), 0f);
+        }
+        
+        assertEquals(message, expected.components.size(), actual.components.size());
+        for (int i = 0; i < expected.components.size(); i++) {
+            assertObjectEquals(message, expected.components.get(i), actual.components.get(i));
+        }
+        
+        assertEquals(message, expected.gates.size(), actual.gates.size());
+        for (int i = 0; i < expected.gates.size(); i++) {
+            GateDescriptor e = expected.gates.get(i);
+            GateDescriptor a = actual.gates.get(i);
+            assertObjectEquals(message, e, a);
+            assertEquals(message, e.dummy, a.dummy);
+            assertEquals(message, e.gateId, a.gateId);
+            assertEquals(message, e.refHole, a.refHole);
+            assertEquals(message, e.score, a.score);
+            assertArrayEquals(message, e.successors, a.successors);
+        }
+        
+        assertEquals(message, expected.collectibles.size(), actual.collectibles.size());
+        for (int i = 0; i < expected.collectibles.size(); i++) {
+            CollectibleDescriptor e = expected.collectibles.get(i);
+            CollectibleDescriptor a = actual.collectibles.get(i);
+            assertObjectEquals(message, e, a);
+            assertEquals(message, e.type, a.type);
+            assertEquals(message, e.time, a.time);
+            assertEquals(message, e.points, a.points);
+            assertEquals(message, e.maxSpeedupFactor, a.maxSpeedupFactor, 0f);
+            assertEquals(message, e.speedupTime, a.speedupTime);
+            assertEquals(message, e.maxSpeedTime, a.maxSpeedTime);
+            assertEquals(message, e.slowdownTime, a.slowdownTime);
+            assertArrayEquals(message, e.resizeFactor, a.resizeFactor, 0f);
+            assertEquals(message, e.roll, a.roll, 0f);
+            assertEquals(message, e.azimuth, a.azimuth, 0f);
+            assertEquals(message, e.duration, a.duration, 0f);
+        }
+    }
+    
+    private void assertObjectEquals(String message, ObjectDescriptor expected, ObjectDescriptor actual) {
+        assertEquals(message, expected.id, actual.id);
+        assertEquals(message, expected.ref, actual.ref);
+        assertEquals(message, expected.environment, actual.environment);
+        assertEquals(message, expected.visible, actual.visible);
+        assertArrayEquals(message, expected.transform, actual.transform, 0f);
+        assertArrayEquals(message, expected.sinusX, actual.sinusX, 0f);
+        assertArrayEquals(message, expected.sinusY, actual.sinusY, 0f);
+        assertArrayEquals(message, expected.sinusZ, actual.sinusZ, 0f);
+        assertArrayEquals(message, expected.angularVelocity, actual.angularVelocity, 0f);
+    }
+}
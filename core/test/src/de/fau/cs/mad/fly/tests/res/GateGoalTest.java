@@ -0,0 +1,58 @@
+package de.fau.cs.mad.fly.tests.res;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.graphics.g3d.Model;
+import com.badlogic.gdx.math.Quaternion;
+import com.badlogic.gdx.math.Vector3;
+
+import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.res.GateGoal;
+
+/** Test class for {@link GateGoal#isPassedBy(Vector3, Vector3)} */
+public class GateGoalTest {
+
+    private GateGoal goal;
+
+    @Before
+    public void setUp() {
+        goal = new GateGoal(1, new GameModel(new Model(), null), 10, null);
+        goal.transform.setToTranslation(0f, 5f, 0f);
+    }
+
+    @Test
+    public void testCrossingThroughTheDisc() {
+        assertTrue(goal.isPassedBy(new Vector3(0f, 4.9f, 0f), new Vector3(0f, 5.1f, 0f)));
+        assertTrue(goal.isPassedBy(new Vector3(0.5f, 5.2f, 0.3f), new Vector3(0.5f, 4.8f, 0.3f)));
+    }
+
+    @Test
+    public void testLargeStepDoesNotTunnel() {
+        assertTrue(goal.isPassedBy(new Vector3(0f, -100f, 0f), new Vector3(0f, 100f, 0f)));
+    }
+
+    @Test
+    public void testNoCrossing() {
+        assertFalse(goal.isPassedBy(new Vector3(0f, 3f, 0f), new Vector3(0f, 4.9f, 0f)));
+        assertFalse(goal.isPassedBy(new Vector3(0f, 5.1f, 0f), new Vector3(0f, 8f, 0f)));
+    }
+
+    @Test
+    public void testCrossingBesideTheDisc() {
+        assertFalse(goal.isPassedBy(new Vector3(0.7f, 4f, 0.7f), new Vector3(0.7f, 6f, 0.7f)));
+        assertFalse(goal.isPassedBy(new Vector3(2f, 4f, 0f), new Vector3(2f, 6f, 0f)));
+    }
+
+    @Test
+    public void testRotatedAndScaledGoal() {
+        // the disc lies in the yz plane with radius 1.6
+        goal.transform.set(new Vector3(0f, 5f, 0f), new Quaternion(Vector3.Z, 90f), new Vector3(2f, 2f, 2f));
+        assertTrue(goal.isPassedBy(new Vector3(-1f, 6.5f, 0f), new Vector3(1f, 6.5f, 0f)));
+        assertFalse(goal.isPassedBy(new Vector3(-1f, 6.7f, 0f), new Vector3(1f, 6.7f, 0f)));
+        assertFalse(goal.isPassedBy(new Vector3(0.5f, 4f, 0f), new Vector3(0.5f, 6f, 0f)));
+    }
+}
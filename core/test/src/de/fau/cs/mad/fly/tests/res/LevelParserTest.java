@@ -0,0 +1,163 @@
+package de.fau.cs.mad.fly.tests.res;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.JsonReader;
+
+import de.fau.cs.mad.fly.res.LevelDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.CollectibleDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.GateDescriptor;
+import de.fau.cs.mad.fly.res.LevelDescriptor.ObjectDescriptor;
+import de.fau.cs.mad.fly.res.LevelParser;
+
+/** Test class for {@link LevelParser} */
+public class LevelParserTest {
+    
+    private static final String LEVEL = "{"
+            + "\"name\": \"Test\", \"id\": 7, \"time\": 120, \"class\": \"TestLevel\","
+            + "\"start\": { \"position\": { \"x\": 1, \"y\": 2, \"z\": 3 } },"
+            + "\"components\": ["
+            + "  { \"id\": \"space\", \"ref\": \"space\", \"environment\": \"ambient\" },"
+            + "  { \"id\": \"rock\", \"ref\": \"rock\", \"visible\": false, \"position\": [4, 5, 6], \"euler\": [90, 0, 0],"
+            + "    \"sinus_x\": [100, 2, 3], \"angular_velocity\": [0, 1, 0] }"
+            + "],"
+            + "\"dependencies\": { \"space\": \"spacesphere\", \"rock\": \"asteroid\", \"hole\": \"torusHoleBox\" },"
+            + "\"environments\": {"
+            + "  \"ambient\": [1, 1, 1, 1],"
+            + "  \"lighting\": { \"ambientLight\": [0.3, 0.3, 0.3, 1],"
+            + "    \"directionalLights\": [ { \"color\": [0.8, 0.8, 0.8, 1], \"direction\": [-1, 0.8, -0.2] } ],"
+            + "    \"pointLights\": [ { \"color\": [1, 0, 0, 1], \"position\": [0, 10, 0], \"intensity\": 50 } ] }"
+            + "},"
+            + "\"gravity\": { \"type\": \"ConstantGravity\", \"direction\": [0, -9.81, 0] },"
+            + "\"gates\": ["
+            + "  { \"successors\": [0] },"
+            + "  { \"gateId\": 0, \"ref\": \"torus\", \"refHole\": \"hole\", \"score\": 70, \"position\": [0, 0, 10], \"successors\": [1, 2] },"
+            + "  { \"gateId\": 1, \"ref\": \"torus\", \"refHole\": \"hole\", \"transformMatrix\": [1,0,0,0, 0,1,0,0, 0,0,1,0, 5,5,5,1], \"successors\": [] }"
+            + "],"
+            + "\"upgrades\": ["
+            + "  { \"id\": \"time\", \"type\": \"ChangeTimeUpgrade\", \"ref\": \"rock\", \"time\": 10, \"position\": [1, 1, 1] },"
+            + "  { \"id\": \"untyped\", \"ref\": \"rock\" },"
+            + "  { \"id\": \"resize\", \"type\": \"ResizeGatesUpgrade\", \"ref\": \"rock\", \"resizeFactor\": [2, 2, 2] }"
+            + "]"
+            + "}";
+    
+    private File file;
+    
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("level", ".json");
+        new FileHandle(file).writeString(LEVEL, false, "UTF-8");
+    }
+    
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+    
+    @Test
+    public void testParse() {
+        check(new LevelParser().parse(new JsonReader().parse(LEVEL)));
+    }
+    
+    @Test
+    public void testParseStreaming() {
+        check(new LevelParser().parseStreaming(new FileHandle(file)));
+    }
+    
+    @Test
+    public void testModesAreEqual() {
+        LevelParser parser = new LevelParser();
+        LevelDescriptor dom = parser.parse(new JsonReader().parse(LEVEL));
+        LevelDescriptor streamed = parser.parseStreaming(new FileHandle(file));
+        assertEquals(dom.getObjectCount(), streamed.getObjectCount());
+        for (int i = 0; i < dom.components.size(); i++) {
+            assertArrayEquals(dom.components.get(i).transform, streamed.components.get(i).transform, 0.0001f);
+        }
+        for (int i = 0; i < dom.gates.size(); i++) {
+            assertArrayEquals(dom.gates.get(i).transform, streamed.gates.get(i).transform, 0.0001f);
+            assertArrayEquals(dom.gates.get(i).successors, streamed.gates.get(i).successors);
+        }
+        assertEquals(parser.getParsedObjects(), streamed.getObjectCount());
+    }
+    
+    @Test
+    public void testObjectCount() {
+        LevelParser parser = new LevelParser();
+        parser.parse(new JsonReader().parse(LEVEL));
+        // the untyped upgrade is counted, but not read
+        assertEquals(8, parser.getObjectCount());
+        assertEquals(7, parser.getParsedObjects());
+        
+        parser.parseStreaming(new FileHandle(file));
+        assertEquals(8, parser.getObjectCount());
+        assertEquals(7, parser.getParsedObjects());
+    }
+    
+    private void check(LevelDescriptor level) {
+        assertEquals("Test", level.name);
+        assertEquals(7, level.id);
+        assertEquals(120, level.time);
+        assertEquals("TestLevel", level.levelClass);
+        assertEquals(2f, level.start.position.y, 0f);
+        assertEquals("models/asteroid/asteroid", level.dependencies.get("rock"));
+        assertEquals(3, level.dependencies.size());
+        
+        assertEquals("ConstantGravity", level.gravityType);
+        assertEquals(-9.81f, level.gravityVector[1], 0.0001f);
+        
+        assertEquals(1f, level.ambientLight[0], 0f);
+        assertEquals(0.3f, level.lightingAmbientLight[0], 0.0001f);
+        assertEquals(1, level.directionalLights.size());
+        assertEquals(-0.2f, level.directionalLights.get(0)[6], 0.0001f);
+        assertEquals(1, level.pointLights.size());
+        assertEquals(50f, level.pointLights.get(0)[7], 0f);
+        
+        assertEquals(2, level.components.size());
+        ObjectDescriptor space = level.components.get(0);
+        assertEquals("space", space.ref);
+        assertEquals("ambient", space.environment);
+        assertTrue(space.visible);
+        assertNull(space.sinusX);
+        ObjectDescriptor rock = level.components.get(1);
+        assertFalse(rock.visible);
+        assertNull(rock.environment);
+        assertEquals(5f, rock.transform[13], 0.0001f);
+        assertEquals(100f, rock.sinusX[0], 0f);
+        assertNull(rock.sinusY);
+        assertEquals(1f, rock.angularVelocity[1], 0f);
+        
+        assertEquals(3, level.gates.size());
+        GateDescriptor dummy = level.gates.get(0);
+        assertTrue(dummy.dummy);
+        assertArrayEquals(new int[] { 0 }, dummy.successors);
+        GateDescriptor gate = level.gates.get(1);
+        assertEquals(0, gate.gateId);
+        assertEquals("hole", gate.refHole);
+        assertEquals(70, gate.score);
+        assertEquals(10f, gate.transform[14], 0f);
+        assertArrayEquals(new int[] { 1, 2 }, gate.successors);
+        assertEquals(50, level.gates.get(2).score);
+        assertEquals(5f, level.gates.get(2).transform[12], 0f);
+        assertEquals(0, level.gates.get(2).successors.length);
+        
+        assertEquals(2, level.collectibles.size());
+        CollectibleDescriptor time = level.collectibles.get(0);
+        assertEquals("ChangeTimeUpgrade", time.type);
+        assertEquals(10, time.time);
+        assertEquals(2f, level.collectibles.get(1).resizeFactor[2], 0f);
+        
+        assertEquals(7, level.getObjectCount());
+    }
+}
@@ -0,0 +1,122 @@
+package de.fau.cs.mad.fly.tests.res;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g3d.Model;
+
+import de.fau.cs.mad.fly.game.GameModel;
+import de.fau.cs.mad.fly.res.ModelCache;
+
+/** Test class for {@link ModelCache} */
+public class ModelCacheTest {
+
+    /** Each cached game model counts as 100 bytes. */
+    private static final long MODEL_BYTES = 100;
+
+    /** Asset manager the game models can be added to without loading them. */
+    private static class TestAssetManager extends AssetManager {
+        void add(String fileName, GameModel model) {
+            addAsset(fileName, GameModel.class, model);
+        }
+    }
+
+    private TestAssetManager manager;
+    private ModelCache cache;
+    private GameModel a;
+    private GameModel b;
+    private GameModel c;
+
+    private GameModel model(String fileName) {
+        GameModel model = new GameModel(new Model(), null);
+        manager.add(fileName, model);
+        return model;
+    }
+
+    @Before
+    public void setUp() {
+        manager = new TestAssetManager();
+        cache = new ModelCache(manager, 2 * MODEL_BYTES) {
+            @Override
+            protected long sizeOf(GameModel model) {
+                return MODEL_BYTES;
+            }
+        };
+        a = model("a");
+        b = model("b");
+        c = model("c");
+    }
+
+    @Test
+    public void testReleasedModelsStayLoaded() {
+        List<GameModel> level = Arrays.asList(a, b);
+        cache.acquire(level);
+        assertEquals(2, cache.getModelMisses());
+        assertEquals(1, manager.getReferenceCount("a"));
+
+        cache.release(level);
+        // the level unloads its models, the cache still holds them
+        manager.unload("a");
+        manager.unload("b");
+        assertTrue(manager.isLoaded("a"));
+        assertTrue(manager.isLoaded("b"));
+        assertEquals(2 * MODEL_BYTES, cache.getUnusedBytes());
+
+        // the next level loads the model again and the cache lets it go
+        manager.setReferenceCount("a", manager.getReferenceCount("a") + 1);
+        cache.acquire(Collections.singletonList(a));
+        assertEquals(1, cache.getModelHits());
+        assertEquals(1, manager.getReferenceCount("a"));
+        assertEquals(MODEL_BYTES, cache.getUnusedBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictedFirst() {
+        cache.acquire(Collections.singletonList(a));
+        cache.acquire(Collections.singletonList(b));
+        cache.acquire(Collections.singletonList(c));
+        cache.release(Collections.singletonList(a));
+        cache.release(Collections.singletonList(b));
+        cache.release(Collections.singletonList(c));
+        for (String fileName : new String[] { "a", "b", "c" }) {
+            manager.unload(fileName);
+        }
+
+        assertEquals(1, cache.getEvictions());
+        assertFalse(manager.isLoaded("a"));
+        assertTrue(manager.isLoaded("b"));
+        assertTrue(manager.isLoaded("c"));
+        assertEquals(2, cache.getCachedModels());
+    }
+
+    @Test
+    public void testUsedModelsAreNotEvicted() {
+        List<GameModel> level = Arrays.asList(a, b, c);
+        cache.acquire(level);
+        cache.setBudget(0);
+        assertEquals(3, cache.getCachedModels());
+        assertEquals(0, cache.getEvictions());
+
+        cache.release(level);
+        assertEquals(0, cache.getCachedModels());
+        assertEquals(3, cache.getEvictions());
+        assertEquals(1, manager.getReferenceCount("a"));
+    }
+
+    @Test
+    public void testShapesOfUncachedModels() {
+        assertNull(cache.takeShape(a, "convex:a"));
+        assertFalse(cache.putShape(a, "convex:a", null));
+        assertEquals(1, cache.getShapeMisses());
+    }
+}
@@ -7,6 +7,8 @@ import com.sun.rowset.CachedRowSetImpl;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.sql.DatabaseCursor;
 import com.badlogic.gdx.sql.DatabaseFactory;
+import com.badlogic.gdx.sql.RowMapper;
+import com.badlogic.gdx.sql.RowMappers;
 import com.badlogic.gdx.sql.SQLiteGdxRuntimeException;
 
 /**
@@ -21,9 +23,10 @@ public class DesktopCursor implements DatabaseCursor {
 	/**
 	 * Reference of {@code CachedRowSetImpl} Class Type created for both
 	 * forward, backward, and random traversing the records, as for ResultSet
-	 * Class Type sqlite does not support other than forward traversing
+	 * Class Type sqlite does not support other than forward traversing. A
+	 * streamed cursor references the {@code ResultSet} of the driver instead.
 	 */
-	private CachedRowSetImpl resultSet = null;
+	private ResultSet resultSet = null;
 
 	@Override
 	public byte[] getBlob(int columnIndex) {
@@ -109,6 +112,9 @@ public class DesktopCursor implements DatabaseCursor {
 
 	@Override
 	public int getCount() {
+		if (resultSet != null && !(resultSet instanceof CachedRowSetImpl)) {
+			throw new UnsupportedOperationException("A streamed cursor can not count its rows.");
+		}
 		return getRowCount(resultSet);
 	}
 
@@ -122,6 +128,11 @@ public class DesktopCursor implements DatabaseCursor {
 		}
 	}
 
+	@Override
+	public <T> int forEach(RowMapper<T> mapper, T target) {
+		return RowMappers.forEach(this, mapper, target);
+	}
+
 	private int getRowCount(ResultSet resultSet) {
 
 		if (resultSet == null) {
@@ -153,8 +164,9 @@ public class DesktopCursor implements DatabaseCursor {
 
 	public void setNativeCursor(ResultSet resultSetRef) {
 		try {
-			resultSet = new CachedRowSetImpl();
-			resultSet.populate(resultSetRef);
+			CachedRowSetImpl cachedRowSet = new CachedRowSetImpl();
+			cachedRowSet.populate(resultSetRef);
+			resultSet = cachedRowSet;
 		} catch (SQLException e) {
 			Gdx.app.log(DatabaseFactory.ERROR_TAG,
 					"There was an error in setting native cursor", e);
@@ -163,4 +175,13 @@ public class DesktopCursor implements DatabaseCursor {
 
 	}
 
+	/**
+	 * Streams the rows of the {@code ResultSet} without copying them. The
+	 * cursor can only be moved forward, {@link #getCount()} is not supported
+	 * and closing the cursor closes the {@code ResultSet}.
+	 */
+	public void setStreamedCursor(ResultSet resultSetRef) {
+		resultSet = resultSetRef;
+	}
+
 }
@@ -12,6 +12,8 @@ import com.badlogic.gdx.sql.Database;
 import com.badlogic.gdx.sql.DatabaseCursor;
 import com.badlogic.gdx.sql.DatabaseFactory;
 import com.badlogic.gdx.sql.DatabaseManager;
+import com.badlogic.gdx.sql.DatabaseStatement;
+import com.badlogic.gdx.sql.SQLiteGdxRuntimeException;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 
 /** @author M Rafay Aleem */
@@ -60,6 +62,11 @@ public class DesktopDatabaseManager implements DatabaseManager {
 
 				connection = DriverManager.getConnection("jdbc:sqlite:" + dbName);
 				stmt = connection.createStatement();
+				// with a write-ahead log a commit appends to the log instead of
+				// rewriting the journal and the database, and it only has to be
+				// synced at checkpoints
+				stmt.execute("PRAGMA journal_mode=WAL");
+				stmt.execute("PRAGMA synchronous=NORMAL");
 				helper.onCreate(stmt);
 			} catch (SQLException e) {
 				throw new RuntimeException(e);
@@ -115,6 +122,71 @@ public class DesktopDatabaseManager implements DatabaseManager {
 			}
 		}
 
+		@Override
+		public DatabaseStatement prepare(String sql) {
+			try {
+				return new DesktopStatement(connection.prepareStatement(sql));
+			} catch (SQLException e) {
+				throw new SQLiteGdxRuntimeException(e);
+			}
+		}
+
+		@Override
+		public void beginTransaction() {
+			try {
+				connection.setAutoCommit(false);
+			} catch (SQLException e) {
+				throw new SQLiteGdxRuntimeException(e);
+			}
+		}
+
+		@Override
+		public void commitTransaction() {
+			boolean committed = false;
+			try {
+				connection.commit();
+				committed = true;
+			} catch (SQLException e) {
+				throw new SQLiteGdxRuntimeException(e);
+			} finally {
+				// the failed transaction must not stay open for the next statements
+				endTransaction(committed);
+			}
+		}
+
+		@Override
+		public void rollbackTransaction() {
+			try {
+				if (connection.getAutoCommit()) {
+					return;
+				}
+				connection.rollback();
+				connection.setAutoCommit(true);
+			} catch (SQLException e) {
+				throw new SQLiteGdxRuntimeException(e);
+			}
+		}
+
+		/**
+		 * Rolls back the transaction, if it was not committed, and switches back
+		 * to auto commit.
+		 */
+		private void endTransaction(boolean committed) {
+			try {
+				if (!committed) {
+					connection.rollback();
+				}
+			} catch (SQLException e) {
+				Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in rolling back the failed transaction", e);
+			} finally {
+				try {
+					connection.setAutoCommit(true);
+				} catch (SQLException e) {
+					Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in switching back to auto commit", e);
+				}
+			}
+		}
+
 	}
 
 	@Override
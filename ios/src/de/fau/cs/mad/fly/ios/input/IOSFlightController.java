@@ -58,17 +58,8 @@ public class IOSFlightController extends FlightController{
         roll = (float) (currentAttitude.getRoll() * 180 / Math.PI);
         pitch = -(float) (currentAttitude.getPitch() * 180 / Math.PI);
 
-        Gdx.app.log("IOSFlightController.interpretSensorInput", "Current roll: " + roll + "\nCurrent pitch: " + pitch + "\nStarting roll: " + startRoll + ". Starting pitch: " + startPitch);
-
-        // removing oldest element in buffers
-        if (rollInput.size() >= bufferSize) {
-            rollInput.remove(0);
-            pitchInput.remove(0);
-        }
-
         // adding newest sensor-data to buffers
-        rollInput.add(roll);
-        pitchInput.add(pitch);
+        bufferSensorInput(roll, pitch);
 
         roll = average(rollInput);
         pitch = average(pitchInput);
@@ -7,21 +7,19 @@ import com.badlogic.gdx.math.Vector3;
 import java.util.ArrayList;
 import java.util.List;
 
-import de.fau.cs.mad.fly.features.ICollisionListener;
+import de.fau.cs.mad.fly.features.ICollisionCategoryListener;
 import de.fau.cs.mad.fly.features.game.EndlessLevelGenerator;
 import de.fau.cs.mad.fly.features.game.EndlessRailLevelGenerator;
-import de.fau.cs.mad.fly.features.upgrades.types.Collectible;
+import de.fau.cs.mad.fly.game.CollisionDetector;
 import de.fau.cs.mad.fly.game.GameObject;
 import de.fau.cs.mad.fly.player.Player;
 import de.fau.cs.mad.fly.profile.PlayerProfile;
-import de.fau.cs.mad.fly.res.GateDisplay;
-import de.fau.cs.mad.fly.res.GateGoal;
 import de.fau.cs.mad.fly.res.Perspective;
 
 /**
  * Created by tschaei on 13.10.14.
  */
-public class IOSRailFlightController extends IOSFlightController implements ICollisionListener {
+public class IOSRailFlightController extends IOSFlightController implements ICollisionCategoryListener {
 
     private EndlessRailLevelGenerator generator;
 
@@ -176,10 +174,15 @@ public class IOSRailFlightController extends IOSFlightController implements ICol
         return false;
     }
 
+    @Override
+    public int getCollisionCategories() {
+        return CollisionDetector.GATE_DISPLAY_CATEGORY | CollisionDetector.OBSTACLE_CATEGORY;
+    }
+
     @Override
     public void onCollision(GameObject g1, GameObject g2) {
 
-        if(g2 instanceof GateDisplay) {
+        if(g2.getCollisionCategory() == CollisionDetector.GATE_DISPLAY_CATEGORY) {
             if(generator.checkAsteroidPosition(currentPosition, railX * railOffset, railY * railOffset)) {
                 railX -= changeX;
                 railY -= changeY;
@@ -190,7 +193,7 @@ public class IOSRailFlightController extends IOSFlightController implements ICol
             changeX = changeY = 0;
             changeRailX = changeRailY = false;
 
-        } else if(!(g2 instanceof GateGoal) && !(g2 instanceof Collectible)) {
+        } else if(g2.getCollisionCategory() == CollisionDetector.OBSTACLE_CATEGORY) {
             //asteroid
             while(generator.checkAsteroidPosition(currentPosition, railX * railOffset, railY * railOffset)) {
                 Vector3 newPos = generateRandomAdjacentPosition();
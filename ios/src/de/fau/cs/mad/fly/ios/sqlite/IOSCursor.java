@@ -3,6 +3,8 @@ package de.fau.cs.mad.fly.ios.sqlite;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.sql.DatabaseCursor;
 import com.badlogic.gdx.sql.DatabaseFactory;
+import com.badlogic.gdx.sql.RowMapper;
+import com.badlogic.gdx.sql.RowMappers;
 import com.badlogic.gdx.sql.SQLiteGdxRuntimeException;
 
 import java.sql.Blob;
@@ -113,6 +115,11 @@ public class IOSCursor implements DatabaseCursor {
         }
     }
 
+    @Override
+    public <T> int forEach(RowMapper<T> mapper, T target) {
+        return RowMappers.forEach(this, mapper, target);
+    }
+
     private int getRowCount(ResultSet resultSet) {
 
         if (resultSet == null) {
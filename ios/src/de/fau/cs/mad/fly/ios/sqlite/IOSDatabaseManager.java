@@ -13,6 +13,8 @@ import com.badlogic.gdx.sql.Database;
 import com.badlogic.gdx.sql.DatabaseCursor;
 import com.badlogic.gdx.sql.DatabaseFactory;
 import com.badlogic.gdx.sql.DatabaseManager;
+import com.badlogic.gdx.sql.DatabaseStatement;
+import com.badlogic.gdx.sql.SQLiteGdxRuntimeException;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 
 import org.robovm.apple.foundation.Foundation;
@@ -123,6 +125,71 @@ public class IOSDatabaseManager implements DatabaseManager {
             }
         }
 
+        @Override
+        public DatabaseStatement prepare(String sql) {
+            try {
+                return new IOSStatement(connection.prepareStatement(sql));
+            } catch (SQLException e) {
+                throw new SQLiteGdxRuntimeException(e);
+            }
+        }
+
+        @Override
+        public void beginTransaction() {
+            try {
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                throw new SQLiteGdxRuntimeException(e);
+            }
+        }
+
+        @Override
+        public void commitTransaction() {
+            boolean committed = false;
+            try {
+                connection.commit();
+                committed = true;
+            } catch (SQLException e) {
+                throw new SQLiteGdxRuntimeException(e);
+            } finally {
+                // the failed transaction must not stay open for the next statements
+                endTransaction(committed);
+            }
+        }
+
+        @Override
+        public void rollbackTransaction() {
+            try {
+                if (connection.getAutoCommit()) {
+                    return;
+                }
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                throw new SQLiteGdxRuntimeException(e);
+            }
+        }
+
+        /**
+         * Rolls back the transaction, if it was not committed, and switches back
+         * to auto commit.
+         */
+        private void endTransaction(boolean committed) {
+            try {
+                if (!committed) {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in rolling back the failed transaction", e);
+            } finally {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in switching back to auto commit", e);
+                }
+            }
+        }
+
     }
 
     @Override
@@ -0,0 +1,118 @@
+package de.fau.cs.mad.fly.ios.sqlite;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.sql.DatabaseCursor;
+import com.badlogic.gdx.sql.DatabaseFactory;
+import com.badlogic.gdx.sql.DatabaseStatement;
+import com.badlogic.gdx.sql.RowMapper;
+import com.badlogic.gdx.sql.SQLiteGdxRuntimeException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+public class IOSStatement implements DatabaseStatement {
+
+    private final PreparedStatement statement;
+
+    public IOSStatement(PreparedStatement statement) {
+        this.statement = statement;
+    }
+
+    @Override
+    public void bindInt(int index, int value) {
+        try {
+            statement.setInt(index, value);
+        } catch (SQLException e) {
+            throw new SQLiteGdxRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        try {
+            statement.setLong(index, value);
+        } catch (SQLException e) {
+            throw new SQLiteGdxRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        try {
+            statement.setDouble(index, value);
+        } catch (SQLException e) {
+            throw new SQLiteGdxRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void bindString(int index, String value) {
+        if (value == null) {
+            bindNull(index);
+            return;
+        }
+        try {
+            statement.setString(index, value);
+        } catch (SQLException e) {
+            throw new SQLiteGdxRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void bindNull(int index) {
+        try {
+            statement.setNull(index, Types.NULL);
+        } catch (SQLException e) {
+            throw new SQLiteGdxRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void clearBindings() {
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            throw new SQLiteGdxRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void execute() {
+        try {
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in executing the statement", e);
+            throw new SQLiteGdxRuntimeException(e);
+        }
+    }
+
+    @Override
+    public DatabaseCursor query() {
+        IOSCursor cursor = new IOSCursor();
+        try {
+            // the result set is closed together with the cursor
+            cursor.setNativeCursor(statement.executeQuery());
+            return cursor;
+        } catch (SQLException e) {
+            Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in executing the query", e);
+            throw new SQLiteGdxRuntimeException(e);
+        }
+    }
+
+    @Override
+    public <T> int query(RowMapper<T> mapper, T target) {
+        return query().forEach(mapper, target);
+    }
+
+    @Override
+    public void close() {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in closing the statement", e);
+            throw new SQLiteGdxRuntimeException(e);
+        }
+    }
+
+}